@@ -0,0 +1,220 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.codegen.JdbcMapper;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+
+/**
+ * Runs many small transactions as one, so they share a single commit, for when commits (and the fsync behind each)
+ * cost more than the work in them.
+ * <p>
+ * runInTransaction queues the query, a single worker thread takes up to maxGroupSize queued queries, waiting at most
+ * maxWaitMicros after the first for more to show up, and runs them one after the other on one connection in one
+ * transaction. Each runs inside its own savepoint, so one that throws is rolled back alone and the rest still commit.
+ * Every future is completed after the commit, exceptionally with what its query threw, or with what the commit threw.
+ * <p>
+ * Queries in a group see each other's changes, and must not commit, rollback, or change auto-commit themselves.
+ * <p>
+ * close() stops taking new queries, and returns once the queued ones have ran.
+ * <p>
+ * This is Java 8+ only.
+ */
+public class GroupCommitRunner<T extends JdbcMapper> implements Closeable {
+
+	private final Factory<T> factory;
+	private final int maxGroupSize;
+	private final long maxWaitNanos;
+	private final BlockingQueue<Member<T, ?>> queue = new LinkedBlockingQueue<>();
+	private final Thread worker;
+	private final AtomicLong commits = new AtomicLong(), queries = new AtomicLong();
+	private volatile boolean closed = false;
+
+	public GroupCommitRunner(final Factory<T> factory, final int maxGroupSize, final long maxWaitMicros) {
+		if (factory == null)
+			throw new NullPointerException("factory must be non-null");
+		if (maxGroupSize < 1)
+			throw new IllegalArgumentException("maxGroupSize must be > 0");
+		if (maxWaitMicros < 0)
+			throw new IllegalArgumentException("maxWaitMicros must be >= 0");
+		this.factory = factory;
+		this.maxGroupSize = maxGroupSize;
+		this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+		this.worker = new Thread(this::work, "GroupCommitRunner");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/**
+	 * @return number of commits so far, each for a group of one or more queries
+	 */
+	public long getCommitCount() {
+		return commits.get();
+	}
+
+	/**
+	 * @return number of queries ran so far, not counting those cancelled before their turn came
+	 */
+	public long getQueryCount() {
+		return queries.get();
+	}
+
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	public <E> CompletableFuture<E> runInTransaction(final QueryRunner.Runner<T, E> query) {
+		if (query == null)
+			throw new NullPointerException("query must be non-null");
+		final Member<T, E> member = new Member<>(query);
+		synchronized (queue) {
+			if (closed)
+				throw new IllegalStateException("GroupCommitRunner is closed");
+			queue.add(member);
+		}
+		return member.future;
+	}
+
+	@Override
+	public void close() {
+		synchronized (queue) {
+			closed = true;
+		}
+		try {
+			worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void work() {
+		final List<Member<T, ?>> group = new ArrayList<>(maxGroupSize);
+		try {
+			while (!closed || !queue.isEmpty()) {
+				final Member<T, ?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null)
+					continue;
+				group.add(first);
+				final long deadline = System.nanoTime() + maxWaitNanos;
+				while (group.size() < maxGroupSize) {
+					final long remaining = deadline - System.nanoTime();
+					final Member<T, ?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+					if (next == null)
+						break;
+					group.add(next);
+				}
+				runGroup(group);
+				group.clear();
+			}
+		} catch (InterruptedException e) {
+			// nothing here interrupts the worker, but if something else does don't leave anyone waiting forever
+			synchronized (queue) {
+				closed = true;
+			}
+			for (final Member<T, ?> member : group)
+				member.future.completeExceptionally(e);
+			for (Member<T, ?> member; (member = queue.poll()) != null; )
+				member.future.completeExceptionally(e);
+		}
+	}
+
+	private void runGroup(final List<Member<T, ?>> group) {
+		T dao = null;
+		Throwable groupError = null;
+		int ran = 0;
+		try {
+			dao = factory.create();
+			final Connection conn = dao.getConnection();
+			conn.setAutoCommit(false);
+			try {
+				final boolean useSavepoints = group.size() > 1;
+				for (final Member<T, ?> member : group) {
+					// don't bother if it was cancelled while waiting
+					if (member.future.isDone())
+						continue;
+					++ran;
+					final Savepoint savepoint = useSavepoints ? conn.setSavepoint() : null;
+					try {
+						member.run(dao);
+						if (savepoint != null)
+							releaseSavepoint(conn, savepoint);
+					} catch (Throwable e) {
+						member.error = e;
+						if (savepoint != null)
+							conn.rollback(savepoint);
+						else
+							conn.rollback();
+					}
+				}
+				conn.commit();
+				commits.incrementAndGet();
+			} catch (Throwable e) {
+				groupError = e;
+				try {
+					conn.rollback();
+				} catch (SQLException excep) {
+					// ignore to report original
+				}
+			} finally {
+				try {
+					conn.setAutoCommit(true);
+				} catch (SQLException excep) {
+					// ignore
+				}
+			}
+		} catch (Throwable e) {
+			groupError = e;
+		} finally {
+			tryClose(dao);
+		}
+		queries.addAndGet(ran);
+		for (final Member<T, ?> member : group)
+			member.complete(groupError);
+	}
+
+	private static void releaseSavepoint(final Connection conn, final Savepoint savepoint) {
+		try {
+			conn.releaseSavepoint(savepoint);
+		} catch (SQLException e) {
+			// not all drivers support this, and the commit releases it anyway
+		}
+	}
+
+	private static class Member<T, E> {
+		final QueryRunner.Runner<T, E> query;
+		final CompletableFuture<E> future = new CompletableFuture<>();
+		E result;
+		Throwable error;
+
+		Member(final QueryRunner.Runner<T, E> query) {
+			this.query = query;
+		}
+
+		void run(final T dao) throws SQLException {
+			result = query.run(dao);
+		}
+
+		/**
+		 * @param groupError if not null, the whole group was rolled back because of it
+		 */
+		void complete(final Throwable groupError) {
+			if (error != null)
+				future.completeExceptionally(error);
+			else if (groupError != null)
+				future.completeExceptionally(groupError);
+			else
+				future.complete(result);
+		}
+	}
+}
@@ -4,6 +4,12 @@ import com.moparisthebest.jdbc.codegen.JdbcMapper;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.*;
 
 import static com.moparisthebest.jdbc.TryClose.tryClose;
@@ -11,6 +17,17 @@ import static com.moparisthebest.jdbc.TryClose.tryClose;
 
 /**
  * Created by mopar on 6/30/17.
+ * <p>
+ * Only SQLExceptions the RetryClassifier calls retryable are retried, by default those with a connection (08) or
+ * transaction rollback (40) SQLState class, see transientSqlStates().
+ * <p>
+ * runRetryCompletableFuture, and runRetryFuture on Java 8+, wait out the delay between attempts on a
+ * ScheduledExecutorService instead of sleeping on a thread.
+ * <p>
+ * withCircuitBreaker shares one CircuitBreaker between everything this QueryRunner runs, and every one made from it
+ * by the with* methods other than withFactory, to fail fast instead of retrying once the database looks down.
+ * <p>
+ * withConcurrencyLimiter is shared the same way, capping how many run at once, see ConcurrencyLimiter.
  */
 public class QueryRunner<T extends JdbcMapper> {
 
@@ -19,25 +36,52 @@ public class QueryRunner<T extends JdbcMapper> {
 			Executors.newCachedThreadPool()
 			//ForkJoinPool.commonPool()
 			; // todo: good or bad default?
+	private static final ScheduledExecutorService defaultScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread ret = new Thread(r, "QueryRunner-retry-scheduler");
+			ret.setDaemon(true);
+			return ret;
+		}
+	});
+	private static final RetryClassifier defaultRetryClassifier = sqlStateClasses("08", "40");
 
 	private final Factory<T> factory;
 	private final DelayStrategy delayStrategy;
 	private final int retryCount;
 	private final ExecutorService executorService;
-
-	private QueryRunner(final Factory<T> factory, final int retryCount, final DelayStrategy delayStrategy, final ExecutorService executorService) {
+	private final ScheduledExecutorService scheduledExecutorService;
+	private final RetryClassifier retryClassifier;
+	private final CircuitBreaker circuitBreaker;
+	private final ConcurrencyLimiter concurrencyLimiter;
+
+	private QueryRunner(final Factory<T> factory, final int retryCount, final DelayStrategy delayStrategy, final ExecutorService executorService,
+						final ScheduledExecutorService scheduledExecutorService, final RetryClassifier retryClassifier, final CircuitBreaker circuitBreaker,
+						final ConcurrencyLimiter concurrencyLimiter) {
 		if (factory == null)
 			throw new NullPointerException("factory must be non-null");
 		if (delayStrategy == null)
 			throw new NullPointerException("delayStrategy must be non-null");
 		if (executorService == null)
 			throw new NullPointerException("executorService must be non-null");
+		if (scheduledExecutorService == null)
+			throw new NullPointerException("scheduledExecutorService must be non-null");
+		if (retryClassifier == null)
+			throw new NullPointerException("retryClassifier must be non-null");
 		if (retryCount < 0)
 			throw new IllegalArgumentException("retryCount must be >= 0");
 		this.factory = factory;
 		this.delayStrategy = delayStrategy;
 		this.retryCount = retryCount;
 		this.executorService = executorService;
+		this.scheduledExecutorService = scheduledExecutorService;
+		this.retryClassifier = retryClassifier;
+		this.circuitBreaker = circuitBreaker;
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	private QueryRunner(final Factory<T> factory, final int retryCount, final DelayStrategy delayStrategy, final ExecutorService executorService) {
+		this(factory, retryCount, delayStrategy, executorService, defaultScheduledExecutorService, defaultRetryClassifier, null, null);
 	}
 
 	public static <T extends JdbcMapper> QueryRunner<T> noRetry(final Factory<T> factory, final ExecutorService executorService) {
@@ -65,43 +109,108 @@ public class QueryRunner<T extends JdbcMapper> {
 	}
 
 	public QueryRunner<T> withRetryCount(final int retryCount) {
-		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService);
+		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService, scheduledExecutorService, retryClassifier, circuitBreaker, concurrencyLimiter);
 	}
 
 	public QueryRunner<T> withDelayStrategy(final DelayStrategy delayStrategy) {
-		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService);
+		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService, scheduledExecutorService, retryClassifier, circuitBreaker, concurrencyLimiter);
 	}
 
 	public QueryRunner<T> withExecutorService(final ExecutorService executorService) {
-		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService);
+		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService, scheduledExecutorService, retryClassifier, circuitBreaker, concurrencyLimiter);
 	}
 
+	/**
+	 * @param scheduledExecutorService waits out the delay between attempts of runRetryCompletableFuture, then hands the
+	 *                                 next attempt to the ExecutorService, so a single thread is plenty
+	 */
+	public QueryRunner<T> withScheduledExecutorService(final ScheduledExecutorService scheduledExecutorService) {
+		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService, scheduledExecutorService, retryClassifier, circuitBreaker, concurrencyLimiter);
+	}
+
+	public QueryRunner<T> withRetryClassifier(final RetryClassifier retryClassifier) {
+		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService, scheduledExecutorService, retryClassifier, circuitBreaker, concurrencyLimiter);
+	}
+
+	/**
+	 * @param circuitBreaker null to turn it off
+	 */
+	public QueryRunner<T> withCircuitBreaker(final CircuitBreaker circuitBreaker) {
+		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService, scheduledExecutorService, retryClassifier, circuitBreaker, concurrencyLimiter);
+	}
+
+	/**
+	 * The CircuitBreaker isn't kept because the new factory probably isn't the same database, but a new one with the same
+	 * settings is made if there is one
+	 */
 	public <T extends JdbcMapper> QueryRunner<T> withFactory(final Factory<T> factory) {
-		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService);
+		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService, scheduledExecutorService, retryClassifier,
+				circuitBreaker == null ? null : new CircuitBreaker(circuitBreaker.failureThreshold, circuitBreaker.openMillis),
+				concurrencyLimiter == null ? null : concurrencyLimiter.copy());
+	}
+
+	/**
+	 * @param concurrencyLimiter null to turn it off
+	 */
+	public QueryRunner<T> withConcurrencyLimiter(final ConcurrencyLimiter concurrencyLimiter) {
+		return new QueryRunner<T>(factory, retryCount, delayStrategy, executorService, scheduledExecutorService, retryClassifier, circuitBreaker, concurrencyLimiter);
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
 	}
 
 	public <E> E run(final Runner<T, E> query) throws SQLException {
 		if (query == null)
 			throw new NullPointerException("query must be non-null");
+		if (concurrencyLimiter != null)
+			concurrencyLimiter.acquire();
+		final long start = System.nanoTime();
+		boolean dropped = false;
 		T dao = null;
 		try {
 			dao = factory.create();
 			return query.run(dao);
+		} catch (SQLException e) {
+			dropped = retryClassifier.isRetryable(e);
+			throw e;
 		} finally {
 			tryClose(dao);
+			if (concurrencyLimiter != null)
+				concurrencyLimiter.release(System.nanoTime() - start, dropped);
 		}
 	}
 
 	public <E> E runInTransaction(final Runner<T, E> query) throws SQLException {
 		if (query == null)
 			throw new NullPointerException("query must be non-null");
+		if (concurrencyLimiter != null)
+			concurrencyLimiter.acquire();
+		return runInTransactionAcquired(query);
+	}
+
+	/**
+	 * runInTransaction with the ConcurrencyLimiter permit already held if there is one, released here
+	 */
+	private <E> E runInTransactionAcquired(final Runner<T, E> query) throws SQLException {
+		final long start = System.nanoTime();
+		boolean dropped = false;
 		T dao = null;
 		try {
 			dao = factory.create();
 			return runInTransaction(dao, query);
+		} catch (SQLException e) {
+			dropped = retryClassifier.isRetryable(e);
+			throw e;
 		} finally {
 			if (dao != null)
 				tryClose(dao);
+			if (concurrencyLimiter != null)
+				concurrencyLimiter.release(System.nanoTime() - start, dropped);
 		}
 	}
 
@@ -199,13 +308,72 @@ public class QueryRunner<T extends JdbcMapper> {
 		}
 	}
 
+	/**
+	 * runInTransaction, guarded by the CircuitBreaker if there is one
+	 */
+	private <E> E runAttempt(final Runner<T, E> query) throws SQLException {
+		if (circuitBreaker != null)
+			circuitBreaker.before();
+		if (concurrencyLimiter != null)
+			try {
+				concurrencyLimiter.acquire();
+			} catch (ConcurrencyLimitExceededException e) {
+				abandonAttempt();
+				throw e;
+			}
+		return runAttemptAcquired(query);
+	}
+
+	/**
+	 * Shed before the database was asked, says nothing about it
+	 */
+	private void abandonAttempt() {
+		if (circuitBreaker != null)
+			circuitBreaker.inconclusive();
+	}
+
+	/**
+	 * runAttempt after CircuitBreaker.before and with the ConcurrencyLimiter permit already held
+	 */
+	private <E> E runAttemptAcquired(final Runner<T, E> query) throws SQLException {
+		if (circuitBreaker == null)
+			return runInTransactionAcquired(query);
+		boolean answered = false, retryable = false;
+		try {
+			final E ret = runInTransactionAcquired(query);
+			answered = true;
+			return ret;
+		} catch (SQLException e) {
+			retryable = retryClassifier.isRetryable(e);
+			// a non-retryable error still means the database answered
+			answered = !retryable;
+			throw e;
+		} finally {
+			// RuntimeExceptions and Errors come from our own code, they count as neither
+			if (retryable)
+				circuitBreaker.failure();
+			else if (answered)
+				circuitBreaker.success();
+			else
+				circuitBreaker.inconclusive();
+		}
+	}
+
+	private boolean isRetryable(final SQLException e, final int attempt) {
+		return attempt < retryCount && !(e instanceof CircuitBreakerOpenException) && !(e instanceof ConcurrencyLimitExceededException)
+				&& retryClassifier.isRetryable(e);
+	}
+
+	/**
+	 * Sleeps this thread between attempts, see runRetryCompletableFuture to not
+	 */
 	public <E> E runRetry(final Runner<T, E> query) throws SQLException {
 		int x = 0;
 		while(true) {
 			try {
-				return runInTransaction(query);
+				return runAttempt(query);
 			} catch (SQLException e) {
-				if(x == retryCount)
+				if(!isRetryable(e, x))
 					throw e;
 				try {
 					Thread.sleep(delayStrategy.getDelay(++x));
@@ -216,38 +384,472 @@ public class QueryRunner<T extends JdbcMapper> {
 		}
 	}
 
+	/**
+	 * On Java 8+ this is runRetryCompletableFuture, on Java 6 it runs runRetry on the ExecutorService
+	 */
 	public <E> Future<E> runRetryFuture(final Runner<T, E> query) {
-		// todo: sleeps in thread, could use ScheduledExecutorService maybe?
-		return executorService.submit(
-				//IFJAVA8_START
-				() -> runRetry(query)
-				//IFJAVA8_END
-				/*IFJAVA6_START
-				new Callable<E>() {
-					@Override
-					public E call() throws Exception {
-						return runRetry(query);
-					}
-				}
-				IFJAVA6_END*/
-		);
+		//IFJAVA8_START
+		return runRetryCompletableFuture(query);
+		//IFJAVA8_END
+		/*IFJAVA6_START
+		return executorService.submit(new Callable<E>() {
+			@Override
+			public E call() throws Exception {
+				return runRetry(query);
+			}
+		});
+		IFJAVA6_END*/
 	}
 
 	//IFJAVA8_START
 
+	// Runs attempts on the ExecutorService, waiting out the delay between them on the ScheduledExecutorService so no
+	// thread is held in between, the returned future completes exceptionally with the last SQLException if they all fail
+	// (not javadoc, the jdk6 build comments this whole block out)
 	public <E> CompletableFuture<E> runRetryCompletableFuture(final Runner<T, E> query) {
-		// todo: sleeps in thread, could use ScheduledExecutorService maybe?
-		return CompletableFuture.supplyAsync(() -> {
+		if (query == null)
+			throw new NullPointerException("query must be non-null");
+		final CompletableFuture<E> ret = new CompletableFuture<>();
+		scheduleAttempt(query, ret, 0, 0);
+		return ret;
+	}
+
+	private <E> void scheduleAttempt(final Runner<T, E> query, final CompletableFuture<E> ret, final int attempt, final long delay) {
+		final Runnable acquired = () -> {
+			if (ret.isDone()) { // cancelled while queued on the ConcurrencyLimiter
+				if (concurrencyLimiter != null)
+					concurrencyLimiter.cancel();
+				abandonAttempt();
+				return;
+			}
 			try {
-				return runRetry(query);
+				ret.complete(runAttemptAcquired(query));
 			} catch (SQLException e) {
-				throw new RuntimeException(e);
+				if (isRetryable(e, attempt))
+					scheduleAttempt(query, ret, attempt + 1, delayStrategy.getDelay(attempt + 1));
+				else
+					ret.completeExceptionally(e);
+			} catch (Throwable e) {
+				ret.completeExceptionally(e);
+			}
+		};
+		final Runnable run = () -> {
+			if (ret.isDone()) // cancelled
+				return;
+			try {
+				if (circuitBreaker != null)
+					circuitBreaker.before();
+			} catch (CircuitBreakerOpenException e) {
+				ret.completeExceptionally(e);
+				return;
+			}
+			if (concurrencyLimiter == null) {
+				acquired.run();
+				return;
+			}
+			// over the limit this thread goes back to the pool, and the release that frees a permit hands it over
+			final Runnable waiter = () -> {
+				try {
+					executorService.execute(acquired);
+				} catch (RejectedExecutionException e) {
+					concurrencyLimiter.cancel();
+					abandonAttempt();
+					ret.completeExceptionally(e);
+				}
+			};
+			try {
+				if (concurrencyLimiter.acquireOrQueue(waiter)) {
+					acquired.run();
+					return;
+				}
+				scheduledExecutorService.schedule(() -> {
+					if (concurrencyLimiter.dequeue(waiter)) {
+						abandonAttempt();
+						ret.completeExceptionally(new ConcurrencyLimitExceededException("concurrency limit " + concurrencyLimiter.getLimit()
+								+ " reached and waited " + concurrencyLimiter.getMaxWaitMillis() + "ms"));
+					}
+				}, concurrencyLimiter.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+			} catch (ConcurrencyLimitExceededException e) {
+				abandonAttempt();
+				ret.completeExceptionally(e);
 			}
-		}, executorService);
+		};
+		try {
+			if (delay > 0)
+				scheduledExecutorService.schedule(() -> {
+					try {
+						executorService.execute(run);
+					} catch (RejectedExecutionException e) {
+						ret.completeExceptionally(e);
+					}
+				}, delay, TimeUnit.MILLISECONDS);
+			else
+				executorService.execute(run);
+		} catch (RejectedExecutionException e) {
+			ret.completeExceptionally(e);
+		}
 	}
 
 	//IFJAVA8_END
 
+	/**
+	 * Decides which SQLExceptions are worth retrying
+	 */
+	public static interface RetryClassifier {
+		boolean isRetryable(SQLException e);
+	}
+
+	/**
+	 * @return the default RetryClassifier, retries SQLTransientException, SQLRecoverableException, and SQLStates of
+	 * class 08 (connection exception) and 40 (transaction rollback, which includes 40001 serialization failures and
+	 * deadlocks)
+	 */
+	public static RetryClassifier transientSqlStates() {
+		return defaultRetryClassifier;
+	}
+
+	/**
+	 * @return a RetryClassifier retrying SQLTransientException, SQLRecoverableException, and SQLStates starting with
+	 * any of sqlStateClasses
+	 */
+	public static RetryClassifier sqlStateClasses(final String... sqlStateClasses) {
+		return new RetryClassifier() {
+			@Override
+			public boolean isRetryable(final SQLException e) {
+				if (e instanceof SQLTransientException || e instanceof SQLRecoverableException)
+					return true;
+				final String sqlState = e.getSQLState();
+				if (sqlState != null)
+					for (final String sqlStateClass : sqlStateClasses)
+						if (sqlState.startsWith(sqlStateClass))
+							return true;
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return a RetryClassifier retrying every SQLException, which is how QueryRunner used to work
+	 */
+	public static RetryClassifier retryAll() {
+		return new RetryClassifier() {
+			@Override
+			public boolean isRetryable(final SQLException e) {
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Opens after failureThreshold retryable failures in a row, failing every attempt with a
+	 * CircuitBreakerOpenException for openMillis, then lets a single attempt through, closing again if it succeeds
+	 * or staying open another openMillis if it fails.
+	 * <p>
+	 * Success means the database answered, either normally or with an SQLException that is not retryable. Attempts
+	 * shed by a ConcurrencyLimiter or failing with a RuntimeException are inconclusive and change nothing.
+	 * <p>
+	 * Thread-safe, share one for each database.
+	 */
+	public static class CircuitBreaker {
+		private final int failureThreshold;
+		private final long openMillis;
+		private int failures = 0;
+		private long openUntil = 0;
+		private boolean open = false, trial = false;
+
+		public CircuitBreaker(final int failureThreshold, final long openMillis) {
+			if (failureThreshold < 1)
+				throw new IllegalArgumentException("failureThreshold must be > 0");
+			if (openMillis < 0)
+				throw new IllegalArgumentException("openMillis must be >= 0");
+			this.failureThreshold = failureThreshold;
+			this.openMillis = openMillis;
+		}
+
+		public int getFailureThreshold() {
+			return failureThreshold;
+		}
+
+		public long getOpenMillis() {
+			return openMillis;
+		}
+
+		public synchronized boolean isOpen() {
+			return open;
+		}
+
+		/**
+		 * @throws CircuitBreakerOpenException if an attempt should not be made now
+		 */
+		public synchronized void before() throws CircuitBreakerOpenException {
+			if (!open)
+				return;
+			if (trial || System.currentTimeMillis() < openUntil)
+				throw new CircuitBreakerOpenException("circuit breaker open after " + failures + " failures in a row");
+			trial = true;
+		}
+
+		public synchronized void success() {
+			failures = 0;
+			open = trial = false;
+		}
+
+		/**
+		 * For an attempt that says nothing about the database either way, only lets another trial through if this was one
+		 */
+		public synchronized void inconclusive() {
+			trial = false;
+		}
+
+		public synchronized void failure() {
+			++failures;
+			if (trial || failures >= failureThreshold) {
+				open = true;
+				trial = false;
+				openUntil = System.currentTimeMillis() + openMillis;
+			}
+		}
+	}
+
+	public static class CircuitBreakerOpenException extends SQLException {
+		public CircuitBreakerOpenException(final String reason) {
+			super(reason);
+		}
+	}
+
+	/**
+	 * Caps how many runs are in flight at once with a limit that adapts to query latency, additive increase and
+	 * multiplicative decrease (AIMD) style.
+	 * <p>
+	 * Every run that finishes while there was demand for more than the limit raises it by 1 / limit, so roughly by 1
+	 * for every limit runs. A run that fails with a retryable SQLException, or takes longer than latencyTolerance times
+	 * the long term average, lowers it to backoffRatio times itself. The limit stays between minLimit and maxLimit.
+	 * <p>
+	 * Runs over the limit wait for up to maxWaitMillis, and up to maxQueueDepth of them, the rest are rejected right
+	 * away with a ConcurrencyLimitExceededException, which is never retried. runRetryCompletableFuture waits with
+	 * acquireOrQueue instead of holding an ExecutorService thread, the other run methods wait on their own thread.
+	 * <p>
+	 * Thread-safe, share one for each database.
+	 */
+	public static class ConcurrencyLimiter {
+		private static final double longAlpha = 0.05, shortAlpha = 0.5;
+
+		private final int minLimit, maxLimit, maxQueueDepth;
+		private final long maxWaitMillis;
+		private final double latencyTolerance, backoffRatio;
+		private final int initialLimit;
+		private double limit, longLatency = -1, shortLatency = -1;
+		private int inFlight = 0, queueDepth = 0;
+		/**
+		 * acquireOrQueue callers, handed a permit by release ahead of anyone waiting in acquire
+		 */
+		private final Queue<Runnable> waiters = new ArrayDeque<Runnable>();
+
+		public ConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit, final int maxQueueDepth, final long maxWaitMillis,
+								  final double latencyTolerance, final double backoffRatio) {
+			if (minLimit < 1)
+				throw new IllegalArgumentException("minLimit must be > 0");
+			if (maxLimit < minLimit)
+				throw new IllegalArgumentException("maxLimit must be >= minLimit");
+			if (initialLimit < minLimit || initialLimit > maxLimit)
+				throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+			if (maxQueueDepth < 0)
+				throw new IllegalArgumentException("maxQueueDepth must be >= 0");
+			if (maxWaitMillis < 0)
+				throw new IllegalArgumentException("maxWaitMillis must be >= 0");
+			if (latencyTolerance <= 1)
+				throw new IllegalArgumentException("latencyTolerance must be > 1");
+			if (backoffRatio <= 0 || backoffRatio >= 1)
+				throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+			this.initialLimit = initialLimit;
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+			this.maxQueueDepth = maxQueueDepth;
+			this.maxWaitMillis = maxWaitMillis;
+			this.latencyTolerance = latencyTolerance;
+			this.backoffRatio = backoffRatio;
+			this.limit = initialLimit;
+		}
+
+		/**
+		 * latencyTolerance of 2 and backoffRatio of 0.9
+		 */
+		public ConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit, final int maxQueueDepth, final long maxWaitMillis) {
+			this(initialLimit, minLimit, maxLimit, maxQueueDepth, maxWaitMillis, 2, 0.9);
+		}
+
+		/**
+		 * Starts at half of maxLimit, queueing up to maxLimit runs for up to 5 seconds each
+		 */
+		public ConcurrencyLimiter(final int maxLimit) {
+			this(Math.max(1, maxLimit / 2), 1, maxLimit, maxLimit, 5000);
+		}
+
+		ConcurrencyLimiter copy() {
+			return new ConcurrencyLimiter(initialLimit, minLimit, maxLimit, maxQueueDepth, maxWaitMillis, latencyTolerance, backoffRatio);
+		}
+
+		public synchronized int getLimit() {
+			return (int) limit;
+		}
+
+		public synchronized int getInFlight() {
+			return inFlight;
+		}
+
+		public synchronized int getQueueDepth() {
+			return queueDepth;
+		}
+
+		public long getMaxWaitMillis() {
+			return maxWaitMillis;
+		}
+
+		/**
+		 * Waits until less than getLimit() runs are in flight, every successful call must be followed by release
+		 *
+		 * @throws ConcurrencyLimitExceededException if maxQueueDepth others are already waiting, maxWaitMillis passes,
+		 *                                           or this thread is interrupted
+		 */
+		public synchronized void acquire() throws ConcurrencyLimitExceededException {
+			if (inFlight < (int) limit) {
+				++inFlight;
+				return;
+			}
+			if (queueDepth >= maxQueueDepth)
+				throw new ConcurrencyLimitExceededException("concurrency limit " + (int) limit + " reached with " + queueDepth + " already waiting");
+			++queueDepth;
+			try {
+				final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+				while (inFlight >= (int) limit) {
+					final long remaining = deadline - System.nanoTime();
+					if (remaining <= 0)
+						throw new ConcurrencyLimitExceededException("concurrency limit " + (int) limit + " reached and waited " + maxWaitMillis + "ms");
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+				++inFlight;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ConcurrencyLimitExceededException("interrupted waiting on concurrency limit " + (int) limit);
+			} finally {
+				--queueDepth;
+			}
+		}
+
+		/**
+		 * Non-blocking acquire, for callers that must not hold a thread while waiting. If a permit isn't free, and
+		 * maxQueueDepth others aren't already waiting, onAcquired is queued until a release hands it one, which runs
+		 * it on the releasing thread so it should only hand off the work. Whoever queued it must call dequeue once
+		 * maxWaitMillis passes.
+		 *
+		 * @return true if acquired now, and onAcquired was not queued
+		 * @throws ConcurrencyLimitExceededException if maxQueueDepth others are already waiting or maxWaitMillis is 0
+		 */
+		public synchronized boolean acquireOrQueue(final Runnable onAcquired) throws ConcurrencyLimitExceededException {
+			if (onAcquired == null)
+				throw new NullPointerException("onAcquired must be non-null");
+			if (inFlight < (int) limit) {
+				++inFlight;
+				return true;
+			}
+			if (queueDepth >= maxQueueDepth)
+				throw new ConcurrencyLimitExceededException("concurrency limit " + (int) limit + " reached with " + queueDepth + " already waiting");
+			if (maxWaitMillis == 0)
+				throw new ConcurrencyLimitExceededException("concurrency limit " + (int) limit + " reached and waited 0ms");
+			++queueDepth;
+			waiters.add(onAcquired);
+			return false;
+		}
+
+		/**
+		 * @return true if onAcquired was still queued and now never will run, false if it already was handed a permit
+		 */
+		public synchronized boolean dequeue(final Runnable onAcquired) {
+			if (!waiters.remove(onAcquired))
+				return false;
+			--queueDepth;
+			return true;
+		}
+
+		/**
+		 * @param latencyNanos how long the run took
+		 * @param dropped      true if it failed in a way that means the database is overloaded
+		 */
+		public void release(final long latencyNanos, final boolean dropped) {
+			final List<Runnable> acquired;
+			synchronized (this) {
+				final boolean saturated = inFlight >= (int) limit || queueDepth > 0;
+				--inFlight;
+				if (dropped) {
+					decrease();
+				} else {
+					if (longLatency < 0) {
+						longLatency = shortLatency = latencyNanos;
+					} else {
+						longLatency += longAlpha * (latencyNanos - longLatency);
+						shortLatency += shortAlpha * (latencyNanos - shortLatency);
+					}
+					if (shortLatency > longLatency * latencyTolerance)
+						decrease();
+					else if (saturated)
+						limit = Math.min(maxLimit, limit + 1 / limit);
+				}
+				acquired = handOff();
+			}
+			run(acquired);
+		}
+
+		/**
+		 * Gives back a permit without a latency sample, for a run that never reached the database
+		 */
+		public void cancel() {
+			final List<Runnable> acquired;
+			synchronized (this) {
+				--inFlight;
+				acquired = handOff();
+			}
+			run(acquired);
+		}
+
+		/**
+		 * @return waiters handed a permit, to be run outside the lock
+		 */
+		private List<Runnable> handOff() {
+			List<Runnable> ret = null;
+			while (inFlight < (int) limit && !waiters.isEmpty()) {
+				if (ret == null)
+					ret = new ArrayList<Runnable>();
+				ret.add(waiters.remove());
+				--queueDepth;
+				++inFlight;
+			}
+			if (inFlight < (int) limit)
+				notifyAll();
+			return ret;
+		}
+
+		private static void run(final List<Runnable> acquired) {
+			if (acquired != null)
+				for (final Runnable r : acquired)
+					r.run();
+		}
+
+		private void decrease() {
+			limit = Math.max(minLimit, limit * backoffRatio);
+		}
+
+		@Override
+		public synchronized String toString() {
+			return "ConcurrencyLimiter{limit=" + (int) limit + ", inFlight=" + inFlight + ", queueDepth=" + queueDepth + '}';
+		}
+	}
+
+	public static class ConcurrencyLimitExceededException extends SQLException {
+		public ConcurrencyLimitExceededException(final String reason) {
+			super(reason);
+		}
+	}
+
 	public static interface Runner<T, E> {
 		E run(T dao) throws SQLException;
 	}
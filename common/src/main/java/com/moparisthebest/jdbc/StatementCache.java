@@ -0,0 +1,386 @@
+package com.moparisthebest.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+
+/**
+ * A PreparedStatement cache that outlives the mappers using it, so QueryMapper's and JdbcMapper's created for every
+ * request out of a connection pool still get the statements prepared by earlier requests on the same connection.
+ * <p>
+ * Statements are keyed by connection, SQL, result set type and concurrency, and generated keys mode. Pooled connections
+ * are unwrapped to the physical connection underneath when the pool allows it, otherwise statements are only shared by
+ * mappers on the same Connection object.
+ * <p>
+ * Statements are leased out by prepareStatement and must be given back with release. While leased no one else gets
+ * them, asking for the same statement again prepares another one. Released statements have their fetch size and max
+ * rows put back to what the driver started them with, and go into a per-connection LRU which closes the least recently
+ * used when it holds more than maxPerConnection.
+ * <p>
+ * Connections are looked up in one of a fixed number of stripes picked by identity hash, each locked on its own. The
+ * statements of closed connections are closed and dropped by purge(), which is also ran on a stripe every time a
+ * connection is added to or closed in it, and for a single connection when a statement of it is released after it was
+ * closed. Connections are not held weakly, cached statements reference their connection so it would never be let go.
+ * <p>
+ * Statements are prepared on the physical connection so they can outlive the pool's wrapper, which means the pool
+ * never sees them. A pool that closes the statements of a connection when it is returned won't close these, and one
+ * that only rolls back uncommitted work it saw go through its own statements, instead of always, won't know about
+ * work done through these. Commit or roll back before giving a connection back to such a pool, or don't use this
+ * with it.
+ */
+public class StatementCache {
+
+	public static final int defaultMaxPerConnection = Integer.parseInt(System.getProperty("JdbcMapper.StatementCache.maxPerConnection", "64"));
+	public static final int defaultStripes = Integer.parseInt(System.getProperty("JdbcMapper.StatementCache.stripes", "16"));
+
+	/**
+	 * The cache used by @JdbcMapper.Mapper(sharedStatementCache = TRUE) classes, and a good default for CachingQueryMapper
+	 */
+	public static final StatementCache shared = new StatementCache(defaultMaxPerConnection, defaultStripes);
+
+	protected final int maxPerConnection;
+	private final Map<Connection, Statements>[] stripes;
+
+	/**
+	 * @param maxPerConnection max idle statements to keep for each connection, must be > 0
+	 * @param stripes          number of separately locked maps connections are spread across, must be > 0
+	 */
+	@SuppressWarnings("unchecked")
+	public StatementCache(final int maxPerConnection, final int stripes) {
+		if (maxPerConnection < 1)
+			throw new IllegalArgumentException("maxPerConnection must be > 0");
+		if (stripes < 1)
+			throw new IllegalArgumentException("stripes must be > 0");
+		this.maxPerConnection = maxPerConnection;
+		this.stripes = new Map[stripes];
+		for (int x = 0; x < stripes; ++x)
+			this.stripes[x] = new IdentityHashMap<Connection, Statements>();
+	}
+
+	public StatementCache(final int maxPerConnection) {
+		this(maxPerConnection, defaultStripes);
+	}
+
+	public PreparedStatement prepareStatement(final Connection conn, final String sql) throws SQLException {
+		return prepareStatement(conn, new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, null));
+	}
+
+	public PreparedStatement prepareStatement(final Connection conn, final String sql, final int resultSetType, final int resultSetConcurrency) throws SQLException {
+		return prepareStatement(conn, new Key(sql, resultSetType, resultSetConcurrency, null));
+	}
+
+	public PreparedStatement prepareStatement(final Connection conn, final String sql, final int autoGeneratedKeys) throws SQLException {
+		return prepareStatement(conn, new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, autoGeneratedKeys));
+	}
+
+	public PreparedStatement prepareStatement(final Connection conn, final String sql, final int[] columnIndexes) throws SQLException {
+		return prepareStatement(conn, new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, columnIndexes.clone()));
+	}
+
+	public PreparedStatement prepareStatement(final Connection conn, final String sql, final String[] columnNames) throws SQLException {
+		return prepareStatement(conn, new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, columnNames.clone()));
+	}
+
+	protected PreparedStatement prepareStatement(final Connection conn, final Key key) throws SQLException {
+		final Connection physical = physicalConnection(conn);
+		while (true) {
+			final Statements statements = getStatements(physical, true);
+			synchronized (statements) {
+				// closed by close(conn) after we looked it up, it's no longer in the stripe so try again
+				if (statements.closed)
+					continue;
+				PreparedStatement ps = statements.remove(key);
+				if (ps == null) {
+					ps = key.prepareStatement(physical);
+					if (statements.fetchSize == -1) {
+						statements.fetchSize = ps.getFetchSize();
+						statements.maxRows = ps.getMaxRows();
+					}
+				}
+				statements.leased.put(ps, key);
+				return ps;
+			}
+		}
+	}
+
+	/**
+	 * Gives back a statement from prepareStatement, to be cached for the next one, ps is closed if it did not come
+	 * from here, the same statement was cached while it was out, or its fetch size or max rows can't be reset
+	 *
+	 * @param conn the same Connection sent into prepareStatement
+	 */
+	public void release(final Connection conn, final PreparedStatement ps) {
+		if (ps == null)
+			return;
+		final Connection physical = physicalConnection(conn);
+		final Statements statements = getStatements(physical, false);
+		if (statements != null) {
+			if (isClosed(physical)) {
+				// no one may ever call close or prepare another statement in this stripe, drop it now
+				close(physical);
+				tryClose(ps);
+				return;
+			}
+			synchronized (statements) {
+				final Key key = statements.leased.remove(ps);
+				if (key != null && !statements.closed && !statements.containsKey(key) && reset(ps, statements)) {
+					statements.put(key, ps);
+					return;
+				}
+			}
+		}
+		tryClose(ps);
+	}
+
+	/**
+	 * Put back the fetch size and max rows ps was prepared with, so the next one to get it doesn't inherit them
+	 *
+	 * @return false if ps is closed or couldn't be reset, so it shouldn't be cached
+	 */
+	private static boolean reset(final PreparedStatement ps, final Statements statements) {
+		try {
+			if (ps.isClosed())
+				return false;
+			if (ps.getFetchSize() != statements.fetchSize)
+				ps.setFetchSize(statements.fetchSize);
+			if (ps.getMaxRows() != statements.maxRows)
+				ps.setMaxRows(statements.maxRows);
+			return true;
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Closes a statement from prepareStatement instead of caching it, for when it is in an unknown state
+	 *
+	 * @param conn the same Connection sent into prepareStatement
+	 */
+	public void discard(final Connection conn, final PreparedStatement ps) {
+		if (ps == null)
+			return;
+		final Statements statements = getStatements(physicalConnection(conn), false);
+		if (statements != null)
+			synchronized (statements) {
+				statements.leased.remove(ps);
+			}
+		tryClose(ps);
+	}
+
+	/**
+	 * Closes and drops every cached statement of conn, statements still leased are closed when released
+	 */
+	public void close(final Connection conn) {
+		final Connection physical = physicalConnection(conn);
+		final Map<Connection, Statements> stripe = getStripe(physical);
+		final Statements statements;
+		synchronized (stripe) {
+			statements = stripe.remove(physical);
+			// a connection closing usually means the pool closed others too
+			purge(stripe);
+		}
+		if (statements != null)
+			statements.close();
+	}
+
+	/**
+	 * Closes and drops every cached statement of closed connections
+	 */
+	public void purge() {
+		for (final Map<Connection, Statements> stripe : stripes)
+			synchronized (stripe) {
+				purge(stripe);
+			}
+	}
+
+	/**
+	 * Closes and drops every cached statement of every connection
+	 */
+	public void clear() {
+		for (final Map<Connection, Statements> stripe : stripes)
+			synchronized (stripe) {
+				for (final Statements statements : stripe.values())
+					statements.close();
+				stripe.clear();
+			}
+	}
+
+	/**
+	 * @return number of connections statements are cached or leased for
+	 */
+	public int connections() {
+		int ret = 0;
+		for (final Map<Connection, Statements> stripe : stripes)
+			synchronized (stripe) {
+				ret += stripe.size();
+			}
+		return ret;
+	}
+
+	/**
+	 * @return number of statements cached and not leased for conn
+	 */
+	public int size(final Connection conn) {
+		final Statements statements = getStatements(physicalConnection(conn), false);
+		if (statements == null)
+			return 0;
+		synchronized (statements) {
+			return statements.size();
+		}
+	}
+
+	/**
+	 * @return the physical connection behind conn if it is a wrapper from a pool that allows unwrapping, otherwise conn
+	 */
+	protected Connection physicalConnection(final Connection conn) {
+		try {
+			if (conn.isWrapperFor(Connection.class)) {
+				final Connection ret = conn.unwrap(Connection.class);
+				if (ret != null)
+					return ret;
+			}
+		} catch (Throwable e) {
+			// ignore, SQLException, or AbstractMethodError from pre-JDBC 4 drivers
+		}
+		return conn;
+	}
+
+	private Map<Connection, Statements> getStripe(final Connection physical) {
+		return stripes[(System.identityHashCode(physical) & 0x7fffffff) % stripes.length];
+	}
+
+	private Statements getStatements(final Connection physical, final boolean create) {
+		final Map<Connection, Statements> stripe = getStripe(physical);
+		synchronized (stripe) {
+			Statements ret = stripe.get(physical);
+			if (ret == null && create) {
+				// a new connection usually means the pool closed an old one
+				purge(stripe);
+				ret = new Statements(maxPerConnection);
+				stripe.put(physical, ret);
+			}
+			return ret;
+		}
+	}
+
+	private static void purge(final Map<Connection, Statements> stripe) {
+		for (final Iterator<Map.Entry<Connection, Statements>> it = stripe.entrySet().iterator(); it.hasNext(); ) {
+			final Map.Entry<Connection, Statements> entry = it.next();
+			if (isClosed(entry.getKey())) {
+				// IdentityHashMap entries can't be read after they are removed
+				final Statements statements = entry.getValue();
+				it.remove();
+				statements.close();
+			}
+		}
+	}
+
+	private static boolean isClosed(final Connection conn) {
+		try {
+			return conn.isClosed();
+		} catch (Throwable e) {
+			return true;
+		}
+	}
+
+	private static boolean isClosed(final Statement ps) {
+		try {
+			return ps.isClosed();
+		} catch (Throwable e) {
+			return true;
+		}
+	}
+
+	/**
+	 * The idle statements of one connection in LRU order, and the ones leased out
+	 */
+	private static final class Statements extends LinkedHashMap<Key, PreparedStatement> {
+		private final int maxEntries;
+		private final Map<PreparedStatement, Key> leased = new IdentityHashMap<PreparedStatement, Key>();
+		/**
+		 * what the driver starts statements on this connection with, -1 until the first is prepared
+		 */
+		private int fetchSize = -1, maxRows = -1;
+		/**
+		 * set once this has been dropped from its stripe and closed, nothing may be leased from or returned to it
+		 */
+		private boolean closed;
+
+		Statements(final int maxEntries) {
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Key, PreparedStatement> eldest) {
+			final boolean remove = size() > maxEntries;
+			if (remove)
+				tryClose(eldest.getValue());
+			return remove;
+		}
+
+		synchronized void close() {
+			closed = true;
+			for (final PreparedStatement ps : values())
+				tryClose(ps);
+			clear();
+			// leased ones are closed when released
+			leased.clear();
+		}
+	}
+
+	protected static final class Key {
+		private final String sql;
+		private final int resultSetType, resultSetConcurrency;
+		/**
+		 * null, Integer autoGeneratedKeys, int[] columnIndexes, or String[] columnNames
+		 */
+		private final Object generatedKeys;
+
+		Key(final String sql, final int resultSetType, final int resultSetConcurrency, final Object generatedKeys) {
+			if (sql == null)
+				throw new NullPointerException("sql must be non-null");
+			this.sql = sql;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+			this.generatedKeys = generatedKeys;
+		}
+
+		PreparedStatement prepareStatement(final Connection conn) throws SQLException {
+			if (generatedKeys == null)
+				return conn.prepareStatement(sql, resultSetType, resultSetConcurrency);
+			if (generatedKeys instanceof Integer)
+				return conn.prepareStatement(sql, (Integer) generatedKeys);
+			if (generatedKeys instanceof int[])
+				return conn.prepareStatement(sql, (int[]) generatedKeys);
+			return conn.prepareStatement(sql, (String[]) generatedKeys);
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			final Key key = (Key) o;
+			return resultSetType == key.resultSetType && resultSetConcurrency == key.resultSetConcurrency && sql.equals(key.sql) &&
+					Arrays.deepEquals(new Object[]{generatedKeys}, new Object[]{key.generatedKeys});
+		}
+
+		@Override
+		public int hashCode() {
+			int result = sql.hashCode();
+			result = 31 * result + resultSetType;
+			result = 31 * result + resultSetConcurrency;
+			result = 31 * result + Arrays.deepHashCode(new Object[]{generatedKeys});
+			return result;
+		}
+	}
+}
@@ -30,6 +30,13 @@ public interface JdbcMapper extends Closeable {
 		 */
 		OptionalBool cachePreparedStatements() default OptionalBool.DEFAULT;
 
+		/**
+		 * This defaults to false, if true cached PreparedStatements come from and are given back to
+		 * com.moparisthebest.jdbc.StatementCache.shared instead of being closed, so instances created for every request
+		 * out of a connection pool get statements already prepared on that connection
+		 */
+		OptionalBool sharedStatementCache() default OptionalBool.DEFAULT;
+
 		/**
 		 * This defaults to SimpleSQLParser, PrestoSQLParser is another option for Java 8, or implement your own
 		 * @return
@@ -49,6 +56,19 @@ public interface JdbcMapper extends Closeable {
 		String arrayNumberTypeName() default "";
 		String arrayStringTypeName() default "";
 
+		/**
+		 * Only used with DatabaseType.BIND, this defaults to true if bindInListBuckets is set, false otherwise. If true
+		 * in lists are padded up to the next bucket size by repeating the last value, so each method only ever sends a
+		 * handful of distinct SQL strings, and one PreparedStatement per bucket is cached like any other, up to
+		 * InListUtil.maxBucketStatements of them per DAO
+		 */
+		OptionalBool bucketBindInList() default OptionalBool.DEFAULT;
+
+		/**
+		 * Ascending bucket sizes for bucketBindInList, defaults to powers of two
+		 */
+		int[] bindInListBuckets() default {};
+
 		/**
 		 * Allows consumer of JdbcMapper.Mapper to generate DaoBean with Spring Boot Stereotype @Repository
 		 * Defaults to false
@@ -108,6 +128,15 @@ public interface JdbcMapper extends Closeable {
 		 * in JdbcMapper.allowedMaxRowParamNames (default one of maxRows,rowLimit,arrayMaxLength if not set)
 		 */
 		long maxRows() default -1;
+
+		/**
+		 * Rows to fetch from the database at a time for SELECT statements, < 1 leaves it up to the driver
+		 *
+		 * Mostly useful for Stream and ResultSetIterable results, some drivers (PostgreSQL for one) read every row into
+		 * memory up front unless this is set and auto-commit is off, so for those auto-commit is turned off if it is
+		 * on until the Stream or ResultSetIterable is closed
+		 */
+		int fetchSize() default 0;
 	}
 
 	/**
@@ -117,6 +146,25 @@ public interface JdbcMapper extends Closeable {
 	@Target({ElementType.METHOD})
 	public @interface SingleRow {}
 
+	/**
+	 * Runs the non-select @JdbcMapper.SQL once per row with addBatch/executeBatch instead of executeUpdate.
+	 *
+	 * Every array (other than byte[]), Iterable, or Stream parameter is a batch parameter, they are iterated together,
+	 * the first one deciding how many rows there are, other parameters are bound the same for every row.
+	 * A bind param naming a batch parameter binds its current element, if there is exactly one batch parameter, bind
+	 * params not in the method parameter list bind that public field or public getter of its current element.
+	 *
+	 * Methods can return void, int or long (total rows updated), or int[] (the update count of every row)
+	 */
+	@Retention(RetentionPolicy.SOURCE)
+	@Target({ElementType.METHOD})
+	public @interface Batch {
+		/**
+		 * Number of rows to addBatch before each executeBatch, < 1 means all of them in one executeBatch
+		 */
+		int size() default 100;
+	}
+
 	public enum OptionalBool {
 		DEFAULT,
 		TRUE,
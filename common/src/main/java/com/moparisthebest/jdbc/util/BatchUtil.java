@@ -0,0 +1,59 @@
+package com.moparisthebest.jdbc.util;
+
+import java.sql.Statement;
+
+/**
+ * Used by code generated for @JdbcMapper.Batch methods to add up the results of each executeBatch
+ */
+public class BatchUtil {
+
+	private BatchUtil() {
+	}
+
+	/**
+	 * @return the sum of counts, Statement.SUCCESS_NO_INFO and other negative values are not counted
+	 */
+	public static long sum(final int[] counts) {
+		long ret = 0;
+		for (final int count : counts)
+			if (count > 0)
+				ret += count;
+		return ret;
+	}
+
+	/**
+	 * @return all of counts followed by all of more
+	 */
+	public static int[] concat(final int[] counts, final int[] more) {
+		if (counts.length == 0)
+			return more;
+		if (more.length == 0)
+			return counts;
+		final int[] ret = new int[counts.length + more.length];
+		System.arraycopy(counts, 0, ret, 0, counts.length);
+		System.arraycopy(more, 0, ret, counts.length, more.length);
+		return ret;
+	}
+
+	/**
+	 * @return total as an int
+	 * @throws ArithmeticException if total does not fit in an int
+	 */
+	public static int toInt(final long total) {
+		final int ret = (int) total;
+		if (ret != total)
+			throw new ArithmeticException("batch update count " + total + " does not fit in an int, return long instead");
+		return ret;
+	}
+
+	/**
+	 * Rows added to a cached PreparedStatement's batch before a failure would otherwise be sent with the next batch
+	 */
+	public static void clearBatch(final Statement ps) {
+		try {
+			ps.clearBatch();
+		} catch (Throwable e) {
+			// ignore, the original failure is what matters
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package com.moparisthebest.jdbc.util;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.*;
 
 public class InListUtil {
@@ -10,6 +12,93 @@ public class InListUtil {
     // fieldName + listPrefix + 3 parens + ((number expected which is less than maxSize * 2) - 1) assuming 20 items = 39 + 3 = 42
     public static final int defaultInListPreallocLength = Integer.parseInt(System.getProperty("QueryMapper.BindInList.defaultInListPreallocLength", "42"));
 
+    /**
+     * Generated DAOs with bucketBindInList keep at most this many bucketed PreparedStatements, closing the least
+     * recently used past it
+     */
+    public static final int maxBucketStatements = Integer.parseInt(System.getProperty("QueryMapper.BindInList.maxBucketStatements", "64"));
+
+    /**
+     * Pass as buckets to pad in lists up to the next power of two
+     */
+    public static final int[] powersOfTwo = new int[0];
+
+    /**
+     * Bucketed in lists are padded up to this size by repeating the last value, so that only a handful of distinct
+     * SQL strings exist per query instead of one per list length, which lets statement caches actually hit
+     *
+     * @param size    number of values in the list
+     * @param buckets ascending sizes, or powersOfTwo
+     * @return the smallest bucket >= size, the largest bucket doubled until it is >= size if size is larger than all
+     * of them, so there are still only a few more sizes past the ladder, or 0 if size is 0
+     */
+    public static int toBucketSize(final int size, final int[] buckets) {
+        if (size < 1)
+            return 0;
+        if (buckets.length == 0) {
+            final int ret = Integer.highestOneBit(size);
+            // past 2^30 doubling overflows, just don't pad
+            return ret == size ? size : ret < (1 << 30) ? ret << 1 : size;
+        }
+        for (final int bucket : buckets)
+            if (bucket >= size)
+                return bucket;
+        int ret = buckets[buckets.length - 1];
+        while (ret < size) {
+            // past 2^30 doubling overflows, just don't pad
+            if (ret >= (1 << 30))
+                return size;
+            ret <<= 1;
+        }
+        return ret;
+    }
+
+    /**
+     * @throws IllegalArgumentException unless buckets are all > 0 and ascending
+     */
+    public static int[] checkBuckets(final int[] buckets) {
+        if (buckets == null)
+            throw new NullPointerException("buckets must be non-null");
+        int last = 0;
+        for (final int bucket : buckets) {
+            if (bucket <= last)
+                throw new IllegalArgumentException("buckets must be > 0 and ascending: " + Arrays.toString(buckets));
+            last = bucket;
+        }
+        return buckets;
+    }
+
+    private static int size(final Iterable<?> items) {
+        if (items == null)
+            return 0;
+        if (items instanceof Collection)
+            return ((Collection<?>) items).size();
+        int size = 0;
+        for (final Iterator<?> it = items.iterator(); it.hasNext(); it.next())
+            ++size;
+        return size;
+    }
+
+    private static String toListNonEmpty(final String fieldName, final int size, final int maxSize, final String listPrefix, final String listCombine) {
+        final StringBuilder sb = new StringBuilder(fieldName.length() + listPrefix.length() + defaultInListPreallocLength);
+        sb.append('(');
+
+        // split into lists of at most maxSize
+        for (int remaining = size; ; ) {
+            sb.append(fieldName).append(listPrefix).append('?');
+            final int count = Math.min(remaining, maxSize);
+            for (int x = 1; x < count; ++x)
+                sb.append(",?");
+            sb.append(')');
+
+            if ((remaining -= count) == 0)
+                break;
+            sb.append(listCombine);
+        }
+
+        return sb.append(')').toString();
+    }
+
     private static <T> String toNotInListNonEmpty(final String fieldName, final Iterator<T> items, final int maxSize, final String listPrefix, final String listCombine) {
         final StringBuilder sb = new StringBuilder(fieldName.length() + listPrefix.length() + defaultInListPreallocLength);
         sb.append('(');
@@ -95,4 +184,185 @@ public class InListUtil {
     public static <T> String toNotInList(final String fieldName, final T[] items) {
         return toNotInList(fieldName, items, defaultMaxSize);
     }
+
+    public static <T> String toBucketedInList(final String fieldName, final Iterable<T> items, final int maxSize, final int[] buckets) {
+        final int size = size(items);
+        return size == 0 ? inEmpty : toListNonEmpty(fieldName, toBucketSize(size, buckets), maxSize, " IN (", " OR ");
+    }
+
+    public static <T> String toBucketedNotInList(final String fieldName, final Iterable<T> items, final int maxSize, final int[] buckets) {
+        final int size = size(items);
+        return size == 0 ? notInEmpty : toListNonEmpty(fieldName, toBucketSize(size, buckets), maxSize, " NOT IN (", " AND ");
+    }
+
+    public static <T> String toBucketedInList(final String fieldName, final T[] items, final int maxSize, final int[] buckets) {
+        return items == null || items.length == 0 ? inEmpty : toListNonEmpty(fieldName, toBucketSize(items.length, buckets), maxSize, " IN (", " OR ");
+    }
+
+    public static <T> String toBucketedNotInList(final String fieldName, final T[] items, final int maxSize, final int[] buckets) {
+        return items == null || items.length == 0 ? notInEmpty : toListNonEmpty(fieldName, toBucketSize(items.length, buckets), maxSize, " NOT IN (", " AND ");
+    }
+
+    public static <T> String toBucketedInList(final String fieldName, final Iterable<T> items, final int[] buckets) {
+        return toBucketedInList(fieldName, items, defaultMaxSize, buckets);
+    }
+
+    public static <T> String toBucketedNotInList(final String fieldName, final Iterable<T> items, final int[] buckets) {
+        return toBucketedNotInList(fieldName, items, defaultMaxSize, buckets);
+    }
+
+    public static <T> String toBucketedInList(final String fieldName, final T[] items, final int[] buckets) {
+        return toBucketedInList(fieldName, items, defaultMaxSize, buckets);
+    }
+
+    public static <T> String toBucketedNotInList(final String fieldName, final T[] items, final int[] buckets) {
+        return toBucketedNotInList(fieldName, items, defaultMaxSize, buckets);
+    }
+
+    /**
+     * @return items as an array padded up to toBucketSize by repeating the last one, to bind to toBucketedInList
+     */
+    public static Object[] toBucketedArray(final Collection<?> items, final int[] buckets) {
+        final Object[] ret = items.toArray();
+        final int size = toBucketSize(ret.length, buckets);
+        if (size == ret.length)
+            return ret;
+        final Object[] padded = Arrays.copyOf(ret, size);
+        Arrays.fill(padded, ret.length, size, ret[ret.length - 1]);
+        return padded;
+    }
+
+    /**
+     * Binds items starting after index, padded up to toBucketSize by repeating the last one, to match toBucketedInList
+     *
+     * @return the last index bound
+     */
+    public static <T> int setBucketedObjects(final PreparedStatement ps, int index, final Iterable<T> items, final int[] buckets) throws SQLException {
+        if (items == null)
+            return index;
+        T last = null;
+        int size = 0;
+        for (final T item : items) {
+            ps.setObject(++index, item);
+            last = item;
+            ++size;
+        }
+        for (int pad = toBucketSize(size, buckets) - size; pad > 0; --pad)
+            ps.setObject(++index, last);
+        return index;
+    }
+
+    public static <T> int setBucketedObjects(final PreparedStatement ps, int index, final T[] items, final int[] buckets) throws SQLException {
+        if (items == null || items.length == 0)
+            return index;
+        for (final T item : items)
+            ps.setObject(++index, item);
+        final T last = items[items.length - 1];
+        for (int pad = toBucketSize(items.length, buckets) - items.length; pad > 0; --pad)
+            ps.setObject(++index, last);
+        return index;
+    }
+
+    public static String toInList(final String fieldName, final long[] items, final int maxSize) {
+        return items == null || items.length == 0 ? inEmpty : toListNonEmpty(fieldName, items.length, maxSize, " IN (", " OR ");
+    }
+
+    public static String toNotInList(final String fieldName, final long[] items, final int maxSize) {
+        return items == null || items.length == 0 ? notInEmpty : toListNonEmpty(fieldName, items.length, maxSize, " NOT IN (", " AND ");
+    }
+
+    public static String toInList(final String fieldName, final int[] items, final int maxSize) {
+        return items == null || items.length == 0 ? inEmpty : toListNonEmpty(fieldName, items.length, maxSize, " IN (", " OR ");
+    }
+
+    public static String toNotInList(final String fieldName, final int[] items, final int maxSize) {
+        return items == null || items.length == 0 ? notInEmpty : toListNonEmpty(fieldName, items.length, maxSize, " NOT IN (", " AND ");
+    }
+
+    public static String toInList(final String fieldName, final long[] items) {
+        return toInList(fieldName, items, defaultMaxSize);
+    }
+
+    public static String toNotInList(final String fieldName, final long[] items) {
+        return toNotInList(fieldName, items, defaultMaxSize);
+    }
+
+    public static String toInList(final String fieldName, final int[] items) {
+        return toInList(fieldName, items, defaultMaxSize);
+    }
+
+    public static String toNotInList(final String fieldName, final int[] items) {
+        return toNotInList(fieldName, items, defaultMaxSize);
+    }
+
+    public static String toBucketedInList(final String fieldName, final long[] items, final int maxSize, final int[] buckets) {
+        return items == null || items.length == 0 ? inEmpty : toListNonEmpty(fieldName, toBucketSize(items.length, buckets), maxSize, " IN (", " OR ");
+    }
+
+    public static String toBucketedNotInList(final String fieldName, final long[] items, final int maxSize, final int[] buckets) {
+        return items == null || items.length == 0 ? notInEmpty : toListNonEmpty(fieldName, toBucketSize(items.length, buckets), maxSize, " NOT IN (", " AND ");
+    }
+
+    public static String toBucketedInList(final String fieldName, final int[] items, final int maxSize, final int[] buckets) {
+        return items == null || items.length == 0 ? inEmpty : toListNonEmpty(fieldName, toBucketSize(items.length, buckets), maxSize, " IN (", " OR ");
+    }
+
+    public static String toBucketedNotInList(final String fieldName, final int[] items, final int maxSize, final int[] buckets) {
+        return items == null || items.length == 0 ? notInEmpty : toListNonEmpty(fieldName, toBucketSize(items.length, buckets), maxSize, " NOT IN (", " AND ");
+    }
+
+    public static String toBucketedInList(final String fieldName, final long[] items, final int[] buckets) {
+        return toBucketedInList(fieldName, items, defaultMaxSize, buckets);
+    }
+
+    public static String toBucketedNotInList(final String fieldName, final long[] items, final int[] buckets) {
+        return toBucketedNotInList(fieldName, items, defaultMaxSize, buckets);
+    }
+
+    public static String toBucketedInList(final String fieldName, final int[] items, final int[] buckets) {
+        return toBucketedInList(fieldName, items, defaultMaxSize, buckets);
+    }
+
+    public static String toBucketedNotInList(final String fieldName, final int[] items, final int[] buckets) {
+        return toBucketedNotInList(fieldName, items, defaultMaxSize, buckets);
+    }
+
+    public static int setBucketedObjects(final PreparedStatement ps, int index, final long[] items, final int[] buckets) throws SQLException {
+        if (items == null || items.length == 0)
+            return index;
+        for (final long item : items)
+            ps.setLong(++index, item);
+        final long last = items[items.length - 1];
+        for (int pad = toBucketSize(items.length, buckets) - items.length; pad > 0; --pad)
+            ps.setLong(++index, last);
+        return index;
+    }
+
+    public static int setBucketedObjects(final PreparedStatement ps, int index, final int[] items, final int[] buckets) throws SQLException {
+        if (items == null || items.length == 0)
+            return index;
+        for (final int item : items)
+            ps.setInt(++index, item);
+        final int last = items[items.length - 1];
+        for (int pad = toBucketSize(items.length, buckets) - items.length; pad > 0; --pad)
+            ps.setInt(++index, last);
+        return index;
+    }
+
+    /**
+     * For Connection.createArrayOf, which only takes Object[]
+     */
+    public static Long[] box(final long[] items) {
+        final Long[] ret = new Long[items.length];
+        for (int x = 0; x < items.length; ++x)
+            ret[x] = items[x];
+        return ret;
+    }
+
+    public static Integer[] box(final int[] items) {
+        final Integer[] ret = new Integer[items.length];
+        for (int x = 0; x < items.length; ++x)
+            ret[x] = items[x];
+        return ret;
+    }
 }
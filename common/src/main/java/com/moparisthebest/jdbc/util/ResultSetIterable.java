@@ -1,12 +1,15 @@
 package com.moparisthebest.jdbc.util;
 
 import java.io.Closeable;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Calendar;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.WeakHashMap;
 //IFJAVA8_START
 import java.util.Spliterators;
 import java.util.stream.Stream;
@@ -27,6 +30,9 @@ import static com.moparisthebest.jdbc.TryClose.tryClose;
  * do it in the constructor based on those instances, or once on the first call to .toObject() and cache it forever.
  * Or it can be entirely stateless and re-used across multiple ResultSets, your choice.
  * 4. If you set a PreparedStatement to close, you can only set it once, and it will close it when you call .close() on this
+ * 5. If you set a Connection to restore auto-commit on, auto-commit is turned back on for it when you call .close() on this,
+ * unless another cursor begun with beginCursor on the same Connection is still open
+ * 6. If you set a Closeable to close, you can only set it once, and it will close it when you call .close() on this
  */
 public class ResultSetIterable<T> implements Iterable<T>, Iterator<T>, Closeable {
 
@@ -97,6 +103,8 @@ public class ResultSetIterable<T> implements Iterable<T>, Iterator<T>, Closeable
 
 	private boolean calledNext = false;
 	private PreparedStatement ps = null;
+	private Connection autoCommitConn = null;
+	private Closeable closeable = null;
 
 	protected ResultSetIterable() {
 		this.rs = null;
@@ -123,6 +131,69 @@ public class ResultSetIterable<T> implements Iterable<T>, Iterator<T>, Closeable
 		return this;
 	}
 
+	public ResultSetIterable<T> setCloseableToClose(final Closeable closeable) {
+		if (this.closeable != null)
+			throw new IllegalStateException("can only set Closeable to close once");
+		this.closeable = closeable;
+		return this;
+	}
+
+	/**
+	 * For when auto-commit was turned off on conn by beginCursor so the driver would stream rows with a cursor instead of
+	 * reading them all up front, it is restored when this is closed, null does nothing
+	 */
+	public ResultSetIterable<T> setAutoCommitToRestore(final Connection conn) {
+		this.autoCommitConn = conn;
+		return this;
+	}
+
+	/**
+	 * Connections beginCursor turned auto-commit off on, and how many cursors are still open on each, so overlapping
+	 * cursors don't commit, and close, each other's by turning auto-commit back on while they are still being read
+	 */
+	private static final Map<Connection, int[]> openCursors = new WeakHashMap<Connection, int[]>();
+
+	/**
+	 * Turns auto-commit off on conn if it is on, or counts another open cursor if an earlier call already did, every
+	 * non-null return must be passed to restoreAutoCommit exactly once, usually by setAutoCommitToRestore
+	 *
+	 * @return conn if this turned auto-commit off or counted another cursor, null if auto-commit was already off
+	 */
+	public static Connection beginCursor(final Connection conn) throws SQLException {
+		synchronized (openCursors) {
+			final int[] count = openCursors.get(conn);
+			if (count != null) {
+				++count[0];
+				return conn;
+			}
+			if (!conn.getAutoCommit())
+				return null;
+			conn.setAutoCommit(false);
+			openCursors.put(conn, new int[]{1});
+			return conn;
+		}
+	}
+
+	/**
+	 * Turns auto-commit back on for conn ignoring any exceptions once the last cursor beginCursor counted on it is
+	 * done, null does nothing
+	 */
+	public static void restoreAutoCommit(final Connection conn) {
+		if (conn == null)
+			return;
+		synchronized (openCursors) {
+			final int[] count = openCursors.get(conn);
+			if (count == null || --count[0] > 0)
+				return;
+			openCursors.remove(conn);
+			try {
+				conn.setAutoCommit(true);
+			} catch (Throwable e) {
+				// ignore...
+			}
+		}
+	}
+
 	@Override
 	public Iterator<T> iterator() {
 		return this;
@@ -162,6 +233,11 @@ public class ResultSetIterable<T> implements Iterable<T>, Iterator<T>, Closeable
 	public void close() {
 		tryClose(rs);
 		tryClose(ps);
+		tryClose(closeable);
+		// only once, no matter how many times this is closed
+		final Connection conn = autoCommitConn;
+		autoCommitConn = null;
+		restoreAutoCommit(conn);
 	}
 
 	private static class EmptyResultSetIterable extends ResultSetIterable {
@@ -171,6 +247,18 @@ public class ResultSetIterable<T> implements Iterable<T>, Iterator<T>, Closeable
 			return this;
 		}
 
+		@Override
+		public ResultSetIterable setCloseableToClose(final Closeable closeable) {
+			tryClose(closeable);
+			return this;
+		}
+
+		@Override
+		public ResultSetIterable setAutoCommitToRestore(final Connection conn) {
+			restoreAutoCommit(conn);
+			return this;
+		}
+
 		@Override
 		public boolean hasNext() {
 			return false;
@@ -6,8 +6,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
-import static com.moparisthebest.jdbc.util.InListUtil.toInList;
-import static com.moparisthebest.jdbc.util.InListUtil.toNotInList;
+import static com.moparisthebest.jdbc.util.InListUtil.*;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class InListUtilTest {
@@ -84,4 +84,48 @@ public class InListUtilTest {
                         "AND column_name NOT IN (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?) AND column_name NOT IN (?))",
                 toNotInList("column_name", makeCollection(61), 20));
     }
+
+    @Test
+    public void testBucketSize() {
+        assertEquals(0, toBucketSize(0, powersOfTwo));
+        assertEquals(1, toBucketSize(1, powersOfTwo));
+        assertEquals(4, toBucketSize(3, powersOfTwo));
+        assertEquals(4, toBucketSize(4, powersOfTwo));
+        assertEquals(8, toBucketSize(5, powersOfTwo));
+        assertEquals(Integer.MAX_VALUE, toBucketSize(Integer.MAX_VALUE, powersOfTwo));
+        final int[] buckets = new int[]{5, 10, 50};
+        assertEquals(5, toBucketSize(1, buckets));
+        assertEquals(10, toBucketSize(6, buckets));
+        assertEquals(50, toBucketSize(50, buckets));
+        assertEquals(100, toBucketSize(51, buckets));
+        // doubled past the ladder instead of every multiple of the largest
+        assertEquals(200, toBucketSize(101, buckets));
+        assertEquals(400, toBucketSize(201, buckets));
+        assertEquals(Integer.MAX_VALUE, toBucketSize(Integer.MAX_VALUE, buckets));
+    }
+
+    @Test
+    public void testBucketedInList() {
+        assertEquals("(column_name IN (?,?,?,?,?,?,?,?))", toBucketedInList("column_name", makeCollection(5), 20, powersOfTwo));
+        assertEquals("(column_name NOT IN (?,?,?,?,?,?,?,?))", toBucketedNotInList("column_name", makeCollection(5).toArray(), 20, powersOfTwo));
+        assertEquals("(column_name IN (?,?,?) OR column_name IN (?,?,?) OR column_name IN (?,?))", toBucketedInList("column_name", makeCollection(5), 3, powersOfTwo));
+        assertEquals(inEmpty, toBucketedInList("column_name", makeCollection(0), 20, powersOfTwo));
+        assertArrayEquals(new Object[]{1L, 2L, 3L, 3L}, toBucketedArray(makeCollection(3), powersOfTwo));
+        assertArrayEquals(new Object[]{1L, 2L}, toBucketedArray(makeCollection(2), powersOfTwo));
+    }
+
+    @Test
+    public void testPrimitiveInList() {
+        assertEquals("(column_name IN (?,?,?))", toInList("column_name", new long[]{1, 2, 3}, 20));
+        assertEquals("(column_name NOT IN (?,?) AND column_name NOT IN (?))", toNotInList("column_name", new int[]{1, 2, 3}, 2));
+        assertEquals("(column_name IN (?,?,?,?))", toBucketedInList("column_name", new long[]{1, 2, 3}, 20, powersOfTwo));
+        assertEquals(inEmpty, toInList("column_name", new int[0], 20));
+        assertArrayEquals(new Long[]{1L, 2L}, box(new long[]{1, 2}));
+        assertArrayEquals(new Integer[]{1, 2}, box(new int[]{1, 2}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckBuckets() {
+        checkBuckets(new int[]{5, 5, 10});
+    }
 }
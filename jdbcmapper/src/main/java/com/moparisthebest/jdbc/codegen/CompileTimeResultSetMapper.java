@@ -1,5 +1,6 @@
 package com.moparisthebest.jdbc.codegen;
 
+import com.moparisthebest.jdbc.ColumnarResult;
 import com.moparisthebest.jdbc.Finishable;
 import com.moparisthebest.jdbc.MapperException;
 import com.moparisthebest.jdbc.ResultSetMapper;
@@ -35,7 +36,7 @@ import static com.moparisthebest.jdbc.codegen.JdbcMapperProcessor.typeMirrorToCl
 public class CompileTimeResultSetMapper {
 
 	public final Types types;
-	public final TypeMirror collectionType, mapType, mapCollectionType, iteratorType, listIteratorType, finishableType, resultSetType, resultSetIterableType, byteArrayType, enumType;
+	public final TypeMirror collectionType, mapType, mapCollectionType, iteratorType, listIteratorType, finishableType, resultSetType, resultSetIterableType, byteArrayType, enumType, columnarResultType;
 	//IFJAVA8_START
 	public final TypeMirror streamType;
 	//IFJAVA8_END
@@ -58,6 +59,8 @@ public class CompileTimeResultSetMapper {
 
 		byteArrayType = types.getArrayType(types.getPrimitiveType(TypeKind.BYTE));
 
+		columnarResultType = elements.getTypeElement(ColumnarResult.class.getCanonicalName()).asType();
+
 		enumType = types.getDeclaredType(elements.getTypeElement(Enum.class.getCanonicalName()), types.getWildcardType(null, null));
 
 		//IFJAVA8_START
@@ -78,11 +81,25 @@ public class CompileTimeResultSetMapper {
 		return typeMirrorStringNoGenerics(returnType);
 	}
 
+	/**
+	 * @return true if returnTypeMirror is read from the ResultSet after the generated method returns, ResultSetIterable or Stream
+	 */
+	public boolean isStreamed(final TypeMirror returnTypeMirror) {
+		if (types.isAssignable(returnTypeMirror, resultSetIterableType))
+			return true;
+		//IFJAVA8_START
+		if (types.isAssignable(returnTypeMirror, streamType))
+			return true;
+		//IFJAVA8_END
+		return false;
+	}
+
 	/**
 	 *
+	 * @param autoCommitConn name of the Connection to restore auto-commit on when a streamed result is closed, null for none
 	 * @return true if calling code should close rs (ResultSet) and ps (PreparedStatement) if closePs is false, false otherwise
 	 */
-	public boolean mapToResultType(final Writer w, final String[] keys, final ExecutableElement eeMethod, final MaxRows maxRows, final String cal, final String cleaner, final boolean closePs, final ReflectionFields reflectionFields) throws IOException, NoSuchMethodException, ClassNotFoundException {
+	public boolean mapToResultType(final Writer w, final String[] keys, final ExecutableElement eeMethod, final MaxRows maxRows, final String cal, final String cleaner, final boolean closePs, final String autoCommitConn, final ReflectionFields reflectionFields) throws IOException, NoSuchMethodException, ClassNotFoundException {
 		//final Method m = fromExecutableElement(eeMethod);
 		//final Class returnType = m.getReturnType();
 		final TypeMirror returnTypeMirror = eeMethod.getReturnType();
@@ -116,7 +133,7 @@ public class CompileTimeResultSetMapper {
 			} else if (types.isAssignable(returnTypeMirror, iteratorType)) {
 				final List<? extends TypeMirror> typeArguments = ((DeclaredType) returnTypeMirror).getTypeArguments();
 				if (types.isAssignable(returnTypeMirror, resultSetIterableType)) {
-					toResultSetIterable(w, keys, typeArguments.get(0), cal, cleaner, closePs, reflectionFields);
+					toResultSetIterable(w, keys, typeArguments.get(0), cal, cleaner, closePs, autoCommitConn, reflectionFields);
 					return false;
 				} else if (types.isAssignable(returnTypeMirror, listIteratorType))
 					toListIterator(w, keys, typeArguments.get(0), maxRows, cal, cleaner, reflectionFields);
@@ -125,13 +142,15 @@ public class CompileTimeResultSetMapper {
 			}
 			//IFJAVA8_START
 			else if (types.isAssignable(returnTypeMirror, streamType)) {
-				toStream(w, keys, ((DeclaredType) returnTypeMirror).getTypeArguments().get(0), cal, cleaner, closePs, reflectionFields);
+				toStream(w, keys, ((DeclaredType) returnTypeMirror).getTypeArguments().get(0), cal, cleaner, closePs, autoCommitConn, reflectionFields);
 				return false;
 			}
 			//IFJAVA8_END
 			else if (types.isAssignable(returnTypeMirror, resultSetType)) {
 				toResultSet(w, closePs);
 				return false;
+			} else if (types.isSameType(returnTypeMirror, columnarResultType)) {
+				toColumns(w, maxRows, cal);
 			} else {
 				toObject(w, keys, returnTypeMirror, cal, cleaner, reflectionFields);
 			}
@@ -166,6 +185,12 @@ public class CompileTimeResultSetMapper {
 		w.append(";\n");
 	}
 
+	private void toColumns(final Writer w, final MaxRows maxRows, final String cal) throws IOException {
+		w.append("\t\t\treturn com.moparisthebest.jdbc.ColumnarResult.from(rs, ")
+				.append(maxRows == null ? "-1" : maxRows.value).append(", ")
+				.append(cal == null ? "null" : cal).append(");\n");
+	}
+
 	public void toObject(final Writer w, final String[] keys, final TypeMirror returnTypeMirror, final String cal, final String cleaner, final ReflectionFields reflectionFields) throws IOException, ClassNotFoundException {
 		w.write("\t\t\tif(rs.next()) {\n");
 		writeObject(w, keys, returnTypeMirror, cal, reflectionFields);
@@ -179,7 +204,7 @@ public class CompileTimeResultSetMapper {
 		w.append(";\n\t\t\t}\n");
 	}
 
-	private void toResultSetIterable(final Writer w, final String[] keys, final TypeMirror returnTypeMirror, final String cal, final String cleaner, final boolean closePs, final ReflectionFields reflectionFields) throws IOException, ClassNotFoundException {
+	private void toResultSetIterable(final Writer w, final String[] keys, final TypeMirror returnTypeMirror, final String cal, final String cleaner, final boolean closePs, final String autoCommitConn, final ReflectionFields reflectionFields) throws IOException, ClassNotFoundException {
 		w.write("\t\t\treturn com.moparisthebest.jdbc.util.ResultSetIterable.getResultSetIterable(rs,\n\t\t\t\t\trs.next() ? ");
 
 		if(java8) {
@@ -203,16 +228,20 @@ public class CompileTimeResultSetMapper {
 		w.append("\t\t\t\t\t}\n\t\t\t\t: null, ").append(cal == null ? "null" : cal).append(")");
 		if(closePs)
 			w.append(".setPreparedStatementToClose(ps)");
+		if(autoCommitConn != null)
+			w.append(".setAutoCommitToRestore(").append(autoCommitConn).append(")");
 		w.append(";\n");
 	}
 
 	//IFJAVA8_START
 
 	// being in this method implies java8 is true already, how else could you be compiling code using Stream? so this won't have the checks for lambdas toResultSetIterable does...
-	private void toStream(final Writer w, final String[] keys, final TypeMirror returnTypeMirror, final String cal, final String cleaner, final boolean closePs, final ReflectionFields reflectionFields) throws IOException, ClassNotFoundException {
+	private void toStream(final Writer w, final String[] keys, final TypeMirror returnTypeMirror, final String cal, final String cleaner, final boolean closePs, final String autoCommitConn, final ReflectionFields reflectionFields) throws IOException, ClassNotFoundException {
 
 		if(closePs)
 			w.write("\t\t\tfinal PreparedStatement finalPs = ps;\n");
+		if(autoCommitConn != null)
+			w.append("\t\t\tfinal Connection finalAutoCommitConn = ").append(autoCommitConn).append(";\n");
 
 		w.write("\t\t\treturn com.moparisthebest.jdbc.util.ResultSetIterable.getStream(rs,\n\t\t\t\t\trs.next() ? ");
 
@@ -227,6 +256,8 @@ public class CompileTimeResultSetMapper {
 		w.append("\t\t\t\t\t}\n\t\t\t\t: null, ").append(cal == null ? "null" : cal).append(")");
 		if(closePs)
 			w.append(".onClose(() -> tryClose(finalPs))");
+		if(autoCommitConn != null)
+			w.append(".onClose(() -> com.moparisthebest.jdbc.util.ResultSetIterable.restoreAutoCommit(finalAutoCommitConn))");
 		w.append(";\n");
 	}
 
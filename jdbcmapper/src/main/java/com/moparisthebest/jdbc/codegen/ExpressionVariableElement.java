@@ -0,0 +1,95 @@
+package com.moparisthebest.jdbc.codegen;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A java expression bound in place of a plain parameter, the current element of a @JdbcMapper.Batch parameter or a
+ * {param.field} getter/field, getSimpleName() is the expression to bind and asType() its type.
+ */
+class ExpressionVariableElement implements VariableElement {
+
+	final VariableElement delegate;
+	final Name expression;
+	final TypeMirror type;
+
+	ExpressionVariableElement(final VariableElement delegate, final Name expression, final TypeMirror type) {
+		this.delegate = delegate;
+		this.expression = expression;
+		this.type = type;
+	}
+
+	ExpressionVariableElement(final VariableElement delegate) {
+		this(delegate, delegate.getSimpleName(), delegate.asType());
+	}
+
+	@Override
+	public Object getConstantValue() {
+		return null;
+	}
+
+	@Override
+	public TypeMirror asType() {
+		return type;
+	}
+
+	@Override
+	public ElementKind getKind() {
+		return delegate.getKind();
+	}
+
+	@Override
+	public List<? extends AnnotationMirror> getAnnotationMirrors() {
+		return delegate.getAnnotationMirrors();
+	}
+
+	@Override
+	public <A extends Annotation> A getAnnotation(final Class<A> annotationType) {
+		return delegate.getAnnotation(annotationType);
+	}
+
+	@Override
+	public Set<Modifier> getModifiers() {
+		return delegate.getModifiers();
+	}
+
+	@Override
+	public Name getSimpleName() {
+		return expression;
+	}
+
+	@Override
+	public Element getEnclosingElement() {
+		return delegate.getEnclosingElement();
+	}
+
+	@Override
+	public List<? extends Element> getEnclosedElements() {
+		return delegate.getEnclosedElements();
+	}
+
+	@Override
+	public <R, P> R accept(final ElementVisitor<R, P> v, final P p) {
+		return delegate.accept(v, p);
+	}
+
+	//IFJAVA8_START
+
+	@Override
+	public <A extends Annotation> A[] getAnnotationsByType(final Class<A> annotationType) {
+		return delegate.getAnnotationsByType(annotationType);
+	}
+
+	//IFJAVA8_END
+
+	@Override
+	public String toString() {
+		return "ExpressionVariableElement{" +
+				"delegate=" + delegate +
+				", expression=" + expression +
+				'}';
+	}
+}
@@ -1,6 +1,7 @@
 package com.moparisthebest.jdbc.codegen;
 
 import com.moparisthebest.jdbc.*;
+import com.moparisthebest.jdbc.util.InListUtil;
 
 import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
@@ -61,7 +62,7 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 	}
 
 	static TypeMirror sqlExceptionType, stringType, numberType, utilDateType, readerType, clobType, connectionType, jdbcMapperType,
-			byteArrayType, inputStreamType, fileType, blobType, sqlArrayType, collectionType, calendarType, cleanerType, enumType;
+			byteArrayType, inputStreamType, fileType, blobType, sqlArrayType, collectionType, iterableType, calendarType, cleanerType, enumType;
 	//IFJAVA8_START
 	static TypeMirror streamType, instantType, localDateTimeType, localDateType, localTimeType, zonedDateTimeType, offsetDateTimeType, offsetTimeType;
 	//IFJAVA8_END
@@ -120,6 +121,7 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 		byteArrayType = types.getArrayType(types.getPrimitiveType(TypeKind.BYTE));
 		sqlArrayType = elements.getTypeElement(java.sql.Array.class.getCanonicalName()).asType();
 		collectionType = types.getDeclaredType(elements.getTypeElement(Collection.class.getCanonicalName()), types.getWildcardType(null, null));
+		iterableType = types.getDeclaredType(elements.getTypeElement(Iterable.class.getCanonicalName()), types.getWildcardType(null, null));
 
 		cleanerElement = elements.getTypeElement(Cleaner.class.getCanonicalName());
 		cleanerType = types.getDeclaredType(cleanerElement, types.getWildcardType(null, null));
@@ -284,6 +286,17 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 								lookupCloseMethod = false;
 						}
 
+						final boolean sharedStatementCache = mapper.sharedStatementCache().combine(false);
+						final int[] bindInListBuckets = mapper.bindInListBuckets();
+						final boolean bucketBindInList = mapper.bucketBindInList().combine(bindInListBuckets.length != 0);
+						try {
+							InListUtil.checkBuckets(bindInListBuckets);
+						} catch (IllegalArgumentException e) {
+							processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.Mapper " + e.getMessage(), genClass);
+							continue;
+						}
+						final String bindInListBucketsName = bindInListBuckets.length == 0 ? "com.moparisthebest.jdbc.util.InListUtil.powersOfTwo" : "_bindInListBuckets";
+						boolean bucketCachedPreparedStatements = false;
 						final boolean defaultAllowReflection = mapper.allowReflection().combine(false);
 						final ReflectionFields reflectionFields = new ReflectionFields();
 
@@ -305,6 +318,7 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 								}
 							final JdbcMapper.WarnOnUnusedParams warnOnUnusedParams = eeMethod.getAnnotation(JdbcMapper.WarnOnUnusedParams.class);
 							final JdbcMapper.SQL sql = eeMethod.getAnnotation(JdbcMapper.SQL.class);
+							final JdbcMapper.Batch batch = eeMethod.getAnnotation(JdbcMapper.Batch.class);
 							if (sql == null || sql.value().isEmpty()) {
 								processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.SQL with non-empty query is required on abstract or interface methods", methodElement);
 								continue;
@@ -324,6 +338,7 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 							// build query and bind param order
 							final List<VariableElement> bindParams = new ArrayList<VariableElement>();
 							final Map<String, SpecialVariableElement> inListBindParams = new LinkedHashMap<String, SpecialVariableElement>();
+							final Map<String, ExpressionVariableElement> batchParams = new LinkedHashMap<String, ExpressionVariableElement>();
 							final String sqlStatement;
 							String calendarName = null, cleanerName = null;
 							CompileTimeResultSetMapper.MaxRows maxRows = CompileTimeResultSetMapper.MaxRows.getMaxRows(sql.maxRows());
@@ -346,6 +361,16 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 										w.write(", ");
 								}
 								final Map<String, VariableElement> unusedParams = new HashMap<String, VariableElement>(paramMap);
+								if (batch != null) {
+									for (final VariableElement param : params) {
+										final TypeMirror rowType = getBatchRowType(param);
+										if (rowType != null)
+											batchParams.put(param.getSimpleName().toString(), new ExpressionVariableElement(param,
+													processingEnv.getElementUtils().getName("_" + param.getSimpleName() + "BatchRow"), rowType));
+									}
+									if (batchParams.isEmpty())
+										processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.Batch requires at least one array, Iterable, or Stream parameter", methodElement);
+								}
 
 								// throws?
 								w.write(")");
@@ -368,7 +393,29 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 								int inListBindParamsIdx = -1;
 								while (bindParamMatcher.find()) {
 									final String paramName = bindParamMatcher.group(7);
-									final VariableElement bindParam = paramMap.get(paramName);
+									VariableElement bindParam = paramMap.get(paramName);
+									if (bindParam != null) {
+										if (batchParams.containsKey(paramName))
+											bindParam = batchParams.get(paramName);
+									} else {
+										// {param.field}, or {field} of the only batch param
+										final int dot = paramName.indexOf('.');
+										final String baseName = dot < 0 ? null : paramName.substring(0, dot);
+										ExpressionVariableElement base = null;
+										if (baseName == null) {
+											if (batchParams.size() == 1)
+												base = batchParams.values().iterator().next();
+										} else if (batchParams.containsKey(baseName)) {
+											base = batchParams.get(baseName);
+										} else if (paramMap.containsKey(baseName)) {
+											base = new ExpressionVariableElement(paramMap.get(baseName));
+										}
+										if (base != null) {
+											bindParam = getMember(base, baseName == null ? paramName : paramName.substring(dot + 1));
+											if (bindParam != null)
+												unusedParams.remove(base.delegate.getSimpleName().toString());
+										}
+									}
 									if (bindParam == null) {
 										processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("@JdbcMapper.SQL sql has bind param '%s' not in method parameter list", paramName), methodElement);
 										continue;
@@ -376,6 +423,10 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 									unusedParams.remove(paramName);
 									final String clobBlob = bindParamMatcher.group(5);
 									final String inColumnName = bindParamMatcher.group(2);
+									if (batch != null && inColumnName != null) {
+										processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.Batch cannot be combined with in/not in bind params", methodElement);
+										continue;
+									}
 									if (inColumnName == null) {
 										bindParamMatcher.appendReplacement(sb, "?");
 										if(clobBlob == null){
@@ -434,8 +485,9 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 												break;
 											case BIND:
 												replacement = "REPLACEMEWITHUNQUOTEDQUOTEPLZ + com.moparisthebest.jdbc.util.InListUtil.to" +
-														(not ? "Not" : "") + "InList(REPLACEMEWITHUNQUOTEDQUOTEPLZ"
-														+ inColumnName + "REPLACEMEWITHUNQUOTEDQUOTEPLZ, " + inListBindParam.getName() + ") + REPLACEMEWITHUNQUOTEDQUOTEPLZ";
+														(bucketBindInList ? "Bucketed" : "") + (not ? "Not" : "") + "InList(REPLACEMEWITHUNQUOTEDQUOTEPLZ"
+														+ inColumnName + "REPLACEMEWITHUNQUOTEDQUOTEPLZ, " + inListBindParam.getName()
+														+ (bucketBindInList ? ", " + bindInListBucketsName : "") + ") + REPLACEMEWITHUNQUOTEDQUOTEPLZ";
 												break;
 											default:
 												processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "default DatabaseType? should never happen!!", bindParam);
@@ -474,19 +526,33 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 							final boolean bindInList = !inListBindParams.isEmpty() && databaseType == JdbcMapper.DatabaseType.BIND;
 
 							final SQLParser parsedSQl = ManualSQLParser.getSQLParser(sql, parser, sqlStatement);
+							if (batch != null && parsedSQl.isSelect()) {
+								processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.Batch cannot be used with SELECT sql", methodElement);
+								continue;
+							}
+							// drivers only stream rows with a cursor instead of reading them all up front if auto-commit is off
+							final String autoCommitConn = parsedSQl.isSelect() && sql.fetchSize() > 0 && rsm.isStreamed(eeMethod.getReturnType()) ? "_autoCommitConn" : null;
 							// now implementation
 							w.write("\t\tPreparedStatement ps = null;\n");
 							if (parsedSQl.isSelect())
 								w.write("\t\tResultSet rs = null;\n");
 							if(notBindInList)
 								w.append("\t\tfinal Array[] _bindArrays = new Array[").append(Integer.toString(inListBindParams.size())).append("];\n");
+							if (autoCommitConn != null)
+								w.append("\t\tConnection ").append(autoCommitConn).append(" = null;\n");
 							w.write("\t\ttry {\n");
+							if (autoCommitConn != null)
+								w.append("\t\t\t").append(autoCommitConn).append(" = com.moparisthebest.jdbc.util.ResultSetIterable.beginCursor(conn);\n");
 							for (final SpecialVariableElement param : inListBindParams.values())
 								setArray(w, databaseType, arrayNumberTypeName, arrayStringTypeName, param);
 							w.write("\t\t\tps = ");
-							final boolean isGeneratedKeyLong = !parsedSQl.isSelect() && (returnType.equals("long") || returnType.equals("java.lang.Long"));
-							final boolean cachePreparedStatements = sql.cachePreparedStatement().combine(defaultCachePreparedStatements) && !bindInList;
-							if (cachePreparedStatements && !isGeneratedKeyLong) { // make isGeneratedKeyLong work with cachePreparedStatements
+							final boolean isGeneratedKeyLong = batch == null && !parsedSQl.isSelect() && (returnType.equals("long") || returnType.equals("java.lang.Long"));
+							// bucketed in lists have a few SQL strings instead of one per list length, so each gets cached by its SQL
+							final boolean cachePreparedStatements = sql.cachePreparedStatement().combine(defaultCachePreparedStatements) && (!bindInList || bucketBindInList);
+							if (cachePreparedStatements && !isGeneratedKeyLong && bindInList) {
+								w.write("this.prepareBucketStatement(");
+								bucketCachedPreparedStatements = true;
+							} else if (cachePreparedStatements && !isGeneratedKeyLong) { // make isGeneratedKeyLong work with cachePreparedStatements
 								w.write("this.prepareStatement(");
 								w.write(Integer.toString(cachedPreparedStatements));
 								w.write(", ");
@@ -508,21 +574,32 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 								}
 							}
 							w.write(");\n");
-
-							// now bind parameters
-							if(bindInList) {
-								w.write("\t\t\tint psParamCount = 0;\n");
-								for (final VariableElement param : bindParams)
-									setObject(w, "++psParamCount", param);
-							} else {
-								int count = 0;
-								for (final VariableElement param : bindParams)
-									setObject(w, Integer.toString(++count), param);
+							if (parsedSQl.isSelect() && sql.fetchSize() > 0)
+								w.append("\t\t\tps.setFetchSize(").append(Integer.toString(sql.fetchSize())).append(");\n");
+
+							// now bind parameters, batches bind them once per row in outputBatch
+							if (batch == null) {
+								if (bindInList) {
+									w.write("\t\t\tint psParamCount = 0;\n");
+									for (final VariableElement param : bindParams)
+										if (bucketBindInList && param instanceof SpecialVariableElement && ((SpecialVariableElement) param).specialType == SpecialVariableElement.SpecialType.BIND_IN_LIST)
+											w.append("\t\t\tpsParamCount = com.moparisthebest.jdbc.util.InListUtil.setBucketedObjects(ps, psParamCount, ")
+													.append(((SpecialVariableElement) param).getName()).append(", ").append(bindInListBucketsName).append(");\n");
+										else
+											setObject(w, "++psParamCount", param);
+								} else {
+									int count = 0;
+									for (final VariableElement param : bindParams)
+										setObject(w, Integer.toString(++count), param);
+								}
 							}
 
 							boolean closeRs = true;
 							if (!parsedSQl.isSelect()) {
-								if (returnType.equals("void")) {
+								if (batch != null) {
+									if (!outputBatch(w, eeMethod, batch, batchParams.values(), bindParams, returnType, cachePreparedStatements))
+										continue;
+								} else if (returnType.equals("void")) {
 									w.write("\t\t\tps.executeUpdate();\n");
 								} else if (returnType.equals("int") || returnType.equals("java.lang.Integer")) {
 									w.write("\t\t\treturn ps.executeUpdate();\n");
@@ -559,7 +636,7 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 										processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.SQL sql parsed a wildcard column name which is not supported", methodElement);
 										return false;
 									}
-								closeRs = rsm.mapToResultType(w, keys, eeMethod, maxRows, calendarName, cleanerName, !cachePreparedStatements, allowReflection ? reflectionFields : null);
+								closeRs = rsm.mapToResultType(w, keys, eeMethod, maxRows, calendarName, cleanerName, !cachePreparedStatements, autoCommitConn, allowReflection ? reflectionFields : null);
 							}
 
 							// close things
@@ -582,6 +659,8 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 									w.write("\t\t\ttryClose(rs);\n");
 								if (!cachePreparedStatements)
 									w.write("\t\t\ttryClose(ps);\n");
+								if (autoCommitConn != null)
+									w.append("\t\t\tcom.moparisthebest.jdbc.util.ResultSetIterable.restoreAutoCommit(").append(autoCommitConn).append(");\n");
 								if (sqlExceptionThrown)
 									w.write("\t\t\tif(e instanceof SQLException)\n\t\t\t\tthrow (SQLException)e;\n");
 								w.write("\t\t\tif(e instanceof RuntimeException)\n\t\t\t\tthrow (RuntimeException)e;\n");
@@ -603,7 +682,7 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 						if (lookupCloseMethod)
 							closeMethod = getCloseMethod(genClass);
 
-						if (closeMethod == null && (cachedPreparedStatements > 0 || doJndi)) {
+						if (closeMethod == null && (cachedPreparedStatements > 0 || bucketCachedPreparedStatements || doJndi)) {
 							processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Jdbc.Mapper extended classes with cachedPreparedStatements or jndiNames must have a public void close() method to override or implement, because they must be closed", genClass);
 							continue;
 						}
@@ -623,17 +702,66 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 							w.write(Integer.toString(cachedPreparedStatements));
 							w.write("];\n\n\tprivate PreparedStatement prepareStatement(final int index, final String sql) throws SQLException {\n" +
 									"\t\tfinal PreparedStatement ps = psCache[index];\n" +
-									"\t\treturn ps == null ? (psCache[index] = conn.prepareStatement(sql)) : ps;\n" +
+									(sharedStatementCache ?
+									"\t\treturn ps == null ? (psCache[index] = com.moparisthebest.jdbc.StatementCache.shared.prepareStatement(conn, sql)) : ps;\n"
+									:
+									"\t\treturn ps == null ? (psCache[index] = conn.prepareStatement(sql)) : ps;\n") +
 									"\t}\n");
 						}
 
+						if (bucketCachedPreparedStatements) {
+							// LRU bounded by maxBucketStatements, every combination of bucket sizes across the in lists is its own SQL
+							w.write("\n\tprivate final java.util.Map<String, PreparedStatement> psBucketCache = new java.util.LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {\n" +
+									"\t\t@Override\n" +
+									"\t\tprotected boolean removeEldestEntry(final java.util.Map.Entry<String, PreparedStatement> eldest) {\n" +
+									"\t\t\tif (size() <= com.moparisthebest.jdbc.util.InListUtil.maxBucketStatements)\n" +
+									"\t\t\t\treturn false;\n" +
+									(sharedStatementCache ?
+									"\t\t\tcom.moparisthebest.jdbc.StatementCache.shared.release(conn, eldest.getValue());\n"
+									:
+									"\t\t\ttryClose(eldest.getValue());\n") +
+									"\t\t\treturn true;\n" +
+									"\t\t}\n" +
+									"\t};\n\n" +
+									"\tprivate PreparedStatement prepareBucketStatement(final String sql) throws SQLException {\n" +
+									"\t\tPreparedStatement ps = psBucketCache.get(sql);\n" +
+									"\t\tif (ps == null)\n" +
+									(sharedStatementCache ?
+									"\t\t\tpsBucketCache.put(sql, ps = com.moparisthebest.jdbc.StatementCache.shared.prepareStatement(conn, sql));\n"
+									:
+									"\t\t\tpsBucketCache.put(sql, ps = conn.prepareStatement(sql));\n") +
+									"\t\treturn ps;\n" +
+									"\t}\n");
+						}
+
+						if (bucketBindInList && bindInListBuckets.length != 0) {
+							w.write("\n\tprivate static final int[] _bindInListBuckets = new int[]{");
+							for (int x = 0; x < bindInListBuckets.length; ++x) {
+								if (x != 0)
+									w.write(", ");
+								w.write(Integer.toString(bindInListBuckets[x]));
+							}
+							w.write("};\n");
+						}
+
 						// close method
 						if (closeMethod != null) {
 							// if cachedPreparedStatements > 0 or doJndi are true, class MUST have a close() method to override as it
 							// MUST be called to clean up
 							w.write("\n\t@Override\n\tpublic void close() {\n");
-							if (cachedPreparedStatements > 0)
-								w.write("\t\tfor(final PreparedStatement ps : psCache)\n\t\t\ttryClose(ps);\n");
+							if (cachedPreparedStatements > 0) {
+								if (sharedStatementCache)
+									w.write("\t\tfor(final PreparedStatement ps : psCache)\n\t\t\tcom.moparisthebest.jdbc.StatementCache.shared.release(conn, ps);\n");
+								else
+									w.write("\t\tfor(final PreparedStatement ps : psCache)\n\t\t\ttryClose(ps);\n");
+							}
+							if (bucketCachedPreparedStatements) {
+								if (sharedStatementCache)
+									w.write("\t\tfor(final PreparedStatement ps : psBucketCache.values())\n\t\t\tcom.moparisthebest.jdbc.StatementCache.shared.release(conn, ps);\n");
+								else
+									w.write("\t\tfor(final PreparedStatement ps : psBucketCache.values())\n\t\t\ttryClose(ps);\n");
+								w.write("\t\tpsBucketCache.clear();\n");
+							}
 							if (doJndi)
 								w.write("\t\tif(closeConn)\n\t\t\ttryClose(conn);\n");
 							if (closeMethod.getEnclosingElement().getKind() != ElementKind.INTERFACE && !closeMethod.getEnclosingElement().equals(genClass))
@@ -764,6 +892,10 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 		if (o.getKind() == TypeKind.ARRAY) {
 			inListArgType = InListArgType.ARRAY;
 			componentType = ((ArrayType) o).getComponentType();
+			if (componentType.getKind().isPrimitive() && componentType.getKind() != TypeKind.LONG && componentType.getKind() != TypeKind.INT) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.SQL in list syntax only valid on long[] and int[] primitive arrays, not " + o.toString(), specialParam.delegate);
+				return;
+			}
 		} else if (o.getKind() == TypeKind.DECLARED && types.isAssignable(o, collectionType)) {
 			inListArgType = InListArgType.COLLECTION;
 			final DeclaredType dt = (DeclaredType) o;
@@ -803,7 +935,8 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 			return; // we don't want any of the following
 		}
 		w.append("\t\t\t_bindArrays[").append(Integer.toString(specialParam.index)).append("] = ");
-		final String type = types.isAssignable(componentType, numberType) ? arrayNumberTypeName : arrayStringTypeName;
+		final boolean primitive = componentType.getKind().isPrimitive();
+		final String type = primitive || types.isAssignable(componentType, numberType) ? arrayNumberTypeName : arrayStringTypeName;
 		switch (databaseType) {
 			case ORACLE:
 				w.write("conn.unwrap(oracle.jdbc.OracleConnection.class).createOracleArray(\"");
@@ -838,7 +971,13 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 		}
 		w.write(type);
 		w.write("\", ");
+		// createArrayOf only takes Object[], createOracleArray takes primitive arrays as-is
+		final boolean box = primitive && databaseType != ORACLE;
+		if (box)
+			w.write("com.moparisthebest.jdbc.util.InListUtil.box(");
 		w.write(variableName);
+		if (box)
+			w.write(")");
 		switch (inListArgType) {
 			case COLLECTION:
 				w.append(".toArray(new ").append(componentType.toString()).append("[").append(variableName).append(".size()])");
@@ -850,6 +989,176 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 		w.write(");\n");
 	}
 
+	/**
+	 * @return the type of each row of a @JdbcMapper.Batch parameter, or null if param is not an array, Iterable, or Stream
+	 */
+	private TypeMirror getBatchRowType(final VariableElement param) {
+		final TypeMirror o = param.asType();
+		if (o.getKind() == TypeKind.ARRAY)
+			return types.isSameType(o, byteArrayType) ? null : ((ArrayType) o).getComponentType();
+		if (o.getKind() != TypeKind.DECLARED)
+			return null;
+		boolean batchType = types.isAssignable(o, iterableType);
+		//IFJAVA8_START
+		batchType |= types.isAssignable(o, streamType);
+		//IFJAVA8_END
+		if (!batchType)
+			return null;
+		final List<? extends TypeMirror> typeArguments = ((DeclaredType) o).getTypeArguments();
+		if (typeArguments.size() != 1) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.Batch Iterable and Stream parameters must have exactly one type argument", param);
+			return null;
+		}
+		TypeMirror rowType = typeArguments.get(0);
+		if (rowType.getKind() == TypeKind.WILDCARD)
+			rowType = ((WildcardType) rowType).getExtendsBound();
+		if (rowType == null) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.Batch Iterable and Stream parameters must have a type argument with a known type", param);
+			return null;
+		}
+		return rowType;
+	}
+
+	/**
+	 * @param path member name, or names separated by . to go deeper
+	 * @return path bound to the public getter, or failing that public field, of base, null if neither exist
+	 */
+	private ExpressionVariableElement getMember(ExpressionVariableElement base, final String path) {
+		final Elements elements = processingEnv.getElementUtils();
+		for (final String name : path.split("\\.")) {
+			if (base.type.getKind() != TypeKind.DECLARED || name.isEmpty())
+				return null;
+			final String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			final String getter = "get" + capitalized, isGetter = "is" + capitalized;
+			ExpressionVariableElement field = null, method = null;
+			for (final Element member : elements.getAllMembers((TypeElement) types.asElement(base.type))) {
+				if (!member.getModifiers().contains(Modifier.PUBLIC) || member.getModifiers().contains(Modifier.STATIC))
+					continue;
+				final String memberName = member.getSimpleName().toString();
+				if (member.getKind() == ElementKind.METHOD) {
+					final ExecutableElement ee = (ExecutableElement) member;
+					if (ee.getParameters().isEmpty() && ee.getReturnType().getKind() != TypeKind.VOID
+							&& (memberName.equals(getter) || memberName.equals(isGetter))) {
+						method = new ExpressionVariableElement(base.delegate, elements.getName(base.expression + "." + memberName + "()"), ee.getReturnType());
+						break;
+					}
+				} else if (member.getKind() == ElementKind.FIELD && memberName.equals(name)) {
+					field = new ExpressionVariableElement(base.delegate, elements.getName(base.expression + "." + name), member.asType());
+				}
+			}
+			base = method != null ? method : field;
+			if (base == null)
+				return null;
+		}
+		return base;
+	}
+
+	private boolean outputBatch(final Writer w, final ExecutableElement eeMethod, final JdbcMapper.Batch batch, final Collection<ExpressionVariableElement> batchParams, final List<VariableElement> bindParams, final String returnType, final boolean cachedPreparedStatement) throws IOException {
+		if (batchParams.isEmpty())
+			return false;
+		final String flush;
+		if (returnType.equals("void")) {
+			flush = "ps.executeBatch();\n";
+		} else if (returnType.equals("int[]")) {
+			w.write("\t\t\tint[] _batchCounts = new int[0];\n");
+			flush = "_batchCounts = com.moparisthebest.jdbc.util.BatchUtil.concat(_batchCounts, ps.executeBatch());\n";
+		} else if (returnType.equals("int") || returnType.equals("java.lang.Integer") || returnType.equals("long") || returnType.equals("java.lang.Long")) {
+			w.write("\t\t\tlong _batchTotal = 0;\n");
+			flush = "_batchTotal += com.moparisthebest.jdbc.util.BatchUtil.sum(ps.executeBatch());\n";
+		} else {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JdbcMapper.Batch methods must return either void, int, Integer, long, Long, or int[]", eeMethod);
+			return false;
+		}
+		// arrays are indexed, everything else is iterated
+		final ExpressionVariableElement first = batchParams.iterator().next();
+		final String firstName = first.delegate.getSimpleName().toString();
+		final boolean firstArray = first.delegate.asType().getKind() == TypeKind.ARRAY;
+		for (final ExpressionVariableElement batchParam : batchParams) {
+			final String name = batchParam.delegate.getSimpleName().toString();
+			if (batchParam.delegate.asType().getKind() != TypeKind.ARRAY)
+				w.append("\t\t\tfinal java.util.Iterator<? extends ").append(batchParam.type.toString()).append("> _").append(name)
+						.append("BatchIterator = ").append(name).append(".iterator();\n");
+			else if (firstArray && batchParam != first)
+				// parallel arrays are checked before anything is sent
+				w.append("\t\t\tif (").append(name).append(".length != ").append(firstName).append(".length)\n\t\t\t\t")
+						.append(batchLengthMismatch(name, firstName));
+		}
+		if (cachedPreparedStatement)
+			w.write("\t\t\tboolean _batchFailed = true;\n\t\t\ttry {\n");
+		final String indent = cachedPreparedStatement ? "\t" : "";
+		w.append(indent).write("\t\t\tint _batchCount = 0;\n");
+		w.append(indent).write("\t\t\tint _batchIndex = 0;\n");
+		w.append(indent).write("\t\t\tfor (; ");
+		if (firstArray)
+			w.append("_batchIndex < ").append(firstName).append(".length");
+		else
+			w.append('_').append(firstName).append("BatchIterator.hasNext()");
+		w.write("; ++_batchIndex) {\n");
+		for (final ExpressionVariableElement batchParam : batchParams) {
+			final String name = batchParam.delegate.getSimpleName().toString();
+			final boolean array = batchParam.delegate.asType().getKind() == TypeKind.ARRAY;
+			if (batchParam != first && !(array && firstArray)) {
+				// the rest have to run out at the same time as the first
+				w.append(indent).append("\t\t\t\tif (");
+				if (array)
+					w.append("_batchIndex == ").append(name).append(".length");
+				else
+					w.append("!_").append(name).append("BatchIterator.hasNext()");
+				w.append(")\n").append(indent).append("\t\t\t\t\t").append(batchLengthMismatch(name, firstName));
+			}
+			w.append(indent).append("\t\t\t\tfinal ").append(batchParam.type.toString()).append(' ').append(batchParam.expression).append(" = ");
+			if (array)
+				w.append(name).append("[_batchIndex];\n");
+			else
+				w.append('_').append(name).append("BatchIterator.next();\n");
+		}
+		int count = 0;
+		for (final VariableElement param : bindParams) {
+			w.append(indent).write('\t');
+			setObject(w, Integer.toString(++count), param);
+		}
+		w.append(indent).write("\t\t\t\tps.addBatch();\n");
+		if (batch.size() > 0)
+			w.append(indent).append("\t\t\t\tif (++_batchCount == ").append(Integer.toString(batch.size())).append(") {\n")
+					.append(indent).append("\t\t\t\t\t").append(flush)
+					.append(indent).append("\t\t\t\t\t_batchCount = 0;\n")
+					.append(indent).append("\t\t\t\t}\n");
+		else
+			w.append(indent).write("\t\t\t\t++_batchCount;\n");
+		w.append(indent).write("\t\t\t}\n");
+		for (final ExpressionVariableElement batchParam : batchParams) {
+			final String name = batchParam.delegate.getSimpleName().toString();
+			final boolean array = batchParam.delegate.asType().getKind() == TypeKind.ARRAY;
+			if (batchParam != first && !(array && firstArray)) {
+				w.append(indent).append("\t\t\tif (");
+				if (array)
+					w.append("_batchIndex != ").append(name).append(".length");
+				else
+					w.append('_').append(name).append("BatchIterator.hasNext()");
+				w.append(")\n").append(indent).append("\t\t\t\t").append(batchLengthMismatch(name, firstName));
+			}
+		}
+		w.append(indent).append("\t\t\tif (_batchCount != 0)\n").append(indent).append("\t\t\t\t").append(flush);
+		if (cachedPreparedStatement)
+			// a cached PreparedStatement would otherwise send rows added before a failure with the next call's batch
+			w.write("\t\t\t\t_batchFailed = false;\n" +
+					"\t\t\t} finally {\n" +
+					"\t\t\t\tif (_batchFailed)\n" +
+					"\t\t\t\t\tcom.moparisthebest.jdbc.util.BatchUtil.clearBatch(ps);\n" +
+					"\t\t\t}\n");
+		if (returnType.equals("int[]"))
+			w.write("\t\t\treturn _batchCounts;\n");
+		else if (returnType.equals("int") || returnType.equals("java.lang.Integer"))
+			w.write("\t\t\treturn com.moparisthebest.jdbc.util.BatchUtil.toInt(_batchTotal);\n");
+		else if (!returnType.equals("void"))
+			w.write("\t\t\treturn _batchTotal;\n");
+		return true;
+	}
+
+	private static String batchLengthMismatch(final String name, final String firstName) {
+		return "throw new IllegalArgumentException(\"@JdbcMapper.Batch parameters " + name + " and " + firstName + " must have the same number of rows\");\n";
+	}
+
 	private void setObject(final Writer w, final String index, final VariableElement param) throws IOException {
 		String variableName = param.getSimpleName().toString();
 		final TypeMirror o = param.asType();
@@ -861,8 +1170,11 @@ public class JdbcMapperProcessor extends AbstractProcessor {
 			final SpecialVariableElement specialParam = (SpecialVariableElement) param;
 			switch (specialParam.specialType) {
                 case BIND_IN_LIST: {
-                    w.append("for(final ").append(specialParam.getComponentTypeString()).append(" _bindInListParam : ").append(specialParam.getName()).append(")\n");
-                    w.append("\t\t\t\tps.setObject(").append(index).append(", _bindInListParam);\n");
+                    final String componentType = specialParam.getComponentTypeString();
+                    w.append("for(final ").append(componentType).append(" _bindInListParam : ").append(specialParam.getName()).append(")\n");
+                    // primitive arrays bind without boxing
+                    w.append("\t\t\t\tps.").append(componentType.equals("long") ? "setLong" : componentType.equals("int") ? "setInt" : "setObject")
+                            .append("(").append(index).append(", _bindInListParam);\n");
                     return;
                 }
 				case IN_LIST: {
@@ -71,7 +71,7 @@ do
     method_name=$(echo $method | egrep -o '[^ ]+\(')
     echo "QueryMapper.$method_name)"
 
-    [ "$method_name" == 'toStream(' ] && echo -e '\t//IFJAVA8_START\n' | tee -a "$query" "$caching_query" "$null_query" "$list_query" >/dev/null
+    [ "$method_name" == 'toStream(' ] && echo -e '\t//IFJAVA8_START\n' | tee -a "$query" "$null_query" "$list_query" >/dev/null
 
     # QueryMapper.java
     cat >> "$query" <<EOF
@@ -88,8 +88,8 @@ EOF
 	$(echo $method | sed -e 's/ResultSet rs/String sql/' -e 's/) {/, final Object... bindObjects) throws SQLException {/')
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.$method_name$(echo $method | sed -e 's/^.*(//' -e 's/final //g' -e 's/, [^ ]* /, /g' -e 's/ResultSet rs/ps/' -e 's/) {/, bindObjects);/')
+			ps = prepareQuery(sql);
+			return mapperFor(sql).$method_name$(echo $method | sed -e 's/^.*(//' -e 's/final //g' -e 's/, [^ ]* /, /g' -e 's/ResultSet rs/bindExecute(ps, bindObjects)/' -e 's/) {/);/')
 		} finally {
 			tryClose(ps);
 		}
@@ -99,15 +99,19 @@ EOF
 
     fi # end special case toResultSetIterable/toStream/toType
 
-    # CachingQueryMapper.java
+    # CachingQueryMapper.java, toResultSetIterable/toStream/toType are handled specially there because they lease their PreparedStatement
+    if [ "$method_name" != 'toResultSetIterable(' -a "$method_name" != 'toStream(' -a "$method_name" != 'toType(' ]; then
+
     cat >> "$caching_query" <<EOF
 	@Override
 	$(echo $method | sed -e 's/ResultSet rs/String sql/' -e 's/) {/, final Object... bindObjects) throws SQLException {/')
-		return super.$method_name$(echo $method | sed -e 's/^.*(//' -e 's/final //g' -e 's/, [^ ]* /, /g' -e 's/ResultSet rs/getPreparedStatement(sql)/' -e 's/) {/, bindObjects);/')
+		return mapperFor(sql).$method_name$(echo $method | sed -e 's/^.*(//' -e 's/final //g' -e 's/, [^ ]* /, /g' -e 's/ResultSet rs/bindExecute(getPreparedStatement(sql), bindObjects)/' -e 's/) {/);/')
 	}
 
 EOF
 
+    fi # end special case toResultSetIterable/toStream/toType
+
 
     # NullQueryMapper.java
     for type in PreparedStatement String
@@ -135,12 +139,16 @@ EOF
 
 	@Override
 	$(echo $method | sed -e 's/ResultSet rs/String sql/' -e 's/) {/, final Object... bindObjects) throws SQLException {/')
-		return delegate.$method_name$(echo $method | sed -e 's/^.*(//' -e 's/final //g' -e 's/, [^ ]* /, /g' -e 's/ResultSet rs/prepareSql(sql, bindObjects)/' -e 's/) {/, bindObjects);/')
+		try {
+			return delegate.$method_name$(echo $method | sed -e 's/^.*(//' -e 's/final //g' -e 's/, [^ ]* /, /g' -e 's/ResultSet rs/prepareSql(sql, bindObjects)/' -e 's/) {/, bindObjects);/')
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 EOF
 
-    [ "$method_name" == 'toStream(' ] && echo -e '\t//IFJAVA8_END\n' | tee -a "$query" "$caching_query" "$null_query" "$list_query" >/dev/null
+    [ "$method_name" == 'toStream(' ] && echo -e '\t//IFJAVA8_END\n' | tee -a "$query" "$null_query" "$list_query" >/dev/null
 
 done
 
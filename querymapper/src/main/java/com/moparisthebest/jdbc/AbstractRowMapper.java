@@ -102,15 +102,26 @@ public abstract class AbstractRowMapper<K, T> implements RowMapper<K,T>, ResultS
         if(this.keys != null)
             return this.keys;
 
-        String[] keys;
-        final ResultSetMetaData md = _resultSet.getMetaData();
+        return this.keys = getKeysFromResultSet(_resultSet.getMetaData(), _columnCount);
+    }
+
+    /**
+     * Build a String array of column names from the ResultSet, without a RowMapper.
+     * @return A String array containing the upper-cased column labels, index 0 is unused.
+     * @throws java.sql.SQLException on error
+     */
+    protected static String[] getKeysFromResultSet(final ResultSet resultSet) throws SQLException {
+        final ResultSetMetaData md = resultSet.getMetaData();
+        return getKeysFromResultSet(md, md.getColumnCount());
+    }
 
-        keys = new String[_columnCount + 1];
-        for (int i = 1; i <= _columnCount; i++) {
+    private static String[] getKeysFromResultSet(final ResultSetMetaData md, final int columnCount) throws SQLException {
+        final String[] keys = new String[columnCount + 1];
+        for (int i = 1; i <= columnCount; i++) {
             //keys[i] = md.getColumnName(i).toUpperCase();
             keys[i] = md.getColumnLabel(i).toUpperCase();
         }
-        return this.keys = keys;
+        return keys;
     }
 
 	@Override
@@ -0,0 +1,519 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.util.InListUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Picks an InList strategy by list size, by measuring them, instead of one per database like OptimalInList.
+ * <p>
+ * For each database product, lists are grouped by column name and into size buckets with InListUtil.toBucketSize,
+ * and in each bucket every candidate strategy is used minSamples times, then whichever has the lowest moving average
+ * of time spent building the list and executing statements bound with it is used, except for exploreRate of calls,
+ * which use a random other one so a change in which is fastest is noticed. What it settled on can be read from, and
+ * pinned on, the Learner returned by instance(Connection).
+ * <p>
+ * A strategy that throws while building a list is not used in that bucket again, and the list is built with another
+ * one instead. One whose statements fail to execute minSamples times in a row is dropped the same way, those can't
+ * be retried since the statement already failed. If every strategy in a bucket has been dropped they are all tried
+ * again. tempTable is only a candidate for buckets of at least tempTableMinSize, below that it's never worth it.
+ * <p>
+ * Execution is timed by QueryMapper until executeQuery or executeUpdate returns, not while reading rows, and only for
+ * in lists passed directly as bind objects, not nested inside arrays or collections.
+ */
+public class AdaptiveInList implements PrimitiveInList {
+
+	public static final double defaultExploreRate = Double.parseDouble(System.getProperty("QueryMapper.AdaptiveInList.exploreRate", "0.05"));
+	public static final int defaultMinSamples = Integer.parseInt(System.getProperty("QueryMapper.AdaptiveInList.minSamples", "3"));
+	public static final int defaultTempTableMinSize = Integer.parseInt(System.getProperty("QueryMapper.AdaptiveInList.tempTableMinSize", String.valueOf(OptimalInList.defaultTempTableThreshold)));
+
+	private static final InList instance = new AdaptiveInList();
+
+	public static InList instance() {
+		return instance;
+	}
+
+	protected final double exploreRate;
+	protected final int minSamples, tempTableMinSize;
+	protected final int[] buckets;
+
+	private final Map<String, Learner> learners = new HashMap<String, Learner>();
+
+	/**
+	 * @param exploreRate fraction of calls, from 0 to 1, that try a strategy other than the fastest
+	 * @param minSamples  times each strategy is tried in a bucket before picking the fastest
+	 * @param buckets          ascending list sizes, or InListUtil.powersOfTwo
+	 * @param tempTableMinSize smallest bucket size tempTable is tried for
+	 */
+	public AdaptiveInList(final double exploreRate, final int minSamples, final int[] buckets, final int tempTableMinSize) {
+		if (exploreRate < 0 || exploreRate > 1)
+			throw new IllegalArgumentException("exploreRate must be from 0 to 1");
+		if (minSamples < 1)
+			throw new IllegalArgumentException("minSamples must be > 0");
+		this.exploreRate = exploreRate;
+		this.minSamples = minSamples;
+		this.buckets = InListUtil.checkBuckets(buckets).clone();
+		this.tempTableMinSize = tempTableMinSize;
+	}
+
+	public AdaptiveInList(final double exploreRate, final int minSamples, final int[] buckets) {
+		this(exploreRate, minSamples, buckets, defaultTempTableMinSize);
+	}
+
+	public AdaptiveInList() {
+		this(defaultExploreRate, defaultMinSamples, InListUtil.powersOfTwo);
+	}
+
+	/**
+	 * @return the Learner shared by every connection to the same database product
+	 */
+	@Override
+	public Learner instance(final Connection conn) {
+		String key;
+		try {
+			key = conn.getMetaData().getDatabaseProductName();
+		} catch (SQLException e) {
+			key = null;
+		}
+		if (key == null)
+			key = conn.getClass().getName();
+		synchronized (learners) {
+			Learner ret = learners.get(key);
+			if (ret == null)
+				learners.put(key, ret = new Learner(key, candidates(conn)));
+			return ret;
+		}
+	}
+
+	/**
+	 * @return strategies that work on conn, by name
+	 */
+	protected Map<String, InList> candidates(final Connection conn) {
+		final Map<String, InList> ret = new LinkedHashMap<String, InList>();
+		final InList optimal = ((OptimalInList) OptimalInList.instance()).smallInstance(conn);
+		if (optimal != BindInList.instance())
+			ret.put("array", optimal);
+		ret.put("bind", BindInList.instance());
+		ret.put("bucketedBind", BindInList.bucketedInstance());
+		ret.put("tempTable", TempTableInList.instance().instance(conn));
+		return ret;
+	}
+
+	/**
+	 * @return smallest bucket size strategy from candidates is tried for
+	 */
+	protected int minSize(final String strategy) {
+		return strategy.equals("tempTable") ? tempTableMinSize : 0;
+	}
+
+	/**
+	 * Don't call this which inspect connection type each time, get an InList once with .instance(Connection) and use it forever
+	 */
+	@Override
+	public <T> InListObject inList(final Connection conn, final String columnName, final Collection<T> values) throws SQLException {
+		return this.instance(conn).inList(conn, columnName, values);
+	}
+
+	/**
+	 * Don't call this which inspect connection type each time, get an InList once with .instance(Connection) and use it forever
+	 */
+	@Override
+	public <T> InListObject notInList(final Connection conn, final String columnName, final Collection<T> values) throws SQLException {
+		return this.instance(conn).notInList(conn, columnName, values);
+	}
+
+	@Override
+	public InListObject inList(final Connection conn, final String columnName, final long[] values) throws SQLException {
+		return ListQueryMapper.inList(this.instance(conn), conn, columnName, values);
+	}
+
+	@Override
+	public InListObject notInList(final Connection conn, final String columnName, final long[] values) throws SQLException {
+		return ListQueryMapper.notInList(this.instance(conn), conn, columnName, values);
+	}
+
+	@Override
+	public InListObject inList(final Connection conn, final String columnName, final int[] values) throws SQLException {
+		return ListQueryMapper.inList(this.instance(conn), conn, columnName, values);
+	}
+
+	@Override
+	public InListObject notInList(final Connection conn, final String columnName, final int[] values) throws SQLException {
+		return ListQueryMapper.notInList(this.instance(conn), conn, columnName, values);
+	}
+
+	@Override
+	public InListObject inList(final Connection conn, final String columnName, final String[] values) throws SQLException {
+		return ListQueryMapper.inList(this.instance(conn), conn, columnName, values);
+	}
+
+	@Override
+	public InListObject notInList(final Connection conn, final String columnName, final String[] values) throws SQLException {
+		return ListQueryMapper.notInList(this.instance(conn), conn, columnName, values);
+	}
+
+	public class Learner implements PrimitiveInList {
+
+		private final String databaseProductName;
+		private final String[] names;
+		private final InList[] strategies;
+		private final int[] minSizes;
+		/**
+		 * column name to bucket size to Bucket
+		 */
+		private final Map<String, Map<Integer, Bucket>> bucketStats = new TreeMap<String, Map<Integer, Bucket>>();
+		private final Random random = new Random();
+
+		private Learner(final String databaseProductName, final Map<String, InList> candidates) {
+			if (candidates.isEmpty())
+				throw new IllegalArgumentException("candidates must be non-empty");
+			this.databaseProductName = databaseProductName;
+			this.names = candidates.keySet().toArray(new String[candidates.size()]);
+			this.strategies = candidates.values().toArray(new InList[candidates.size()]);
+			this.minSizes = new int[names.length];
+			for (int x = 0; x < names.length; ++x)
+				minSizes[x] = minSize(names[x]);
+		}
+
+		@Override
+		public InList instance(final Connection conn) {
+			return this;
+		}
+
+		@Override
+		public <T> InListObject inList(final Connection conn, final String columnName, final Collection<T> values) throws SQLException {
+			if (values == null || values.isEmpty())
+				return InListObject.inEmpty;
+			return build(columnName, values.size(), new Builder() {
+				@Override
+				InListObject build(final InList strategy) throws SQLException {
+					return strategy.inList(conn, columnName, values);
+				}
+			});
+		}
+
+		@Override
+		public <T> InListObject notInList(final Connection conn, final String columnName, final Collection<T> values) throws SQLException {
+			if (values == null || values.isEmpty())
+				return InListObject.notInEmpty;
+			return build(columnName, values.size(), new Builder() {
+				@Override
+				InListObject build(final InList strategy) throws SQLException {
+					return strategy.notInList(conn, columnName, values);
+				}
+			});
+		}
+
+		@Override
+		public InListObject inList(final Connection conn, final String columnName, final long[] values) throws SQLException {
+			if (values == null || values.length == 0)
+				return InListObject.inEmpty;
+			return build(columnName, values.length, new Builder() {
+				@Override
+				InListObject build(final InList strategy) throws SQLException {
+					return ListQueryMapper.inList(strategy, conn, columnName, values);
+				}
+			});
+		}
+
+		@Override
+		public InListObject notInList(final Connection conn, final String columnName, final long[] values) throws SQLException {
+			if (values == null || values.length == 0)
+				return InListObject.notInEmpty;
+			return build(columnName, values.length, new Builder() {
+				@Override
+				InListObject build(final InList strategy) throws SQLException {
+					return ListQueryMapper.notInList(strategy, conn, columnName, values);
+				}
+			});
+		}
+
+		@Override
+		public InListObject inList(final Connection conn, final String columnName, final int[] values) throws SQLException {
+			if (values == null || values.length == 0)
+				return InListObject.inEmpty;
+			return build(columnName, values.length, new Builder() {
+				@Override
+				InListObject build(final InList strategy) throws SQLException {
+					return ListQueryMapper.inList(strategy, conn, columnName, values);
+				}
+			});
+		}
+
+		@Override
+		public InListObject notInList(final Connection conn, final String columnName, final int[] values) throws SQLException {
+			if (values == null || values.length == 0)
+				return InListObject.notInEmpty;
+			return build(columnName, values.length, new Builder() {
+				@Override
+				InListObject build(final InList strategy) throws SQLException {
+					return ListQueryMapper.notInList(strategy, conn, columnName, values);
+				}
+			});
+		}
+
+		@Override
+		public InListObject inList(final Connection conn, final String columnName, final String[] values) throws SQLException {
+			if (values == null || values.length == 0)
+				return InListObject.inEmpty;
+			return build(columnName, values.length, new Builder() {
+				@Override
+				InListObject build(final InList strategy) throws SQLException {
+					return ListQueryMapper.inList(strategy, conn, columnName, values);
+				}
+			});
+		}
+
+		@Override
+		public InListObject notInList(final Connection conn, final String columnName, final String[] values) throws SQLException {
+			if (values == null || values.length == 0)
+				return InListObject.notInEmpty;
+			return build(columnName, values.length, new Builder() {
+				@Override
+				InListObject build(final InList strategy) throws SQLException {
+					return ListQueryMapper.notInList(strategy, conn, columnName, values);
+				}
+			});
+		}
+
+		/**
+		 * Builds with the strategy the bucket chooses, falling back to others while they throw
+		 */
+		private InListObject build(final String columnName, final int size, final Builder builder) throws SQLException {
+			final Bucket bucket = getBucket(columnName, size);
+			for (int tries = 1; ; ++tries) {
+				final int index = bucket.choose();
+				final long start = System.nanoTime();
+				try {
+					final InListObject ret = builder.build(strategies[index]);
+					if (ret != InListObject.inEmpty && ret != InListObject.notInEmpty)
+						ret.observer = new Sample(bucket, index, System.nanoTime() - start, ret.observer);
+					return ret;
+				} catch (SQLException e) {
+					if (!bucket.failed(index, true) || tries >= strategies.length)
+						throw e;
+				} catch (RuntimeException e) {
+					if (!bucket.failed(index, true) || tries >= strategies.length)
+						throw e;
+				}
+			}
+		}
+
+		private Bucket getBucket(final String columnName, final int size) {
+			final Integer bucketSize = InListUtil.toBucketSize(size, buckets);
+			synchronized (bucketStats) {
+				Map<Integer, Bucket> column = bucketStats.get(columnName);
+				if (column == null)
+					bucketStats.put(columnName, column = new TreeMap<Integer, Bucket>());
+				Bucket ret = column.get(bucketSize);
+				if (ret == null)
+					column.put(bucketSize, ret = new Bucket(bucketSize));
+				return ret;
+			}
+		}
+
+		private Bucket findBucket(final String columnName, final int size) {
+			synchronized (bucketStats) {
+				final Map<Integer, Bucket> column = bucketStats.get(columnName);
+				return column == null ? null : column.get(InListUtil.toBucketSize(size, buckets));
+			}
+		}
+
+		public String getDatabaseProductName() {
+			return databaseProductName;
+		}
+
+		public List<String> getStrategyNames() {
+			return Collections.unmodifiableList(Arrays.asList(names));
+		}
+
+		/**
+		 * @return column name to bucket size to the name of the strategy used for it when not exploring, for every
+		 * bucket used so far
+		 */
+		public Map<String, Map<Integer, String>> getChoices() {
+			final Map<String, Map<Integer, String>> ret = new TreeMap<String, Map<Integer, String>>();
+			synchronized (bucketStats) {
+				for (final Map.Entry<String, Map<Integer, Bucket>> column : bucketStats.entrySet()) {
+					final Map<Integer, String> choices = new TreeMap<Integer, String>();
+					for (final Map.Entry<Integer, Bucket> entry : column.getValue().entrySet())
+						choices.put(entry.getKey(), names[entry.getValue().best()]);
+					ret.put(column.getKey(), choices);
+				}
+			}
+			return ret;
+		}
+
+		/**
+		 * @return moving average nanoseconds of strategy in the bucket size falls in for columnName, or -1 if it
+		 * hasn't been measured
+		 */
+		public long getAverageNanos(final String columnName, final int size, final String strategy) {
+			final int index = indexOf(strategy);
+			final Bucket bucket = findBucket(columnName, size);
+			return bucket == null ? -1 : bucket.averageNanos(index);
+		}
+
+		/**
+		 * Always use strategy for lists of columnName in the same bucket as size, or go back to measuring if strategy
+		 * is null
+		 */
+		public void setChoice(final String columnName, final int size, final String strategy) {
+			getBucket(columnName, size).pin(strategy == null ? -1 : indexOf(strategy));
+		}
+
+		private int indexOf(final String strategy) {
+			for (int x = 0; x < names.length; ++x)
+				if (names[x].equals(strategy))
+					return x;
+			throw new IllegalArgumentException("unknown strategy '" + strategy + "', must be one of " + Arrays.toString(names));
+		}
+
+		@Override
+		public String toString() {
+			return "AdaptiveInList.Learner{" +
+					"databaseProductName='" + databaseProductName + '\'' +
+					", choices=" + getChoices() +
+					'}';
+		}
+
+		private abstract class Builder {
+			abstract InListObject build(InList strategy) throws SQLException;
+		}
+
+		private class Bucket {
+			private final long[] samples = new long[strategies.length];
+			private final double[] averageNanos = new double[strategies.length];
+			/**
+			 * failures since the last success
+			 */
+			private final int[] failures = new int[strategies.length];
+			/**
+			 * too small a bucket for it, never used unless pinned
+			 */
+			private final boolean[] tooSmall = new boolean[strategies.length];
+			/**
+			 * tooSmall, or failed too much to keep using
+			 */
+			private final boolean[] dropped;
+			private int pinned = -1;
+
+			Bucket(final int bucketSize) {
+				boolean any = false;
+				for (int x = 0; x < tooSmall.length; ++x)
+					any |= !(tooSmall[x] = bucketSize < minSizes[x]);
+				if (!any) // something has to be used
+					Arrays.fill(tooSmall, false);
+				dropped = tooSmall.clone();
+			}
+
+			synchronized int choose() {
+				if (pinned >= 0)
+					return pinned;
+				int usable = 0;
+				for (final boolean d : dropped)
+					if (!d)
+						++usable;
+				if (usable == 0) {
+					// every one failed, maybe it was something else, start over
+					System.arraycopy(tooSmall, 0, dropped, 0, dropped.length);
+					Arrays.fill(failures, 0);
+					for (final boolean d : dropped)
+						if (!d)
+							++usable;
+				}
+				for (int x = 0; x < samples.length; ++x)
+					if (!dropped[x] && samples[x] + failures[x] < minSamples)
+						return x;
+				final int best = best();
+				if (usable > 1 && random.nextDouble() < exploreRate) {
+					int other = random.nextInt(usable - 1);
+					for (int x = 0; x < dropped.length; ++x)
+						if (!dropped[x] && x != best && other-- == 0)
+							return x;
+				}
+				return best;
+			}
+
+			synchronized int best() {
+				if (pinned >= 0)
+					return pinned;
+				int best = -1;
+				for (int x = 0; x < samples.length; ++x)
+					// unmeasured ones can't be best
+					if (!dropped[x] && (best == -1 || samples[x] != 0 && (samples[best] == 0 || averageNanos[x] < averageNanos[best])))
+						best = x;
+				if (best == -1) // every one dropped, choose() starts over with the first that isn't too small
+					for (int x = tooSmall.length - 1; x >= 0; --x)
+						if (!tooSmall[x])
+							best = x;
+				return best;
+			}
+
+			synchronized void record(final int index, final long nanos) {
+				failures[index] = 0;
+				// weight the most recent 5ish the most, they might have changed
+				averageNanos[index] = samples[index]++ == 0 ? nanos : averageNanos[index] + (nanos - averageNanos[index]) * 0.2;
+			}
+
+			/**
+			 * @param building true if it threw building the list, which drops it right away
+			 * @return true if another strategy might be chosen now
+			 */
+			synchronized boolean failed(final int index, final boolean building) {
+				if (building || ++failures[index] >= minSamples)
+					dropped[index] = true;
+				return pinned < 0;
+			}
+
+			synchronized long averageNanos(final int index) {
+				return samples[index] == 0 ? -1 : (long) averageNanos[index];
+			}
+
+			synchronized void pin(final int index) {
+				pinned = index;
+			}
+		}
+
+		private class Sample implements ExecutionObserver {
+			private final Bucket bucket;
+			private final int index;
+			private long buildNanos;
+			private boolean failed;
+			/**
+			 * the strategy's own observer, like TempTableInList's, still told everything
+			 */
+			private final ExecutionObserver next;
+
+			private Sample(final Bucket bucket, final int index, final long buildNanos, final ExecutionObserver next) {
+				this.bucket = bucket;
+				this.index = index;
+				this.buildNanos = buildNanos;
+				this.next = next;
+			}
+
+			@Override
+			public void executed(final long nanos) {
+				// building it only counts once, even if it's executed many times
+				bucket.record(index, buildNanos + nanos);
+				buildNanos = 0;
+				failed = false;
+				if (next != null)
+					next.executed(nanos);
+			}
+
+			@Override
+			public void failed() {
+				// QueryMapper and ListQueryMapper can both report the same failure, only count it once
+				if (!failed) {
+					failed = true;
+					bucket.failed(index, false);
+				}
+				if (next != null)
+					next.failed();
+			}
+		}
+	}
+}
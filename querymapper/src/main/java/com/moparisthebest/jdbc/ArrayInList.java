@@ -1,6 +1,7 @@
 package com.moparisthebest.jdbc;
 
 import com.moparisthebest.jdbc.codegen.JdbcMapper;
+import com.moparisthebest.jdbc.util.InListUtil;
 
 import java.sql.Array;
 import java.sql.Connection;
@@ -10,7 +11,7 @@ import java.util.Collection;
 /**
  * Created by mopar on 4/29/15.
  */
-public class ArrayInList implements InList {
+public class ArrayInList implements PrimitiveInList {
 
 	private static final InList instance = new ArrayInList();
 
@@ -50,6 +51,13 @@ public class ArrayInList implements InList {
 		return toArray(conn, numeric ? numericType : otherType, elements);
 	}
 
+	/**
+	 * @param elements long[] or int[], boxed here because Connection.createArrayOf only takes Object[]
+	 */
+	protected Array toPrimitiveArray(final Connection conn, final String typeName, final Object elements) throws SQLException {
+		return toArray(conn, typeName, elements instanceof long[] ? InListUtil.box((long[]) elements) : InListUtil.box((int[]) elements));
+	}
+
 	protected <T> Array toArray(final Connection conn, final Collection<T> values) throws SQLException {
 		return toArray(conn, values.iterator().next() instanceof Number, values.toArray());
 	}
@@ -68,6 +76,48 @@ public class ArrayInList implements InList {
 		);
 	}
 
+	public InListObject inList(final Connection conn, final String columnName, final long[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.inEmpty : new ArrayListObject(
+				columnAppendIn(columnName),
+				toPrimitiveArray(conn, numericType, values)
+		);
+	}
+
+	public InListObject notInList(final Connection conn, final String columnName, final long[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.notInEmpty : new ArrayListObject(
+				columnAppendNotIn(columnName),
+				toPrimitiveArray(conn, numericType, values)
+		);
+	}
+
+	public InListObject inList(final Connection conn, final String columnName, final int[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.inEmpty : new ArrayListObject(
+				columnAppendIn(columnName),
+				toPrimitiveArray(conn, numericType, values)
+		);
+	}
+
+	public InListObject notInList(final Connection conn, final String columnName, final int[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.notInEmpty : new ArrayListObject(
+				columnAppendNotIn(columnName),
+				toPrimitiveArray(conn, numericType, values)
+		);
+	}
+
+	public InListObject inList(final Connection conn, final String columnName, final String[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.inEmpty : new ArrayListObject(
+				columnAppendIn(columnName),
+				toArray(conn, otherType, values)
+		);
+	}
+
+	public InListObject notInList(final Connection conn, final String columnName, final String[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.notInEmpty : new ArrayListObject(
+				columnAppendNotIn(columnName),
+				toArray(conn, otherType, values)
+		);
+	}
+
 	class ArrayListObject extends InListObject {
 		private final Array array;
 
@@ -0,0 +1,173 @@
+package com.moparisthebest.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+
+/**
+ * Runs QueryMapper calls asynchronously, each with its own connection from a Factory&lt;Connection&gt; that is closed
+ * when the call is done, returning CompletableFuture's which complete exceptionally with whatever the call threw.
+ * <p>
+ * Calls spend nearly all of their time blocked on the database, so by default each runs on its own virtual thread on
+ * Java 21+, where the rest wait for one of maxConcurrency connections on their own virtual thread. On older versions
+ * each instance gets its own pool of maxConcurrency threads instead, the rest are queued without a thread, since a
+ * platform thread per waiting call would grow without bound under load. Either way at most maxConcurrency calls hold a
+ * connection at once, so share one instance per factory to keep it from being asked for more than that.
+ * <p>
+ * An ExecutorService sent in is used as-is, calls waiting for a connection hold one of its threads while they wait.
+ * <p>
+ * This is Java 8+ only.
+ */
+public class AsyncQueryMapper {
+
+	/**
+	 * null before Java 21
+	 */
+	private static final ExecutorService virtualThreadExecutor = virtualThreadPerTaskExecutor();
+
+	private static ExecutorService virtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (Throwable e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return Executors.newVirtualThreadPerTaskExecutor() on Java 21+, otherwise Executors.newCachedThreadPool()
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor() {
+		final ExecutorService ret = virtualThreadPerTaskExecutor();
+		return ret == null ? Executors.newCachedThreadPool() : ret;
+	}
+
+	/**
+	 * @return a shared virtual thread per task executor on Java 21+, otherwise a new pool of maxConcurrency daemon
+	 * threads, which exit when idle, with an unbounded queue
+	 */
+	protected static ExecutorService defaultExecutorService(final int maxConcurrency) {
+		if (virtualThreadExecutor != null)
+			return virtualThreadExecutor;
+		final ThreadPoolExecutor ret = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+			final Thread thread = new Thread(r, "AsyncQueryMapper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ret.allowCoreThreadTimeOut(true);
+		return ret;
+	}
+
+	protected final Factory<Connection> factory;
+	protected final ResultSetMapper cm;
+	protected final ExecutorService executorService;
+	protected final Semaphore permits;
+	protected final int maxConcurrency;
+
+	public AsyncQueryMapper(final Factory<Connection> factory, final ResultSetMapper cm, final int maxConcurrency, final ExecutorService executorService) {
+		if (factory == null)
+			throw new NullPointerException("factory must be non-null");
+		if (executorService == null)
+			throw new NullPointerException("executorService must be non-null");
+		if (maxConcurrency < 1)
+			throw new IllegalArgumentException("maxConcurrency must be > 0");
+		this.factory = factory;
+		this.cm = cm;
+		this.executorService = executorService;
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency, true);
+	}
+
+	public AsyncQueryMapper(final Factory<Connection> factory, final ResultSetMapper cm, final int maxConcurrency) {
+		this(factory, cm, maxConcurrency, defaultExecutorService(maxConcurrency));
+	}
+
+	public AsyncQueryMapper(final Factory<Connection> factory, final int maxConcurrency) {
+		this(factory, null, maxConcurrency, defaultExecutorService(maxConcurrency));
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * @return number of calls that could get a connection right now
+	 */
+	public int getAvailablePermits() {
+		return permits.availablePermits();
+	}
+
+	/**
+	 * Runs query with a new QueryMapper, closed after, once there are less than maxConcurrency others running
+	 */
+	public <E> CompletableFuture<E> runAsync(final QueryRunner.Runner<QueryMapper, E> query) {
+		if (query == null)
+			throw new NullPointerException("query must be non-null");
+		final CompletableFuture<E> ret = new CompletableFuture<>();
+		try {
+			executorService.execute(() -> {
+				try {
+					permits.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					ret.completeExceptionally(e);
+					return;
+				}
+				Connection conn = null;
+				QueryMapper qm = null;
+				E result = null;
+				Throwable error = null;
+				try {
+					// don't bother getting a connection if it was cancelled while waiting
+					if (ret.isDone())
+						return;
+					conn = factory.create();
+					qm = newQueryMapper(conn);
+					result = query.run(qm);
+				} catch (Throwable e) {
+					error = e;
+				} finally {
+					// give the connection back before anything waiting on ret runs
+					tryClose(qm);
+					tryClose(conn);
+					permits.release();
+				}
+				if (error == null)
+					ret.complete(result);
+				else
+					ret.completeExceptionally(error);
+			});
+		} catch (RejectedExecutionException e) {
+			ret.completeExceptionally(e);
+		}
+		return ret;
+	}
+
+	public <T> CompletableFuture<T> toObjectAsync(final String sql, final Class<T> componentType, final Object... bindObjects) {
+		return runAsync(qm -> qm.toObject(sql, componentType, bindObjects));
+	}
+
+	public <T> CompletableFuture<List<T>> toListAsync(final String sql, final Class<T> componentType, final Object... bindObjects) {
+		return runAsync(qm -> qm.toList(sql, componentType, bindObjects));
+	}
+
+	public CompletableFuture<Integer> executeUpdateAsync(final String sql, final Object... bindObjects) {
+		return runAsync(qm -> qm.executeUpdate(sql, bindObjects));
+	}
+
+	/**
+	 * @return the QueryMapper a call runs with, conn is closed after it
+	 */
+	protected QueryMapper newQueryMapper(final Connection conn) throws SQLException {
+		return new QueryMapper(conn, cm);
+	}
+}
@@ -1,27 +1,48 @@
 package com.moparisthebest.jdbc;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.*;
 
-import static com.moparisthebest.jdbc.util.InListUtil.defaultMaxSize;
-import static com.moparisthebest.jdbc.util.InListUtil.toInList;
-import static com.moparisthebest.jdbc.util.InListUtil.toNotInList;
+import static com.moparisthebest.jdbc.util.InListUtil.*;
 
 /**
  * Created by mopar on 4/29/15.
  */
-public class BindInList implements InList {
+public class BindInList implements PrimitiveInList {
 
 	private static final InList instance = new BindInList();
+	private static final InList bucketedInstance = new BindInList(defaultMaxSize, powersOfTwo);
 
 	public static InList instance() {
 		return instance;
 	}
 
+	/**
+	 * @return an instance that pads lists up to the next power of two
+	 */
+	public static InList bucketedInstance() {
+		return bucketedInstance;
+	}
+
 	private final int maxSize;
+	private final int[] buckets;
 
 	public BindInList(final int maxSize) {
 		this.maxSize = maxSize;
+		this.buckets = null;
+	}
+
+	/**
+	 * Pads lists up to the next of buckets by repeating the last value, so lists of similar length share the same SQL
+	 * and hit statement caches instead of each length being prepared and planned on its own
+	 *
+	 * @param buckets ascending sizes, or InListUtil.powersOfTwo
+	 */
+	public BindInList(final int maxSize, final int[] buckets) {
+		this.maxSize = maxSize;
+		this.buckets = checkBuckets(buckets).clone();
 	}
 
 	protected BindInList() {
@@ -34,19 +55,87 @@ public class BindInList implements InList {
 	}
 
 	public <T> InListObject inList(final Connection conn, final String columnName, final Collection<T> values) {
-		return values == null || values.isEmpty() ? InListObject.inEmpty : new BindInListObject(
+		if (values == null || values.isEmpty())
+			return InListObject.inEmpty;
+		return buckets == null ? new BindInListObject(
 				toInList(columnName, values, this.maxSize),
 				values.toArray()
+		) : new BindInListObject(
+				toBucketedInList(columnName, values, this.maxSize, buckets),
+				toBucketedArray(values, buckets)
 		);
 	}
 
 	public <T> InListObject notInList(final Connection conn, final String columnName, final Collection<T> values) {
-		return values == null || values.isEmpty() ? InListObject.notInEmpty : new BindInListObject(
+		if (values == null || values.isEmpty())
+			return InListObject.notInEmpty;
+		return buckets == null ? new BindInListObject(
 				toNotInList(columnName, values, this.maxSize),
 				values.toArray()
+		) : new BindInListObject(
+				toBucketedNotInList(columnName, values, this.maxSize, buckets),
+				toBucketedArray(values, buckets)
+		);
+	}
+
+	public InListObject inList(final Connection conn, final String columnName, final long[] values) {
+		if (values == null || values.length == 0)
+			return InListObject.inEmpty;
+		return new PrimitiveBindInListObject(
+				buckets == null ? toInList(columnName, values, this.maxSize) : toBucketedInList(columnName, values, this.maxSize, buckets),
+				values, bindCount(values.length)
+		);
+	}
+
+	public InListObject notInList(final Connection conn, final String columnName, final long[] values) {
+		if (values == null || values.length == 0)
+			return InListObject.notInEmpty;
+		return new PrimitiveBindInListObject(
+				buckets == null ? toNotInList(columnName, values, this.maxSize) : toBucketedNotInList(columnName, values, this.maxSize, buckets),
+				values, bindCount(values.length)
+		);
+	}
+
+	public InListObject inList(final Connection conn, final String columnName, final int[] values) {
+		if (values == null || values.length == 0)
+			return InListObject.inEmpty;
+		return new PrimitiveBindInListObject(
+				buckets == null ? toInList(columnName, values, this.maxSize) : toBucketedInList(columnName, values, this.maxSize, buckets),
+				values, bindCount(values.length)
+		);
+	}
+
+	public InListObject notInList(final Connection conn, final String columnName, final int[] values) {
+		if (values == null || values.length == 0)
+			return InListObject.notInEmpty;
+		return new PrimitiveBindInListObject(
+				buckets == null ? toNotInList(columnName, values, this.maxSize) : toBucketedNotInList(columnName, values, this.maxSize, buckets),
+				values, bindCount(values.length)
+		);
+	}
+
+	public InListObject inList(final Connection conn, final String columnName, final String[] values) {
+		if (values == null || values.length == 0)
+			return InListObject.inEmpty;
+		return new PrimitiveBindInListObject(
+				buckets == null ? toInList(columnName, values, this.maxSize) : toBucketedInList(columnName, values, this.maxSize, buckets),
+				values, bindCount(values.length)
 		);
 	}
 
+	public InListObject notInList(final Connection conn, final String columnName, final String[] values) {
+		if (values == null || values.length == 0)
+			return InListObject.notInEmpty;
+		return new PrimitiveBindInListObject(
+				buckets == null ? toNotInList(columnName, values, this.maxSize) : toBucketedNotInList(columnName, values, this.maxSize, buckets),
+				values, bindCount(values.length)
+		);
+	}
+
+	private int bindCount(final int length) {
+		return buckets == null ? length : toBucketSize(length, buckets);
+	}
+
 	class BindInListObject extends InListObject {
 		private final Object[] bindObjects;
 
@@ -59,4 +148,35 @@ public class BindInList implements InList {
 			return bindObjects;
 		}
 	}
+
+	/**
+	 * Binds a long[], int[], or String[] with setLong, setInt, or setString, repeating the last value up to bindCount
+	 */
+	static class PrimitiveBindInListObject extends InListObject {
+		private final Object values;
+		private final int bindCount;
+
+		PrimitiveBindInListObject(final String sql, final Object values, final int bindCount) {
+			super(sql);
+			this.values = values;
+			this.bindCount = bindCount;
+		}
+
+		int bind(final PreparedStatement ps, int index) throws SQLException {
+			if (values instanceof long[]) {
+				final long[] longs = (long[]) values;
+				for (int x = 0; x < bindCount; ++x)
+					ps.setLong(++index, longs[Math.min(x, longs.length - 1)]);
+			} else if (values instanceof int[]) {
+				final int[] ints = (int[]) values;
+				for (int x = 0; x < bindCount; ++x)
+					ps.setInt(++index, ints[Math.min(x, ints.length - 1)]);
+			} else {
+				final String[] strings = (String[]) values;
+				for (int x = 0; x < bindCount; ++x)
+					ps.setString(++index, strings[Math.min(x, strings.length - 1)]);
+			}
+			return index;
+		}
+	}
 }
@@ -0,0 +1,56 @@
+package com.moparisthebest.jdbc;
+
+import java.sql.ResultSet;
+import java.util.Calendar;
+
+/**
+ * This generally follows the contract of ResultSetMapper, with the differences specified in CompilingRowToObjectMapper.
+ * <p>
+ * This generates the same code CompilingResultSetMapper does, but emits bytecode directly instead of compiling java
+ * source, so it does not need javac/tools.jar at runtime, and generation is orders of magnitude faster. On java 15+
+ * generated classes are hidden classes, so they are unloaded as soon as they are evicted from the cache.
+ * <p>
+ * By default this uses a plain HashMap for the cache, unbounded, and not thread-safe. Use CacheUtil to get Maps for your
+ * preferred use case. You can send in your own custom Map implementation, BytecodeResultSetMapper guarantees null will
+ * never be used for key or value.
+ *
+ * @see BytecodeRowToObjectMapper
+ */
+public class BytecodeResultSetMapper extends ResultSetMapper {
+
+	protected final CompilingRowToObjectMapper.Cache cache;
+	private final boolean cachesBySql = overridesSqlRowMapper(getClass(), BytecodeResultSetMapper.class);
+
+	public BytecodeResultSetMapper(final Calendar cal, final int arrayMaxLength, final CompilingRowToObjectMapper.Cache cache) {
+		super(cal, arrayMaxLength);
+		this.cache = cache == null ? new CompilingRowToObjectMapper.Cache() : cache;
+	}
+
+	public BytecodeResultSetMapper(final CompilingRowToObjectMapper.Cache cache) {
+		this.cache = cache == null ? new CompilingRowToObjectMapper.Cache() : cache;
+	}
+
+	public BytecodeResultSetMapper(final int arrayMaxLength, final CompilingRowToObjectMapper.Cache cache) {
+		super(arrayMaxLength);
+		this.cache = cache == null ? new CompilingRowToObjectMapper.Cache() : cache;
+	}
+
+	public BytecodeResultSetMapper() {
+		this.cache = new CompilingRowToObjectMapper.Cache();
+	}
+
+	@Override
+	public <K, T> RowMapper<K, T> getRowMapper(ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType) {
+		return new BytecodeRowToObjectMapper<K, T>(cache, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+	}
+
+	@Override
+	public boolean cachesBySql() {
+		return cachesBySql;
+	}
+
+	@Override
+	protected <K, T> RowMapper<K, T> getRowMapper(final String sql, final String schema, final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+		return new BytecodeRowToObjectMapper<K, T>(cache, cache.getResultSetKey(sql, schema, resultSet, returnTypeClass, cal, mapKeyType), resultSet, returnTypeClass, cal, mapValType, mapKeyType, false);
+	}
+}
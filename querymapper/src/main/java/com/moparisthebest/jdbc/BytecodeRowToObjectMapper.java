@@ -0,0 +1,483 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.classgen.ClassDefiner;
+import com.moparisthebest.classgen.ClassFile;
+import com.moparisthebest.jdbc.util.ReflectionUtil;
+import com.moparisthebest.jdbc.util.ResultSetUtil;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Map a ResultSet row to an Object. This mapper generates the same code CompilingRowToObjectMapper does, but writes it
+ * directly as bytecode instead of compiling java source, so javac/tools.jar is not required at runtime and generating
+ * a mapper takes microseconds instead of however long javac takes.
+ *
+ * @author Travis Burtrum
+ * @see CompilingRowToObjectMapper for most details, the same Cache and ResultSetKey are used, and the same usage
+ * differences to RowToObjectMapper apply
+ */
+public class BytecodeRowToObjectMapper<K, T> extends CompilingRowToObjectMapper<K, T> {
+
+	protected static final String className = "BytecodeMapper";
+	protected static final String reflectionFieldName = "_fields";
+
+	// local variable slots in generated methods
+	protected static final int THIS = 0, RS = 1, CAL = 2, RET = 3;
+
+	public BytecodeRowToObjectMapper(final Cache cache, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType) {
+		this(cache, resultSet, returnTypeClass, cal, mapValType, mapKeyType, false);
+	}
+
+	public BytecodeRowToObjectMapper(final Cache cache, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType, final boolean caseInsensitiveMap) {
+		this(cache, null, resultSet, returnTypeClass, cal, mapValType, mapKeyType, caseInsensitiveMap);
+	}
+
+	/**
+	 * @param resultSetKey already resolved for resultSet, so ResultSetMetaData isn't read, null to read it from resultSet
+	 */
+	public BytecodeRowToObjectMapper(final Cache cache, final ResultSetKey resultSetKey, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType, final boolean caseInsensitiveMap) {
+		super(null, cache, resultSetKey, resultSet, returnTypeClass, cal, mapValType, mapKeyType, caseInsensitiveMap);
+	}
+
+	/**
+	 * @return the class the generated class will be defined next to, it must be able to see the return type
+	 */
+	protected Class<?> getHostClass() {
+		Class<?> host = _returnTypeClass;
+		while (host.isArray())
+			host = host.getComponentType();
+		return host.getClassLoader() == null ? BytecodeRowToObjectMapper.class : host;
+	}
+
+	/**
+	 * Generating bytecode is cheaper than reading it back from disk, and hidden classes can't be stored anyway, so the
+	 * Cache's directory is ignored
+	 */
+	@Override
+	protected ResultSetToObject<K, T> loadOrGenClass(final CompilingRowToObjectMapper.ResultSetKey keys, final Cache cache) throws IOException {
+		return genClass();
+	}
+
+	@Override
+	protected ResultSetToObject<K, T> genClass() throws IOException {
+		final Class<?> host = getHostClass();
+		final String internalName = ClassDefiner.className(host, className);
+		final ClassFile cf = new ClassFile(internalName, LoopingResultSetToObject.class);
+
+		final ClassFile.Code toObject = cf.method(ClassFile.ACC_PUBLIC, "toObject", ClassFile.methodDescriptor(Object.class, ResultSet.class, Calendar.class));
+		gen(toObject, internalName);
+		toObject.returnValue(Object.class);
+
+		final ClassFile.Code getFirstColumn = cf.method(ClassFile.ACC_PUBLIC, "getFirstColumn", ClassFile.methodDescriptor(Object.class, ResultSet.class, Calendar.class));
+		if (_mapKeyType != null) {
+			getFirstColumn.convert(extractColumnValue(getFirstColumn, 1, _tmf.getTypeId(_mapKeyType), _mapKeyType), Object.class);
+			getFirstColumn.returnValue(Object.class);
+		} else {
+			getFirstColumn.throwNew(MapperException.class, firstColumnError);
+		}
+
+		genLoops(cf);
+
+		final Field[] reflectionFields = getReflectionFields();
+		if (reflectionFields == null) {
+			cf.method(ClassFile.ACC_PUBLIC, "<init>", "()V")
+					.aload(THIS).invokeSpecial("java/lang/Object", "<init>").returnValue(void.class);
+		} else {
+			cf.field(ClassFile.ACC_PRIVATE | ClassFile.ACC_FINAL, reflectionFieldName, ClassFile.descriptor(Field[].class));
+			cf.method(ClassFile.ACC_PUBLIC, "<init>", ClassFile.methodDescriptor(void.class, Field[].class))
+					.aload(THIS).invokeSpecial("java/lang/Object", "<init>")
+					.aload(THIS).aload(1).putField(internalName, reflectionFieldName, Field[].class)
+					.returnValue(void.class);
+		}
+
+		final Class<?> clazz = ClassDefiner.define(host, internalName, cf.toByteArray());
+		try {
+			@SuppressWarnings("unchecked")
+			final ResultSetToObject<K, T> ret = (ResultSetToObject<K, T>) (reflectionFields == null ?
+					clazz.newInstance() :
+					clazz.getConstructor(Field[].class).newInstance((Object) reflectionFields));
+			return ret;
+		} catch (Exception e) {
+			throw new MapperException("Error instantiating generated class " + internalName, e);
+		}
+	}
+
+	/**
+	 * Write toCollection, toMap, and toMapCollection, this follows CompilingRowToObjectMapper.genLoops exactly
+	 */
+	protected void genLoops(final ClassFile cf) {
+		final Method next = getMethod(ResultSet.class, "next");
+		final Method toObject = getMethod(ResultSetToObject.class, "toObject", ResultSet.class, Calendar.class);
+		final Method getFirstColumn = getMethod(ResultSetToObject.class, "getFirstColumn", ResultSet.class, Calendar.class);
+		final Method dereference = getMethod(CompilingRowToObjectMapper.class, "dereference", Reference.class);
+		final Method add = getMethod(Collection.class, "add", Object.class);
+		final Method get = getMethod(Map.class, "get", Object.class);
+		final Method put = getMethod(Map.class, "put", Object.class, Object.class);
+		final Method instantiateClass = getMethod(ResultSetMapper.class, "instantiateClass", Class.class, Class.class);
+
+		// locals after THIS, RS, CAL
+		final int softReference = 3, collectionType = 4;
+
+		ClassFile.Code code = cf.method(ClassFile.ACC_PUBLIC, "toCollection", ClassFile.methodDescriptor(int.class, ResultSet.class, Calendar.class, Reference.class, int.class));
+		ClassFile.Label end = code.label();
+		ClassFile.Label top = loopStart(code, next, 4, 5, end);
+		code.aload(THIS).aload(RS).aload(CAL).invoke(toObject).astore(6)
+				.aload(softReference).invoke(dereference).checkcast(Collection.class).aload(6).invoke(add).pop();
+		loopEnd(code, 5, top, end);
+
+		code = cf.method(ClassFile.ACC_PUBLIC, "toMap", ClassFile.methodDescriptor(int.class, ResultSet.class, Calendar.class, Reference.class, int.class));
+		end = code.label();
+		top = loopStart(code, next, 4, 5, end);
+		code.aload(THIS).aload(RS).aload(CAL).invoke(getFirstColumn).astore(6)
+				.aload(THIS).aload(RS).aload(CAL).invoke(toObject).astore(7)
+				.aload(softReference).invoke(dereference).checkcast(Map.class).aload(6).aload(7).invoke(put).pop();
+		loopEnd(code, 5, top, end);
+
+		final int key = 7, value = 8, mapList = 9, map = 10;
+		code = cf.method(ClassFile.ACC_PUBLIC, "toMapCollection", ClassFile.methodDescriptor(int.class, ResultSet.class, Calendar.class, Reference.class, Class.class, int.class));
+		end = code.label();
+		top = loopStart(code, next, 5, 6, end);
+		final ClassFile.Label found = code.label();
+		code.aload(THIS).aload(RS).aload(CAL).invoke(getFirstColumn).astore(key)
+				.aload(THIS).aload(RS).aload(CAL).invoke(toObject).astore(value)
+				.aload(softReference).invoke(dereference).checkcast(Map.class).astore(map)
+				.aload(map).aload(key).invoke(get).checkcast(Collection.class).astore(mapList)
+				.aload(mapList).ifNonNull(found)
+				.aload(collectionType).push(ArrayList.class).invoke(instantiateClass).checkcast(Collection.class).astore(mapList)
+				.aload(map).aload(key).aload(mapList).invoke(put).pop()
+				.mark(found)
+				.aload(mapList).aload(value).invoke(add).pop();
+		loopEnd(code, 6, top, end);
+	}
+
+	/**
+	 * numRows = 0; then the loop condition numRows != arrayMaxLength && rs.next(), jumping to end when false
+	 */
+	private static ClassFile.Label loopStart(final ClassFile.Code code, final Method next, final int arrayMaxLength, final int numRows, final ClassFile.Label end) {
+		final ClassFile.Label top = code.label();
+		code.push(0).istore(numRows)
+				.mark(top)
+				.iload(numRows).iload(arrayMaxLength).ifICmpEq(end)
+				.aload(RS).invoke(next).ifEq(end);
+		return top;
+	}
+
+	/**
+	 * ++numRows; jump back to top, then return numRows
+	 */
+	private static void loopEnd(final ClassFile.Code code, final int numRows, final ClassFile.Label top, final ClassFile.Label end) {
+		code.iinc(numRows, 1).goTo(top)
+				.mark(end)
+				.iload(numRows).returnValue(int.class);
+	}
+
+	protected Field[] getReflectionFields() {
+		if (reflectionFieldIndex == -1)
+			return null;
+		final Field[] ret = new Field[reflectionFieldIndex + 1];
+		for (final AccessibleObject ao : _fields)
+			if (ao instanceof ReflectionAccessibleObject) {
+				final ReflectionAccessibleObject rao = (ReflectionAccessibleObject) ao;
+				rao.field.setAccessible(true);
+				ret[rao.index] = rao.field;
+			}
+		return ret;
+	}
+
+	/**
+	 * Write the body of toObject, leaving the mapped object on the stack, this follows CompilingRowToObjectMapper.gen
+	 * exactly so both generate the same logic.
+	 */
+	protected void gen(final ClassFile.Code code, final String internalName) {
+
+		if (mapOnlySecondColumn) {
+			code.convert(extractColumnValue(code, 2, _tmf.getTypeId(_returnTypeClass), _returnTypeClass), Object.class);
+			return;
+		}
+
+		try {
+			lazyLoadConstructor();
+		} catch (SQLException e) {
+			throw new MapperException(e.getMessage(), e);
+		}
+
+		if (resultSetConstructor) {
+			checkAccessible(constructor);
+			code.newInstance(_returnTypeClass).dup().aload(RS).invoke(constructor);
+			return;
+		}
+
+		if (_fieldOrder != null) {
+			checkAccessible(constructor);
+			code.newInstance(_returnTypeClass).dup();
+			final Class<?>[] parameterTypes = constructor.getParameterTypes();
+			for (int x = 1; x <= _columnCount; ++x)
+				code.convert(extractColumnValue(code, _fieldOrder[x], _fieldTypes[x], _fieldClasses[x]), parameterTypes[x - 1]);
+			code.invoke(constructor);
+			return;
+		}
+
+		if (returnMap) // we want a map
+			try {
+				final Method put = Map.class.getMethod("put", Object.class, Object.class);
+				code.newInstance(_returnTypeClass).dup().invokeSpecial(ClassFile.internalName(_returnTypeClass), "<init>");
+				final int columnLength = _columnCount + 1;
+				if (componentType != null && componentType != Object.class) { // we want a specific value type
+					final int typeId = _tmf.getTypeId(componentType);
+					for (int x = 1; x < columnLength; ++x) {
+						code.dup().push(keys[x].toLowerCase());
+						code.convert(extractColumnValue(code, x, typeId, componentType), Object.class);
+						code.invoke(put).pop();
+					}
+				} else { // we want a generic object type
+					final Method getObject = ResultSet.class.getMethod("getObject", int.class);
+					for (int x = 1; x < columnLength; ++x)
+						code.dup().push(keys[x].toLowerCase()).aload(RS).push(x).invoke(getObject).invoke(put).pop();
+				}
+				return;
+			} catch (Throwable e) {
+				throw new MapperException(e.getClass().getName() + " when trying to create a Map<String, "
+						+ (componentType == null ? "java.lang.Object" : componentType.getName()) + "> from a ResultSet row" +
+						", all columns must be of the map value type", e);
+			}
+		else if (componentType != null) // we want an array
+			try {
+				code.push(_columnCount).newArray(componentType);
+				final int typeId = _tmf.getTypeId(componentType);
+				for (int x = 0; x < _columnCount; ) {
+					code.dup().push(x);
+					code.convert(extractColumnValue(code, ++x, typeId, componentType), componentType);
+					code.arrayStore(componentType);
+				}
+				return;
+			} catch (Throwable e) {
+				throw new MapperException(e.getClass().getName() + " when trying to create a "
+						+ componentType.getName() + "[] from a ResultSet row, all columns must be of that type", e);
+			}
+
+		// if the ResultSet only contains a single column we may be able to map directly
+		// to the return type -- if so we don't need to build any structures to support
+		// mapping
+		if (_columnCount == 1) {
+			final int typeId = _tmf.getTypeId(_returnTypeClass);
+			if (typeId != TypeMappingsFactory.TYPE_UNKNOWN) {
+				code.convert(extractColumnValue(code, 1, typeId, _returnTypeClass), Object.class);
+				return;
+			}
+			// todo: same as CompilingRowToObjectMapper, fall-through to field mappings...
+		}
+
+		if (_fields == null) {
+			try {
+				loadFieldMappings();
+			} catch (SQLException e) {
+				throw new MapperException(e.getMessage(), e);
+			}
+		}
+
+		if (constructor == null)
+			throw new MapperException("Exception when trying to get constructor for : " + _returnTypeClass.getName() + " Must have default no-arg constructor or one that takes a single ResultSet.");
+		checkAccessible(constructor);
+		code.newInstance(_returnTypeClass).dup().invoke(constructor).astore(RET);
+
+		for (int i = 1; i < _fields.length; i++) {
+			final AccessibleObject f = _fields[i];
+			if (f instanceof Field) {
+				final Field field = (Field) f;
+				checkAccessible(field);
+				code.aload(RET);
+				code.convert(extractColumnValue(code, i, _fieldTypes[i], _fieldClasses[i]), field.getType());
+				code.putField(_returnTypeClass, field);
+			} else if (f instanceof ReflectionAccessibleObject) {
+				code.aload(THIS).getField(internalName, reflectionFieldName, Field[].class)
+						.push(((ReflectionAccessibleObject) f).index).arrayLoad().aload(RET);
+				code.convert(extractColumnValue(code, i, _fieldTypes[i], _fieldClasses[i]), Object.class);
+				code.invoke(getMethod(ReflectionUtil.class, "setValue", Field.class, Object.class, Object.class));
+			} else {
+				final Method method = (Method) f;
+				code.aload(RET);
+				code.convert(extractColumnValue(code, i, _fieldTypes[i], _fieldClasses[i]), method.getParameterTypes()[0]);
+				code.invoke(_returnTypeClass, method).pop(method.getReturnType());
+			}
+		}
+		// if this resultObject is Finishable, call finish()
+		if (Finishable.class.isAssignableFrom(_returnTypeClass))
+			code.aload(RET).aload(RS).invoke(getMethod(Finishable.class, "finish", ResultSet.class));
+		code.aload(RET);
+	}
+
+	@Override
+	protected AccessibleObject modField(final Field field, final int index) {
+		// bytecode could set package-private fields if the generated class landed in the same package, but that isn't
+		// guaranteed, so treat it like direct java code would
+		if (allowReflection && !Modifier.isPublic(field.getModifiers()))
+			return new ReflectionAccessibleObject(field, ++reflectionFieldIndex);
+		return super.modField(field, index);
+	}
+
+	protected void checkAccessible(final Member member) {
+		if (!Modifier.isPublic(_returnTypeClass.getModifiers()) || !Modifier.isPublic(member.getModifiers()))
+			throw new MapperException("generated code cannot access non-public " + member + " on " + _returnTypeClass.getName()
+					+ (member instanceof Field ? ", send in a Cache with allowReflection = true to set it with reflection" : ""));
+		if (member instanceof Field && Modifier.isFinal(member.getModifiers()))
+			throw new MapperException("generated code cannot set final field " + member
+					+ ", send in a Cache with allowReflection = true to set it with reflection");
+	}
+
+	protected static Method getMethod(final Class<?> clazz, final String name, final Class<?>... parameterTypes) {
+		try {
+			return clazz.getMethod(name, parameterTypes);
+		} catch (NoSuchMethodException e) {
+			throw new MapperException("internal error: no method " + name + " on " + clazz.getName(), e);
+		}
+	}
+
+	protected static Class<?> resultSet(final ClassFile.Code code, final String name, final int index) {
+		final Method method = getMethod(ResultSet.class, name, int.class);
+		code.aload(RS).push(index).invoke(method);
+		return method.getReturnType();
+	}
+
+	protected Class<?> resultSetCal(final ClassFile.Code code, final String name, final int index) {
+		if (_calendarName == null)
+			return resultSet(code, name, index);
+		final Method method = getMethod(ResultSet.class, name, int.class, Calendar.class);
+		code.aload(RS).push(index).aload(CAL).invoke(method);
+		return method.getReturnType();
+	}
+
+	protected static Class<?> util(final ClassFile.Code code, final String name, final int index) {
+		final Method method = getMethod(ResultSetUtil.class, name, ResultSet.class, int.class);
+		code.aload(RS).push(index).invoke(method);
+		return method.getReturnType();
+	}
+
+	protected Class<?> utilCal(final ClassFile.Code code, final String name, final int index) {
+		if (_calendarName == null)
+			return util(code, name, index);
+		final Method method = getMethod(ResultSetUtil.class, name, ResultSet.class, int.class, Calendar.class);
+		code.aload(RS).push(index).aload(CAL).invoke(method);
+		return method.getReturnType();
+	}
+
+	/**
+	 * Write code to extract a column value from the ResultSet, leaving it on the stack, this follows
+	 * CompilingRowToObjectMapper.extractColumnValueString exactly
+	 *
+	 * @param index      The column index of the value to extract from the ResultSet.
+	 * @param resultType The return type. Defined in TypeMappingsFactory.
+	 * @param enumClass  The class of the enum if resultType is TYPE_ENUM
+	 * @return The type of the value left on the stack
+	 */
+	protected Class<?> extractColumnValue(final ClassFile.Code code, final int index, final int resultType, final Class<?> enumClass) {
+		switch (resultType) {
+			case TypeMappingsFactory.TYPE_INT:
+				return resultSet(code, "getInt", index);
+			case TypeMappingsFactory.TYPE_LONG:
+				return resultSet(code, "getLong", index);
+			case TypeMappingsFactory.TYPE_FLOAT:
+				return resultSet(code, "getFloat", index);
+			case TypeMappingsFactory.TYPE_DOUBLE:
+				return resultSet(code, "getDouble", index);
+			case TypeMappingsFactory.TYPE_BYTE:
+				return resultSet(code, "getByte", index);
+			case TypeMappingsFactory.TYPE_SHORT:
+				return resultSet(code, "getShort", index);
+			case TypeMappingsFactory.TYPE_BOOLEAN:
+				return util(code, "getBooleanYN", index);
+			case TypeMappingsFactory.TYPE_INT_OBJ:
+				return util(code, "getObjectInt", index);
+			case TypeMappingsFactory.TYPE_LONG_OBJ:
+				return util(code, "getObjectLong", index);
+			case TypeMappingsFactory.TYPE_FLOAT_OBJ:
+				return util(code, "getObjectFloat", index);
+			case TypeMappingsFactory.TYPE_DOUBLE_OBJ:
+				return util(code, "getObjectDouble", index);
+			case TypeMappingsFactory.TYPE_BYTE_OBJ:
+				return util(code, "getObjectByte", index);
+			case TypeMappingsFactory.TYPE_SHORT_OBJ:
+				return util(code, "getObjectShort", index);
+			case TypeMappingsFactory.TYPE_BOOLEAN_OBJ:
+				return util(code, "getObjectBooleanYN", index);
+			case TypeMappingsFactory.TYPE_STRING:
+			case TypeMappingsFactory.TYPE_XMLBEAN_ENUM:
+				return resultSet(code, "getString", index);
+			case TypeMappingsFactory.TYPE_ENUM: {
+				final Method method = getMethod(ResultSetUtil.class, "getEnum", ResultSet.class, int.class, Class.class);
+				code.aload(RS).push(index).push(enumClass).invoke(method);
+				code.checkcast(enumClass);
+				return enumClass;
+			}
+			case TypeMappingsFactory.TYPE_BIG_DECIMAL:
+				return resultSet(code, "getBigDecimal", index);
+			case TypeMappingsFactory.TYPE_BYTES:
+				return resultSet(code, "getBytes", index);
+			case TypeMappingsFactory.TYPE_TIMESTAMP:
+				return resultSetCal(code, "getTimestamp", index);
+			case TypeMappingsFactory.TYPE_TIME:
+				return resultSetCal(code, "getTime", index);
+			case TypeMappingsFactory.TYPE_SQLDATE:
+				return resultSetCal(code, "getDate", index);
+			case TypeMappingsFactory.TYPE_DATE:
+				return utilCal(code, "getUtilDate", index);
+			case TypeMappingsFactory.TYPE_CALENDAR:
+				return utilCal(code, "getCalendar", index);
+			case TypeMappingsFactory.TYPE_REF:
+				return resultSet(code, "getRef", index);
+			case TypeMappingsFactory.TYPE_BLOB:
+				return resultSet(code, "getBlob", index);
+			case TypeMappingsFactory.TYPE_CLOB:
+				return resultSet(code, "getClob", index);
+			case TypeMappingsFactory.TYPE_ARRAY:
+				return resultSet(code, "getArray", index);
+			case TypeMappingsFactory.TYPE_READER:
+			case TypeMappingsFactory.TYPE_STREAM:
+				throw new MapperException("streaming return types are not supported by the JdbcControl; use ResultSet instead");
+			//IFJAVA8_START
+			// start java.time support
+			case TypeMappingsFactory.TYPE_INSTANT:
+				return utilCal(code, "getInstant", index);
+			case TypeMappingsFactory.TYPE_LOCALDATETIME:
+				return utilCal(code, "getLocalDateTime", index);
+			case TypeMappingsFactory.TYPE_LOCALDATE:
+				return utilCal(code, "getLocalDate", index);
+			case TypeMappingsFactory.TYPE_LOCALTIME:
+				return utilCal(code, "getLocalTime", index);
+			// todo: send in ZoneId here?
+			case TypeMappingsFactory.TYPE_ZONEDDATETIME:
+				return utilCal(code, "getZonedDateTime", index);
+			case TypeMappingsFactory.TYPE_OFFSETDATETIME:
+				return utilCal(code, "getOffsetDateTime", index);
+			case TypeMappingsFactory.TYPE_OFFSETTIME:
+				return utilCal(code, "getOffsetTime", index);
+			case TypeMappingsFactory.TYPE_YEAR:
+				return util(code, "getYear", index);
+			case TypeMappingsFactory.TYPE_ZONEID:
+				return util(code, "getZoneId", index);
+			case TypeMappingsFactory.TYPE_ZONEOFFSET:
+				return util(code, "getZoneOffset", index);
+			// end java.time support
+			//IFJAVA8_END
+			case TypeMappingsFactory.TYPE_STRUCT:
+			case TypeMappingsFactory.TYPE_UNKNOWN:
+				// JAVA_TYPE (could be any), or REF
+				return resultSet(code, "getObject", index);
+			default:
+				throw new MapperException("internal error: unknown type ID: " + Integer.toString(resultType));
+		}
+	}
+}
@@ -1,7 +1,10 @@
 package com.moparisthebest.jdbc;
 
+import com.moparisthebest.jdbc.util.BatchUtil;
 import com.moparisthebest.jdbc.util.ResultSetIterable;
 
+import java.io.Closeable;
+
 import java.sql.*;
 import java.util.*;
 //IFJAVA8_START
@@ -14,13 +17,22 @@ import static com.moparisthebest.jdbc.TryClose.tryClose;
  * This class caches the PreparedStatement's it creates for the strings you send in, then closes them when the close() method is called.
  * Since PreparedStatement is not thread-safe, this class cannot be either.  Be sure to call it from only a single thread
  * or synchronize around it.
+ * <p>
+ * Methods returning a ResultSet, ResultSetIterable, or Stream lease their PreparedStatement out of the cache until that
+ * is closed, so a second open one for the same SQL gets its own PreparedStatement instead of closing the first's cursor.
+ * <p>
+ * Given a StatementCache, PreparedStatement's are prepared by and given back to it instead of closed, so they outlive
+ * this instance and are ready for the next CachingQueryMapper on the same connection, see StatementCache.shared
  */
 public class CachingQueryMapper extends QueryMapper {
 
 	protected final Map<String, PreparedStatement> cache;
+	protected final Set<Lease> leases = new HashSet<Lease>();
+	protected final StatementCache statementCache;
 
-	protected CachingQueryMapper(Connection conn, String jndiName, Factory<Connection> factory, ResultSetMapper cm, final int maxEntries) {
+	protected CachingQueryMapper(Connection conn, String jndiName, Factory<Connection> factory, ResultSetMapper cm, final int maxEntries, final StatementCache statementCache) {
 		super(conn, jndiName, factory, cm);
+		this.statementCache = statementCache;
 		if (maxEntries > 0) { // we want a limited cache
 			final float loadFactor = 0.75f; // default for HashMaps
 			// if we set the initialCapacity this way, nothing should ever need re-sized
@@ -31,7 +43,7 @@ public class CachingQueryMapper extends QueryMapper {
 					final boolean remove = size() > maxEntries;
 					if(remove){
 						//System.out.printf("closing PreparedStatement '%s' with key '%s'\n", eldest.getValue(), eldest.getKey());
-						tryClose(eldest.getValue());
+						closePreparedStatement(eldest.getValue());
 					}
 					return remove;
 				}
@@ -40,10 +52,38 @@ public class CachingQueryMapper extends QueryMapper {
 			cache = new HashMap<String, PreparedStatement>();
 	}
 
+	protected CachingQueryMapper(Connection conn, String jndiName, Factory<Connection> factory, ResultSetMapper cm, final int maxEntries) {
+		this(conn, jndiName, factory, cm, maxEntries, null);
+	}
+
 	protected CachingQueryMapper(Connection conn, String jndiName, Factory<Connection> factory, ResultSetMapper cm) {
 		this(conn, jndiName, factory, cm, 20); // default size of 20
 	}
 
+	public CachingQueryMapper(Connection conn, ResultSetMapper cm, final StatementCache statementCache) {
+		this(conn, null, null, cm, 20, statementCache);
+	}
+
+	public CachingQueryMapper(Connection conn, final StatementCache statementCache) {
+		this(conn, null, null, null, 20, statementCache);
+	}
+
+	public CachingQueryMapper(String jndiName, ResultSetMapper cm, final StatementCache statementCache) {
+		this(null, jndiName, null, cm, 20, statementCache);
+	}
+
+	public CachingQueryMapper(String jndiName, final StatementCache statementCache) {
+		this(null, jndiName, null, null, 20, statementCache);
+	}
+
+	public CachingQueryMapper(Factory<Connection> factory, ResultSetMapper cm, final StatementCache statementCache) {
+		this(null, null, factory, cm, 20, statementCache);
+	}
+
+	public CachingQueryMapper(Factory<Connection> factory, final StatementCache statementCache) {
+		this(null, null, factory, null, 20, statementCache);
+	}
+
 	public CachingQueryMapper(Connection conn, ResultSetMapper cm, final int maxEntries) {
 		this(conn, null, null, cm, maxEntries);
 	}
@@ -92,6 +132,32 @@ public class CachingQueryMapper extends QueryMapper {
 		this(null, null, factory, null);
 	}
 
+	protected PreparedStatement prepareStatement(final String sql, final int resultSetType, final int resultSetConcurrency) throws SQLException {
+		return statementCache == null ? conn.prepareStatement(sql, resultSetType, resultSetConcurrency) : statementCache.prepareStatement(conn, sql, resultSetType, resultSetConcurrency);
+	}
+
+	protected PreparedStatement prepareStatement(final String sql, final int autoGeneratedKeys) throws SQLException {
+		return statementCache == null ? conn.prepareStatement(sql, autoGeneratedKeys) : statementCache.prepareStatement(conn, sql, autoGeneratedKeys);
+	}
+
+	protected PreparedStatement prepareStatement(final String sql, final int[] columnIndexes) throws SQLException {
+		return statementCache == null ? conn.prepareStatement(sql, columnIndexes) : statementCache.prepareStatement(conn, sql, columnIndexes);
+	}
+
+	protected PreparedStatement prepareStatement(final String sql, final String[] columnNames) throws SQLException {
+		return statementCache == null ? conn.prepareStatement(sql, columnNames) : statementCache.prepareStatement(conn, sql, columnNames);
+	}
+
+	/**
+	 * Gives ps back to the StatementCache, or closes it if there isn't one
+	 */
+	protected void closePreparedStatement(final PreparedStatement ps) {
+		if (statementCache == null)
+			tryClose(ps);
+		else
+			statementCache.release(conn, ps);
+	}
+
 	protected PreparedStatement getPreparedStatement(String sql) throws SQLException {
 		return getPreparedStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
 	}
@@ -100,18 +166,93 @@ public class CachingQueryMapper extends QueryMapper {
 		PreparedStatement ps = cache.get(sql);
 		if (ps == null) {
 			//System.out.println("cache miss");
-			ps = conn.prepareStatement(sql,resultSetType,resultSetConcurrency);
+			ps = prepareStatement(sql, resultSetType, resultSetConcurrency);
 			cache.put(sql, ps);
 		}
 		//else System.out.println("cache hit");
+		// every time, it may have been leased with a cursor fetch size, or setFetchSize called since it was cached
+		ps.setFetchSize(fetchSize);
 		return ps;
 	}
 
+	/**
+	 * Checks out the cached PreparedStatement for sql, or a new one if it is not cached or already checked out, to be
+	 * held until the ResultSet, ResultSetIterable, or Stream reading from it is closed, which must close the Lease
+	 *
+	 * @param fetchSize set on the PreparedStatement, 0 for the driver's default, it is set on every lease since the
+	 *                  last one may have set something else
+	 */
+	protected Lease leasePreparedStatement(final String sql, final int resultSetType, final int resultSetConcurrency, final int fetchSize) throws SQLException {
+		PreparedStatement ps = cache.remove(sql);
+		if (ps == null)
+			ps = prepareStatement(sql, resultSetType, resultSetConcurrency);
+		final Lease lease = new Lease(sql, ps);
+		leases.add(lease);
+		try {
+			ps.setFetchSize(fetchSize);
+		} catch (SQLException e) {
+			lease.close();
+			throw e;
+		}
+		return lease;
+	}
+
+	protected Lease leasePreparedStatement(final String sql, final int fetchSize) throws SQLException {
+		return leasePreparedStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, fetchSize);
+	}
+
+	/**
+	 * Puts lease's PreparedStatement back in the cache, or closes it if another one for the same sql was cached while it
+	 * was out, does nothing if this was closed in the mean time
+	 */
+	protected void releasePreparedStatement(final Lease lease) {
+		if (!leases.remove(lease))
+			return;
+		if (cache.containsKey(lease.sql))
+			closePreparedStatement(lease.ps);
+		else
+			cache.put(lease.sql, lease.ps);
+	}
+
+	/**
+	 * A PreparedStatement checked out by leasePreparedStatement, close this to release it
+	 */
+	protected class Lease implements Closeable {
+		protected final String sql;
+		protected final PreparedStatement ps;
+
+		protected Lease(final String sql, final PreparedStatement ps) {
+			this.sql = sql;
+			this.ps = ps;
+		}
+
+		/**
+		 * @return rs wrapped to close this after itself
+		 */
+		protected ResultSet closeWith(final ResultSet rs) {
+			return new StatementClosingResultSet(rs, null) {
+				@Override
+				public void close() throws SQLException {
+					try {
+						super.close();
+					} finally {
+						Lease.this.close();
+					}
+				}
+			};
+		}
+
+		@Override
+		public void close() {
+			releasePreparedStatement(this);
+		}
+	}
+
 	protected PreparedStatement getInsertPreparedStatement(final String sql, final int autoGeneratedKeys) throws SQLException {
 		PreparedStatement ps = cache.get(sql);
 		if (ps == null) {
 			//System.out.println("cache miss");
-			ps = conn.prepareStatement(sql, autoGeneratedKeys);
+			ps = prepareStatement(sql, autoGeneratedKeys);
 			cache.put(sql, ps);
 		}
 		//else System.out.println("cache hit");
@@ -122,7 +263,7 @@ public class CachingQueryMapper extends QueryMapper {
 		PreparedStatement ps = cache.get(sql);
 		if (ps == null) {
 			//System.out.println("cache miss");
-			ps = conn.prepareStatement(sql, columnIndexes);
+			ps = prepareStatement(sql, columnIndexes);
 			cache.put(sql, ps);
 		}
 		//else System.out.println("cache hit");
@@ -133,7 +274,7 @@ public class CachingQueryMapper extends QueryMapper {
 		PreparedStatement ps = cache.get(sql);
 		if (ps == null) {
 			//System.out.println("cache miss");
-			ps = conn.prepareStatement(sql, columnNames);
+			ps = prepareStatement(sql, columnNames);
 			cache.put(sql, ps);
 		}
 		//else System.out.println("cache hit");
@@ -143,10 +284,17 @@ public class CachingQueryMapper extends QueryMapper {
 	public void clearCache(boolean close) {
 		//System.out.println("cache size: "+cache.size());
 		for (PreparedStatement ps : cache.values())
-			tryClose(ps);
-		if (close)
+			closePreparedStatement(ps);
+		if (close) {
+			// these have ResultSets still open, but they won't work without the connection anyway
+			for (Lease lease : leases)
+				if (statementCache == null)
+					tryClose(lease.ps);
+				else
+					statementCache.discard(conn, lease.ps);
+			leases.clear();
 			super.close();
-		else
+		} else
 			cache.clear();
 	}
 
@@ -189,206 +337,330 @@ public class CachingQueryMapper extends QueryMapper {
 		return super.insertGetGeneratedKeyType(getInsertPreparedStatement(sql, columnNames), typeReference, bindObjects);
 	}
 
+	@Override
+	public long[] executeBatch(String sql, Iterable<Object[]> rows, int batchSize) throws SQLException {
+		final PreparedStatement ps = getPreparedStatement(sql);
+		boolean error = true;
+		try {
+			final long[] ret = super.executeBatch(ps, rows, batchSize);
+			error = false;
+			return ret;
+		} finally {
+			if (error)
+				BatchUtil.clearBatch(ps);
+		}
+	}
+
+	@Override
+	public long[] executeBatchGetGeneratedKeys(String sql, Iterable<Object[]> rows, int batchSize) throws SQLException {
+		final PreparedStatement ps = getInsertPreparedStatement(sql, Statement.RETURN_GENERATED_KEYS);
+		boolean error = true;
+		try {
+			final long[] ret = super.executeBatchGetGeneratedKeys(ps, rows, batchSize);
+			error = false;
+			return ret;
+		} finally {
+			if (error)
+				BatchUtil.clearBatch(ps);
+		}
+	}
+
 // these grab ResultSets from the database
 
 	@Override
 	public ResultSet toResultSet(String sql, Object... bindObjects) throws SQLException {
-		return super.toResultSet(getPreparedStatement(sql), bindObjects);
+		return this.toResultSet(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, bindObjects);
 	}
 	
 	@Override
 	public ResultSet toResultSet(String sql, int rsType, int rsConcurrency, Object... bindObjects) throws SQLException {
-		return super.toResultSet(getPreparedStatement(sql,rsType,rsConcurrency), bindObjects);
+		boolean error = true;
+		Lease lease = null;
+		try {
+			lease = leasePreparedStatement(sql, rsType, rsConcurrency, fetchSize);
+			final ResultSet ret = lease.closeWith(super.toResultSet(lease.ps, bindObjects));
+			error = false;
+			return ret;
+		} finally {
+			if (error)
+				tryClose(lease);
+		}
 	}
-	
-	// DO NOT EDIT BELOW THIS LINE, OR CHANGE THIS COMMENT, CODE AUTOMATICALLY GENERATED BY genQueryMapper.sh
+
+	// these are handled specially and not generated because they lease their PreparedStatement, and for cursor streaming mode, see setCursorFetchSize
 
 	@Override
-	public <T> T toObject(String sql, Class<T> componentType, final Object... bindObjects) throws SQLException {
-		return super.toObject(getPreparedStatement(sql), componentType, bindObjects);
+	@SuppressWarnings("unchecked")
+	public <T> T toType(String sql, TypeReference<T> typeReference, final Object... bindObjects) throws SQLException {
+		boolean error = true;
+		Lease lease = null;
+		try {
+			lease = leasePreparedStatement(sql, fetchSize);
+			T ret = mapperFor(sql).toType(bindExecute(lease.ps, bindObjects), typeReference);
+			if (ret instanceof ResultSetIterable)
+				ret = (T) ((ResultSetIterable) ret).setCloseableToClose(lease);
+			//IFJAVA8_START
+			else if (ret instanceof Stream) {
+				final Lease finalLease = lease;
+				ret = (T) ((Stream) ret).onClose(() -> finalLease.close());
+			}
+			//IFJAVA8_END
+			else if (ret instanceof ResultSet)
+				ret = (T) lease.closeWith((ResultSet) ret);
+			else
+				lease.close();
+			error = false;
+			return ret;
+		} finally {
+			if (error)
+				tryClose(lease);
+		}
 	}
 
 	@Override
 	public <T> ResultSetIterable<T> toResultSetIterable(String sql, Class<T> componentType, final Object... bindObjects) throws SQLException {
-		return super.toResultSetIterable(getPreparedStatement(sql), componentType, bindObjects);
+		boolean error = true;
+		final Connection autoCommitConn = beginCursor();
+		Lease lease = null;
+		try {
+			lease = leasePreparedStatement(sql, getStreamFetchSize());
+			final ResultSetIterable<T> ret = mapperFor(sql).toResultSetIterable(bindExecute(lease.ps, bindObjects), componentType).setCloseableToClose(lease).setAutoCommitToRestore(autoCommitConn);
+			error = false;
+			return ret;
+		} finally {
+			if (error) {
+				tryClose(lease);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
+			}
+		}
 	}
 
 	@Override
 	public <T extends Map<String, V>, V> ResultSetIterable<Map<String, V>> toResultSetIterable(String sql, Class<T> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toResultSetIterable(getPreparedStatement(sql), componentType, mapValType, bindObjects);
+		boolean error = true;
+		final Connection autoCommitConn = beginCursor();
+		Lease lease = null;
+		try {
+			lease = leasePreparedStatement(sql, getStreamFetchSize());
+			final ResultSetIterable<Map<String, V>> ret = mapperFor(sql).toResultSetIterable(bindExecute(lease.ps, bindObjects), componentType, mapValType).setCloseableToClose(lease).setAutoCommitToRestore(autoCommitConn);
+			error = false;
+			return ret;
+		} finally {
+			if (error) {
+				tryClose(lease);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
+			}
+		}
 	}
 
 	//IFJAVA8_START
 
 	@Override
 	public <T> Stream<T> toStream(String sql, Class<T> componentType, final Object... bindObjects) throws SQLException {
-		return super.toStream(getPreparedStatement(sql), componentType, bindObjects);
+		boolean error = true;
+		final Connection autoCommitConn = beginCursor();
+		Lease lease = null;
+		try {
+			lease = leasePreparedStatement(sql, getStreamFetchSize());
+			final Lease finalLease = lease;
+			final Stream<T> ret = mapperFor(sql).toStream(bindExecute(lease.ps, bindObjects), componentType).onClose(() -> {
+				finalLease.close();
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
+			});
+			error = false;
+			return ret;
+		} finally {
+			if (error) {
+				tryClose(lease);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
+			}
+		}
 	}
 
-	//IFJAVA8_END
-
-	//IFJAVA8_START
-
 	@Override
 	public <T extends Map<String, V>, V> Stream<Map<String, V>> toStream(String sql, Class<T> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toStream(getPreparedStatement(sql), componentType, mapValType, bindObjects);
+		boolean error = true;
+		final Connection autoCommitConn = beginCursor();
+		Lease lease = null;
+		try {
+			lease = leasePreparedStatement(sql, getStreamFetchSize());
+			final Lease finalLease = lease;
+			final Stream<Map<String, V>> ret = mapperFor(sql).toStream(bindExecute(lease.ps, bindObjects), componentType, mapValType).onClose(() -> {
+				finalLease.close();
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
+			});
+			error = false;
+			return ret;
+		} finally {
+			if (error) {
+				tryClose(lease);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
+			}
+		}
 	}
 
 	//IFJAVA8_END
 
+	// DO NOT EDIT BELOW THIS LINE, OR CHANGE THIS COMMENT, CODE AUTOMATICALLY GENERATED BY genQueryMapper.sh
+
 	@Override
-	public <T extends Map<String, V>, V> Map<String, V> toSingleMap(String sql, Class<T> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toSingleMap(getPreparedStatement(sql), componentType, mapValType, bindObjects);
+	public <T> T toObject(String sql, Class<T> componentType, final Object... bindObjects) throws SQLException {
+		return mapperFor(sql).toObject(bindExecute(getPreparedStatement(sql), bindObjects), componentType);
 	}
 
 	@Override
-	public <V> Map<String, V> toSingleMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toSingleMap(getPreparedStatement(sql), mapValType, bindObjects);
+	public <T extends Map<String, V>, V> Map<String, V> toSingleMap(String sql, Class<T> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
+		return mapperFor(sql).toSingleMap(bindExecute(getPreparedStatement(sql), bindObjects), componentType, mapValType);
 	}
 
 	@Override
-	public <T> T toType(String sql, TypeReference<T> typeReference, final Object... bindObjects) throws SQLException {
-		return super.toType(getPreparedStatement(sql), typeReference, bindObjects);
+	public <V> Map<String, V> toSingleMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
+		return mapperFor(sql).toSingleMap(bindExecute(getPreparedStatement(sql), bindObjects), mapValType);
 	}
 
 	@Override
 	public <T extends Collection<E>, E> T toCollection(String sql, final Class<T> collectionType, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return super.toCollection(getPreparedStatement(sql), collectionType, componentType, bindObjects);
+		return mapperFor(sql).toCollection(bindExecute(getPreparedStatement(sql), bindObjects), collectionType, componentType);
 	}
 
 	@Override
 	public <T extends Collection<E>, E> T toCollection(String sql, T list, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return super.toCollection(getPreparedStatement(sql), list, componentType, bindObjects);
+		return mapperFor(sql).toCollection(bindExecute(getPreparedStatement(sql), bindObjects), list, componentType);
 	}
 
 	@Override
 	public <T extends Map<K, E>, K, E> T toMap(String sql, T map, Class<K> mapKeyType, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return super.toMap(getPreparedStatement(sql), map, mapKeyType, componentType, bindObjects);
+		return mapperFor(sql).toMap(bindExecute(getPreparedStatement(sql), bindObjects), map, mapKeyType, componentType);
 	}
 
 	@Override
 	public <T extends Map<K, E>, K, E extends Collection<C>, C> T toMapCollection(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<E> collectionType, Class<C> componentType, final Object... bindObjects) throws SQLException {
-		return super.toMapCollection(getPreparedStatement(sql), returnType, mapKeyType, collectionType, componentType, bindObjects);
+		return mapperFor(sql).toMapCollection(bindExecute(getPreparedStatement(sql), bindObjects), returnType, mapKeyType, collectionType, componentType);
 	}
 
 	@Override
 	public <T extends Map<K, E>, K, E extends Collection<C>, C> T toMapCollection(String sql, T map, Class<K> mapKeyType, Class<E> collectionType, Class<C> componentType, final Object... bindObjects) throws SQLException {
-		return super.toMapCollection(getPreparedStatement(sql), map, mapKeyType, collectionType, componentType, bindObjects);
+		return mapperFor(sql).toMapCollection(bindExecute(getPreparedStatement(sql), bindObjects), map, mapKeyType, collectionType, componentType);
 	}
 
 	@Override
 	public <T> ListIterator<T> toListIterator(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
-		return super.toListIterator(getPreparedStatement(sql), type, bindObjects);
+		return mapperFor(sql).toListIterator(bindExecute(getPreparedStatement(sql), bindObjects), type);
 	}
 
 	@Override
 	public <T> Iterator<T> toIterator(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
-		return super.toIterator(getPreparedStatement(sql), type, bindObjects);
+		return mapperFor(sql).toIterator(bindExecute(getPreparedStatement(sql), bindObjects), type);
 	}
 
 	@Override
 	public <T> T[] toArray(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
-		return super.toArray(getPreparedStatement(sql), type, bindObjects);
+		return mapperFor(sql).toArray(bindExecute(getPreparedStatement(sql), bindObjects), type);
 	}
 
 	@Override
 	public <E> List<E> toList(String sql, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return super.toList(getPreparedStatement(sql), componentType, bindObjects);
+		return mapperFor(sql).toList(bindExecute(getPreparedStatement(sql), bindObjects), componentType);
+	}
+
+	@Override
+	public ColumnarResult toColumns(String sql, final Object... bindObjects) throws SQLException {
+		return mapperFor(sql).toColumns(bindExecute(getPreparedStatement(sql), bindObjects));
 	}
 
 	@Override
 	public <K, E> Map<K, E> toMap(String sql, Class<K> mapKeyType, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return super.toMap(getPreparedStatement(sql), mapKeyType, componentType, bindObjects);
+		return mapperFor(sql).toMap(bindExecute(getPreparedStatement(sql), bindObjects), mapKeyType, componentType);
 	}
 
 	@Override
 	public <K, E extends List<C>, C> Map<K, E> toMapList(String sql, Class<K> mapKeyType, Class<C> componentType, final Object... bindObjects) throws SQLException {
-		return super.toMapList(getPreparedStatement(sql), mapKeyType, componentType, bindObjects);
+		return mapperFor(sql).toMapList(bindExecute(getPreparedStatement(sql), bindObjects), mapKeyType, componentType);
 	}
 
 	@Override
 	public <T extends Collection<E>, E extends Map<String, V>, V> T toCollectionMap(String sql, final Class<T> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toCollectionMap(getPreparedStatement(sql), collectionType, componentType, mapValType, bindObjects);
+		return mapperFor(sql).toCollectionMap(bindExecute(getPreparedStatement(sql), bindObjects), collectionType, componentType, mapValType);
 	}
 
 	@Override
 	public <T extends Collection<E>, E extends Map<String, V>, V> T toCollectionMap(String sql, T list, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toCollectionMap(getPreparedStatement(sql), list, componentType, mapValType, bindObjects);
+		return mapperFor(sql).toCollectionMap(bindExecute(getPreparedStatement(sql), bindObjects), list, componentType, mapValType);
 	}
 
 	@Override
 	public <T extends Map<K, E>, K, E extends Map<String, V>, V> T toMapMap(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toMapMap(getPreparedStatement(sql), returnType, mapKeyType, componentType, mapValType, bindObjects);
+		return mapperFor(sql).toMapMap(bindExecute(getPreparedStatement(sql), bindObjects), returnType, mapKeyType, componentType, mapValType);
 	}
 
 	@Override
 	public <T extends Map<K, E>, K, E extends Map<String, V>, V> T toMapMap(String sql, T map, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toMapMap(getPreparedStatement(sql), map, mapKeyType, componentType, mapValType, bindObjects);
+		return mapperFor(sql).toMapMap(bindExecute(getPreparedStatement(sql), bindObjects), map, mapKeyType, componentType, mapValType);
 	}
 
 	@Override
 	public <T extends Map<K, C>, K, C extends Collection<E>, E extends Map<String, V>, V> T toMapCollectionMap(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<C> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toMapCollectionMap(getPreparedStatement(sql), returnType, mapKeyType, collectionType, componentType, mapValType, bindObjects);
+		return mapperFor(sql).toMapCollectionMap(bindExecute(getPreparedStatement(sql), bindObjects), returnType, mapKeyType, collectionType, componentType, mapValType);
 	}
 
 	@Override
 	public <T extends Map<K, C>, K, C extends Collection<E>, E extends Map<String, V>, V> T toMapCollectionMap(String sql, T map, Class<K> mapKeyType, Class<C> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toMapCollectionMap(getPreparedStatement(sql), map, mapKeyType, collectionType, componentType, mapValType, bindObjects);
+		return mapperFor(sql).toMapCollectionMap(bindExecute(getPreparedStatement(sql), bindObjects), map, mapKeyType, collectionType, componentType, mapValType);
 	}
 
 	@Override
 	public <T extends Map<String, V>, V> ListIterator<Map<String, V>> toListIteratorMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toListIteratorMap(getPreparedStatement(sql), type, mapValType, bindObjects);
+		return mapperFor(sql).toListIteratorMap(bindExecute(getPreparedStatement(sql), bindObjects), type, mapValType);
 	}
 
 	@Override
 	public <T extends Map<String, V>, V> Iterator<Map<String, V>> toIteratorMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toIteratorMap(getPreparedStatement(sql), type, mapValType, bindObjects);
+		return mapperFor(sql).toIteratorMap(bindExecute(getPreparedStatement(sql), bindObjects), type, mapValType);
 	}
 
 	@Override
 	public <T extends Map<String, V>, V> Map<String, V>[] toArrayMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toArrayMap(getPreparedStatement(sql), type, mapValType, bindObjects);
+		return mapperFor(sql).toArrayMap(bindExecute(getPreparedStatement(sql), bindObjects), type, mapValType);
 	}
 
 	@Override
 	public <E extends Map<String, V>, V> List<Map<String, V>> toListMap(String sql, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toListMap(getPreparedStatement(sql), componentType, mapValType, bindObjects);
+		return mapperFor(sql).toListMap(bindExecute(getPreparedStatement(sql), bindObjects), componentType, mapValType);
 	}
 
 	@Override
 	public <K, E extends Map<String, V>, V> Map<K, Map<String, V>> toMapMap(String sql, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toMapMap(getPreparedStatement(sql), mapKeyType, componentType, mapValType, bindObjects);
+		return mapperFor(sql).toMapMap(bindExecute(getPreparedStatement(sql), bindObjects), mapKeyType, componentType, mapValType);
 	}
 
 	@Override
 	public <K, E extends Map<String, V>, V> Map<K, List<Map<String, V>>> toMapListMap(String sql, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toMapListMap(getPreparedStatement(sql), mapKeyType, componentType, mapValType, bindObjects);
+		return mapperFor(sql).toMapListMap(bindExecute(getPreparedStatement(sql), bindObjects), mapKeyType, componentType, mapValType);
 	}
 
 	@Override
 	public <V> ListIterator<Map<String, V>> toListIteratorMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toListIteratorMap(getPreparedStatement(sql), mapValType, bindObjects);
+		return mapperFor(sql).toListIteratorMap(bindExecute(getPreparedStatement(sql), bindObjects), mapValType);
 	}
 
 	@Override
 	public <V> Iterator<Map<String, V>> toIteratorMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toIteratorMap(getPreparedStatement(sql), mapValType, bindObjects);
+		return mapperFor(sql).toIteratorMap(bindExecute(getPreparedStatement(sql), bindObjects), mapValType);
 	}
 
 	@Override
 	public <V> List<Map<String, V>> toListMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toListMap(getPreparedStatement(sql), mapValType, bindObjects);
+		return mapperFor(sql).toListMap(bindExecute(getPreparedStatement(sql), bindObjects), mapValType);
 	}
 
 	@Override
 	public <K, V> Map<K, Map<String, V>> toMapMap(String sql, Class<K> mapKeyType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toMapMap(getPreparedStatement(sql), mapKeyType, mapValType, bindObjects);
+		return mapperFor(sql).toMapMap(bindExecute(getPreparedStatement(sql), bindObjects), mapKeyType, mapValType);
 	}
 
 	@Override
 	public <K, V> Map<K, List<Map<String, V>>> toMapListMap(String sql, Class<K> mapKeyType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return super.toMapListMap(getPreparedStatement(sql), mapKeyType, mapValType, bindObjects);
+		return mapperFor(sql).toMapListMap(bindExecute(getPreparedStatement(sql), bindObjects), mapKeyType, mapValType);
 	}
 
 }
@@ -11,14 +11,20 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Maps the same as ResultSetMapper except caches constructor and field mappings
+ * <p>
+ * When used from QueryMapper with SQL text, the mappings are also cached by that SQL text and return type, so
+ * ResultSetMetaData is only read the first time each query is run.
  *
  * @see ResultSetMapper
  */
 public class CachingResultSetMapper extends ResultSetMapper {
 
 	protected final Map<CachingRowToObjectMapper.ResultSetKey, CachingRowToObjectMapper.FieldMapping<?>> cache;
+	protected final Map<SqlKey, CachingRowToObjectMapper.ResultSetKey> sqlCache;
+	private final boolean cachesBySql = overridesSqlRowMapper(getClass(), CachingResultSetMapper.class);
 	/**
-	 * CachingResultSetMapper with optional maxEntries, expiring old ones in LRU fashion
+	 * CachingResultSetMapper with optional maxEntries, expiring old ones in segmented LRU fashion, the cache is then a
+	 * thread-safe SegmentedLruCache with hit rate and eviction stats
 	 *
 	 * @param cal            optional calendar for date/time values
 	 * @param arrayMaxLength max array/list/map length, a value of less than 1 indicates that all rows from the ResultSet should be included
@@ -26,7 +32,8 @@ public class CachingResultSetMapper extends ResultSetMapper {
 	 */
 	public CachingResultSetMapper(final Calendar cal, final int arrayMaxLength, final int maxEntries) {
 		super(cal, arrayMaxLength);
-		cache = CacheUtil.getCache(maxEntries);
+		cache = maxEntries > 0 ? CacheUtil.<CachingRowToObjectMapper.ResultSetKey, CachingRowToObjectMapper.FieldMapping<?>>getSegmentedCache(maxEntries) : CacheUtil.<CachingRowToObjectMapper.ResultSetKey, CachingRowToObjectMapper.FieldMapping<?>>getCache(maxEntries);
+		sqlCache = ResultSetMapper.<CachingRowToObjectMapper.ResultSetKey>newSqlCache(cache);
 	}
 
 	/**
@@ -67,6 +74,7 @@ public class CachingResultSetMapper extends ResultSetMapper {
 		if (cache == null)
 			throw new IllegalArgumentException("cache cannot be null");
 		this.cache = cache;
+		this.sqlCache = ResultSetMapper.<CachingRowToObjectMapper.ResultSetKey>newSqlCache(cache);
 	}
 
 	/**
@@ -122,4 +130,20 @@ public class CachingResultSetMapper extends ResultSetMapper {
 	public <K, T> RowMapper<K, T> getRowMapper(ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType) {
 		return new CachingRowToObjectMapper<K, T>(cache, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
 	}
+
+	@Override
+	public boolean cachesBySql() {
+		return cachesBySql;
+	}
+
+	@Override
+	protected <K, T> RowMapper<K, T> getRowMapper(final String sql, final String schema, final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+		final SqlKey sqlKey = new SqlKey(sql, schema, returnTypeClass, mapKeyType, cal != null);
+		final CachingRowToObjectMapper.ResultSetKey keys = sqlCache.get(sqlKey);
+		if (keys != null)
+			return new CachingRowToObjectMapper<K, T>(cache, keys, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+		final CachingRowToObjectMapper<K, T> ret = new CachingRowToObjectMapper<K, T>(cache, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+		sqlCache.put(sqlKey, ret.keys);
+		return ret;
+	}
 }
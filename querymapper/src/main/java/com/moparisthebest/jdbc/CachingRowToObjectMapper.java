@@ -29,6 +29,17 @@ public class CachingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 		}
 	}
 
+	/**
+	 * @param keys already resolved for resultSet, returnTypeClass, and mapKeyType, so ResultSetMetaData isn't read
+	 */
+	public CachingRowToObjectMapper(final Map<ResultSetKey, FieldMapping<?>> cache, final ResultSetKey keys, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType) {
+		super(keys.keys, resultSet, returnTypeClass, cal, mapValType, mapKeyType, false);
+		@SuppressWarnings("unchecked")
+		final Map<ResultSetKey, FieldMapping<T>> genericCache = (Map<ResultSetKey, FieldMapping<T>>) (Object) cache; // ridiculous ain't it?
+		this.cache = genericCache;
+		this.keys = keys;
+	}
+
 	@Override
 	protected String[] getKeysFromResultSet() throws SQLException {
 		return keys.keys;
@@ -82,6 +93,8 @@ public class CachingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 	public static class ResultSetKey {
 		protected final String[] keys;
 		protected final Class<?> returnTypeClass, mapKeyType;
+		// keys are looked up again for every query, so only hash them once
+		private int hashCode;
 
 		public ResultSetKey(final String[] keys, final Class<?> returnTypeClass, final Class<?> mapKeyType) {
 			this.keys = keys;
@@ -105,6 +118,13 @@ public class CachingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 
 		@Override
 		public int hashCode() {
+			int ret = hashCode;
+			if (ret == 0)
+				hashCode = ret = computeHashCode();
+			return ret;
+		}
+
+		protected int computeHashCode() {
 			int result = Arrays.hashCode(keys);
 			result = 31 * result + (returnTypeClass != null ? returnTypeClass.hashCode() : 0);
 			result = 31 * result + (mapKeyType != null ? mapKeyType.hashCode() : 0);
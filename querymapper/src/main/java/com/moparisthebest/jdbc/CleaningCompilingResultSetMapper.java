@@ -35,4 +35,10 @@ public class CleaningCompilingResultSetMapper<E> extends CompilingResultSetMappe
 	public <K, T> RowMapper<K, T> getRowMapper(final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
 		return new CleaningRowToObjectMapper((Cleaner<T>)cleaner, super.getRowMapper(resultSet, returnTypeClass, cal, mapValType, mapKeyType));
 	}
+
+	@Override
+	@SuppressWarnings({"unchecked"})
+	protected <K, T> RowMapper<K, T> getRowMapper(final String sql, final String schema, final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+		return new CleaningRowToObjectMapper((Cleaner<T>)cleaner, super.getRowMapper(sql, schema, resultSet, returnTypeClass, cal, mapValType, mapKeyType));
+	}
 }
@@ -0,0 +1,529 @@
+package com.moparisthebest.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A whole ResultSet stored column by column instead of row by row, for pulling millions of rows of a few columns without
+ * an object per row.
+ * <p>
+ * Each column is stored according to its SQL type from ResultSetMetaData:
+ * <ul>
+ * <li>TINYINT, SMALLINT, INTEGER, and NUMERIC/DECIMAL with scale 0 and precision up to 9 in an int[]</li>
+ * <li>BIGINT, and NUMERIC/DECIMAL with scale 0 and precision up to 18 in a long[]</li>
+ * <li>REAL, FLOAT, DOUBLE in a double[]</li>
+ * <li>CHAR, VARCHAR, and their N and LONG variants dictionary-encoded, an int[] of codes into a String[] of distinct values,
+ * until a column has more than DEFAULT_MAX_DICTIONARY_SIZE distinct values, then it falls back to a String[]</li>
+ * <li>everything else as an Object[] from ResultSet.getObject, or getTimestamp/getDate/getTime with a Calendar</li>
+ * </ul>
+ * Once every row is read each column's arrays are trimmed to the row count, so a result held onto for a while doesn't
+ * keep the spare capacity from reading it. Nulls are tracked in a bitmap per column, only allocated once that column has a null, and read as 0 from the
+ * primitive accessors, so check isNull if that matters.
+ * <p>
+ * Columns are numbered from 1 like ResultSet, rows from 0 like List. The accessors convert between numeric types the
+ * same way a cast would, getString works on every column, and getObject returns boxed values.
+ *
+ * @see ResultSetMapper#toColumns(ResultSet, int, Calendar)
+ */
+public class ColumnarResult {
+
+	public static final int DEFAULT_MAX_DICTIONARY_SIZE = Integer.parseInt(System.getProperty("QueryMapper.ColumnarResult.maxDictionarySize", "65536"));
+
+	protected final String[] columnNames;
+	protected final Column[] columns;
+	protected final Map<String, Integer> columnIndexes;
+	protected int size = 0;
+
+	protected ColumnarResult(final ResultSetMetaData md, final Calendar cal) throws SQLException {
+		final int columnCount = md.getColumnCount();
+		this.columnNames = new String[columnCount + 1];
+		this.columns = new Column[columnCount + 1];
+		this.columnIndexes = new HashMap<String, Integer>(columnCount * 2);
+		for (int x = 1; x <= columnCount; ++x) {
+			columnNames[x] = md.getColumnLabel(x).toUpperCase();
+			if (!columnIndexes.containsKey(columnNames[x]))
+				columnIndexes.put(columnNames[x], x);
+			columns[x] = newColumn(md, x, cal);
+		}
+	}
+
+	/**
+	 * Read every remaining row of rs, or only maxRows rows if maxRows is greater than 0, rs is not closed
+	 */
+	public static ColumnarResult from(final ResultSet rs, final long maxRows, final Calendar cal) throws SQLException {
+		final ColumnarResult ret = new ColumnarResult(rs.getMetaData(), cal);
+		final Column[] columns = ret.columns;
+		int row = 0;
+		for (final boolean unlimitedRows = maxRows < 1; (unlimitedRows || row != maxRows) && rs.next(); ++row)
+			for (int x = 1; x < columns.length; ++x)
+				columns[x].read(rs, x, row);
+		for (int x = 1; x < columns.length; ++x)
+			columns[x].finish(row);
+		ret.size = row;
+		return ret;
+	}
+
+	public static ColumnarResult from(final ResultSet rs) throws SQLException {
+		return from(rs, -1, null);
+	}
+
+	protected Column newColumn(final ResultSetMetaData md, final int index, final Calendar cal) throws SQLException {
+		switch (md.getColumnType(index)) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				return new IntColumn();
+			case Types.BIGINT:
+				return new LongColumn();
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return new DoubleColumn();
+			case Types.NUMERIC:
+			case Types.DECIMAL: {
+				final int precision = md.getPrecision(index);
+				if (md.getScale(index) == 0 && precision > 0) {
+					if (precision <= 9)
+						return new IntColumn();
+					if (precision <= 18)
+						return new LongColumn();
+				}
+				return new ObjectColumn(md.getColumnType(index), cal);
+			}
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+				return new StringColumn();
+			default:
+				return new ObjectColumn(md.getColumnType(index), cal);
+		}
+	}
+
+	/**
+	 * @return number of rows
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getColumnCount() {
+		return columns.length - 1;
+	}
+
+	/**
+	 * @return upper-cased column label
+	 */
+	public String getColumnName(final int column) {
+		return columnNames[column];
+	}
+
+	/**
+	 * @return index of the first column with this label, case-insensitive
+	 * @throws MapperException if there is no such column
+	 */
+	public int getColumnIndex(final String columnName) {
+		final Integer ret = columnIndexes.get(columnName.toUpperCase());
+		if (ret == null)
+			throw new MapperException("no column named " + columnName + " in " + Arrays.toString(columnNames));
+		return ret;
+	}
+
+	public boolean isNull(final int row, final int column) {
+		return columns[column].isNull(checkRow(row));
+	}
+
+	public int getInt(final int row, final int column) {
+		return columns[column].getInt(checkRow(row));
+	}
+
+	public long getLong(final int row, final int column) {
+		return columns[column].getLong(checkRow(row));
+	}
+
+	public double getDouble(final int row, final int column) {
+		return columns[column].getDouble(checkRow(row));
+	}
+
+	public String getString(final int row, final int column) {
+		return columns[column].getString(checkRow(row));
+	}
+
+	public Object getObject(final int row, final int column) {
+		return columns[column].getObject(checkRow(row));
+	}
+
+	/**
+	 * @return the backing array of an int column, size() long, so do not change it
+	 * @throws MapperException if the column is not stored as int
+	 */
+	public int[] getIntColumn(final int column) {
+		return column(column, IntColumn.class).values;
+	}
+
+	/**
+	 * @return the backing array of a long column, size() long, so do not change it
+	 * @throws MapperException if the column is not stored as long
+	 */
+	public long[] getLongColumn(final int column) {
+		return column(column, LongColumn.class).values;
+	}
+
+	/**
+	 * @return the backing array of a double column, size() long, so do not change it
+	 * @throws MapperException if the column is not stored as double
+	 */
+	public double[] getDoubleColumn(final int column) {
+		return column(column, DoubleColumn.class).values;
+	}
+
+	/**
+	 * @return the codes of a dictionary-encoded String column, indexes into getDictionary, -1 for null
+	 * @throws MapperException if the column is not dictionary-encoded, or had too many distinct values to stay that way
+	 */
+	public int[] getStringCodes(final int column) {
+		return dictionaryColumn(column).codes;
+	}
+
+	/**
+	 * @return the distinct values of a dictionary-encoded String column, in the order first seen
+	 * @throws MapperException if the column is not dictionary-encoded, or had too many distinct values to stay that way
+	 */
+	public String[] getDictionary(final int column) {
+		final List<String> dictionary = dictionaryColumn(column).dictionary;
+		return dictionary.toArray(new String[dictionary.size()]);
+	}
+
+	/**
+	 * @return the backing array of a String column that had too many distinct values to be dictionary-encoded, size()
+	 * long, so do not change it
+	 * @throws MapperException if the column is not a String column, or is dictionary-encoded
+	 */
+	public String[] getStringColumn(final int column) {
+		final StringColumn ret = column(column, StringColumn.class);
+		if (ret.values == null)
+			throw new MapperException("column " + column + " '" + columnNames[column] + "' is dictionary-encoded, use getStringCodes and getDictionary");
+		return ret.values;
+	}
+
+	private int checkRow(final int row) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+		return row;
+	}
+
+	private StringColumn dictionaryColumn(final int column) {
+		final StringColumn ret = column(column, StringColumn.class);
+		if (ret.codes == null)
+			throw new MapperException("column " + column + " '" + columnNames[column] + "' had more than " + ret.maxDictionarySize + " distinct values so is not dictionary-encoded, use getStringColumn");
+		return ret;
+	}
+
+	private <T extends Column> T column(final int column, final Class<T> type) {
+		final Column ret = columns[column];
+		if (!type.isInstance(ret))
+			throw new MapperException("column " + column + " '" + columnNames[column] + "' is a " + ret.getClass().getSimpleName() + " not a " + type.getSimpleName());
+		return type.cast(ret);
+	}
+
+	protected static int grow(final int length, final int row) {
+		return Math.max(row + 1, length < 8 ? 16 : length + (length >> 1));
+	}
+
+	protected abstract static class Column {
+		private long[] nulls;
+
+		protected abstract void read(final ResultSet rs, final int index, final int row) throws SQLException;
+
+		/**
+		 * called once all rows have been read, to trim arrays to size and drop anything only needed while reading
+		 */
+		protected void finish(final int size) {
+			final int words = (size + 63) >>> 6;
+			if (nulls != null && nulls.length > words)
+				nulls = Arrays.copyOf(nulls, words);
+		}
+
+		protected void setNull(final int row) {
+			final int word = row >>> 6;
+			if (nulls == null)
+				nulls = new long[Math.max(word + 1, 16)];
+			else if (word >= nulls.length)
+				nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+			nulls[word] |= 1L << row;
+		}
+
+		public boolean isNull(final int row) {
+			final int word = row >>> 6;
+			return nulls != null && word < nulls.length && (nulls[word] & (1L << row)) != 0;
+		}
+
+		public int getInt(final int row) {
+			return (int) getLong(row);
+		}
+
+		public long getLong(final int row) {
+			final Object ret = getObject(row);
+			if (ret == null)
+				return 0;
+			if (ret instanceof Number)
+				return ((Number) ret).longValue();
+			if (ret instanceof String)
+				return Long.parseLong((String) ret);
+			throw new MapperException("cannot convert " + ret.getClass().getName() + " to a number");
+		}
+
+		public double getDouble(final int row) {
+			final Object ret = getObject(row);
+			if (ret == null)
+				return 0;
+			if (ret instanceof Number)
+				return ((Number) ret).doubleValue();
+			if (ret instanceof String)
+				return Double.parseDouble((String) ret);
+			throw new MapperException("cannot convert " + ret.getClass().getName() + " to a number");
+		}
+
+		public String getString(final int row) {
+			final Object ret = getObject(row);
+			return ret == null ? null : ret.toString();
+		}
+
+		public abstract Object getObject(final int row);
+	}
+
+	protected static class IntColumn extends Column {
+		protected int[] values = new int[16];
+
+		@Override
+		protected void finish(final int size) {
+			super.finish(size);
+			if (values.length > size)
+				values = Arrays.copyOf(values, size);
+		}
+
+		@Override
+		protected void read(final ResultSet rs, final int index, final int row) throws SQLException {
+			if (row == values.length)
+				values = Arrays.copyOf(values, grow(values.length, row));
+			values[row] = rs.getInt(index);
+			if (rs.wasNull())
+				setNull(row);
+		}
+
+		@Override
+		public int getInt(final int row) {
+			return values[row];
+		}
+
+		@Override
+		public long getLong(final int row) {
+			return values[row];
+		}
+
+		@Override
+		public double getDouble(final int row) {
+			return values[row];
+		}
+
+		@Override
+		public Object getObject(final int row) {
+			return isNull(row) ? null : Integer.valueOf(values[row]);
+		}
+	}
+
+	protected static class LongColumn extends Column {
+		protected long[] values = new long[16];
+
+		@Override
+		protected void finish(final int size) {
+			super.finish(size);
+			if (values.length > size)
+				values = Arrays.copyOf(values, size);
+		}
+
+		@Override
+		protected void read(final ResultSet rs, final int index, final int row) throws SQLException {
+			if (row == values.length)
+				values = Arrays.copyOf(values, grow(values.length, row));
+			values[row] = rs.getLong(index);
+			if (rs.wasNull())
+				setNull(row);
+		}
+
+		@Override
+		public long getLong(final int row) {
+			return values[row];
+		}
+
+		@Override
+		public double getDouble(final int row) {
+			return values[row];
+		}
+
+		@Override
+		public Object getObject(final int row) {
+			return isNull(row) ? null : Long.valueOf(values[row]);
+		}
+	}
+
+	protected static class DoubleColumn extends Column {
+		protected double[] values = new double[16];
+
+		@Override
+		protected void finish(final int size) {
+			super.finish(size);
+			if (values.length > size)
+				values = Arrays.copyOf(values, size);
+		}
+
+		@Override
+		protected void read(final ResultSet rs, final int index, final int row) throws SQLException {
+			if (row == values.length)
+				values = Arrays.copyOf(values, grow(values.length, row));
+			values[row] = rs.getDouble(index);
+			if (rs.wasNull())
+				setNull(row);
+		}
+
+		@Override
+		public double getDouble(final int row) {
+			return values[row];
+		}
+
+		@Override
+		public Object getObject(final int row) {
+			return isNull(row) ? null : Double.valueOf(values[row]);
+		}
+	}
+
+	protected static class StringColumn extends Column {
+		protected final int maxDictionarySize;
+		// codes and dictionary are null once there are more than maxDictionarySize distinct values, values is used instead
+		protected int[] codes = new int[16];
+		protected List<String> dictionary = new ArrayList<String>();
+		// only needed while reading
+		protected Map<String, Integer> dictionaryCodes = new HashMap<String, Integer>();
+		protected String[] values;
+
+		protected StringColumn(final int maxDictionarySize) {
+			this.maxDictionarySize = maxDictionarySize;
+		}
+
+		protected StringColumn() {
+			this(DEFAULT_MAX_DICTIONARY_SIZE);
+		}
+
+		@Override
+		protected void read(final ResultSet rs, final int index, final int row) throws SQLException {
+			final String value = rs.getString(index);
+			if (value == null)
+				setNull(row);
+			if (values != null) {
+				if (row == values.length)
+					values = Arrays.copyOf(values, grow(values.length, row));
+				values[row] = value;
+				return;
+			}
+			if (row == codes.length)
+				codes = Arrays.copyOf(codes, grow(codes.length, row));
+			if (value == null) {
+				codes[row] = -1;
+				return;
+			}
+			Integer code = dictionaryCodes.get(value);
+			if (code == null) {
+				if (dictionary.size() == maxDictionarySize) {
+					// too many distinct values for a dictionary to save anything, store them as-is from here on
+					final String[] values = new String[codes.length];
+					for (int x = 0; x < row; ++x)
+						values[x] = getString(x);
+					values[row] = value;
+					this.values = values;
+					codes = null;
+					dictionary = null;
+					dictionaryCodes = null;
+					return;
+				}
+				code = dictionary.size();
+				dictionary.add(value);
+				dictionaryCodes.put(value, code);
+			}
+			codes[row] = code;
+		}
+
+		@Override
+		protected void finish(final int size) {
+			super.finish(size);
+			if (values != null && values.length > size)
+				values = Arrays.copyOf(values, size);
+			if (codes != null && codes.length > size)
+				codes = Arrays.copyOf(codes, size);
+			dictionaryCodes = null;
+		}
+
+		@Override
+		public String getString(final int row) {
+			if (values != null)
+				return values[row];
+			final int code = codes[row];
+			return code < 0 ? null : dictionary.get(code);
+		}
+
+		@Override
+		public Object getObject(final int row) {
+			return getString(row);
+		}
+	}
+
+	protected static class ObjectColumn extends Column {
+		protected final int sqlType;
+		protected final Calendar cal;
+		protected Object[] values = new Object[16];
+
+		protected ObjectColumn(final int sqlType, final Calendar cal) {
+			this.sqlType = sqlType;
+			this.cal = cal;
+		}
+
+		@Override
+		protected void read(final ResultSet rs, final int index, final int row) throws SQLException {
+			if (row == values.length)
+				values = Arrays.copyOf(values, grow(values.length, row));
+			final Object value;
+			if (cal != null && sqlType == Types.TIMESTAMP)
+				value = rs.getTimestamp(index, cal);
+			else if (cal != null && sqlType == Types.DATE)
+				value = rs.getDate(index, cal);
+			else if (cal != null && sqlType == Types.TIME)
+				value = rs.getTime(index, cal);
+			else
+				value = rs.getObject(index);
+			values[row] = value;
+			if (value == null)
+				setNull(row);
+		}
+
+		@Override
+		protected void finish(final int size) {
+			super.finish(size);
+			if (values.length > size)
+				values = Arrays.copyOf(values, size);
+		}
+
+		@Override
+		public Object getObject(final int row) {
+			return values[row];
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package com.moparisthebest.jdbc;
 
+import com.moparisthebest.classgen.ClassCompiler;
 import com.moparisthebest.classgen.Compiler;
+import com.moparisthebest.classgen.CompilerPool;
 
 import java.sql.ResultSet;
 import java.util.Calendar;
@@ -13,35 +15,61 @@ import java.util.Calendar;
  * <p>
  * By default this uses a plain HashMap for the cache, unbounded, and not thread-safe. Use CacheUtil to get Maps for your
  * preferred use case. You cansend in your own custom Map implementation, CompilingResultSetMapper guarantees null will
- * never be used for key or value.
+ * never be used for key or value. If it is a ConcurrentMap, each class is only generated once no matter how many
+ * threads need it at the same time, and a pool of Compilers is used so different classes compile in parallel.
+ * <p>
+ * When used from QueryMapper with SQL text, the compiled class is also found by that SQL text and return type in the
+ * Cache, so ResultSetMetaData is only read the first time each query is run.
  *
  * @see CompilingRowToObjectMapper
  */
 public class CompilingResultSetMapper extends ResultSetMapper {
 
-	protected final Compiler compiler = new Compiler();
+	protected final ClassCompiler compiler;
 	protected final CompilingRowToObjectMapper.Cache cache;
+	private final boolean cachesBySql = overridesSqlRowMapper(getClass(), CompilingResultSetMapper.class);
 
 	public CompilingResultSetMapper(final Calendar cal, final int arrayMaxLength, final CompilingRowToObjectMapper.Cache cache) {
 		super(cal, arrayMaxLength);
 		this.cache = cache == null ? new CompilingRowToObjectMapper.Cache() : cache;
+		this.compiler = newCompiler(this.cache);
 	}
 
 	public CompilingResultSetMapper(final CompilingRowToObjectMapper.Cache cache) {
 		this.cache = cache == null ? new CompilingRowToObjectMapper.Cache() : cache;
+		this.compiler = newCompiler(this.cache);
 	}
 
 	public CompilingResultSetMapper(final int arrayMaxLength, final CompilingRowToObjectMapper.Cache cache) {
 		super(arrayMaxLength);
 		this.cache = cache == null ? new CompilingRowToObjectMapper.Cache() : cache;
+		this.compiler = newCompiler(this.cache);
 	}
 
 	public CompilingResultSetMapper() {
 		this.cache = new CompilingRowToObjectMapper.Cache();
+		this.compiler = newCompiler(this.cache);
+	}
+
+	/**
+	 * @return a CompilerPool if the cache is thread-safe, so different queries can compile in parallel, a Compiler otherwise
+	 */
+	protected static ClassCompiler newCompiler(final CompilingRowToObjectMapper.Cache cache) {
+		return cache.isThreadSafe() ? new CompilerPool() : new Compiler();
 	}
 
 	@Override
 	public <K, T> RowMapper<K, T> getRowMapper(ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType) {
-		return new CompilingRowToObjectMapper<K, T>(compiler, cache, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+		return new CompilingRowToObjectMapper<K, T>(compiler, cache, (CompilingRowToObjectMapper.ResultSetKey) null, resultSet, returnTypeClass, cal, mapValType, mapKeyType, false);
+	}
+
+	@Override
+	public boolean cachesBySql() {
+		return cachesBySql;
+	}
+
+	@Override
+	protected <K, T> RowMapper<K, T> getRowMapper(final String sql, final String schema, final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+		return new CompilingRowToObjectMapper<K, T>(compiler, cache, cache.getResultSetKey(sql, schema, resultSet, returnTypeClass, cal, mapKeyType), resultSet, returnTypeClass, cal, mapValType, mapKeyType, false);
 	}
 }
@@ -1,19 +1,42 @@
 package com.moparisthebest.jdbc;
 
+import com.moparisthebest.classgen.ClassCompiler;
 import com.moparisthebest.classgen.Compiler;
+import com.moparisthebest.jdbc.util.CacheUtil;
+import com.moparisthebest.jdbc.util.SegmentedLruCache;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.Reference;
 import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import static com.moparisthebest.jdbc.TryClose.tryClose;
 
 /**
  * Map a ResultSet row to an Object. This mapper generates/compiles/executes java code to perform the mapping.
@@ -26,13 +49,18 @@ import java.util.concurrent.ConcurrentHashMap;
  * 1. Reflection can set non-public or final fields directly, direct java code cannot, so DTOs like that will result in
  * a compilation and therefore mapping error, unless the Cache sent in has allowReflection = true which will use reflection
  * for these Fields in the generated code.
+ * <p>
+ * The generated class also contains the whole row loop for collections and maps, so ResultSetMapper calls it once per
+ * ResultSet instead of once per row.
 */
-public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
+public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> implements LoopingRowMapper<K, T> {
 
 	// do not remove, used from generated classes
 	public static final String firstColumnError = "Cannot call getFirstColumn when mapKeyType is null!";
 
-	protected final Compiler compiler;
+	protected static final String className = "CompilingMapper";
+
+	protected final ClassCompiler compiler;
 	protected final ResultSetToObject<K, T> resultSetToObject;
 
 	protected String _calendarName = null;
@@ -45,10 +73,20 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 	}
 
 	public CompilingRowToObjectMapper(final Compiler compiler, final Cache cache, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType, final boolean caseInsensitiveMap) {
-		super(resultSet, returnTypeClass, cal, mapValType, mapKeyType, caseInsensitiveMap);
+		this(compiler, cache, (ResultSetKey) null, resultSet, returnTypeClass, cal, mapValType, mapKeyType, caseInsensitiveMap);
+	}
+
+	/**
+	 * @param resultSetKey already resolved for resultSet, returnTypeClass, mapKeyType, and cal, so ResultSetMetaData
+	 *                     isn't read, in which case resultSet can be null to only generate and cache the class without
+	 *                     mapping anything, null to read it from resultSet
+	 */
+	public CompilingRowToObjectMapper(final ClassCompiler compiler, final Cache cache, final ResultSetKey resultSetKey, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType, final boolean caseInsensitiveMap) {
+		super(resultSetKey == null ? null : resultSetKey.keys, resultSet, returnTypeClass, cal, mapValType, mapKeyType, caseInsensitiveMap);
 		this.compiler = compiler;
 		try {
-			final CompilingRowToObjectMapper.ResultSetKey keys = new CompilingRowToObjectMapper.ResultSetKey(super.getKeysFromResultSet(), _returnTypeClass, _mapKeyType, cal != null);
+			final CompilingRowToObjectMapper.ResultSetKey keys = resultSetKey != null ? resultSetKey :
+					new CompilingRowToObjectMapper.ResultSetKey(super.getKeysFromResultSet(), _returnTypeClass, _mapKeyType, cal != null);
 			//System.out.printf("keys: %s\n", keys);
 			@SuppressWarnings("unchecked")
 			final ResultSetToObject<K,T> resultSetToObject = (ResultSetToObject<K,T>) cache.cache.get(keys);
@@ -58,7 +96,7 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 				if(keys.hasCalendar)
 					_calendarName = "cal";
 				allowReflection = cache.allowReflection;
-				cache.cache.put(keys, this.resultSetToObject = genClass());
+				this.resultSetToObject = cache.generate(keys, this);
 				this.keys = null;
 				this._fields = null;
 				this._fieldTypes = null;
@@ -101,6 +139,62 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 		return resultSetToObject;
 	}
 
+	@Override
+	public int toCollection(final Reference<? extends Collection<? super T>> softList, final int arrayMaxLength) throws SQLException {
+		if (resultSetToObject instanceof LoopingResultSetToObject)
+			return ((LoopingResultSetToObject<K, T>) resultSetToObject).toCollection(_resultSet, _cal, softList, maxRows(arrayMaxLength));
+		// a ResultSetToObject from somewhere other than this class, map one row at a time like ResultSetMapper
+		int numRows = 0;
+		for (final int maxRows = maxRows(arrayMaxLength); numRows != maxRows && _resultSet.next(); ++numRows) {
+			final T value = resultSetToObject.toObject(_resultSet, _cal);
+			dereference(softList).add(value);
+		}
+		return numRows;
+	}
+
+	@Override
+	public int toMap(final Reference<? extends Map<? super K, ? super T>> softMap, final int arrayMaxLength) throws SQLException {
+		if (resultSetToObject instanceof LoopingResultSetToObject)
+			return ((LoopingResultSetToObject<K, T>) resultSetToObject).toMap(_resultSet, _cal, softMap, maxRows(arrayMaxLength));
+		int numRows = 0;
+		for (final int maxRows = maxRows(arrayMaxLength); numRows != maxRows && _resultSet.next(); ++numRows) {
+			final K key = resultSetToObject.getFirstColumn(_resultSet, _cal);
+			final T value = resultSetToObject.toObject(_resultSet, _cal);
+			dereference(softMap).put(key, value);
+		}
+		return numRows;
+	}
+
+	@Override
+	public <E extends Collection<? super T>> int toMapCollection(final Reference<? extends Map<? super K, E>> softMap, final Class<E> collectionType, final int arrayMaxLength) throws SQLException {
+		if (resultSetToObject instanceof LoopingResultSetToObject)
+			return ((LoopingResultSetToObject<K, T>) resultSetToObject).toMapCollection(_resultSet, _cal, softMap, collectionType, maxRows(arrayMaxLength));
+		int numRows = 0;
+		for (final int maxRows = maxRows(arrayMaxLength); numRows != maxRows && _resultSet.next(); ++numRows) {
+			final K key = resultSetToObject.getFirstColumn(_resultSet, _cal);
+			final T value = resultSetToObject.toObject(_resultSet, _cal);
+			final Map<? super K, E> map = dereference(softMap);
+			E list = map.get(key);
+			if (list == null) {
+				list = ResultSetMapper.instantiateClass(collectionType, ArrayList.class);
+				map.put(key, list);
+			}
+			list.add(value);
+		}
+		return numRows;
+	}
+
+	/**
+	 * @return the referent of ref
+	 * @throws OutOfMemoryError if it has been cleared
+	 */
+	public static <E> E dereference(final Reference<? extends E> ref) {
+		final E ret = ref.get();
+		if (ret == null)
+			throw new OutOfMemoryError();
+		return ret;
+	}
+
 	@Override
 	protected String[] getKeysFromResultSet() throws SQLException {
 		if (keys == null)
@@ -113,20 +207,79 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 		throw new MapperException("not supported here");
 	}
 
+	/**
+	 * getFieldMappings() isn't supported here, but code generation still needs the reflective mappings to generate from
+	 */
+	protected void loadFieldMappings() throws SQLException {
+		super.getFieldMappings();
+	}
+
+	/**
+	 * @return arrayMaxLength as the generated loops expect it, -1 for all rows
+	 */
+	protected static int maxRows(final int arrayMaxLength) {
+		return arrayMaxLength < 1 ? -1 : arrayMaxLength;
+	}
+
 	public interface ResultSetToObject<K, T> extends com.moparisthebest.jdbc.util.ResultSetToObject<T> {
 		K getFirstColumn(final ResultSet rs, final Calendar cal) throws SQLException;
 		T toObject(final ResultSet rs, final Calendar cal) throws SQLException;
 	}
 
+	/**
+	 * Implemented by every generated class, the loop methods are generated into each instead of inherited from a shared
+	 * base class, so each has its own call sites for toObject, add and put, which the JIT sees as monomorphic and
+	 * inlines, see LoopingRowMapper.
+	 * <p>
+	 * Unlike LoopingRowMapper, arrayMaxLength must be -1 for all rows here, which keeps the generated loops simple.
+	 */
+	public interface LoopingResultSetToObject<K, T> extends ResultSetToObject<K, T> {
+		int toCollection(final ResultSet rs, final Calendar cal, final Reference<? extends Collection<? super T>> softList, final int arrayMaxLength) throws SQLException;
+		int toMap(final ResultSet rs, final Calendar cal, final Reference<? extends Map<? super K, ? super T>> softMap, final int arrayMaxLength) throws SQLException;
+		<E extends Collection<? super T>> int toMapCollection(final ResultSet rs, final Calendar cal, final Reference<? extends Map<? super K, E>> softMap, final Class<E> collectionType, final int arrayMaxLength) throws SQLException;
+	}
+
 	public static class Cache {
+		/**
+		 * bump this whenever the generated code changes, so classes stored by older versions aren't used
+		 */
+		protected static final int STORE_VERSION = 3;
+		/**
+		 * changes whenever this library does, so classes generated by a different version aren't used
+		 */
+		protected static final String LIBRARY_VERSION = libraryVersion();
+
 		private final Map<CompilingRowToObjectMapper.ResultSetKey, ResultSetToObject<?,?>> cache;
 		private final boolean allowReflection;
+		private final File directory;
+		// ResultSetKeys by SQL text, first level cache for the ResultSetMappers using this
+		private final Map<ResultSetMapper.SqlKey, ResultSetKey> sqlCache;
+		// only non-null if cache is a ConcurrentMap
+		private final ConcurrentMap<CompilingRowToObjectMapper.ResultSetKey, FutureTask<ResultSetToObject<?,?>>> inFlight;
 
-		public Cache(final Map<ResultSetKey, ResultSetToObject<?, ?>> cache, final boolean allowReflection) {
+		/**
+		 * If cache is a ConcurrentMap, generation is single-flight, only one thread generates the class for a given key,
+		 * other threads needing the same key at the same time wait for and use that result.
+		 *
+		 * @param cache           in-memory cache
+		 * @param allowReflection whether to use reflection in generated code to set non-public or final fields
+		 * @param directory       optional directory to store compiled classes in, they are loaded from here without
+		 *                        compiling on later runs, as long as the DTO and query still look exactly the same
+		 */
+		public Cache(final Map<ResultSetKey, ResultSetToObject<?, ?>> cache, final boolean allowReflection, final File directory) {
 			if(cache == null)
 				throw new NullPointerException("cache cannot be null");
 			this.cache = cache;
 			this.allowReflection = allowReflection;
+			this.directory = directory;
+			this.sqlCache = ResultSetMapper.<ResultSetKey>newSqlCache(cache);
+			this.inFlight = cache instanceof ConcurrentMap ? new ConcurrentHashMap<CompilingRowToObjectMapper.ResultSetKey, FutureTask<ResultSetToObject<?,?>>>() : null;
+			if(directory != null && !directory.isDirectory() && !directory.mkdirs())
+				throw new MapperException("cannot create directory " + directory);
+		}
+
+		public Cache(final Map<ResultSetKey, ResultSetToObject<?, ?>> cache, final boolean allowReflection) {
+			this(cache, allowReflection, null);
 		}
 
 		public Cache(final Map<ResultSetKey, ResultSetToObject<?, ?>> cache) {
@@ -140,6 +293,235 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 		public Cache(final boolean allowReflection) {
 			this(new HashMap<CompilingRowToObjectMapper.ResultSetKey, ResultSetToObject<?,?>>(), allowReflection);
 		}
+
+		/**
+		 * Bounded, thread-safe cache, evicted classes are no longer referenced and can be unloaded
+		 *
+		 * @param maxEntries      max compiled classes to keep, < 1 means unbounded
+		 * @param allowReflection whether to use reflection in generated code to set non-public or final fields
+		 * @see SegmentedLruCache for hit rate and eviction stats, from getMap()
+		 */
+		public Cache(final int maxEntries, final boolean allowReflection) {
+			this(CacheUtil.<ResultSetKey, ResultSetToObject<?, ?>>getSegmentedCache(maxEntries), allowReflection);
+		}
+
+		/**
+		 * @return the underlying Map, a SegmentedLruCache if this was created with maxEntries
+		 */
+		public Map<ResultSetKey, ResultSetToObject<?, ?>> getMap() {
+			return cache;
+		}
+
+		ResultSetToObject<?, ?> get(final ResultSetKey key) {
+			return cache.get(key);
+		}
+
+		/**
+		 * @return the ResultSetKey resultSet was mapped with the last time sql was, or read from its ResultSetMetaData
+		 * and remembered for next time if sql hasn't been seen yet
+		 */
+		ResultSetKey getResultSetKey(final String sql, final String schema, final ResultSet resultSet, final Class<?> returnTypeClass, final Calendar cal, final Class<?> mapKeyType) {
+			final ResultSetMapper.SqlKey sqlKey = new ResultSetMapper.SqlKey(sql, schema, returnTypeClass, mapKeyType, cal != null);
+			ResultSetKey ret = sqlCache.get(sqlKey);
+			if (ret == null) {
+				try {
+					ret = new ResultSetKey(AbstractRowMapper.getKeysFromResultSet(resultSet), getMappedReturnType(returnTypeClass, false), mapKeyType, cal != null);
+				} catch (SQLException e) {
+					throw new MapperException("CompilingRowToObjectMapper: SQLException: " + e.getMessage(), e);
+				}
+				sqlCache.put(sqlKey, ret);
+			}
+			return ret;
+		}
+
+		/**
+		 * @return true if the underlying Map is a ConcurrentMap, which also means generation is single-flight
+		 */
+		public boolean isThreadSafe() {
+			return inFlight != null;
+		}
+
+		@SuppressWarnings("unchecked")
+		protected <K, T> ResultSetToObject<K, T> generate(final ResultSetKey key, final CompilingRowToObjectMapper<K, T> mapper) throws IOException {
+			if (inFlight == null) {
+				final ResultSetToObject<K, T> ret = mapper.generate(key, this);
+				cache.put(key, ret);
+				return ret;
+			}
+			final FutureTask<ResultSetToObject<?, ?>> task = new FutureTask<ResultSetToObject<?, ?>>(new Callable<ResultSetToObject<?, ?>>() {
+				@Override
+				public ResultSetToObject<?, ?> call() throws IOException {
+					return mapper.generate(key, Cache.this);
+				}
+			});
+			final FutureTask<ResultSetToObject<?, ?>> flight = inFlight.putIfAbsent(key, task);
+			if (flight != null)
+				return (ResultSetToObject<K, T>) getResult(flight);
+			try {
+				// another thread may have finished and left between our cache miss and putIfAbsent
+				ResultSetToObject<?, ?> ret = cache.get(key);
+				if (ret == null) {
+					task.run();
+					ret = getResult(task);
+					// must be in cache before leaving inFlight
+					cache.put(key, ret);
+				}
+				return (ResultSetToObject<K, T>) ret;
+			} finally {
+				inFlight.remove(key, task);
+			}
+		}
+
+		private static ResultSetToObject<?, ?> getResult(final FutureTask<ResultSetToObject<?, ?>> task) throws IOException {
+			try {
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MapperException("interrupted waiting for mapper to be generated by another thread", e);
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new MapperException(cause.getMessage(), cause);
+			}
+		}
+
+		/**
+		 * @return the Implementation-Version of the jar this was loaded from, or if it isn't a release, where it was
+		 * loaded from and when that was last modified
+		 */
+		private static String libraryVersion() {
+			final Package p = CompilingRowToObjectMapper.class.getPackage();
+			final String version = p == null ? null : p.getImplementationVersion();
+			if (version != null && !version.endsWith("-SNAPSHOT"))
+				return version;
+			try {
+				final File location = new File(CompilingRowToObjectMapper.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+				final File file = location.isDirectory() ? new File(location, CompilingRowToObjectMapper.class.getName().replace('.', '/') + ".class") : location;
+				return version + ' ' + location + ' ' + file.lastModified();
+			} catch (Throwable e) {
+				// no code source, or not a file, all we have is the version
+				return String.valueOf(version);
+			}
+		}
+
+		/**
+		 * @return the library version that goes into fileName, LIBRARY_VERSION
+		 */
+		protected String getLibraryVersion() {
+			return LIBRARY_VERSION;
+		}
+
+		/**
+		 * @return a file name unique to everything the generated code depends on, which changes if any of it does
+		 */
+		protected String fileName(final ResultSetKey key, final Class<?> componentType) {
+			final StringBuilder sb = new StringBuilder();
+			sb.append(STORE_VERSION).append('\n')
+					.append(getLibraryVersion()).append('\n')
+					.append(System.getProperty("java.class.version")).append('\n')
+					.append(allowReflection).append('\n')
+					.append(key.hasCalendar).append('\n')
+					.append(Arrays.toString(key.keys)).append('\n');
+			fingerprint(sb, key.returnTypeClass);
+			fingerprint(sb, key.mapKeyType);
+			fingerprint(sb, componentType);
+			try {
+				final byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes("UTF-8"));
+				final StringBuilder ret = new StringBuilder(digest.length * 2 + 6);
+				for (final byte b : digest)
+					ret.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+				return ret.append(".class").toString();
+			} catch (Exception e) {
+				throw new MapperException("should never happen, SHA-256 and UTF-8 are required to exist", e);
+			}
+		}
+
+		/**
+		 * Describe the structure of clazz and it's super classes, JDK classes are only described by name
+		 */
+		protected static void fingerprint(final StringBuilder sb, Class<?> clazz) {
+			if(clazz == null) {
+				sb.append("null\n");
+				return;
+			}
+			sb.append(clazz.getName()).append('\n');
+			while (clazz.isArray())
+				clazz = clazz.getComponentType();
+			if(clazz.getClassLoader() == null)
+				return;
+			for (; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+				sb.append(clazz.getName()).append(' ').append(clazz.getModifiers()).append('\n');
+				final List<String> members = new ArrayList<String>();
+				for (final Field f : clazz.getDeclaredFields())
+					members.add(f.toString());
+				for (final Method m : clazz.getDeclaredMethods())
+					members.add(m.toString());
+				for (final Constructor<?> c : clazz.getDeclaredConstructors()) {
+					//IFJAVA8_START
+					// parameter names decide constructor mapping
+					for (final java.lang.reflect.Parameter p : c.getParameters())
+						members.add(c.toString() + ' ' + p.getName());
+					//IFJAVA8_END
+					members.add(c.toString());
+				}
+				Collections.sort(members);
+				for (final String member : members)
+					sb.append(member).append('\n');
+			}
+		}
+
+		protected byte[] read(final String fileName) {
+			final File file = new File(directory, fileName);
+			if(!file.isFile())
+				return null;
+			InputStream is = null;
+			try {
+				is = new FileInputStream(file);
+				final ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+				final byte[] buf = new byte[4096];
+				for (int read; (read = is.read(buf)) != -1; )
+					bytes.write(buf, 0, read);
+				return bytes.toByteArray();
+			} catch (IOException e) {
+				return null;
+			} finally {
+				tryClose(is);
+			}
+		}
+
+		/**
+		 * Writes to a temp file and renames it into place, so other threads or JVMs sharing the directory never see
+		 * a partially written class, failing to write is ignored, it will just be compiled again next time
+		 */
+		protected void write(final String fileName, final byte[] bytes) {
+			File temp = null;
+			OutputStream os = null;
+			try {
+				temp = File.createTempFile(fileName, ".tmp", directory);
+				os = new FileOutputStream(temp);
+				os.write(bytes);
+				os.close();
+				os = null;
+				final File file = new File(directory, fileName);
+				if (temp.renameTo(file) || (file.delete() && temp.renameTo(file)))
+					temp = null;
+			} catch (IOException e) {
+				// ignore, see above
+			} finally {
+				tryClose(os);
+				if (temp != null)
+					temp.delete();
+			}
+		}
+
+		protected void delete(final String fileName) {
+			new File(directory, fileName).delete();
+		}
 	}
 
 	protected String typeFromName(final Class<?> type) {
@@ -192,19 +574,45 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 		return '"' + s + '"';
 	}
 
+	/**
+	 * Generate the class for keys, without checking or putting into cache
+	 */
+	protected ResultSetToObject<K, T> generate(final ResultSetKey keys, final Cache cache) throws IOException {
+		return cache.directory == null ? genClass() : loadOrGenClass(keys, cache);
+	}
+
+	/**
+	 * Load the generated class from the Cache's directory if it was stored there before and nothing it depends on has
+	 * changed, otherwise generate it, and compile and store it there
+	 */
+	protected ResultSetToObject<K, T> loadOrGenClass(final ResultSetKey keys, final Cache cache) throws IOException {
+		final String fileName = cache.fileName(keys, componentType);
+		final byte[] stored = cache.read(fileName);
+		if (stored != null)
+			try {
+				return compiler.instantiate(className, stored);
+			} catch (Throwable e) {
+				// unreadable or stale in some way we couldn't detect, regenerate
+				cache.delete(fileName);
+			}
+		final byte[] bytes = compiler.compileToBytes(className, genJava());
+		cache.write(fileName, bytes);
+		return compiler.instantiate(className, bytes);
+	}
+
 	// code generation down here
 	protected ResultSetToObject<K, T> genClass() throws IOException {
-		final String className = "CompilingMapper";
+		return compiler.compile(className, genJava());
+	}
+
+	protected String genJava() throws IOException {
 		final String tType = typeFromName(_returnTypeClass);
 		final String kType = typeFromName(_mapKeyType);
 		final String header =
 				"import static com.moparisthebest.jdbc.util.ResultSetUtil.*;\n\n" +
 						"public final class " + className +
-						" implements com.moparisthebest.jdbc.CompilingRowToObjectMapper.ResultSetToObject<"+ kType +"," + tType + "> {\n" +
+						" implements com.moparisthebest.jdbc.CompilingRowToObjectMapper.LoopingResultSetToObject<"+ kType +"," + tType + "> {\n" +
 						"  public " + tType + " toObject(final java.sql.ResultSet rs, final java.util.Calendar cal) throws java.sql.SQLException {\n";
-		final String footer = ";\n  }\n" +
-				"}\n";
-
 		final StringBuilder java = new StringBuilder(header);
 		//java.append("return null;\n");
 		gen(java, tType);
@@ -217,12 +625,13 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 		} else {
 			java.append("throw new com.moparisthebest.jdbc.MapperException(com.moparisthebest.jdbc.CompilingRowToObjectMapper.firstColumnError)");
 		}
+		java.append(";\n  }\n\n");
+		genLoops(java, kType, tType);
 
 		if(reflectionFieldIndex == -1) {
-			java.append(footer);
+			java.append("}\n");
 		} else {
 			// otherwise we have a reflection field array to set up...
-			java.append(";\n  }\n\n");
 			java.append("private static final java.lang.reflect.Field[] _fields = new java.lang.reflect.Field[]{\n");
 			for(final AccessibleObject ao : _fields)
 				if(ao instanceof ReflectionAccessibleObject) {
@@ -234,7 +643,48 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 			java.append("};\n}\n");
 		}
 		//System.out.println(java);
-		return compiler.compile(className, java);
+		return java.toString();
+	}
+
+	/**
+	 * Generate toCollection, toMap, and toMapCollection, which call this class's toObject and getFirstColumn directly,
+	 * the container is only held while a row is added to it, so its SoftReference can still be cleared between rows
+	 */
+	protected void genLoops(final Appendable java, final String kType, final String tType) throws IOException {
+		final String loop = "    int numRows = 0;\n" +
+				"    for (; numRows != arrayMaxLength && rs.next(); ++numRows) {\n";
+		final String footer = "    }\n    return numRows;\n  }\n\n";
+		final String dereference = "com.moparisthebest.jdbc.CompilingRowToObjectMapper.dereference(";
+
+		java.append("  public int toCollection(final java.sql.ResultSet rs, final java.util.Calendar cal, final java.lang.ref.Reference<? extends java.util.Collection<? super ")
+				.append(tType).append(">> softList, final int arrayMaxLength) throws java.sql.SQLException {\n")
+				.append(loop)
+				.append("      final ").append(tType).append(" value = toObject(rs, cal);\n")
+				.append("      ").append(dereference).append("softList).add(value);\n")
+				.append(footer);
+
+		java.append("  public int toMap(final java.sql.ResultSet rs, final java.util.Calendar cal, final java.lang.ref.Reference<? extends java.util.Map<? super ")
+				.append(kType).append(", ? super ").append(tType).append(">> softMap, final int arrayMaxLength) throws java.sql.SQLException {\n")
+				.append(loop)
+				.append("      final ").append(kType).append(" key = getFirstColumn(rs, cal);\n")
+				.append("      final ").append(tType).append(" value = toObject(rs, cal);\n")
+				.append("      ").append(dereference).append("softMap).put(key, value);\n")
+				.append(footer);
+
+		java.append("  public <E extends java.util.Collection<? super ").append(tType)
+				.append(">> int toMapCollection(final java.sql.ResultSet rs, final java.util.Calendar cal, final java.lang.ref.Reference<? extends java.util.Map<? super ")
+				.append(kType).append(", E>> softMap, final Class<E> collectionType, final int arrayMaxLength) throws java.sql.SQLException {\n")
+				.append(loop)
+				.append("      final ").append(kType).append(" key = getFirstColumn(rs, cal);\n")
+				.append("      final ").append(tType).append(" value = toObject(rs, cal);\n")
+				.append("      final java.util.Map<? super ").append(kType).append(", E> map = ").append(dereference).append("softMap);\n")
+				.append("      E list = map.get(key);\n")
+				.append("      if (list == null) {\n")
+				.append("        list = com.moparisthebest.jdbc.ResultSetMapper.instantiateClass(collectionType, java.util.ArrayList.class);\n")
+				.append("        map.put(key, list);\n")
+				.append("      }\n")
+				.append("      list.add(value);\n")
+				.append(footer);
 	}
 
 	public void gen(final Appendable java, final String tType) throws IOException {
@@ -336,7 +786,7 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 
 		if (_fields == null) {
 			try {
-				super.getFieldMappings();
+				loadFieldMappings();
 			} catch (SQLException e) {
 				throw new MapperException(e.getMessage(), e);
 			}
@@ -405,8 +855,8 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 		}
 
 		@Override
-		public int hashCode() {
-			int result = super.hashCode();
+		protected int computeHashCode() {
+			int result = super.computeHashCode();
 			result = 31 * result + (hasCalendar ? 1 : 0);
 			return result;
 		}
@@ -446,7 +896,7 @@ public class CompilingRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
 				java.append(resultSetName).append(".getByte(").append(String.valueOf(index)).append(")");
 				return;
 			case TypeMappingsFactory.TYPE_SHORT:
-				java.append(resultSetName).append(".getInt(").append(String.valueOf(index)).append(")");
+				java.append(resultSetName).append(".getShort(").append(String.valueOf(index)).append(")");
 				return;
 			case TypeMappingsFactory.TYPE_BOOLEAN:
 				java.append("com.moparisthebest.jdbc.util.ResultSetUtil.getBooleanYN(").append(resultSetName).append(", ").append(String.valueOf(index)).append(")");
@@ -0,0 +1,259 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.classgen.ClassDefiner;
+import com.moparisthebest.classgen.ClassFile;
+import com.moparisthebest.jdbc.util.CacheUtil;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Binds the properties of a dto to {name} parameters in SQL, used by QueryMapper.executeUpdateDto.
+ * <p>
+ * name must be a java identifier, anything else in braces, like JDBC escapes, and anything inside quotes is left as-is.
+ * <p>
+ * The plan for each SQL text and dto class, which is the SQL with ? in place of every {name} and the getter or field
+ * to read for each, is worked out with reflection once and cached, along with a PropertyReader generated as bytecode
+ * that calls those getters and reads those fields directly, so each call afterwards only reads the values. Getters
+ * and fields generated code can't reach, anything non-public, are still read with reflection.
+ * <p>
+ * Names are compared case-insensitively to public getters, then to fields of the class or its super classes, and if
+ * nothing matches they are stripped of '_' and compared again, much like RowToObjectMapper maps columns to setters and
+ * fields.
+ */
+public class DtoBinder {
+
+	public static final int defaultMaxEntries = Integer.parseInt(System.getProperty("QueryMapper.DtoBinder.maxEntries", "512"));
+
+	protected static final String className = "DtoBinderReader";
+	protected static final String reflectionPropertiesName = "_properties";
+
+	// local variable slots in the generated read method
+	protected static final int THIS = 0, DTO = 1, RET = 2, CAST_DTO = 3;
+
+	/**
+	 * a {name} where name is a java identifier, or a quoted literal or identifier, which is skipped so braces inside it
+	 * are left alone, as are JDBC escapes like {fn ...} and {ts '...'} since they aren't a lone identifier
+	 */
+	private static final Pattern paramPattern = Pattern.compile("'(?:[^']|'')*'|\"[^\"]*\"|\\{([A-Za-z_$][\\w$]*)\\}");
+
+	private static final Map<Key, DtoBinder> cache = CacheUtil.getSegmentedCache(defaultMaxEntries);
+
+	/**
+	 * @return the cached DtoBinder for sql and dtoClass, created if this is the first time they are seen
+	 */
+	public static DtoBinder getDtoBinder(final String sql, final Class<?> dtoClass) {
+		final Key key = new Key(sql, dtoClass);
+		DtoBinder ret = cache.get(key);
+		if (ret == null) {
+			ret = new DtoBinder(sql, dtoClass);
+			cache.put(key, ret);
+		}
+		return ret;
+	}
+
+	protected final String sql;
+	protected final Class<?> dtoClass;
+	protected final AccessibleObject[] properties;
+	protected final PropertyReader reader;
+
+	public DtoBinder(final String sql, final Class<?> dtoClass) {
+		this.dtoClass = dtoClass;
+		final Map<String, Method> getters = new HashMap<String, Method>();
+		for (final Method m : dtoClass.getMethods()) {
+			if (Modifier.isStatic(m.getModifiers()) || m.getParameterTypes().length != 0 || m.getDeclaringClass() == Object.class)
+				continue;
+			final String name = m.getName();
+			if (name.length() > 3 && name.startsWith("get") && m.getReturnType() != void.class)
+				getters.put(name.substring(3).toUpperCase(), m);
+			else if (name.length() > 2 && name.startsWith("is") && (m.getReturnType() == boolean.class || m.getReturnType() == Boolean.class))
+				getters.put(name.substring(2).toUpperCase(), m);
+		}
+		final Map<String, Field> fields = new HashMap<String, Field>();
+		for (Class<?> clazz = dtoClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass())
+			for (final Field f : clazz.getDeclaredFields()) {
+				final String name = f.getName().toUpperCase();
+				// sub-classes hide super-class fields of the same name
+				if (!Modifier.isStatic(f.getModifiers()) && !fields.containsKey(name))
+					fields.put(name, f);
+			}
+
+		final List<AccessibleObject> properties = new ArrayList<AccessibleObject>();
+		final Matcher matcher = paramPattern.matcher(sql);
+		final StringBuffer sb = new StringBuffer(sql.length());
+		while (matcher.find()) {
+			if (matcher.group(1) == null) {
+				// quoted, keep it
+				matcher.appendReplacement(sb, Matcher.quoteReplacement(matcher.group()));
+				continue;
+			}
+			final String name = matcher.group(1).toUpperCase();
+			final String strippedName = name.replace("_", "");
+			AccessibleObject property = getters.get(name);
+			if (property == null)
+				property = fields.get(name);
+			if (property == null)
+				property = getters.get(strippedName);
+			if (property == null)
+				property = fields.get(strippedName);
+			if (property == null)
+				throw new MapperException("Unable to map the SQL parameter '" + matcher.group() + "' to a getter or field on the '"
+						+ dtoClass.getName() + "' class. Mapping is done using a case insensitive comparison of parameter names "
+						+ "to public getter methods and field names on the class. Parameters are also stripped of '_' and "
+						+ "compared if no match is found with them.");
+			// public getters of non-public classes need this too
+			property.setAccessible(true);
+			properties.add(property);
+			matcher.appendReplacement(sb, "?");
+		}
+		matcher.appendTail(sb);
+		this.sql = sb.toString();
+		this.properties = properties.toArray(new AccessibleObject[properties.size()]);
+		this.reader = genReader();
+	}
+
+	/**
+	 * Reads the value of each {name} out of a dto, in order
+	 */
+	public interface PropertyReader {
+		Object[] read(Object dto);
+	}
+
+	/**
+	 * @return true if generated code can read property directly instead of through reflection
+	 */
+	protected boolean isAccessible(final AccessibleObject property) {
+		return Modifier.isPublic(dtoClass.getModifiers()) && Modifier.isPublic(((Member) property).getModifiers());
+	}
+
+	/**
+	 * @return the class the generated class will be defined next to, it must be able to see dtoClass
+	 */
+	protected Class<?> getHostClass() {
+		return dtoClass.getClassLoader() == null ? DtoBinder.class : dtoClass;
+	}
+
+	protected PropertyReader genReader() {
+		final Class<?> host = getHostClass();
+		final String internalName = ClassDefiner.className(host, className);
+		final ClassFile cf = new ClassFile(internalName, PropertyReader.class);
+
+		final ClassFile.Code read = cf.method(ClassFile.ACC_PUBLIC, "read", ClassFile.methodDescriptor(Object[].class, Object.class));
+		read.push(properties.length).newArray(Object.class).astore(RET);
+		// only cast when something is read directly, a non-public dtoClass may not be visible to the generated class
+		for (final AccessibleObject property : properties)
+			if (isAccessible(property)) {
+				read.aload(DTO).checkcast(dtoClass).astore(CAST_DTO);
+				break;
+			}
+		final Method readProperty;
+		try {
+			readProperty = DtoBinder.class.getMethod("readProperty", AccessibleObject.class, Object.class);
+		} catch (NoSuchMethodException e) {
+			throw new MapperException("internal error: no method readProperty on " + DtoBinder.class.getName(), e);
+		}
+		boolean reflection = false;
+		for (int i = 0; i < properties.length; ++i) {
+			final AccessibleObject property = properties[i];
+			read.aload(RET).push(i);
+			if (!isAccessible(property)) {
+				reflection = true;
+				read.aload(THIS).getField(internalName, reflectionPropertiesName, AccessibleObject[].class)
+						.push(i).arrayLoad().aload(DTO).invoke(readProperty);
+			} else if (property instanceof Field) {
+				final Field field = (Field) property;
+				read.aload(CAST_DTO).getField(ClassFile.internalName(dtoClass), field.getName(), field.getType())
+						.convert(field.getType(), Object.class);
+			} else {
+				final Method method = (Method) property;
+				read.aload(CAST_DTO).invoke(dtoClass, method).convert(method.getReturnType(), Object.class);
+			}
+			read.arrayStore(Object.class);
+		}
+		read.aload(RET).returnValue(Object[].class);
+
+		if (reflection) {
+			cf.field(ClassFile.ACC_PRIVATE | ClassFile.ACC_FINAL, reflectionPropertiesName, ClassFile.descriptor(AccessibleObject[].class));
+			cf.method(ClassFile.ACC_PUBLIC, "<init>", ClassFile.methodDescriptor(void.class, AccessibleObject[].class))
+					.aload(THIS).invokeSpecial("java/lang/Object", "<init>")
+					.aload(THIS).aload(1).putField(internalName, reflectionPropertiesName, AccessibleObject[].class)
+					.returnValue(void.class);
+		} else {
+			cf.method(ClassFile.ACC_PUBLIC, "<init>", "()V")
+					.aload(THIS).invokeSpecial("java/lang/Object", "<init>").returnValue(void.class);
+		}
+
+		final Class<?> clazz = ClassDefiner.define(host, internalName, cf.toByteArray());
+		try {
+			return (PropertyReader) (reflection ?
+					clazz.getConstructor(AccessibleObject[].class).newInstance((Object) properties) :
+					clazz.getDeclaredConstructor().newInstance());
+		} catch (Exception e) {
+			throw new MapperException("Error instantiating generated class " + internalName, e);
+		}
+	}
+
+	/**
+	 * Called by generated PropertyReaders for properties they can't read directly
+	 *
+	 * @return the value of property, a Field or getter Method, on dto
+	 */
+	public static Object readProperty(final AccessibleObject property, final Object dto) {
+		try {
+			return property instanceof Field ? ((Field) property).get(dto) : ((Method) property).invoke(dto);
+		} catch (IllegalAccessException e) {
+			throw new MapperException("IllegalAccessException when trying to access " + property, e);
+		} catch (InvocationTargetException e) {
+			throw new MapperException("InvocationTargetException when trying to access method " + ((Method) property).getName(), e);
+		}
+	}
+
+	/**
+	 * @return sql with every {name} replaced with ?
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * @return the value of each {name} read from dto, in order, to bind to getSql()
+	 */
+	public Object[] getBindObjects(final Object dto) {
+		if (!dtoClass.isInstance(dto))
+			throw new MapperException("dto must be an instance of " + dtoClass.getName());
+		return reader.read(dto);
+	}
+
+	protected static final class Key {
+		private final String sql;
+		private final Class<?> dtoClass;
+
+		Key(final String sql, final Class<?> dtoClass) {
+			this.sql = sql;
+			this.dtoClass = dtoClass;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			final Key key = (Key) o;
+			return dtoClass == key.dtoClass && sql.equals(key.sql);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * sql.hashCode() + dtoClass.hashCode();
+		}
+	}
+}
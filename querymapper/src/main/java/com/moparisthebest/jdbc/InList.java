@@ -35,16 +35,56 @@ public interface InList {
 	 */
 	public <T> InListObject notInList(final Connection conn, final String columnName, final Collection<T> values) throws SQLException;
 
+	interface ExecutionObserver {
+		void executed(long nanos);
+
+		/**
+		 * binding or executing a statement bound with it threw
+		 */
+		void failed();
+	}
+
 	class InListObject {
 		static final InListObject inEmpty = new InListObject(InListUtil.inEmpty);
 		static final InListObject notInEmpty = new InListObject(InListUtil.notInEmpty);
 
 		private final String sql;
 
+		/**
+		 * if set, told how long each statement bound with this took to execute, or that it failed, by QueryMapper
+		 */
+		volatile ExecutionObserver observer;
+
 		public InListObject(final String sql) {
 			this.sql = sql;
 		}
 
+		static boolean isObserved(final Object... bindObjects) {
+			if (bindObjects != null)
+				for (final Object o : bindObjects)
+					if (o instanceof InListObject && ((InListObject) o).observer != null)
+						return true;
+			return false;
+		}
+
+		static void executed(final long nanos, final Object... bindObjects) {
+			for (final Object o : bindObjects)
+				if (o instanceof InListObject) {
+					final ExecutionObserver observer = ((InListObject) o).observer;
+					if (observer != null)
+						observer.executed(nanos);
+				}
+		}
+
+		static void failed(final Object... bindObjects) {
+			for (final Object o : bindObjects)
+				if (o instanceof InListObject) {
+					final ExecutionObserver observer = ((InListObject) o).observer;
+					if (observer != null)
+						observer.failed();
+				}
+		}
+
 		@Override
 		public final String toString() {
 			return sql;
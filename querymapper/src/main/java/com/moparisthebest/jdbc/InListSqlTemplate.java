@@ -0,0 +1,127 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.util.CacheUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL split once around each {inList} into the literal text between them, so ListQueryMapper only has to find the
+ * InListObjects in the bind objects and join the pieces back together in one pass, instead of searching the SQL and
+ * shifting it around once per {inList} on every call.
+ * <p>
+ * The InListObjects fill the {inList}s in the order they are found in the bind objects, recursing into Object[] and
+ * Collection like QueryMapper binds them. Any left over are not used, any {inList} without one is left as-is.
+ */
+public class InListSqlTemplate {
+
+	public static final int defaultMaxEntries = Integer.parseInt(System.getProperty("QueryMapper.InListSqlTemplate.maxEntries", "512"));
+
+	/**
+	 * looked up on every call with an {inList}, so segmented to keep threads from all waiting on one lock
+	 */
+	private static final Map<String, InListSqlTemplate> cache = CacheUtil.getSegmentedCache(defaultMaxEntries);
+
+	/**
+	 * @return the cached InListSqlTemplate for sql, created if this is the first time it is seen, sql without any
+	 * {inList} is never cached so it can't push out sql that has them
+	 */
+	public static InListSqlTemplate getTemplate(final String sql) {
+		InListSqlTemplate ret = cache.get(sql);
+		if (ret == null) {
+			ret = new InListSqlTemplate(sql);
+			if (ret.getSlotCount() > 0)
+				cache.put(sql, ret);
+		}
+		return ret;
+	}
+
+	protected final String sql;
+	/**
+	 * literal text around each {inList}, always one more than there are {inList}s
+	 */
+	protected final String[] segments;
+	protected final int literalLength;
+
+	public InListSqlTemplate(final String sql) {
+		this.sql = sql;
+		final List<String> segments = new ArrayList<String>();
+		int literalLength = 0, start = 0;
+		for (int index; (index = sql.indexOf(ListQueryMapper.inListReplace, start)) != -1; start = index + ListQueryMapper.inListReplace.length()) {
+			segments.add(sql.substring(start, index));
+			literalLength += index - start;
+		}
+		segments.add(sql.substring(start));
+		literalLength += sql.length() - start;
+		this.segments = segments.toArray(new String[segments.size()]);
+		this.literalLength = literalLength;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * @return number of {inList}s in sql
+	 */
+	public int getSlotCount() {
+		return segments.length - 1;
+	}
+
+	/**
+	 * @return sql with each {inList} replaced by the next InListObject in bindObjects, or sql itself if it has none
+	 */
+	public String toSql(final Object... bindObjects) {
+		final int slotCount = segments.length - 1;
+		if (slotCount == 0)
+			return sql;
+		final String[] inLists = new String[slotCount];
+		final int found = collect(inLists, 0, bindObjects);
+		if (found == 0)
+			return sql;
+		int length = literalLength + (slotCount - found) * ListQueryMapper.inListReplace.length();
+		for (int x = 0; x < found; ++x)
+			length += inLists[x].length();
+		final StringBuilder sb = new StringBuilder(length);
+		for (int x = 0; x < slotCount; ++x)
+			sb.append(segments[x]).append(x < found ? inLists[x] : ListQueryMapper.inListReplace);
+		return sb.append(segments[slotCount]).toString();
+	}
+
+	private static int collect(final String[] inLists, int found, final Object[] bindObjects) {
+		if (bindObjects != null)
+			for (final Object o : bindObjects) {
+				if (found == inLists.length)
+					return found;
+				found = collect(inLists, found, o);
+			}
+		return found;
+	}
+
+	private static int collect(final String[] inLists, int found, final Object o) {
+		if (o == null || o == QueryMapper.noBind)
+			return found;
+		if (o instanceof InList.InListObject) {
+			inLists[found++] = o.toString();
+		} else if (o instanceof Object[]) {
+			found = collect(inLists, found, (Object[]) o);
+		} else if (o instanceof Collection) {
+			for (final Object item : (Collection<?>) o) {
+				if (found == inLists.length)
+					return found;
+				found = collect(inLists, found, item);
+			}
+		}
+		return found;
+	}
+
+	@Override
+	public String toString() {
+		return "InListSqlTemplate{" +
+				"sql='" + sql + '\'' +
+				", slotCount=" + getSlotCount() +
+				'}';
+	}
+}
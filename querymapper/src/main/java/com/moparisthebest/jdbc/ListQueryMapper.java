@@ -1,6 +1,7 @@
 package com.moparisthebest.jdbc;
 
 import com.moparisthebest.jdbc.codegen.JdbcMapper;
+import com.moparisthebest.jdbc.util.InListUtil;
 import com.moparisthebest.jdbc.util.ResultSetIterable;
 
 import java.lang.reflect.Method;
@@ -30,6 +31,8 @@ public class ListQueryMapper extends QueryMapper {
 				final String type = System.getProperty("queryMapper.databaseType", System.getProperty("jdbcMapper.databaseType", "BIND"));
 				if(type.equals("OPTIMAL")) {
 					def = OptimalInList.instance();
+				} else if(type.equals("ADAPTIVE")) {
+					def = AdaptiveInList.instance();
 				} else {
 					switch (JdbcMapper.DatabaseType.valueOf(type)) {
 						case DEFAULT:
@@ -141,6 +144,63 @@ public class ListQueryMapper extends QueryMapper {
 		return this.inList.notInList(delegate.conn, columnName, values);
 	}
 
+	public InList.InListObject inList(final String columnName, final long[] values) throws SQLException {
+		return inList(this.inList, delegate.conn, columnName, values);
+	}
+
+	public InList.InListObject notInList(final String columnName, final long[] values) throws SQLException {
+		return notInList(this.inList, delegate.conn, columnName, values);
+	}
+
+	public InList.InListObject inList(final String columnName, final int[] values) throws SQLException {
+		return inList(this.inList, delegate.conn, columnName, values);
+	}
+
+	public InList.InListObject notInList(final String columnName, final int[] values) throws SQLException {
+		return notInList(this.inList, delegate.conn, columnName, values);
+	}
+
+	public InList.InListObject inList(final String columnName, final String[] values) throws SQLException {
+		return inList(this.inList, delegate.conn, columnName, values);
+	}
+
+	public InList.InListObject notInList(final String columnName, final String[] values) throws SQLException {
+		return notInList(this.inList, delegate.conn, columnName, values);
+	}
+
+	/**
+	 * Builds from values without boxing them if inList is a PrimitiveInList, otherwise boxes them into a List
+	 */
+	public static InList.InListObject inList(final InList inList, final Connection conn, final String columnName, final long[] values) throws SQLException {
+		return inList instanceof PrimitiveInList ? ((PrimitiveInList) inList).inList(conn, columnName, values) :
+				inList.inList(conn, columnName, values == null ? null : Arrays.asList(InListUtil.box(values)));
+	}
+
+	public static InList.InListObject notInList(final InList inList, final Connection conn, final String columnName, final long[] values) throws SQLException {
+		return inList instanceof PrimitiveInList ? ((PrimitiveInList) inList).notInList(conn, columnName, values) :
+				inList.notInList(conn, columnName, values == null ? null : Arrays.asList(InListUtil.box(values)));
+	}
+
+	public static InList.InListObject inList(final InList inList, final Connection conn, final String columnName, final int[] values) throws SQLException {
+		return inList instanceof PrimitiveInList ? ((PrimitiveInList) inList).inList(conn, columnName, values) :
+				inList.inList(conn, columnName, values == null ? null : Arrays.asList(InListUtil.box(values)));
+	}
+
+	public static InList.InListObject notInList(final InList inList, final Connection conn, final String columnName, final int[] values) throws SQLException {
+		return inList instanceof PrimitiveInList ? ((PrimitiveInList) inList).notInList(conn, columnName, values) :
+				inList.notInList(conn, columnName, values == null ? null : Arrays.asList(InListUtil.box(values)));
+	}
+
+	public static InList.InListObject inList(final InList inList, final Connection conn, final String columnName, final String[] values) throws SQLException {
+		return inList instanceof PrimitiveInList ? ((PrimitiveInList) inList).inList(conn, columnName, values) :
+				inList.inList(conn, columnName, values == null ? null : Arrays.asList(values));
+	}
+
+	public static InList.InListObject notInList(final InList inList, final Connection conn, final String columnName, final String[] values) throws SQLException {
+		return inList instanceof PrimitiveInList ? ((PrimitiveInList) inList).notInList(conn, columnName, values) :
+				inList.notInList(conn, columnName, values == null ? null : Arrays.asList(values));
+	}
+
 	// these update the database
 
 	@Override
@@ -163,6 +223,16 @@ public class ListQueryMapper extends QueryMapper {
 		return delegate.insertGetGeneratedKeyType(ps, typeReference, bindObjects);
 	}
 
+	@Override
+	public long[] executeBatch(final PreparedStatement ps, final Iterable<Object[]> rows, final int batchSize) throws SQLException {
+		return delegate.executeBatch(ps, rows, batchSize);
+	}
+
+	@Override
+	public long[] executeBatchGetGeneratedKeys(final PreparedStatement ps, final Iterable<Object[]> rows, final int batchSize) throws SQLException {
+		return delegate.executeBatchGetGeneratedKeys(ps, rows, batchSize);
+	}
+
 // these update the database using UpdateableDTOs
 
 	@Override
@@ -214,6 +284,26 @@ public class ListQueryMapper extends QueryMapper {
 		return delegate.getConnection();
 	}
 
+	@Override
+	public int getFetchSize() {
+		return delegate.getFetchSize();
+	}
+
+	@Override
+	public void setFetchSize(final int fetchSize) {
+		delegate.setFetchSize(fetchSize);
+	}
+
+	@Override
+	public int getCursorFetchSize() {
+		return delegate.getCursorFetchSize();
+	}
+
+	@Override
+	public void setCursorFetchSize(final int cursorFetchSize) {
+		delegate.setCursorFetchSize(cursorFetchSize);
+	}
+
 	// these just delegate and change no functionality
 
 	@Override
@@ -253,68 +343,110 @@ public class ListQueryMapper extends QueryMapper {
 
 	// begin of ListQueryMapper specific methods
 
-	private static StringBuilder recursiveReplace(final StringBuilder sb, final Object... bindObjects) {
-		if (bindObjects != null && bindObjects.length > 0) {
-			for (Object o : bindObjects) {
-				if (o != null && o != QueryMapper.noBind) {
-					if (o instanceof InList.InListObject) {
-						final int startIndex = sb.indexOf(inListReplace);
-						if (startIndex < -1)
-							return sb; // we've replaced all, maybe an error? meh
-						sb.replace(startIndex, startIndex + inListReplace.length(), o.toString());
-					} else if (o instanceof Object[]) {
-						recursiveReplace(sb, (Object[]) o);
-					} else if (o instanceof Collection) {
-						recursiveReplace(sb, ((Collection) o).toArray());
-					}
-				}
-			}
-		}
-		return sb;
+	/**
+	 * @return sql with each {inList} replaced by the next InListObject in bindObjects, see InListSqlTemplate
+	 */
+	protected String prepareSql(final String sql, final Object... bindObjects) {
+		// most sql has no {inList}, don't spend a cache lookup or entry on it
+		if (!sql.contains(inListReplace))
+			return sql;
+		return InListSqlTemplate.getTemplate(sql).toSql(bindObjects);
 	}
 
-	protected String prepareSql(final String sql, final Object... bindObjects) {
-		return !sql.contains(inListReplace) ? sql : recursiveReplace(new StringBuilder(sql), bindObjects).toString();
+	/**
+	 * tells any observed InListObjects in bindObjects their statement failed, QueryMapper only sees failures after
+	 * it's prepared, but a bad in list is just as likely to fail preparing
+	 *
+	 * @return e, to be thrown
+	 */
+	protected static SQLException failed(final SQLException e, final Object... bindObjects) {
+		InList.InListObject.failed(bindObjects);
+		return e;
 	}
 
 	@Override
 	public int executeUpdate(final String sql, final Object... bindObjects) throws SQLException {
-		return delegate.executeUpdate(prepareSql(sql, bindObjects), bindObjects);
+		try {
+			return delegate.executeUpdate(prepareSql(sql, bindObjects), bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
 	public boolean executeUpdateSuccess(final String sql, final Object... bindObjects) throws SQLException {
-		return delegate.executeUpdateSuccess(prepareSql(sql, bindObjects), bindObjects);
+		try {
+			return delegate.executeUpdateSuccess(prepareSql(sql, bindObjects), bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
+	}
+
+	/**
+	 * Every row in a batch shares one statement, so in lists can't be expanded per row, sql is sent as-is
+	 */
+	@Override
+	public long[] executeBatch(final String sql, final Iterable<Object[]> rows, final int batchSize) throws SQLException {
+		return delegate.executeBatch(sql, rows, batchSize);
+	}
+
+	@Override
+	public long[] executeBatchGetGeneratedKeys(final String sql, final Iterable<Object[]> rows, final int batchSize) throws SQLException {
+		return delegate.executeBatchGetGeneratedKeys(sql, rows, batchSize);
 	}
 
 	@Override
 	public ResultSet toResultSet(String sql, Object... bindObjects) throws SQLException {
-		return delegate.toResultSet(prepareSql(sql, bindObjects), bindObjects);
+		try {
+			return delegate.toResultSet(prepareSql(sql, bindObjects), bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
     @Override
     public ResultSet toResultSet(String sql, int rsType, int rsConcurrency, Object... bindObjects) throws SQLException {
-        return delegate.toResultSet(prepareSql(sql, bindObjects), rsType, rsConcurrency, bindObjects);
+        try {
+        	return delegate.toResultSet(prepareSql(sql, bindObjects), rsType, rsConcurrency, bindObjects);
+        } catch (SQLException e) {
+        	throw failed(e, bindObjects);
+        }
     }
 
     @Override
 	public Long insertGetGeneratedKey(String sql, Object... bindObjects) throws SQLException {
-		return delegate.insertGetGeneratedKey(prepareSql(sql, bindObjects), bindObjects);
+		try {
+			return delegate.insertGetGeneratedKey(prepareSql(sql, bindObjects), bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
 	public <T> T insertGetGeneratedKeyType(String sql, TypeReference<T> typeReference, Object... bindObjects) throws SQLException {
-		return delegate.insertGetGeneratedKeyType(prepareSql(sql, bindObjects), typeReference, bindObjects);
+		try {
+			return delegate.insertGetGeneratedKeyType(prepareSql(sql, bindObjects), typeReference, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
 	public <T> T insertGetGeneratedKeyType(String sql, int[] columnIndexes, TypeReference<T> typeReference, Object... bindObjects) throws SQLException {
-		return delegate.insertGetGeneratedKeyType(prepareSql(sql, bindObjects), columnIndexes, typeReference, bindObjects);
+		try {
+			return delegate.insertGetGeneratedKeyType(prepareSql(sql, bindObjects), columnIndexes, typeReference, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
 	public <T> T insertGetGeneratedKeyType(String sql, String[] columnNames, TypeReference<T> typeReference, Object... bindObjects) throws SQLException {
-		return delegate.insertGetGeneratedKeyType(prepareSql(sql, bindObjects), columnNames, typeReference, bindObjects);
+		try {
+			return delegate.insertGetGeneratedKeyType(prepareSql(sql, bindObjects), columnNames, typeReference, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 // DO NOT EDIT BELOW THIS LINE, OR CHANGE THIS COMMENT, CODE AUTOMATICALLY GENERATED BY genQueryMapper.sh
@@ -326,7 +458,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T> T toObject(String sql, Class<T> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toObject(prepareSql(sql, bindObjects), componentType, bindObjects);
+		try {
+			return delegate.toObject(prepareSql(sql, bindObjects), componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -336,7 +472,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T> ResultSetIterable<T> toResultSetIterable(String sql, Class<T> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toResultSetIterable(prepareSql(sql, bindObjects), componentType, bindObjects);
+		try {
+			return delegate.toResultSetIterable(prepareSql(sql, bindObjects), componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -346,7 +486,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<String, V>, V> ResultSetIterable<Map<String, V>> toResultSetIterable(String sql, Class<T> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toResultSetIterable(prepareSql(sql, bindObjects), componentType, mapValType, bindObjects);
+		try {
+			return delegate.toResultSetIterable(prepareSql(sql, bindObjects), componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	//IFJAVA8_START
@@ -358,7 +502,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T> Stream<T> toStream(String sql, Class<T> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toStream(prepareSql(sql, bindObjects), componentType, bindObjects);
+		try {
+			return delegate.toStream(prepareSql(sql, bindObjects), componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	//IFJAVA8_END
@@ -372,7 +520,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<String, V>, V> Stream<Map<String, V>> toStream(String sql, Class<T> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toStream(prepareSql(sql, bindObjects), componentType, mapValType, bindObjects);
+		try {
+			return delegate.toStream(prepareSql(sql, bindObjects), componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	//IFJAVA8_END
@@ -384,7 +536,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<String, V>, V> Map<String, V> toSingleMap(String sql, Class<T> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toSingleMap(prepareSql(sql, bindObjects), componentType, mapValType, bindObjects);
+		try {
+			return delegate.toSingleMap(prepareSql(sql, bindObjects), componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -394,7 +550,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <V> Map<String, V> toSingleMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toSingleMap(prepareSql(sql, bindObjects), mapValType, bindObjects);
+		try {
+			return delegate.toSingleMap(prepareSql(sql, bindObjects), mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -404,7 +564,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T> T toType(String sql, TypeReference<T> typeReference, final Object... bindObjects) throws SQLException {
-		return delegate.toType(prepareSql(sql, bindObjects), typeReference, bindObjects);
+		try {
+			return delegate.toType(prepareSql(sql, bindObjects), typeReference, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -414,7 +578,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Collection<E>, E> T toCollection(String sql, final Class<T> collectionType, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toCollection(prepareSql(sql, bindObjects), collectionType, componentType, bindObjects);
+		try {
+			return delegate.toCollection(prepareSql(sql, bindObjects), collectionType, componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -424,7 +592,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Collection<E>, E> T toCollection(String sql, T list, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toCollection(prepareSql(sql, bindObjects), list, componentType, bindObjects);
+		try {
+			return delegate.toCollection(prepareSql(sql, bindObjects), list, componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -434,7 +606,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<K, E>, K, E> T toMap(String sql, T map, Class<K> mapKeyType, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toMap(prepareSql(sql, bindObjects), map, mapKeyType, componentType, bindObjects);
+		try {
+			return delegate.toMap(prepareSql(sql, bindObjects), map, mapKeyType, componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -444,7 +620,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<K, E>, K, E extends Collection<C>, C> T toMapCollection(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<E> collectionType, Class<C> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapCollection(prepareSql(sql, bindObjects), returnType, mapKeyType, collectionType, componentType, bindObjects);
+		try {
+			return delegate.toMapCollection(prepareSql(sql, bindObjects), returnType, mapKeyType, collectionType, componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -454,7 +634,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<K, E>, K, E extends Collection<C>, C> T toMapCollection(String sql, T map, Class<K> mapKeyType, Class<E> collectionType, Class<C> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapCollection(prepareSql(sql, bindObjects), map, mapKeyType, collectionType, componentType, bindObjects);
+		try {
+			return delegate.toMapCollection(prepareSql(sql, bindObjects), map, mapKeyType, collectionType, componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -464,7 +648,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T> ListIterator<T> toListIterator(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
-		return delegate.toListIterator(prepareSql(sql, bindObjects), type, bindObjects);
+		try {
+			return delegate.toListIterator(prepareSql(sql, bindObjects), type, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -474,7 +662,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T> Iterator<T> toIterator(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
-		return delegate.toIterator(prepareSql(sql, bindObjects), type, bindObjects);
+		try {
+			return delegate.toIterator(prepareSql(sql, bindObjects), type, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -484,7 +676,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T> T[] toArray(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
-		return delegate.toArray(prepareSql(sql, bindObjects), type, bindObjects);
+		try {
+			return delegate.toArray(prepareSql(sql, bindObjects), type, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -494,7 +690,25 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <E> List<E> toList(String sql, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toList(prepareSql(sql, bindObjects), componentType, bindObjects);
+		try {
+			return delegate.toList(prepareSql(sql, bindObjects), componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
+	}
+
+	@Override
+	public ColumnarResult toColumns(PreparedStatement ps, final Object... bindObjects) throws SQLException {
+		return delegate.toColumns(ps, bindObjects);
+	}
+
+	@Override
+	public ColumnarResult toColumns(String sql, final Object... bindObjects) throws SQLException {
+		try {
+			return delegate.toColumns(prepareSql(sql, bindObjects), bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -504,7 +718,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <K, E> Map<K, E> toMap(String sql, Class<K> mapKeyType, Class<E> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toMap(prepareSql(sql, bindObjects), mapKeyType, componentType, bindObjects);
+		try {
+			return delegate.toMap(prepareSql(sql, bindObjects), mapKeyType, componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -514,7 +732,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <K, E extends List<C>, C> Map<K, E> toMapList(String sql, Class<K> mapKeyType, Class<C> componentType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapList(prepareSql(sql, bindObjects), mapKeyType, componentType, bindObjects);
+		try {
+			return delegate.toMapList(prepareSql(sql, bindObjects), mapKeyType, componentType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -524,7 +746,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Collection<E>, E extends Map<String, V>, V> T toCollectionMap(String sql, final Class<T> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toCollectionMap(prepareSql(sql, bindObjects), collectionType, componentType, mapValType, bindObjects);
+		try {
+			return delegate.toCollectionMap(prepareSql(sql, bindObjects), collectionType, componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -534,7 +760,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Collection<E>, E extends Map<String, V>, V> T toCollectionMap(String sql, T list, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toCollectionMap(prepareSql(sql, bindObjects), list, componentType, mapValType, bindObjects);
+		try {
+			return delegate.toCollectionMap(prepareSql(sql, bindObjects), list, componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -544,7 +774,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<K, E>, K, E extends Map<String, V>, V> T toMapMap(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapMap(prepareSql(sql, bindObjects), returnType, mapKeyType, componentType, mapValType, bindObjects);
+		try {
+			return delegate.toMapMap(prepareSql(sql, bindObjects), returnType, mapKeyType, componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -554,7 +788,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<K, E>, K, E extends Map<String, V>, V> T toMapMap(String sql, T map, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapMap(prepareSql(sql, bindObjects), map, mapKeyType, componentType, mapValType, bindObjects);
+		try {
+			return delegate.toMapMap(prepareSql(sql, bindObjects), map, mapKeyType, componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -564,7 +802,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<K, C>, K, C extends Collection<E>, E extends Map<String, V>, V> T toMapCollectionMap(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<C> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapCollectionMap(prepareSql(sql, bindObjects), returnType, mapKeyType, collectionType, componentType, mapValType, bindObjects);
+		try {
+			return delegate.toMapCollectionMap(prepareSql(sql, bindObjects), returnType, mapKeyType, collectionType, componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -574,7 +816,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<K, C>, K, C extends Collection<E>, E extends Map<String, V>, V> T toMapCollectionMap(String sql, T map, Class<K> mapKeyType, Class<C> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapCollectionMap(prepareSql(sql, bindObjects), map, mapKeyType, collectionType, componentType, mapValType, bindObjects);
+		try {
+			return delegate.toMapCollectionMap(prepareSql(sql, bindObjects), map, mapKeyType, collectionType, componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -584,7 +830,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<String, V>, V> ListIterator<Map<String, V>> toListIteratorMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toListIteratorMap(prepareSql(sql, bindObjects), type, mapValType, bindObjects);
+		try {
+			return delegate.toListIteratorMap(prepareSql(sql, bindObjects), type, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -594,7 +844,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<String, V>, V> Iterator<Map<String, V>> toIteratorMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toIteratorMap(prepareSql(sql, bindObjects), type, mapValType, bindObjects);
+		try {
+			return delegate.toIteratorMap(prepareSql(sql, bindObjects), type, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -604,7 +858,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <T extends Map<String, V>, V> Map<String, V>[] toArrayMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toArrayMap(prepareSql(sql, bindObjects), type, mapValType, bindObjects);
+		try {
+			return delegate.toArrayMap(prepareSql(sql, bindObjects), type, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -614,7 +872,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <E extends Map<String, V>, V> List<Map<String, V>> toListMap(String sql, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toListMap(prepareSql(sql, bindObjects), componentType, mapValType, bindObjects);
+		try {
+			return delegate.toListMap(prepareSql(sql, bindObjects), componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -624,7 +886,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <K, E extends Map<String, V>, V> Map<K, Map<String, V>> toMapMap(String sql, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapMap(prepareSql(sql, bindObjects), mapKeyType, componentType, mapValType, bindObjects);
+		try {
+			return delegate.toMapMap(prepareSql(sql, bindObjects), mapKeyType, componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -634,7 +900,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <K, E extends Map<String, V>, V> Map<K, List<Map<String, V>>> toMapListMap(String sql, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapListMap(prepareSql(sql, bindObjects), mapKeyType, componentType, mapValType, bindObjects);
+		try {
+			return delegate.toMapListMap(prepareSql(sql, bindObjects), mapKeyType, componentType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -644,7 +914,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <V> ListIterator<Map<String, V>> toListIteratorMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toListIteratorMap(prepareSql(sql, bindObjects), mapValType, bindObjects);
+		try {
+			return delegate.toListIteratorMap(prepareSql(sql, bindObjects), mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -654,7 +928,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <V> Iterator<Map<String, V>> toIteratorMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toIteratorMap(prepareSql(sql, bindObjects), mapValType, bindObjects);
+		try {
+			return delegate.toIteratorMap(prepareSql(sql, bindObjects), mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -664,7 +942,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <V> List<Map<String, V>> toListMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toListMap(prepareSql(sql, bindObjects), mapValType, bindObjects);
+		try {
+			return delegate.toListMap(prepareSql(sql, bindObjects), mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -674,7 +956,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <K, V> Map<K, Map<String, V>> toMapMap(String sql, Class<K> mapKeyType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapMap(prepareSql(sql, bindObjects), mapKeyType, mapValType, bindObjects);
+		try {
+			return delegate.toMapMap(prepareSql(sql, bindObjects), mapKeyType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 	@Override
@@ -684,7 +970,11 @@ public class ListQueryMapper extends QueryMapper {
 
 	@Override
 	public <K, V> Map<K, List<Map<String, V>>> toMapListMap(String sql, Class<K> mapKeyType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
-		return delegate.toMapListMap(prepareSql(sql, bindObjects), mapKeyType, mapValType, bindObjects);
+		try {
+			return delegate.toMapListMap(prepareSql(sql, bindObjects), mapKeyType, mapValType, bindObjects);
+		} catch (SQLException e) {
+			throw failed(e, bindObjects);
+		}
 	}
 
 }
@@ -0,0 +1,28 @@
+package com.moparisthebest.jdbc;
+
+import java.lang.ref.Reference;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A RowMapper that can run the whole row loop itself, ResultSetMapper uses these instead of calling
+ * mapRowToReturnType() once per row when getRowMapper returns one.
+ * <p>
+ * Each method maps rows until the ResultSet is exhausted or arrayMaxLength rows have been mapped, a value of less than
+ * 1 meaning all rows, and returns how many rows were mapped. None of them close the ResultSet or call Finishable.finish.
+ * <p>
+ * The container is only reachable through the Reference, which must be dereferenced again for each row and never held
+ * between rows, so a SoftReference can still be cleared to avoid running out of memory, an OutOfMemoryError is thrown
+ * if it has been.
+ *
+ * @see CompilingRowToObjectMapper
+ */
+public interface LoopingRowMapper<K, T> extends RowMapper<K, T> {
+
+	int toCollection(Reference<? extends Collection<? super T>> softList, int arrayMaxLength) throws SQLException;
+
+	int toMap(Reference<? extends Map<? super K, ? super T>> softMap, int arrayMaxLength) throws SQLException;
+
+	<E extends Collection<? super T>> int toMapCollection(Reference<? extends Map<? super K, E>> softMap, Class<E> collectionType, int arrayMaxLength) throws SQLException;
+}
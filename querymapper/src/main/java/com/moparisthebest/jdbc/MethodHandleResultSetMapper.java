@@ -0,0 +1,49 @@
+package com.moparisthebest.jdbc;
+
+//IFJAVA8_START
+import java.sql.ResultSet;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This generally follows the contract of ResultSetMapper, with the differences specified in MethodHandleRowToObjectMapper.
+ * <p>
+ * This caches a MethodHandle chain based on column name/order and DTO being mapped to, so the reflection only happens
+ * once for each query/dto, and subsequent calls are close to hand-written code once the JIT has inlined them.
+ * <p>
+ * By default this uses a ConcurrentHashMap for the cache, unbounded, and thread-safe. Use CacheUtil to get Maps for your
+ * preferred use case. You can send in your own custom Map implementation, MethodHandleResultSetMapper guarantees null
+ * will never be used for key or value, if it is a ConcurrentMap putIfAbsent is used so every thread ends up with the
+ * same Handles for a key.
+ *
+ * @see MethodHandleRowToObjectMapper
+ */
+public class MethodHandleResultSetMapper extends ResultSetMapper {
+
+	protected final Map<CompilingRowToObjectMapper.ResultSetKey, MethodHandleRowToObjectMapper.Handles> cache;
+
+	public MethodHandleResultSetMapper(final Calendar cal, final int arrayMaxLength, final Map<CompilingRowToObjectMapper.ResultSetKey, MethodHandleRowToObjectMapper.Handles> cache) {
+		super(cal, arrayMaxLength);
+		this.cache = cache == null ? new ConcurrentHashMap<CompilingRowToObjectMapper.ResultSetKey, MethodHandleRowToObjectMapper.Handles>() : cache;
+	}
+
+	public MethodHandleResultSetMapper(final Map<CompilingRowToObjectMapper.ResultSetKey, MethodHandleRowToObjectMapper.Handles> cache) {
+		this.cache = cache == null ? new ConcurrentHashMap<CompilingRowToObjectMapper.ResultSetKey, MethodHandleRowToObjectMapper.Handles>() : cache;
+	}
+
+	public MethodHandleResultSetMapper(final int arrayMaxLength, final Map<CompilingRowToObjectMapper.ResultSetKey, MethodHandleRowToObjectMapper.Handles> cache) {
+		super(arrayMaxLength);
+		this.cache = cache == null ? new ConcurrentHashMap<CompilingRowToObjectMapper.ResultSetKey, MethodHandleRowToObjectMapper.Handles>() : cache;
+	}
+
+	public MethodHandleResultSetMapper() {
+		this.cache = new ConcurrentHashMap<CompilingRowToObjectMapper.ResultSetKey, MethodHandleRowToObjectMapper.Handles>();
+	}
+
+	@Override
+	public <K, T> RowMapper<K, T> getRowMapper(ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType) {
+		return new MethodHandleRowToObjectMapper<K, T>(cache, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+	}
+}
+//IFJAVA8_END
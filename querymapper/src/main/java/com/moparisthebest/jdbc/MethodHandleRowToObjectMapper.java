@@ -0,0 +1,377 @@
+package com.moparisthebest.jdbc;
+
+//IFJAVA8_START
+import com.moparisthebest.jdbc.util.ResultSetUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Map a ResultSet row to an Object. This mapper resolves the constructor, setters and fields for each ResultSetKey
+ * once into a single MethodHandle chain of (ResultSet, Calendar)Object, with each column bound to it's typed ResultSet
+ * getter, so no boxing, Field.set, or Method.invoke happens per row, and the JIT can inline it much like hand-written
+ * code. Unlike CompilingRowToObjectMapper, no javac is needed.
+ * <p>
+ * The same usage differences to RowToObjectMapper as CompilingRowToObjectMapper apply, with the exception that all
+ * fields can be set regardless of visibility, as with RowToObjectMapper. Maps and arrays are built by RowToObjectMapper
+ * as they gain nothing from this.
+ *
+ * @author moparisthebest
+ * @see MethodHandleResultSetMapper
+ */
+public class MethodHandleRowToObjectMapper<K, T> extends RowToObjectMapper<K, T> {
+
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+	private static final MethodType rowType = MethodType.methodType(Object.class, ResultSet.class, Calendar.class);
+	private static final MethodHandle fieldSet, finish;
+
+	static {
+		try {
+			fieldSet = lookup.findVirtual(Field.class, "set", MethodType.methodType(void.class, Object.class, Object.class));
+			finish = lookup.findVirtual(Finishable.class, "finish", MethodType.methodType(void.class, ResultSet.class));
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	protected final Handles handles;
+
+	public MethodHandleRowToObjectMapper(final Map<CompilingRowToObjectMapper.ResultSetKey, Handles> cache, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType) {
+		this(cache, resultSet, returnTypeClass, cal, mapValType, mapKeyType, false);
+	}
+
+	public MethodHandleRowToObjectMapper(final Map<CompilingRowToObjectMapper.ResultSetKey, Handles> cache, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType, final boolean caseInsensitiveMap) {
+		super(resultSet, returnTypeClass, cal, mapValType, mapKeyType, caseInsensitiveMap);
+		try {
+			final CompilingRowToObjectMapper.ResultSetKey keys = new CompilingRowToObjectMapper.ResultSetKey(super.getKeysFromResultSet(), _returnTypeClass, _mapKeyType, cal != null);
+			Handles handles = cache.get(keys);
+			if (handles == null) {
+				// generate and put into cache, if another thread beat us to it use theirs
+				handles = new Handles(genRowHandle(), genFirstColumnHandle());
+				if (cache instanceof ConcurrentMap) {
+					final Handles existing = ((ConcurrentMap<CompilingRowToObjectMapper.ResultSetKey, Handles>) cache).putIfAbsent(keys, handles);
+					if (existing != null)
+						handles = existing;
+				} else {
+					cache.put(keys, handles);
+				}
+			}
+			this.handles = handles;
+		} catch (SQLException e) {
+			throw new MapperException("MethodHandleRowToObjectMapper: SQLException: " + e.getMessage(), e);
+		} catch (IllegalAccessException e) {
+			throw new MapperException("MethodHandleRowToObjectMapper: IllegalAccessException: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T mapRowToReturnType() throws SQLException {
+		if (handles.row == null)
+			return super.mapRowToReturnType();
+		try {
+			return (T) (Object) handles.row.invokeExact(_resultSet, _cal);
+		} catch (SQLException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new MapperException(e.getClass().getName() + " when trying to create instance of : " + _returnTypeClass.getName(), e);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public K getMapKey() throws SQLException {
+		if (handles.firstColumn == null)
+			return super.getMapKey();
+		try {
+			return (K) (Object) handles.firstColumn.invokeExact(_resultSet, _cal);
+		} catch (SQLException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new MapperException(e.getClass().getName() + " when trying to get map key of type : " + _mapKeyType.getName(), e);
+		}
+	}
+
+	/**
+	 * @return a handle of (ResultSet, Calendar)Object mapping a row, or null if RowToObjectMapper should map it
+	 */
+	protected MethodHandle genRowHandle() throws SQLException, IllegalAccessException {
+		if (mapOnlySecondColumn)
+			return getColumnHandle(2, _tmf.getTypeId(_returnTypeClass), _returnTypeClass).asType(rowType);
+
+		if (returnMap || componentType != null)
+			return null;
+
+		lazyLoadConstructor();
+
+		if (resultSetConstructor) {
+			final MethodHandle ret = MethodHandles.dropArguments(lookup.unreflectConstructor(constructor), 1, Calendar.class);
+			return finishIfNeeded(ret).asType(rowType);
+		}
+
+		if (_fieldOrder != null) {
+			MethodHandle ret = lookup.unreflectConstructor(constructor);
+			ret = MethodHandles.dropArguments(ret, ret.type().parameterCount(), ResultSet.class, Calendar.class);
+			for (int x = 1; x <= _columnCount; ++x)
+				ret = collectColumn(ret, getColumnHandle(_fieldOrder[x], _fieldTypes[x], _fieldClasses[x]));
+			return finishIfNeeded(ret).asType(rowType);
+		}
+
+		// if the ResultSet only contains a single column we may be able to map directly
+		// to the return type -- if so we don't need to build any structures to support
+		// mapping, RowToObjectMapper handles an unknown type specially, so let it
+		if (_columnCount == 1) {
+			final int typeId = _tmf.getTypeId(_returnTypeClass);
+			if (typeId != TypeMappingsFactory.TYPE_UNKNOWN)
+				return getColumnHandle(1, typeId, _returnTypeClass).asType(rowType);
+			return null;
+		}
+
+		if (_fields == null)
+			getFieldMappings();
+
+		if (constructor == null)
+			throw new MapperException("Exception when trying to get constructor for : " + _returnTypeClass.getName() + " Must have default no-arg constructor or one that takes a single ResultSet.");
+
+		// (T, ResultSet, Calendar)T, setters are folded in front of this in reverse so they run in column order
+		MethodHandle ret = MethodHandles.dropArguments(MethodHandles.identity(_returnTypeClass), 1, ResultSet.class, Calendar.class);
+		if (Finishable.class.isAssignableFrom(_returnTypeClass))
+			ret = MethodHandles.foldArguments(ret, MethodHandles.dropArguments(finish, 2, Calendar.class).asType(MethodType.methodType(void.class, _returnTypeClass, ResultSet.class, Calendar.class)));
+		for (int i = _fields.length - 1; i > 0; --i) {
+			final AccessibleObject f = _fields[i];
+			MethodHandle setter;
+			if (f instanceof Field) {
+				final Field field = (Field) f;
+				try {
+					setter = lookup.unreflectSetter(field);
+				} catch (IllegalAccessException e) {
+					// final fields, let Field.set deal with them the way RowToObjectMapper does
+					setter = fieldSet.bindTo(field).asType(MethodType.methodType(void.class, field.getDeclaringClass(), field.getType()));
+				}
+			} else {
+				setter = lookup.unreflect((Method) f);
+			}
+			// (V, T, ResultSet, Calendar)void, setter methods may return this
+			final Class<?> valueType = setter.type().parameterType(1);
+			setter = MethodHandles.permuteArguments(setter.asType(MethodType.methodType(void.class, _returnTypeClass, valueType)),
+					MethodType.methodType(void.class, valueType, _returnTypeClass), 1, 0);
+			setter = MethodHandles.dropArguments(setter, 2, ResultSet.class, Calendar.class);
+			ret = MethodHandles.foldArguments(ret, collectColumn(setter, getColumnHandle(i, _fieldTypes[i], _fieldClasses[i])));
+		}
+		ret = MethodHandles.foldArguments(ret, MethodHandles.dropArguments(lookup.unreflectConstructor(constructor), 0, ResultSet.class, Calendar.class));
+		return ret.asType(rowType);
+	}
+
+	/**
+	 * @return a handle of (ResultSet, Calendar)Object getting the map key, or null if there is no map key
+	 */
+	protected MethodHandle genFirstColumnHandle() throws IllegalAccessException {
+		return _mapKeyType == null ? null : getColumnHandle(1, _tmf.getTypeId(_mapKeyType), _mapKeyType).asType(rowType);
+	}
+
+	/**
+	 * Fill the first parameter of target with a column value, like MethodHandles.collectArguments in java 9+
+	 *
+	 * @param target (V, A..., ResultSet, Calendar)R
+	 * @param column (ResultSet, Calendar)V, from getColumnHandle
+	 * @return (A..., ResultSet, Calendar)R
+	 */
+	protected static MethodHandle collectColumn(final MethodHandle target, final MethodHandle column) {
+		final MethodType type = target.type();
+		return MethodHandles.foldArguments(target, MethodHandles.dropArguments(
+				column.asType(MethodType.methodType(type.parameterType(0), ResultSet.class, Calendar.class)),
+				0, type.parameterList().subList(1, type.parameterCount() - 2)));
+	}
+
+	/**
+	 * @param target (ResultSet, Calendar)T
+	 * @return target that calls finish(rs) on it's return value first if T is Finishable
+	 */
+	protected MethodHandle finishIfNeeded(final MethodHandle target) {
+		final Class<?> returnType = target.type().returnType();
+		if (!Finishable.class.isAssignableFrom(returnType))
+			return target;
+		// (T, ResultSet, Calendar)T
+		final MethodHandle finisher = MethodHandles.foldArguments(
+				MethodHandles.dropArguments(MethodHandles.identity(returnType), 1, ResultSet.class, Calendar.class),
+				MethodHandles.dropArguments(finish, 2, Calendar.class).asType(MethodType.methodType(void.class, returnType, ResultSet.class, Calendar.class)));
+		return MethodHandles.foldArguments(finisher, target);
+	}
+
+	protected static MethodHandle resultSet(final String name, final int index, final Class<?> returnType) throws IllegalAccessException {
+		try {
+			final MethodHandle ret = lookup.findVirtual(ResultSet.class, name, MethodType.methodType(returnType, int.class));
+			return MethodHandles.dropArguments(MethodHandles.insertArguments(ret, 1, index), 1, Calendar.class);
+		} catch (NoSuchMethodException e) {
+			throw new MapperException("internal error: no method " + name + " on ResultSet", e);
+		}
+	}
+
+	protected MethodHandle resultSetCal(final String name, final int index, final Class<?> returnType) throws IllegalAccessException {
+		if (_cal == null)
+			return resultSet(name, index, returnType);
+		try {
+			final MethodHandle ret = lookup.findVirtual(ResultSet.class, name, MethodType.methodType(returnType, int.class, Calendar.class));
+			return MethodHandles.insertArguments(ret, 1, index);
+		} catch (NoSuchMethodException e) {
+			throw new MapperException("internal error: no method " + name + " on ResultSet", e);
+		}
+	}
+
+	protected static MethodHandle util(final String name, final int index, final Class<?> returnType) throws IllegalAccessException {
+		try {
+			final MethodHandle ret = lookup.findStatic(ResultSetUtil.class, name, MethodType.methodType(returnType, ResultSet.class, int.class));
+			return MethodHandles.dropArguments(MethodHandles.insertArguments(ret, 1, index), 1, Calendar.class);
+		} catch (NoSuchMethodException e) {
+			throw new MapperException("internal error: no method " + name + " on ResultSetUtil", e);
+		}
+	}
+
+	protected MethodHandle utilCal(final String name, final int index, final Class<?> returnType) throws IllegalAccessException {
+		if (_cal == null)
+			return util(name, index, returnType);
+		try {
+			final MethodHandle ret = lookup.findStatic(ResultSetUtil.class, name, MethodType.methodType(returnType, ResultSet.class, int.class, Calendar.class));
+			return MethodHandles.insertArguments(ret, 1, index);
+		} catch (NoSuchMethodException e) {
+			throw new MapperException("internal error: no method " + name + " on ResultSetUtil", e);
+		}
+	}
+
+	/**
+	 * Get a handle to extract a column value from the ResultSet, this follows
+	 * CompilingRowToObjectMapper.extractColumnValueString exactly
+	 *
+	 * @param index      The column index of the value to extract from the ResultSet.
+	 * @param resultType The return type. Defined in TypeMappingsFactory.
+	 * @param enumClass  The class of the enum if resultType is TYPE_ENUM
+	 * @return a handle of (ResultSet, Calendar)V where V is the natural type of the getter
+	 */
+	protected MethodHandle getColumnHandle(final int index, final int resultType, final Class<?> enumClass) throws IllegalAccessException {
+		switch (resultType) {
+			case TypeMappingsFactory.TYPE_INT:
+				return resultSet("getInt", index, int.class);
+			case TypeMappingsFactory.TYPE_LONG:
+				return resultSet("getLong", index, long.class);
+			case TypeMappingsFactory.TYPE_FLOAT:
+				return resultSet("getFloat", index, float.class);
+			case TypeMappingsFactory.TYPE_DOUBLE:
+				return resultSet("getDouble", index, double.class);
+			case TypeMappingsFactory.TYPE_BYTE:
+				return resultSet("getByte", index, byte.class);
+			case TypeMappingsFactory.TYPE_SHORT:
+				return resultSet("getShort", index, short.class);
+			case TypeMappingsFactory.TYPE_BOOLEAN:
+				return util("getBooleanYN", index, boolean.class);
+			case TypeMappingsFactory.TYPE_INT_OBJ:
+				return util("getObjectInt", index, Integer.class);
+			case TypeMappingsFactory.TYPE_LONG_OBJ:
+				return util("getObjectLong", index, Long.class);
+			case TypeMappingsFactory.TYPE_FLOAT_OBJ:
+				return util("getObjectFloat", index, Float.class);
+			case TypeMappingsFactory.TYPE_DOUBLE_OBJ:
+				return util("getObjectDouble", index, Double.class);
+			case TypeMappingsFactory.TYPE_BYTE_OBJ:
+				return util("getObjectByte", index, Byte.class);
+			case TypeMappingsFactory.TYPE_SHORT_OBJ:
+				return util("getObjectShort", index, Short.class);
+			case TypeMappingsFactory.TYPE_BOOLEAN_OBJ:
+				return util("getObjectBooleanYN", index, Boolean.class);
+			case TypeMappingsFactory.TYPE_STRING:
+			case TypeMappingsFactory.TYPE_XMLBEAN_ENUM:
+				return resultSet("getString", index, String.class);
+			case TypeMappingsFactory.TYPE_ENUM:
+				try {
+					final MethodHandle ret = lookup.findStatic(ResultSetUtil.class, "getEnum", MethodType.methodType(Enum.class, ResultSet.class, int.class, Class.class));
+					return MethodHandles.dropArguments(MethodHandles.insertArguments(ret, 1, index, enumClass), 1, Calendar.class)
+							.asType(MethodType.methodType(enumClass, ResultSet.class, Calendar.class));
+				} catch (NoSuchMethodException e) {
+					throw new MapperException("internal error: no method getEnum on ResultSetUtil", e);
+				}
+			case TypeMappingsFactory.TYPE_BIG_DECIMAL:
+				return resultSet("getBigDecimal", index, java.math.BigDecimal.class);
+			case TypeMappingsFactory.TYPE_BYTES:
+				return resultSet("getBytes", index, byte[].class);
+			case TypeMappingsFactory.TYPE_TIMESTAMP:
+				return resultSetCal("getTimestamp", index, java.sql.Timestamp.class);
+			case TypeMappingsFactory.TYPE_TIME:
+				return resultSetCal("getTime", index, java.sql.Time.class);
+			case TypeMappingsFactory.TYPE_SQLDATE:
+				return resultSetCal("getDate", index, java.sql.Date.class);
+			case TypeMappingsFactory.TYPE_DATE:
+				return utilCal("getUtilDate", index, java.util.Date.class);
+			case TypeMappingsFactory.TYPE_CALENDAR:
+				return utilCal("getCalendar", index, Calendar.class);
+			case TypeMappingsFactory.TYPE_REF:
+				return resultSet("getRef", index, java.sql.Ref.class);
+			case TypeMappingsFactory.TYPE_BLOB:
+				return resultSet("getBlob", index, java.sql.Blob.class);
+			case TypeMappingsFactory.TYPE_CLOB:
+				return resultSet("getClob", index, java.sql.Clob.class);
+			case TypeMappingsFactory.TYPE_ARRAY:
+				return resultSet("getArray", index, java.sql.Array.class);
+			case TypeMappingsFactory.TYPE_READER:
+			case TypeMappingsFactory.TYPE_STREAM:
+				throw new MapperException("streaming return types are not supported by the JdbcControl; use ResultSet instead");
+			// start java.time support
+			case TypeMappingsFactory.TYPE_INSTANT:
+				return utilCal("getInstant", index, java.time.Instant.class);
+			case TypeMappingsFactory.TYPE_LOCALDATETIME:
+				return utilCal("getLocalDateTime", index, java.time.LocalDateTime.class);
+			case TypeMappingsFactory.TYPE_LOCALDATE:
+				return utilCal("getLocalDate", index, java.time.LocalDate.class);
+			case TypeMappingsFactory.TYPE_LOCALTIME:
+				return utilCal("getLocalTime", index, java.time.LocalTime.class);
+			// todo: send in ZoneId here?
+			case TypeMappingsFactory.TYPE_ZONEDDATETIME:
+				return utilCal("getZonedDateTime", index, java.time.ZonedDateTime.class);
+			case TypeMappingsFactory.TYPE_OFFSETDATETIME:
+				return utilCal("getOffsetDateTime", index, java.time.OffsetDateTime.class);
+			case TypeMappingsFactory.TYPE_OFFSETTIME:
+				return utilCal("getOffsetTime", index, java.time.OffsetTime.class);
+			case TypeMappingsFactory.TYPE_YEAR:
+				return util("getYear", index, java.time.Year.class);
+			case TypeMappingsFactory.TYPE_ZONEID:
+				return util("getZoneId", index, java.time.ZoneId.class);
+			case TypeMappingsFactory.TYPE_ZONEOFFSET:
+				return util("getZoneOffset", index, java.time.ZoneOffset.class);
+			// end java.time support
+			case TypeMappingsFactory.TYPE_STRUCT:
+			case TypeMappingsFactory.TYPE_UNKNOWN:
+				// JAVA_TYPE (could be any), or REF
+				return resultSet("getObject", index, Object.class);
+			default:
+				throw new MapperException("internal error: unknown type ID: " + Integer.toString(resultType));
+		}
+	}
+
+	/**
+	 * The MethodHandles generated for one ResultSetKey, these are what is cached
+	 */
+	public static class Handles {
+		protected final MethodHandle row, firstColumn;
+
+		public Handles(final MethodHandle row, final MethodHandle firstColumn) {
+			this.row = row;
+			this.firstColumn = firstColumn;
+		}
+	}
+}
+//IFJAVA8_END
@@ -124,6 +124,26 @@ public class NullQueryMapper extends QueryMapper {
 		return null;
 	}
 
+	@Override
+	public long[] executeBatch(PreparedStatement ps, Iterable<Object[]> rows, int batchSize) {
+		try {
+			return delegate.executeBatch(ps, rows, batchSize);
+		} catch (Throwable e) {
+			if (verbose) e.printStackTrace();
+		}
+		return null;
+	}
+
+	@Override
+	public long[] executeBatchGetGeneratedKeys(PreparedStatement ps, Iterable<Object[]> rows, int batchSize) {
+		try {
+			return delegate.executeBatchGetGeneratedKeys(ps, rows, batchSize);
+		} catch (Throwable e) {
+			if (verbose) e.printStackTrace();
+		}
+		return null;
+	}
+
 	@Override
 	public int executeUpdate(String sql, Object... bindObjects) {
 		try {
@@ -144,6 +164,16 @@ public class NullQueryMapper extends QueryMapper {
 		return false;
 	}
 
+	@Override
+	public int executeUpdateDto(String sql, Object dto) {
+		try {
+			return delegate.executeUpdateDto(sql, dto);
+		} catch (Throwable e) {
+			if (verbose) e.printStackTrace();
+		}
+		return -1;
+	}
+
 	@Override
 	public Long insertGetGeneratedKey(String sql, Object... bindObjects) {
 		try {
@@ -184,6 +214,26 @@ public class NullQueryMapper extends QueryMapper {
 		return null;
 	}
 
+	@Override
+	public long[] executeBatch(String sql, Iterable<Object[]> rows, int batchSize) {
+		try {
+			return delegate.executeBatch(sql, rows, batchSize);
+		} catch (Throwable e) {
+			if (verbose) e.printStackTrace();
+		}
+		return null;
+	}
+
+	@Override
+	public long[] executeBatchGetGeneratedKeys(String sql, Iterable<Object[]> rows, int batchSize) {
+		try {
+			return delegate.executeBatchGetGeneratedKeys(sql, rows, batchSize);
+		} catch (Throwable e) {
+			if (verbose) e.printStackTrace();
+		}
+		return null;
+	}
+
 // these update the database using UpdateableDTOs
 
 	@Override
@@ -290,6 +340,26 @@ public class NullQueryMapper extends QueryMapper {
 		return delegate.getConnection();
 	}
 
+	@Override
+	public int getFetchSize() {
+		return delegate.getFetchSize();
+	}
+
+	@Override
+	public void setFetchSize(final int fetchSize) {
+		delegate.setFetchSize(fetchSize);
+	}
+
+	@Override
+	public int getCursorFetchSize() {
+		return delegate.getCursorFetchSize();
+	}
+
+	@Override
+	public void setCursorFetchSize(final int cursorFetchSize) {
+		delegate.setCursorFetchSize(cursorFetchSize);
+	}
+
 	// these just delegate and change no functionality
 
 	@Override
@@ -677,6 +747,26 @@ public class NullQueryMapper extends QueryMapper {
 		return null;
 	}
 
+	@Override
+	public ColumnarResult toColumns(PreparedStatement query, final Object... bindObjects) {
+		try {
+			return delegate.toColumns(query, bindObjects);
+		} catch (Throwable e) {
+			if (verbose) e.printStackTrace();
+		}
+		return null;
+	}
+
+	@Override
+	public ColumnarResult toColumns(String query, final Object... bindObjects) {
+		try {
+			return delegate.toColumns(query, bindObjects);
+		} catch (Throwable e) {
+			if (verbose) e.printStackTrace();
+		}
+		return null;
+	}
+
 	@Override
 	public <K, E> Map<K, E> toMap(PreparedStatement query, Class<K> mapKeyType, Class<E> componentType, final Object... bindObjects) {
 		try {
@@ -4,7 +4,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collection;
 
-public class OptimalInList implements InList {
+public class OptimalInList implements PrimitiveInList {
 
     private static final InList instance;
 
@@ -40,13 +40,42 @@ public class OptimalInList implements InList {
         }
     }
 
-    private final InList any, oracle, unnest, bind;
+    public static final int defaultTempTableThreshold = Integer.parseInt(System.getProperty("QueryMapper.OptimalInList.tempTableThreshold", "10000"));
 
-    public OptimalInList(final InList any, final InList oracle, final InList unnest, final InList bind) {
+    /**
+     * TempTableInList writes to the database and creates a table the first time, so it's never used unless asked for
+     *
+     * @return like instance(), but using TempTableInList for lists larger than tempTableThreshold
+     */
+    public static InList withTempTable(final int tempTableThreshold) {
+        return new OptimalInList(ArrayInList.instance(), OracleArrayInList.instance(), UnNestArrayInList.instance(), BindInList.instance(), TempTableInList.instance(), tempTableThreshold);
+    }
+
+    /**
+     * @return withTempTable(defaultTempTableThreshold)
+     */
+    public static InList withTempTable() {
+        return withTempTable(defaultTempTableThreshold);
+    }
+
+    private final InList any, oracle, unnest, bind, tempTable;
+    private final int tempTableThreshold;
+
+    /**
+     * @param tempTable          used instead for lists larger than tempTableThreshold, null to never use it
+     * @param tempTableThreshold lists with more values than this use tempTable
+     */
+    public OptimalInList(final InList any, final InList oracle, final InList unnest, final InList bind, final InList tempTable, final int tempTableThreshold) {
         this.any = any;
         this.oracle = oracle;
         this.unnest = unnest;
         this.bind = bind;
+        this.tempTable = tempTable;
+        this.tempTableThreshold = tempTableThreshold;
+    }
+
+    public OptimalInList(final InList any, final InList oracle, final InList unnest, final InList bind) {
+        this(any, oracle, unnest, bind, null, Integer.MAX_VALUE);
     }
 
     protected OptimalInList() {
@@ -55,6 +84,11 @@ public class OptimalInList implements InList {
 
     @Override
     public InList instance(Connection conn) {
+        final InList ret = smallInstance(conn);
+        return tempTable == null ? ret : new SizeThresholdInList(ret, tempTable.instance(conn), tempTableThreshold);
+    }
+
+    protected InList smallInstance(Connection conn) {
         if (isWrapperFor(conn, postgreConnection)
                 // java6 version of h2 doesn't support this
                 //IFJAVA8_START
@@ -99,4 +133,94 @@ public class OptimalInList implements InList {
     public <T> InListObject notInList(Connection conn, String columnName, Collection<T> values) throws SQLException {
         return this.instance(conn).notInList(conn, columnName, values);
     }
+
+    @Override
+    public InListObject inList(Connection conn, String columnName, long[] values) throws SQLException {
+        return ListQueryMapper.inList(this.instance(conn), conn, columnName, values);
+    }
+
+    @Override
+    public InListObject notInList(Connection conn, String columnName, long[] values) throws SQLException {
+        return ListQueryMapper.notInList(this.instance(conn), conn, columnName, values);
+    }
+
+    @Override
+    public InListObject inList(Connection conn, String columnName, int[] values) throws SQLException {
+        return ListQueryMapper.inList(this.instance(conn), conn, columnName, values);
+    }
+
+    @Override
+    public InListObject notInList(Connection conn, String columnName, int[] values) throws SQLException {
+        return ListQueryMapper.notInList(this.instance(conn), conn, columnName, values);
+    }
+
+    @Override
+    public InListObject inList(Connection conn, String columnName, String[] values) throws SQLException {
+        return ListQueryMapper.inList(this.instance(conn), conn, columnName, values);
+    }
+
+    @Override
+    public InListObject notInList(Connection conn, String columnName, String[] values) throws SQLException {
+        return ListQueryMapper.notInList(this.instance(conn), conn, columnName, values);
+    }
+
+    /**
+     * Uses small up to threshold values, large past that
+     */
+    static class SizeThresholdInList implements PrimitiveInList {
+
+        private final InList small, large;
+        private final int threshold;
+
+        SizeThresholdInList(final InList small, final InList large, final int threshold) {
+            this.small = small;
+            this.large = large;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public InList instance(Connection conn) {
+            return this;
+        }
+
+        @Override
+        public <T> InListObject inList(Connection conn, String columnName, Collection<T> values) throws SQLException {
+            return (values != null && values.size() > threshold ? large : small).inList(conn, columnName, values);
+        }
+
+        @Override
+        public <T> InListObject notInList(Connection conn, String columnName, Collection<T> values) throws SQLException {
+            return (values != null && values.size() > threshold ? large : small).notInList(conn, columnName, values);
+        }
+
+        @Override
+        public InListObject inList(Connection conn, String columnName, long[] values) throws SQLException {
+            return ListQueryMapper.inList(values != null && values.length > threshold ? large : small, conn, columnName, values);
+        }
+
+        @Override
+        public InListObject notInList(Connection conn, String columnName, long[] values) throws SQLException {
+            return ListQueryMapper.notInList(values != null && values.length > threshold ? large : small, conn, columnName, values);
+        }
+
+        @Override
+        public InListObject inList(Connection conn, String columnName, int[] values) throws SQLException {
+            return ListQueryMapper.inList(values != null && values.length > threshold ? large : small, conn, columnName, values);
+        }
+
+        @Override
+        public InListObject notInList(Connection conn, String columnName, int[] values) throws SQLException {
+            return ListQueryMapper.notInList(values != null && values.length > threshold ? large : small, conn, columnName, values);
+        }
+
+        @Override
+        public InListObject inList(Connection conn, String columnName, String[] values) throws SQLException {
+            return ListQueryMapper.inList(values != null && values.length > threshold ? large : small, conn, columnName, values);
+        }
+
+        @Override
+        public InListObject notInList(Connection conn, String columnName, String[] values) throws SQLException {
+            return ListQueryMapper.notInList(values != null && values.length > threshold ? large : small, conn, columnName, values);
+        }
+    }
 }
@@ -50,6 +50,18 @@ public class OracleArrayInList extends ArrayInList {
 	}
 
 	public Array toArray(final Connection conn, final String typeName, final Object[] elements) throws SQLException {
+		return createOracleArray(conn, typeName, elements);
+	}
+
+	/**
+	 * createOracleArray takes long[] and int[] as-is, no need to box them
+	 */
+	@Override
+	protected Array toPrimitiveArray(final Connection conn, final String typeName, final Object elements) throws SQLException {
+		return createOracleArray(conn, typeName, elements);
+	}
+
+	private static Array createOracleArray(final Connection conn, final String typeName, final Object elements) throws SQLException {
 		//return conn.unwrap(oracle.jdbc.OracleConnection.class).createOracleArray(typeName, elements);
 		try {
 			return (Array) createArray.invoke(conn.unwrap(oracleConnection), typeName, elements);
@@ -0,0 +1,28 @@
+package com.moparisthebest.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * An InList that can build from long[], int[] and String[] without boxing every value into a Collection first.
+ * <p>
+ * Optional, so existing InList implementations keep compiling, ListQueryMapper checks for it and boxes the values
+ * for any InList that doesn't implement it.
+ */
+public interface PrimitiveInList extends InList {
+
+	/**
+	 * Same as inList for a Collection, but without boxing every value
+	 */
+	public InListObject inList(final Connection conn, final String columnName, final long[] values) throws SQLException;
+
+	public InListObject notInList(final Connection conn, final String columnName, final long[] values) throws SQLException;
+
+	public InListObject inList(final Connection conn, final String columnName, final int[] values) throws SQLException;
+
+	public InListObject notInList(final Connection conn, final String columnName, final int[] values) throws SQLException;
+
+	public InListObject inList(final Connection conn, final String columnName, final String[] values) throws SQLException;
+
+	public InListObject notInList(final Connection conn, final String columnName, final String[] values) throws SQLException;
+}
@@ -32,6 +32,9 @@ public class QueryMapper implements JdbcMapper {
 	protected final ResultSetMapper cm;
 	protected final Connection conn;
 	protected final boolean closeConn;
+	protected int fetchSize = 0, cursorFetchSize = 0;
+	// read once, the first time it is needed by mapperFor
+	private String schema;
 
 	protected QueryMapper(Connection conn, final String jndiName, Factory<Connection> factory, final ResultSetMapper cm) {
 		this.cm = cm == null ? defaultRsm : cm;
@@ -247,6 +250,15 @@ public class QueryMapper implements JdbcMapper {
 						if (((BindInList.BindInListObject) o).getBindObjects() != null)
 							index = recursiveBind(ps, index, ((BindInList.BindInListObject) o).getBindObjects());
 						continue;
+					} else if (o instanceof BindInList.PrimitiveBindInListObject) {
+						index = ((BindInList.PrimitiveBindInListObject) o).bind(ps, index);
+						continue;
+					} else if (o instanceof TempTableInList.TempTableInListObject) {
+						final TempTableInList.TempTableInListObject list = (TempTableInList.TempTableInListObject) o;
+						if (list.isReleased())
+							throw new SQLException("TempTableInList list already used by a statement, its rows are gone, make a new one");
+						ps.setInt(++index, list.getId());
+						continue;
 					} else if (o instanceof Object[]) {
 						index = recursiveBind(ps, index, (Object[]) o);
 						continue;
@@ -273,13 +285,84 @@ public class QueryMapper implements JdbcMapper {
 	}
 
 	protected static ResultSet bindExecute(final PreparedStatement ps, final Object... bindObjects) throws SQLException {
-		return bind(ps, bindObjects).executeQuery();
+		if (!InList.InListObject.isObserved(bindObjects))
+			return bind(ps, bindObjects).executeQuery();
+		final long start = System.nanoTime();
+		final ResultSet ret;
+		try {
+			ret = bind(ps, bindObjects).executeQuery();
+		} catch (SQLException e) {
+			InList.InListObject.failed(bindObjects);
+			throw e;
+		}
+		InList.InListObject.executed(System.nanoTime() - start, bindObjects);
+		return ret;
+	}
+
+	/**
+	 * Prepare sql for a query, with fetchSize set if it is greater than 0
+	 */
+	protected PreparedStatement prepareQuery(final String sql) throws SQLException {
+		return prepareQuery(sql, fetchSize);
+	}
+
+	protected PreparedStatement prepareQuery(final String sql, final int fetchSize) throws SQLException {
+		final PreparedStatement ps = conn.prepareStatement(sql);
+		if (fetchSize > 0)
+			try {
+				ps.setFetchSize(fetchSize);
+			} catch (SQLException e) {
+				tryClose(ps);
+				throw e;
+			}
+		return ps;
+	}
+
+	/**
+	 * @return cm, or a view of it bound to sql and the current schema if it caches mappings by SQL text, so
+	 * ResultSetMetaData is only read the first time sql is run
+	 */
+	protected ResultSetMapper mapperFor(final String sql) {
+		if (!cm.cachesBySql())
+			return cm;
+		if (schema == null)
+			schema = ResultSetMapper.getSchema(conn);
+		return cm.forSql(sql, schema);
+	}
+
+	/**
+	 * @return the fetch size for toResultSetIterable and toStream, cursorFetchSize if set, otherwise fetchSize
+	 */
+	protected int getStreamFetchSize() {
+		return cursorFetchSize > 0 ? cursorFetchSize : fetchSize;
+	}
+
+	/**
+	 * Turns auto-commit off if cursorFetchSize is set and it is on, to be turned back on when the ResultSetIterable or
+	 * Stream is closed, and the last other cursor open on conn is too
+	 *
+	 * @return conn if auto-commit must be restored, null otherwise
+	 * @see ResultSetIterable#beginCursor(Connection)
+	 */
+	protected Connection beginCursor() throws SQLException {
+		return cursorFetchSize < 1 ? null : ResultSetIterable.beginCursor(conn);
 	}
 
 	// these update the database
 
 	public int executeUpdate(PreparedStatement ps, final Object... bindObjects) throws SQLException {
-		return bind(ps, bindObjects).executeUpdate();
+		if (!InList.InListObject.isObserved(bindObjects))
+			return bind(ps, bindObjects).executeUpdate();
+		final long start = System.nanoTime();
+		final int ret;
+		try {
+			ret = bind(ps, bindObjects).executeUpdate();
+		} catch (SQLException e) {
+			InList.InListObject.failed(bindObjects);
+			throw e;
+		}
+		InList.InListObject.executed(System.nanoTime() - start, bindObjects);
+		return ret;
 	}
 
 	public boolean executeUpdateSuccess(PreparedStatement ps, final Object... bindObjects) throws SQLException {
@@ -332,6 +415,15 @@ public class QueryMapper implements JdbcMapper {
 		}
 	}
 
+	/**
+	 * Same as executeUpdate(sql, bindObjects) except sql has {name} parameters instead of ?, each bound to the getter or
+	 * field of dto with that name, see DtoBinder for how names are matched and cached.
+	 */
+	public int executeUpdateDto(final String sql, final Object dto) throws SQLException {
+		final DtoBinder binder = DtoBinder.getDtoBinder(sql, dto.getClass());
+		return this.executeUpdate(binder.getSql(), binder.getBindObjects(dto));
+	}
+
 	private Boolean oracleDatabase = null;
 	public Long insertGetGeneratedKey(final String sql, final Object... bindObjects) throws SQLException {
 		// this single function is somewhat database specific
@@ -382,6 +474,108 @@ public class QueryMapper implements JdbcMapper {
 		}
 	}
 
+	// these update the database in batches
+
+	/**
+	 * Bind each row to ps with recursiveBind and add it to the batch, executing the batch every batchSize rows, so
+	 * n rows take n / batchSize round trips instead of n
+	 *
+	 * @param rows      bind objects for each row, bound exactly like the bindObjects of executeUpdate
+	 * @param batchSize rows to send per executeBatch, less than 1 means all rows in a single batch
+	 * @return the update count for each row in order, as returned by executeBatch, so possibly Statement.SUCCESS_NO_INFO
+	 */
+	public long[] executeBatch(final PreparedStatement ps, final Iterable<Object[]> rows, final int batchSize) throws SQLException {
+		return executeBatch(ps, rows, batchSize, false);
+	}
+
+	/**
+	 * Like executeBatch, but returns the generated keys read after each executeBatch instead of the update counts.
+	 * <p>
+	 * Not every driver returns keys for every row of a batch, some only return the last one, so check the length
+	 * against the number of rows if that matters.
+	 */
+	public long[] executeBatchGetGeneratedKeys(final PreparedStatement ps, final Iterable<Object[]> rows, final int batchSize) throws SQLException {
+		return executeBatch(ps, rows, batchSize, true);
+	}
+
+	public long[] executeBatch(final String sql, final Iterable<Object[]> rows, final int batchSize) throws SQLException {
+		PreparedStatement ps = null;
+		try {
+			ps = conn.prepareStatement(sql);
+			return this.executeBatch(ps, rows, batchSize);
+		} finally {
+			tryClose(ps);
+		}
+	}
+
+	public long[] executeBatchGetGeneratedKeys(final String sql, final Iterable<Object[]> rows, final int batchSize) throws SQLException {
+		// see insertGetGeneratedKey for why oracle is different
+		if(oracleDatabase == null)
+			oracleDatabase = OptimalInList.isWrapperFor(conn, OptimalInList.oracleConnection);
+
+		PreparedStatement ps = null;
+		try {
+			ps = oracleDatabase ? conn.prepareStatement(sql, ORACLE_SINGLE_COLUMN_INDEX) : conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			return this.executeBatchGetGeneratedKeys(ps, rows, batchSize);
+		} finally {
+			tryClose(ps);
+		}
+	}
+
+	private static long[] executeBatch(final PreparedStatement ps, final Iterable<Object[]> rows, final int batchSize, final boolean generatedKeys) throws SQLException {
+		final LongList ret = new LongList(batchSize > 0 ? batchSize : 16);
+		int batched = 0;
+		if (rows != null)
+			for (final Object[] row : rows) {
+				recursiveBind(ps, row);
+				ps.addBatch();
+				if (++batched == batchSize) {
+					flushBatch(ps, generatedKeys, ret);
+					batched = 0;
+				}
+			}
+		if (batched != 0)
+			flushBatch(ps, generatedKeys, ret);
+		return ret.toArray();
+	}
+
+	private static void flushBatch(final PreparedStatement ps, final boolean generatedKeys, final LongList ret) throws SQLException {
+		final int[] counts = ps.executeBatch();
+		if (!generatedKeys) {
+			for (final int count : counts)
+				ret.add(count);
+			return;
+		}
+		ResultSet rs = null;
+		try {
+			rs = ps.getGeneratedKeys();
+			if (rs != null)
+				while (rs.next())
+					ret.add(rs.getLong(1));
+		} finally {
+			tryClose(rs);
+		}
+	}
+
+	private static final class LongList {
+		private long[] values;
+		private int size = 0;
+
+		private LongList(final int initialCapacity) {
+			this.values = new long[initialCapacity];
+		}
+
+		private void add(final long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		private long[] toArray() {
+			return size == values.length ? values : Arrays.copyOf(values, size);
+		}
+	}
+
 	// these update the database using UpdateableDTOs
 
 	public int updateRows(UpdateableDTO dto) throws SQLException {
@@ -453,9 +647,9 @@ public class QueryMapper implements JdbcMapper {
 		ResultSet rs = null;
 		T ret = null;
 		try {
-			ps = conn.prepareStatement(sql);
+			ps = prepareQuery(sql);
 			rs = this.toResultSet(ps, bindObjects);
-			ret = cm.toType(rs, typeReference);
+			ret = mapperFor(sql).toType(rs, typeReference);
 			if(ret instanceof ResultSetIterable) {
 				ret = (T)((ResultSetIterable)ret).setPreparedStatementToClose(ps);
 				closePs = false;
@@ -497,10 +691,11 @@ public class QueryMapper implements JdbcMapper {
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		ResultSetIterable<T> ret = null;
+		final Connection autoCommitConn = beginCursor();
 		try {
-			ps = conn.prepareStatement(sql);
+			ps = prepareQuery(sql, getStreamFetchSize());
 			rs = this.toResultSet(ps, bindObjects);
-			ret = cm.toResultSetIterable(rs, componentType).setPreparedStatementToClose(ps);
+			ret = mapperFor(sql).toResultSetIterable(rs, componentType).setPreparedStatementToClose(ps).setAutoCommitToRestore(autoCommitConn);
 			error = false;
 			return ret;
 		} finally {
@@ -508,6 +703,7 @@ public class QueryMapper implements JdbcMapper {
 				tryClose(ret);
 				tryClose(rs);
 				tryClose(ps);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
 			}
 		}
 	}
@@ -517,10 +713,11 @@ public class QueryMapper implements JdbcMapper {
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		ResultSetIterable<Map<String, V>> ret = null;
+		final Connection autoCommitConn = beginCursor();
 		try {
-			ps = conn.prepareStatement(sql);
+			ps = prepareQuery(sql, getStreamFetchSize());
 			rs = this.toResultSet(ps, bindObjects);
-			ret = cm.toResultSetIterable(rs, componentType, mapValType).setPreparedStatementToClose(ps);
+			ret = mapperFor(sql).toResultSetIterable(rs, componentType, mapValType).setPreparedStatementToClose(ps).setAutoCommitToRestore(autoCommitConn);
 			error = false;
 			return ret;
 		} finally {
@@ -528,6 +725,7 @@ public class QueryMapper implements JdbcMapper {
 				tryClose(ret);
 				tryClose(rs);
 				tryClose(ps);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
 			}
 		}
 	}
@@ -538,11 +736,15 @@ public class QueryMapper implements JdbcMapper {
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		Stream<T> ret = null;
+		final Connection autoCommitConn = beginCursor();
 		try {
-			ps = conn.prepareStatement(sql);
+			ps = prepareQuery(sql, getStreamFetchSize());
 			rs = this.toResultSet(ps, bindObjects);
 			final PreparedStatement finalPs = ps;
-			ret = cm.toStream(rs, componentType).onClose(() -> tryClose(finalPs));
+			ret = mapperFor(sql).toStream(rs, componentType).onClose(() -> {
+				tryClose(finalPs);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
+			});
 			error = false;
 			return ret;
 		} finally {
@@ -550,6 +752,7 @@ public class QueryMapper implements JdbcMapper {
 				tryClose(ret);
 				tryClose(rs);
 				tryClose(ps);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
 			}
 		}
 	}
@@ -559,11 +762,15 @@ public class QueryMapper implements JdbcMapper {
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		Stream<Map<String, V>> ret = null;
+		final Connection autoCommitConn = beginCursor();
 		try {
-			ps = conn.prepareStatement(sql);
+			ps = prepareQuery(sql, getStreamFetchSize());
 			rs = this.toResultSet(ps, bindObjects);
 			final PreparedStatement finalPs = ps;
-			ret = cm.toStream(rs, componentType, mapValType).onClose(() -> tryClose(finalPs));
+			ret = mapperFor(sql).toStream(rs, componentType, mapValType).onClose(() -> {
+				tryClose(finalPs);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
+			});
 			error = false;
 			return ret;
 		} finally {
@@ -571,6 +778,7 @@ public class QueryMapper implements JdbcMapper {
 				tryClose(ret);
 				tryClose(rs);
 				tryClose(ps);
+				ResultSetIterable.restoreAutoCommit(autoCommitConn);
 			}
 		}
 	}
@@ -586,6 +794,35 @@ public class QueryMapper implements JdbcMapper {
 		return conn;
 	}
 
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * @param fetchSize rows to fetch from the database at a time for queries prepared from SQL text, 0, the default,
+	 *                  leaves it up to the driver
+	 */
+	public void setFetchSize(final int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public int getCursorFetchSize() {
+		return cursorFetchSize;
+	}
+
+	/**
+	 * Cursor streaming mode for toResultSetIterable and toStream from SQL text, if cursorFetchSize is greater than 0
+	 * they fetch that many rows at a time from a forward-only, read-only PreparedStatement, and if auto-commit is on it
+	 * is turned off until the ResultSetIterable or Stream is closed, because drivers like PostgreSQL's read every row
+	 * into memory up front otherwise.
+	 * <p>
+	 * Turning auto-commit back on commits anything else ran on this connection in the meantime. 0, the default, turns
+	 * this off.
+	 */
+	public void setCursorFetchSize(final int cursorFetchSize) {
+		this.cursorFetchSize = cursorFetchSize;
+	}
+
 	// DO NOT EDIT BELOW THIS LINE, OR CHANGE THIS COMMENT, CODE AUTOMATICALLY GENERATED BY genQueryMapper.sh
 
 	public <T> T toObject(PreparedStatement ps, Class<T> componentType, final Object... bindObjects) throws SQLException {
@@ -595,8 +832,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T> T toObject(String sql, Class<T> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toObject(ps, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toObject(bindExecute(ps, bindObjects), componentType);
 		} finally {
 			tryClose(ps);
 		}
@@ -633,8 +870,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<String, V>, V> Map<String, V> toSingleMap(String sql, Class<T> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toSingleMap(ps, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toSingleMap(bindExecute(ps, bindObjects), componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -647,8 +884,8 @@ public class QueryMapper implements JdbcMapper {
 	public <V> Map<String, V> toSingleMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toSingleMap(ps, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toSingleMap(bindExecute(ps, bindObjects), mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -665,8 +902,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Collection<E>, E> T toCollection(String sql, final Class<T> collectionType, Class<E> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toCollection(ps, collectionType, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toCollection(bindExecute(ps, bindObjects), collectionType, componentType);
 		} finally {
 			tryClose(ps);
 		}
@@ -679,8 +916,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Collection<E>, E> T toCollection(String sql, T list, Class<E> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toCollection(ps, list, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toCollection(bindExecute(ps, bindObjects), list, componentType);
 		} finally {
 			tryClose(ps);
 		}
@@ -693,8 +930,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<K, E>, K, E> T toMap(String sql, T map, Class<K> mapKeyType, Class<E> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMap(ps, map, mapKeyType, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMap(bindExecute(ps, bindObjects), map, mapKeyType, componentType);
 		} finally {
 			tryClose(ps);
 		}
@@ -707,8 +944,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<K, E>, K, E extends Collection<C>, C> T toMapCollection(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<E> collectionType, Class<C> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapCollection(ps, returnType, mapKeyType, collectionType, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapCollection(bindExecute(ps, bindObjects), returnType, mapKeyType, collectionType, componentType);
 		} finally {
 			tryClose(ps);
 		}
@@ -721,8 +958,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<K, E>, K, E extends Collection<C>, C> T toMapCollection(String sql, T map, Class<K> mapKeyType, Class<E> collectionType, Class<C> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapCollection(ps, map, mapKeyType, collectionType, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapCollection(bindExecute(ps, bindObjects), map, mapKeyType, collectionType, componentType);
 		} finally {
 			tryClose(ps);
 		}
@@ -735,8 +972,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T> ListIterator<T> toListIterator(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toListIterator(ps, type, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toListIterator(bindExecute(ps, bindObjects), type);
 		} finally {
 			tryClose(ps);
 		}
@@ -749,8 +986,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T> Iterator<T> toIterator(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toIterator(ps, type, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toIterator(bindExecute(ps, bindObjects), type);
 		} finally {
 			tryClose(ps);
 		}
@@ -763,8 +1000,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T> T[] toArray(String sql, final Class<T> type, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toArray(ps, type, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toArray(bindExecute(ps, bindObjects), type);
 		} finally {
 			tryClose(ps);
 		}
@@ -777,8 +1014,22 @@ public class QueryMapper implements JdbcMapper {
 	public <E> List<E> toList(String sql, Class<E> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toList(ps, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toList(bindExecute(ps, bindObjects), componentType);
+		} finally {
+			tryClose(ps);
+		}
+	}
+
+	public ColumnarResult toColumns(PreparedStatement ps, final Object... bindObjects) throws SQLException {
+		return cm.toColumns(bindExecute(ps, bindObjects));
+	}
+
+	public ColumnarResult toColumns(String sql, final Object... bindObjects) throws SQLException {
+		PreparedStatement ps = null;
+		try {
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toColumns(bindExecute(ps, bindObjects));
 		} finally {
 			tryClose(ps);
 		}
@@ -791,8 +1042,8 @@ public class QueryMapper implements JdbcMapper {
 	public <K, E> Map<K, E> toMap(String sql, Class<K> mapKeyType, Class<E> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMap(ps, mapKeyType, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMap(bindExecute(ps, bindObjects), mapKeyType, componentType);
 		} finally {
 			tryClose(ps);
 		}
@@ -805,8 +1056,8 @@ public class QueryMapper implements JdbcMapper {
 	public <K, E extends List<C>, C> Map<K, E> toMapList(String sql, Class<K> mapKeyType, Class<C> componentType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapList(ps, mapKeyType, componentType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapList(bindExecute(ps, bindObjects), mapKeyType, componentType);
 		} finally {
 			tryClose(ps);
 		}
@@ -819,8 +1070,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Collection<E>, E extends Map<String, V>, V> T toCollectionMap(String sql, final Class<T> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toCollectionMap(ps, collectionType, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toCollectionMap(bindExecute(ps, bindObjects), collectionType, componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -833,8 +1084,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Collection<E>, E extends Map<String, V>, V> T toCollectionMap(String sql, T list, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toCollectionMap(ps, list, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toCollectionMap(bindExecute(ps, bindObjects), list, componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -847,8 +1098,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<K, E>, K, E extends Map<String, V>, V> T toMapMap(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapMap(ps, returnType, mapKeyType, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapMap(bindExecute(ps, bindObjects), returnType, mapKeyType, componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -861,8 +1112,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<K, E>, K, E extends Map<String, V>, V> T toMapMap(String sql, T map, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapMap(ps, map, mapKeyType, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapMap(bindExecute(ps, bindObjects), map, mapKeyType, componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -875,8 +1126,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<K, C>, K, C extends Collection<E>, E extends Map<String, V>, V> T toMapCollectionMap(String sql, final Class<T> returnType, Class<K> mapKeyType, Class<C> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapCollectionMap(ps, returnType, mapKeyType, collectionType, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapCollectionMap(bindExecute(ps, bindObjects), returnType, mapKeyType, collectionType, componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -889,8 +1140,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<K, C>, K, C extends Collection<E>, E extends Map<String, V>, V> T toMapCollectionMap(String sql, T map, Class<K> mapKeyType, Class<C> collectionType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapCollectionMap(ps, map, mapKeyType, collectionType, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapCollectionMap(bindExecute(ps, bindObjects), map, mapKeyType, collectionType, componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -903,8 +1154,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<String, V>, V> ListIterator<Map<String, V>> toListIteratorMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toListIteratorMap(ps, type, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toListIteratorMap(bindExecute(ps, bindObjects), type, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -917,8 +1168,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<String, V>, V> Iterator<Map<String, V>> toIteratorMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toIteratorMap(ps, type, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toIteratorMap(bindExecute(ps, bindObjects), type, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -931,8 +1182,8 @@ public class QueryMapper implements JdbcMapper {
 	public <T extends Map<String, V>, V> Map<String, V>[] toArrayMap(String sql, final Class<T> type, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toArrayMap(ps, type, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toArrayMap(bindExecute(ps, bindObjects), type, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -945,8 +1196,8 @@ public class QueryMapper implements JdbcMapper {
 	public <E extends Map<String, V>, V> List<Map<String, V>> toListMap(String sql, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toListMap(ps, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toListMap(bindExecute(ps, bindObjects), componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -959,8 +1210,8 @@ public class QueryMapper implements JdbcMapper {
 	public <K, E extends Map<String, V>, V> Map<K, Map<String, V>> toMapMap(String sql, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapMap(ps, mapKeyType, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapMap(bindExecute(ps, bindObjects), mapKeyType, componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -973,8 +1224,8 @@ public class QueryMapper implements JdbcMapper {
 	public <K, E extends Map<String, V>, V> Map<K, List<Map<String, V>>> toMapListMap(String sql, Class<K> mapKeyType, Class<E> componentType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapListMap(ps, mapKeyType, componentType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapListMap(bindExecute(ps, bindObjects), mapKeyType, componentType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -987,8 +1238,8 @@ public class QueryMapper implements JdbcMapper {
 	public <V> ListIterator<Map<String, V>> toListIteratorMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toListIteratorMap(ps, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toListIteratorMap(bindExecute(ps, bindObjects), mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -1001,8 +1252,8 @@ public class QueryMapper implements JdbcMapper {
 	public <V> Iterator<Map<String, V>> toIteratorMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toIteratorMap(ps, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toIteratorMap(bindExecute(ps, bindObjects), mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -1015,8 +1266,8 @@ public class QueryMapper implements JdbcMapper {
 	public <V> List<Map<String, V>> toListMap(String sql, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toListMap(ps, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toListMap(bindExecute(ps, bindObjects), mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -1029,8 +1280,8 @@ public class QueryMapper implements JdbcMapper {
 	public <K, V> Map<K, Map<String, V>> toMapMap(String sql, Class<K> mapKeyType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapMap(ps, mapKeyType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapMap(bindExecute(ps, bindObjects), mapKeyType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -1043,8 +1294,8 @@ public class QueryMapper implements JdbcMapper {
 	public <K, V> Map<K, List<Map<String, V>>> toMapListMap(String sql, Class<K> mapKeyType, Class<V> mapValType, final Object... bindObjects) throws SQLException {
 		PreparedStatement ps = null;
 		try {
-			ps = conn.prepareStatement(sql);
-			return this.toMapListMap(ps, mapKeyType, mapValType, bindObjects);
+			ps = prepareQuery(sql);
+			return mapperFor(sql).toMapListMap(bindExecute(ps, bindObjects), mapKeyType, mapValType);
 		} finally {
 			tryClose(ps);
 		}
@@ -20,12 +20,14 @@ package com.moparisthebest.jdbc;
  */
 
 import com.moparisthebest.jdbc.util.ResultSetIterable;
+import com.moparisthebest.jdbc.util.SegmentedLruCache;
 
 import java.lang.ref.SoftReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -108,6 +110,163 @@ public class ResultSetMapper implements RowMapperProvider {
 		}
 	}
 
+	/**
+	 * @return true if forSql returns a ResultSetMapper that caches how to map by SQL text, in which case QueryMapper
+	 * calls it with the SQL text of each query it maps
+	 */
+	public boolean cachesBySql() {
+		return false;
+	}
+
+	/**
+	 * Returns a ResultSetMapper that maps exactly like this one, but only for ResultSets executed from sql, so it can
+	 * look up how to map them by sql and returnType instead of reading ResultSetMetaData every time. This one doesn't
+	 * cache by SQL text, so it returns itself.
+	 *
+	 * @param sql    SQL text the ResultSets were executed from
+	 * @param schema catalog and schema sql runs against, as the same SQL text can return different columns in each
+	 * @see #getSchema(Connection)
+	 */
+	public ResultSetMapper forSql(final String sql, final String schema) {
+		return cachesBySql() ? new SqlResultSetMapper(this, sql, schema) : this;
+	}
+
+	/**
+	 * getRowMapper for a ResultSet executed from sql, ResultSetMappers that cache by SQL text override this as well as
+	 * getRowMapper, by default it ignores sql and schema.
+	 */
+	protected <K, T> RowMapper<K, T> getRowMapper(final String sql, final String schema, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType) {
+		return getRowMapper(resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+	}
+
+	/**
+	 * @return true unless a class between clazz and base overrides getRowMapper without overriding the SQL text
+	 * getRowMapper, in which case caching by SQL text would skip that override
+	 */
+	protected static boolean overridesSqlRowMapper(Class<?> clazz, final Class<?> base) {
+		for (; clazz != null && clazz != base; clazz = clazz.getSuperclass()) {
+			if (declares(clazz, ResultSet.class, Class.class, Calendar.class, Class.class, Class.class)
+					&& !declares(clazz, String.class, String.class, ResultSet.class, Class.class, Calendar.class, Class.class, Class.class))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean declares(final Class<?> clazz, final Class<?>... parameterTypes) {
+		try {
+			clazz.getDeclaredMethod("getRowMapper", parameterTypes);
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return catalog and schema of conn, to send to forSql, either part is empty if conn can't tell
+	 */
+	public static String getSchema(final Connection conn) {
+		String catalog = null, schema = null;
+		try {
+			catalog = conn.getCatalog();
+		} catch (Throwable e) {
+			// unsupported
+		}
+		//IFJAVA8_START
+		try {
+			schema = conn.getSchema();
+		} catch (Throwable e) {
+			// unsupported, or a JDBC 4.0 driver without getSchema()
+		}
+		//IFJAVA8_END
+		return (catalog == null ? "" : catalog) + '.' + (schema == null ? "" : schema);
+	}
+
+	/**
+	 * @return a Map for SqlKeys, bounded and/or thread-safe to match cache
+	 */
+	protected static <V> Map<SqlKey, V> newSqlCache(final Map<?, ?> cache) {
+		if (cache instanceof SegmentedLruCache)
+			return new SegmentedLruCache<SqlKey, V>(((SegmentedLruCache<?, ?>) cache).getMaxEntries());
+		return cache instanceof ConcurrentMap ? new ConcurrentHashMap<SqlKey, V>() : new HashMap<SqlKey, V>();
+	}
+
+	/**
+	 * SQL text and everything else that decides how its ResultSets are mapped
+	 */
+	public static class SqlKey {
+		protected final String sql, schema;
+		protected final Class<?> returnTypeClass, mapKeyType;
+		protected final boolean hasCalendar;
+		private final int hashCode;
+
+		public SqlKey(final String sql, final String schema, final Class<?> returnTypeClass, final Class<?> mapKeyType, final boolean hasCalendar) {
+			this.sql = sql;
+			this.schema = schema;
+			this.returnTypeClass = returnTypeClass;
+			this.mapKeyType = mapKeyType;
+			this.hasCalendar = hasCalendar;
+			int result = sql.hashCode();
+			result = 31 * result + (schema != null ? schema.hashCode() : 0);
+			result = 31 * result + returnTypeClass.hashCode();
+			result = 31 * result + (mapKeyType != null ? mapKeyType.hashCode() : 0);
+			this.hashCode = 31 * result + (hasCalendar ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) return true;
+			if (!(o instanceof SqlKey)) return false;
+			final SqlKey that = (SqlKey) o;
+			return hashCode == that.hashCode
+					&& hasCalendar == that.hasCalendar
+					&& returnTypeClass == that.returnTypeClass
+					&& mapKeyType == that.mapKeyType
+					&& sql.equals(that.sql)
+					&& (schema != null ? schema.equals(that.schema) : that.schema == null);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public String toString() {
+			return "SqlKey{" +
+					"sql='" + sql + '\'' +
+					", schema='" + schema + '\'' +
+					", returnTypeClass=" + returnTypeClass +
+					", mapKeyType=" + mapKeyType +
+					", hasCalendar=" + hasCalendar +
+					'}';
+		}
+	}
+
+	/**
+	 * Maps like parent, sending sql and schema along to its getRowMapper
+	 */
+	private static final class SqlResultSetMapper extends ResultSetMapper {
+		private final ResultSetMapper parent;
+		private final String sql, schema;
+
+		private SqlResultSetMapper(final ResultSetMapper parent, final String sql, final String schema) {
+			super(parent.cal, parent.arrayMaxLength);
+			this.parent = parent;
+			this.sql = sql;
+			this.schema = schema;
+		}
+
+		@Override
+		public <K, T> RowMapper<K, T> getRowMapper(final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+			return parent.getRowMapper(sql, schema, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+		}
+
+		@Override
+		public ResultSetMapper forSql(final String sql, final String schema) {
+			return parent.forSql(sql, schema);
+		}
+	}
+
 	private final Calendar cal;
 	private final int arrayMaxLength;
 
@@ -185,14 +344,18 @@ public class ResultSetMapper implements RowMapperProvider {
 
 			final RowMapper<?, E> rowMapper = getRowMapper(rs, componentType, cal, mapValType, null);
 
-			for (; (unlimitedRows || numRows != arrayMaxLength) && rs.next(); ++numRows) {
-				E object = rowMapper.mapRowToReturnType();
-
-				list = softList.get();
-				if (list == null)
-					throw new OutOfMemoryError();
-				list.add(object);
-				list = null;
+			if (rowMapper instanceof LoopingRowMapper) {
+				numRows = ((LoopingRowMapper<?, E>) rowMapper).toCollection(softList, arrayMaxLength);
+			} else {
+				for (; (unlimitedRows || numRows != arrayMaxLength) && rs.next(); ++numRows) {
+					E object = rowMapper.mapRowToReturnType();
+
+					list = softList.get();
+					if (list == null)
+						throw new OutOfMemoryError();
+					list.add(object);
+					list = null;
+				}
 			}
 
 			if (!unlimitedRows)
@@ -264,15 +427,19 @@ public class ResultSetMapper implements RowMapperProvider {
 
 			final RowMapper<K, E> rowMapper = getRowMapper(rs, componentType, cal, mapValType, mapKeyType);
 
-			for (; (unlimitedRows || numRows != arrayMaxLength) && rs.next(); ++numRows) {
-				K key = rowMapper.getMapKey();
-				E value = rowMapper.mapRowToReturnType();
-
-				map = softMap.get();
-				if (map == null)
-					throw new OutOfMemoryError();
-				map.put(key, value);
-				map = null;
+			if (rowMapper instanceof LoopingRowMapper) {
+				numRows = ((LoopingRowMapper<K, E>) rowMapper).toMap(softMap, arrayMaxLength);
+			} else {
+				for (; (unlimitedRows || numRows != arrayMaxLength) && rs.next(); ++numRows) {
+					K key = rowMapper.getMapKey();
+					E value = rowMapper.mapRowToReturnType();
+
+					map = softMap.get();
+					if (map == null)
+						throw new OutOfMemoryError();
+					map.put(key, value);
+					map = null;
+				}
 			}
 
 			if (!unlimitedRows)
@@ -345,20 +512,24 @@ public class ResultSetMapper implements RowMapperProvider {
 
 			final RowMapper<K, C> rowMapper = getRowMapper(rs, componentType, cal, mapValType, mapKeyType);
 
-			for (; (unlimitedRows || numRows != arrayMaxLength) && rs.next(); ++numRows) {
-				K key = rowMapper.getMapKey();
-				C value = rowMapper.mapRowToReturnType();
-
-				map = softMap.get();
-				if (map == null)
-					throw new OutOfMemoryError();
-				E list = map.get(key);
-				if(list == null){
-					list = instantiateClass(collectionType, ArrayList.class);
-					map.put(key, list);
+			if (rowMapper instanceof LoopingRowMapper) {
+				numRows = ((LoopingRowMapper<K, C>) rowMapper).toMapCollection(softMap, collectionType, arrayMaxLength);
+			} else {
+				for (; (unlimitedRows || numRows != arrayMaxLength) && rs.next(); ++numRows) {
+					K key = rowMapper.getMapKey();
+					C value = rowMapper.mapRowToReturnType();
+
+					map = softMap.get();
+					if (map == null)
+						throw new OutOfMemoryError();
+					E list = map.get(key);
+					if(list == null){
+						list = instantiateClass(collectionType, ArrayList.class);
+						map.put(key, list);
+					}
+					list.add(value);
+					map = null;
 				}
-				list.add(value);
-				map = null;
 			}
 
 			if (!unlimitedRows)
@@ -509,6 +680,9 @@ public class ResultSetMapper implements RowMapperProvider {
 			return toStream(rs, (Class) type.getActualTypeArguments()[0], cal);
 		}
 		//IFJAVA8_END
+		else if(ColumnarResult.class.isAssignableFrom(returnType)) {
+			return toColumns(rs, arrayMaxLength, cal);
+		}
 		else if(ResultSet.class.isAssignableFrom(returnType)) {
 			return rs; // odd, we didn't do much, but oh well
 		} else {
@@ -586,6 +760,22 @@ public class ResultSetMapper implements RowMapperProvider {
 		return privToList(rs, componentType, arrayMaxLength, cal, null);
 	}
 
+	/**
+	 * Returns a ColumnarResult, each column stored in one primitive or dictionary-encoded array instead of an object per row
+	 */
+	public ColumnarResult toColumns(ResultSet rs, int arrayMaxLength, Calendar cal) {
+		try {
+			final ColumnarResult ret = ColumnarResult.from(rs, arrayMaxLength, cal);
+			if (arrayMaxLength > 0)
+				warnOnMaxLength(ret.size(), arrayMaxLength, rs);
+			return ret;
+		} catch (SQLException e) {
+			throw new MapperException(e.getMessage(), e);
+		} finally {
+			tryClose(rs);
+		}
+	}
+
 	/**
 	 * Returns a simple Map of mapKeyType -> componentType
 	 */
@@ -869,6 +1059,18 @@ public class ResultSetMapper implements RowMapperProvider {
 		return this.toList(rs, componentType, arrayMaxLength, cal);
 	}
 
+	public ColumnarResult toColumns(ResultSet rs) {
+		return this.toColumns(rs, arrayMaxLength, cal);
+	}
+
+	public ColumnarResult toColumns(ResultSet rs, int arrayMaxLength) {
+		return this.toColumns(rs, arrayMaxLength, cal);
+	}
+
+	public ColumnarResult toColumns(ResultSet rs, Calendar cal) {
+		return this.toColumns(rs, arrayMaxLength, cal);
+	}
+
 	public <K, E> Map<K, E> toMap(ResultSet rs, Class<K> mapKeyType, Class<E> componentType) {
 		return this.toMap(rs, mapKeyType, componentType, arrayMaxLength, cal);
 	}
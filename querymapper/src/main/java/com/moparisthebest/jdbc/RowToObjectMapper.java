@@ -111,22 +111,30 @@ public class RowToObjectMapper<K, T> extends AbstractRowMapper<K, T> {
 	public RowToObjectMapper(String[] keys, ResultSet resultSet, Class<T> returnTypeClass, Calendar cal, Class<?> mapValType, Class<K> mapKeyType, boolean caseInsensitiveMap) {
 		super(keys, resultSet, returnTypeClass, cal, mapKeyType);
 		returnMap = Map.class.isAssignableFrom(returnTypeClass);
+		_returnTypeClass = getMappedReturnType(returnTypeClass, caseInsensitiveMap);
 		if(returnMap){
-			Class<? extends T> rtc = ResultSetMapper.getConcreteClass(returnTypeClass, HashMap.class);
-			if(caseInsensitiveMap && HashMap.class.equals(rtc)) {
-				@SuppressWarnings("unchecked")
-				final Class<? extends T> rtct = (Class<? extends T>) CaseInsensitiveHashMap.class;
-				rtc = rtct;
-			}
-			_returnTypeClass = rtc;
 			componentType = mapValType;
 		}else{
-			_returnTypeClass = returnTypeClass;
 			// detect if we want an array back
 			componentType = returnTypeClass.getComponentType();
 		}
 	}
 
+	/**
+	 * @return the class actually instantiated for returnTypeClass, the concrete Map class if it is a Map
+	 */
+	protected static <T> Class<? extends T> getMappedReturnType(final Class<T> returnTypeClass, final boolean caseInsensitiveMap) {
+		if(!Map.class.isAssignableFrom(returnTypeClass))
+			return returnTypeClass;
+		Class<? extends T> rtc = ResultSetMapper.getConcreteClass(returnTypeClass, HashMap.class);
+		if(caseInsensitiveMap && HashMap.class.equals(rtc)) {
+			@SuppressWarnings("unchecked")
+			final Class<? extends T> rtct = (Class<? extends T>) CaseInsensitiveHashMap.class;
+			rtc = rtct;
+		}
+		return rtc;
+	}
+
 	protected void lazyLoadConstructor() throws SQLException {
 		if(constructorLoaded)
 			return;
@@ -352,13 +360,17 @@ public class RowToObjectMapper<K, T> extends AbstractRowMapper<K, T> {
 
 		for (int i = 1; i < _fields.length; i++) {
 			AccessibleObject f = _fields[i];
+			// only set when the value was boxed, so the error below never reports the previous column's value
+			Object value = null;
 
 			try {
-				_args[0] = extractColumnValue(i, _fieldTypes[i], _fieldClasses[i]);
-				//System.out.printf("field: '%s' obj: '%s' fieldType: '%s'\n", _fields[i], _args[0], _fieldTypes[i]);
 				if (f instanceof Field) {
-					((Field) f).set(resultObject, _args[0]);
+					if (!setPrimitiveField((Field) f, resultObject, i, _fieldTypes[i])) {
+						value = extractColumnValue(i, _fieldTypes[i], _fieldClasses[i]);
+						((Field) f).set(resultObject, value);
+					}
 				} else {
+					_args[0] = value = extractColumnValue(i, _fieldTypes[i], _fieldClasses[i]);
 					((Method) f).invoke(resultObject, _args);
 				}
 			} catch (SQLException e) {
@@ -372,13 +384,13 @@ public class RowToObjectMapper<K, T> extends AbstractRowMapper<K, T> {
 								+ ((Field) f).getType().toString()
 								+ " is incompatible with the SQL format of column " + i + " '" + md.getColumnLabel(i)
 								+ "' (" + md.getColumnTypeName(i)
-								+ ") which returns objects of type " + _args[0].getClass().getName());
+								+ ") which returns " + describeValue(value));
 					} else {
 						throw new MapperException("The declared Java type for method " + ((Method) f).getName()
 								+ ((Method) f).getParameterTypes()[0].toString()
 								+ " is incompatible with the SQL format of column " + i + " '" + md.getColumnLabel(i)
 								+ "' (" + md.getColumnTypeName(i)
-								+ ") which returns objects of type " + _args[0].getClass().getName());
+								+ ") which returns " + describeValue(value));
 					}
 				} catch (SQLException e) {
 					throw new MapperException(e.getMessage(), e);
@@ -392,6 +404,8 @@ public class RowToObjectMapper<K, T> extends AbstractRowMapper<K, T> {
 				}
 			} catch (InvocationTargetException e) {
 				throw new MapperException("InvocationTargetException when trying to access method " + ((Method) f).getName(), e);
+			} finally {
+				_args[0] = null;
 			}
 		}
 		// if this resultObject is Finishable, call finish()
@@ -599,6 +613,44 @@ public class RowToObjectMapper<K, T> extends AbstractRowMapper<K, T> {
 		return false;
 	}
 
+	private static String describeValue(final Object value) {
+		return value == null ? "null" : "objects of type " + value.getClass().getName();
+	}
+
+	/**
+	 * Set a primitive field straight from the ResultSet, without boxing the value and having Field.set unbox it again.
+	 *
+	 * @param index The column index of the value to extract from the ResultSet.
+	 * @param resultType The field type. Defined in TypeMappingsFactory.
+	 * @return true if the field was set, false if resultType isn't handled here and nothing was done
+	 * @throws java.sql.SQLException on error.
+	 */
+	protected boolean setPrimitiveField(final Field field, final Object resultObject, final int index, final int resultType) throws SQLException, IllegalAccessException {
+		switch (resultType) {
+			case TypeMappingsFactory.TYPE_INT:
+				field.setInt(resultObject, _resultSet.getInt(index));
+				return true;
+			case TypeMappingsFactory.TYPE_LONG:
+				field.setLong(resultObject, _resultSet.getLong(index));
+				return true;
+			case TypeMappingsFactory.TYPE_FLOAT:
+				field.setFloat(resultObject, _resultSet.getFloat(index));
+				return true;
+			case TypeMappingsFactory.TYPE_DOUBLE:
+				field.setDouble(resultObject, _resultSet.getDouble(index));
+				return true;
+			case TypeMappingsFactory.TYPE_BYTE:
+				field.setByte(resultObject, _resultSet.getByte(index));
+				return true;
+			case TypeMappingsFactory.TYPE_SHORT:
+				field.setShort(resultObject, _resultSet.getShort(index));
+				return true;
+			default:
+				// booleans have special string handling in extractColumnValue, and Boolean.TRUE/FALSE are never allocated anyway
+				return false;
+		}
+	}
+
 	/**
 	 * Extract a column value from the ResultSet and return it as resultType.
 	 *
@@ -611,46 +663,46 @@ public class RowToObjectMapper<K, T> extends AbstractRowMapper<K, T> {
 		try{
 			switch (resultType) {
 				case TypeMappingsFactory.TYPE_INT:
-					return new Integer(_resultSet.getInt(index));
+					return Integer.valueOf(_resultSet.getInt(index));
 				case TypeMappingsFactory.TYPE_LONG:
-					return new Long(_resultSet.getLong(index));
+					return Long.valueOf(_resultSet.getLong(index));
 				case TypeMappingsFactory.TYPE_FLOAT:
-					return new Float(_resultSet.getFloat(index));
+					return Float.valueOf(_resultSet.getFloat(index));
 				case TypeMappingsFactory.TYPE_DOUBLE:
-					return new Double(_resultSet.getDouble(index));
+					return Double.valueOf(_resultSet.getDouble(index));
 				case TypeMappingsFactory.TYPE_BYTE:
-					return new Byte(_resultSet.getByte(index));
+					return Byte.valueOf(_resultSet.getByte(index));
 				case TypeMappingsFactory.TYPE_SHORT:
-					return new Short(_resultSet.getShort(index));
+					return Short.valueOf(_resultSet.getShort(index));
 				case TypeMappingsFactory.TYPE_INT_OBJ:
 				{
 					int i = _resultSet.getInt(index);
-					return _resultSet.wasNull() ? null : new Integer(i);
+					return _resultSet.wasNull() ? null : Integer.valueOf(i);
 				}
 				case TypeMappingsFactory.TYPE_LONG_OBJ:
 				{
 					long i = _resultSet.getLong(index);
-					return _resultSet.wasNull() ? null : new Long(i);
+					return _resultSet.wasNull() ? null : Long.valueOf(i);
 				}
 				case TypeMappingsFactory.TYPE_FLOAT_OBJ:
 				{
 					float i = _resultSet.getFloat(index);
-					return _resultSet.wasNull() ? null : new Float(i);
+					return _resultSet.wasNull() ? null : Float.valueOf(i);
 				}
 				case TypeMappingsFactory.TYPE_DOUBLE_OBJ:
 				{
 					double i = _resultSet.getDouble(index);
-					return _resultSet.wasNull() ? null : new Double(i);
+					return _resultSet.wasNull() ? null : Double.valueOf(i);
 				}
 				case TypeMappingsFactory.TYPE_BYTE_OBJ:
 				{
 					byte i = _resultSet.getByte(index);
-					return _resultSet.wasNull() ? null : new Byte(i);
+					return _resultSet.wasNull() ? null : Byte.valueOf(i);
 				}
 				case TypeMappingsFactory.TYPE_SHORT_OBJ:
 				{
 					short i = _resultSet.getShort(index);
-					return _resultSet.wasNull() ? null : new Short(i);
+					return _resultSet.wasNull() ? null : Short.valueOf(i);
 				}
 
 				case TypeMappingsFactory.TYPE_BOOLEAN:
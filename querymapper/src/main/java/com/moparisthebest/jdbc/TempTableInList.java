@@ -0,0 +1,371 @@
+package com.moparisthebest.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+
+/**
+ * Batch inserts values into a temporary table scoped to the connection's session, and selects from it, for lists far
+ * too long to bind one parameter each, like (column IN (SELECT n FROM jdbcmapper_in_list WHERE id = ?))
+ * <p>
+ * The table is created the first time it's needed on each physical connection, with columns id, n for numbers, and s
+ * for Strings, a list must be all one or the other. Each list gets its own id, which is released once QueryMapper has
+ * executed a statement bound with it, or that failed, or the InListObject holding it has been garbage collected. The
+ * rows of released ids are deleted the next time a list is made on that connection, so the table only holds the lists
+ * not yet run, and the last ones that were. Which means each list is good for one statement, binding it again throws,
+ * and that statement's ResultSet has to be read before the next list is made on the same connection.
+ * <p>
+ * If the table goes missing, like when the transaction that created it is rolled back, it is created again. On Oracle
+ * creating it commits, so better to create it ahead of time.
+ * <p>
+ * OptimalInList only uses this when asked to, see OptimalInList.withTempTable.
+ */
+public class TempTableInList implements PrimitiveInList {
+
+	public static final int defaultBatchSize = Integer.parseInt(System.getProperty("QueryMapper.TempTableInList.defaultBatchSize", "1000"));
+
+	protected static final String columns = "(id INTEGER, n DECIMAL(31,6), s VARCHAR(4000))";
+
+	public static final TempTableInList derby = new TempTableInList("SESSION.jdbcmapper_in_list",
+			"DECLARE GLOBAL TEMPORARY TABLE SESSION.jdbcmapper_in_list " + columns + " ON COMMIT PRESERVE ROWS NOT LOGGED");
+	public static final TempTableInList hsql = new TempTableInList("MODULE.jdbcmapper_in_list",
+			"DECLARE LOCAL TEMPORARY TABLE jdbcmapper_in_list " + columns + " ON COMMIT PRESERVE ROWS");
+	// h2 finds nothing IN a subquery of a different scale, unqualified NUMERIC at least matches integer columns
+	public static final TempTableInList h2 = new TempTableInList("jdbcmapper_in_list",
+			"CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS jdbcmapper_in_list (id INTEGER, n NUMERIC, s VARCHAR(4000))");
+	public static final TempTableInList oracle = new TempTableInList("jdbcmapper_in_list",
+			"CREATE GLOBAL TEMPORARY TABLE jdbcmapper_in_list " + columns + " ON COMMIT PRESERVE ROWS");
+	public static final TempTableInList mssql = new TempTableInList("#jdbcmapper_in_list",
+			"CREATE TABLE #jdbcmapper_in_list " + columns);
+	/**
+	 * PostgreSQL, MySQL, MariaDB, SQLite, and anything else that understands this
+	 */
+	public static final TempTableInList standard = new TempTableInList("jdbcmapper_in_list",
+			"CREATE TEMPORARY TABLE IF NOT EXISTS jdbcmapper_in_list " + columns);
+
+	private static final InList instance = new TempTableInList();
+
+	/**
+	 * @return an instance that picks one of the above by the database product name of each connection
+	 */
+	public static InList instance() {
+		return instance;
+	}
+
+	public static TempTableInList forConnection(final Connection conn) throws SQLException {
+		final String productName = conn.getMetaData().getDatabaseProductName();
+		if (productName == null)
+			return standard;
+		if (productName.startsWith("Apache Derby"))
+			return derby;
+		if (productName.startsWith("HSQL"))
+			return hsql;
+		if (productName.startsWith("H2"))
+			return h2;
+		if (productName.startsWith("Oracle"))
+			return oracle;
+		if (productName.startsWith("Microsoft SQL Server"))
+			return mssql;
+		return standard;
+	}
+
+	protected final String tableName, createTableSql;
+	protected final int batchSize;
+
+	private final Map<Connection, Session> sessions = new WeakHashMap<Connection, Session>();
+
+	/**
+	 * @param tableName      name to select from and insert into
+	 * @param createTableSql creates tableName with columns (id INTEGER, n numeric type, s string type), if it throws
+	 *                       the table is assumed to exist already, unless deleting from it then throws too
+	 * @param batchSize      number of rows inserted per executeBatch()
+	 */
+	public TempTableInList(final String tableName, final String createTableSql, final int batchSize) {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("batchSize must be > 0");
+		this.tableName = tableName;
+		this.createTableSql = createTableSql;
+		this.batchSize = batchSize;
+	}
+
+	public TempTableInList(final String tableName, final String createTableSql) {
+		this(tableName, createTableSql, defaultBatchSize);
+	}
+
+	protected TempTableInList() {
+		this(null, null);
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	@Override
+	public InList instance(final Connection conn) {
+		if (tableName != null)
+			return this;
+		try {
+			return forConnection(conn);
+		} catch (SQLException e) {
+			return standard;
+		}
+	}
+
+	public <T> InListObject inList(final Connection conn, final String columnName, final Collection<T> values) throws SQLException {
+		return values == null || values.isEmpty() ? InListObject.inEmpty : inList(conn, columnName, valueColumn(values), values, values.size(), false);
+	}
+
+	public <T> InListObject notInList(final Connection conn, final String columnName, final Collection<T> values) throws SQLException {
+		return values == null || values.isEmpty() ? InListObject.notInEmpty : inList(conn, columnName, valueColumn(values), values, values.size(), true);
+	}
+
+	/**
+	 * @throws IllegalArgumentException unless the non-null values are all Numbers or all Strings
+	 */
+	protected <T> String valueColumn(final Collection<T> values) {
+		String ret = null;
+		for (final T value : values) {
+			if (value == null)
+				continue;
+			final String column = value instanceof Number ? "n" : value instanceof String ? "s" : null;
+			if (column == null)
+				throw new IllegalArgumentException("TempTableInList only supports Numbers and Strings, not " + value.getClass().getName());
+			if (ret == null)
+				ret = column;
+			else if (!ret.equals(column))
+				throw new IllegalArgumentException("TempTableInList values must be all Numbers or all Strings, not both");
+		}
+		// all null, matches nothing either way
+		return ret == null ? "n" : ret;
+	}
+
+	public InListObject inList(final Connection conn, final String columnName, final long[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.inEmpty : inList(conn, columnName, "n", values, values.length, false);
+	}
+
+	public InListObject notInList(final Connection conn, final String columnName, final long[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.notInEmpty : inList(conn, columnName, "n", values, values.length, true);
+	}
+
+	public InListObject inList(final Connection conn, final String columnName, final int[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.inEmpty : inList(conn, columnName, "n", values, values.length, false);
+	}
+
+	public InListObject notInList(final Connection conn, final String columnName, final int[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.notInEmpty : inList(conn, columnName, "n", values, values.length, true);
+	}
+
+	public InListObject inList(final Connection conn, final String columnName, final String[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.inEmpty : inList(conn, columnName, "s", values, values.length, false);
+	}
+
+	public InListObject notInList(final Connection conn, final String columnName, final String[] values) throws SQLException {
+		return values == null || values.length == 0 ? InListObject.notInEmpty : inList(conn, columnName, "s", values, values.length, true);
+	}
+
+	private InListObject inList(final Connection conn, final String columnName, final String valueColumn, final Object values, final int size, final boolean not) throws SQLException {
+		final TempTableInList instance = (TempTableInList) instance(conn);
+		final Session session = instance.getSession(conn);
+		synchronized (session) {
+			final int id = session.nextId();
+			final TempTableInListObject ret = new TempTableInListObject(
+					"(" + columnName + (not ? " NOT IN" : " IN") + " (SELECT " + valueColumn + " FROM " + instance.tableName + " WHERE id = ?))",
+					id
+			);
+			instance.insert(conn, session, id, valueColumn, values, size);
+			// only once the rows are in, if inserting threw the id is free again
+			session.lists.set(id, new WeakReference<TempTableInListObject>(ret));
+			return ret;
+		}
+	}
+
+	/**
+	 * @param values a Collection, long[], int[], or String[]
+	 */
+	protected void insert(final Connection conn, final Session session, final int id, final String valueColumn, final Object values, final int size) throws SQLException {
+		// it may exist already, deleting says for sure
+		SQLException createFailed = session.created ? null : createTable(conn);
+		try {
+			deleteRows(conn, id);
+		} catch (SQLException e) {
+			if (!session.created)
+				throw createFailed(createFailed, e);
+			// it was there before, so it went away, probably with a rolled back transaction
+			session.created = false;
+			createFailed = createTable(conn);
+			try {
+				deleteRows(conn, id);
+			} catch (SQLException e2) {
+				throw createFailed(createFailed, e2);
+			}
+		}
+		session.created = true;
+		// rows of the lists already run, or no longer reachable
+		for (int released = 0; released < session.lists.size(); ++released)
+			if (released != id && session.isReleased(released)) {
+				deleteRows(conn, released);
+				session.lists.set(released, null);
+			}
+		PreparedStatement ps = null;
+		try {
+			ps = conn.prepareStatement("INSERT INTO " + tableName + " (id, " + valueColumn + ") VALUES (?, ?)");
+			final Iterator<?> it = values instanceof Collection ? ((Collection<?>) values).iterator() : null;
+			final int nullType = valueColumn.equals("n") ? Types.DECIMAL : Types.VARCHAR;
+			int count = 0;
+			for (int x = 0; x < size; ++x) {
+				ps.setInt(1, id);
+				if (it != null) {
+					final Object value = it.next();
+					if (value == null)
+						ps.setNull(2, nullType);
+					else
+						ps.setObject(2, value);
+				} else if (values instanceof long[])
+					ps.setLong(2, ((long[]) values)[x]);
+				else if (values instanceof int[])
+					ps.setInt(2, ((int[]) values)[x]);
+				else
+					ps.setString(2, ((String[]) values)[x]);
+				ps.addBatch();
+				if (++count == batchSize) {
+					ps.executeBatch();
+					count = 0;
+				}
+			}
+			if (count != 0)
+				ps.executeBatch();
+		} finally {
+			tryClose(ps);
+		}
+	}
+
+	private void deleteRows(final Connection conn, final int id) throws SQLException {
+		PreparedStatement ps = null;
+		try {
+			ps = conn.prepareStatement("DELETE FROM " + tableName + " WHERE id = ?");
+			ps.setInt(1, id);
+			ps.executeUpdate();
+		} finally {
+			tryClose(ps);
+		}
+	}
+
+	/**
+	 * @return null if it was created, otherwise why not, probably because it already exists in this session
+	 */
+	protected SQLException createTable(final Connection conn) {
+		Statement s = null;
+		try {
+			s = conn.createStatement();
+			s.execute(createTableSql);
+			return null;
+		} catch (SQLException e) {
+			return e;
+		} finally {
+			tryClose(s);
+		}
+	}
+
+	/**
+	 * @return createFailed, with deleteFailed chained to it, if creating the table threw, since that is the real problem
+	 */
+	private static SQLException createFailed(final SQLException createFailed, final SQLException deleteFailed) {
+		if (createFailed == null)
+			return deleteFailed;
+		createFailed.setNextException(deleteFailed);
+		return createFailed;
+	}
+
+	protected Session getSession(final Connection conn) {
+		// temporary tables belong to the physical connection, not whatever a pool hands out wrapping it
+		Connection physical = conn;
+		try {
+			if (conn.isWrapperFor(Connection.class)) {
+				final Connection unwrapped = conn.unwrap(Connection.class);
+				if (unwrapped != null)
+					physical = unwrapped;
+			}
+		} catch (Throwable e) {
+			// ignore, SQLException, or AbstractMethodError from pre-JDBC 4 drivers
+		}
+		synchronized (sessions) {
+			Session ret = sessions.get(physical);
+			if (ret == null)
+				sessions.put(physical, ret = new Session());
+			return ret;
+		}
+	}
+
+	protected static class Session {
+		boolean created;
+		/**
+		 * index is the id, null once its rows are deleted
+		 */
+		final List<WeakReference<TempTableInListObject>> lists = new ArrayList<WeakReference<TempTableInListObject>>();
+
+		/**
+		 * @return true if id has rows nothing can bind anymore
+		 */
+		boolean isReleased(final int id) {
+			final WeakReference<TempTableInListObject> ref = lists.get(id);
+			if (ref == null)
+				return false;
+			final TempTableInListObject list = ref.get();
+			return list == null || list.isReleased();
+		}
+
+		/**
+		 * @return the lowest id not held by a TempTableInListObject that can still be bound
+		 */
+		int nextId() {
+			for (int id = 0; id < lists.size(); ++id)
+				if (lists.get(id) == null || isReleased(id))
+					return id;
+			lists.add(null);
+			return lists.size() - 1;
+		}
+	}
+
+	class TempTableInListObject extends InListObject implements ExecutionObserver {
+		private final int id;
+		private volatile boolean released;
+
+		public TempTableInListObject(final String sql, final int id) {
+			super(sql);
+			this.id = id;
+			this.observer = this;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * @return true once a statement bound with this has executed or failed, its id may since hold another list
+		 */
+		public boolean isReleased() {
+			return released;
+		}
+
+		@Override
+		public void executed(final long nanos) {
+			released = true;
+		}
+
+		@Override
+		public void failed() {
+			released = true;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.util.CacheUtil;
+import com.moparisthebest.jdbc.util.SegmentedLruCache;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This is a tiered CompilingResultSetMapper, much like a JIT, it never compiles on the calling thread.
+ * <p>
+ * Until a query/dto has been compiled it is mapped with CachingRowToObjectMapper, once it has been mapped
+ * compileThreshold times compilation is queued on a bounded background executor, and when done the compiled class is
+ * published into the Cache, where all later calls pick it up. If the queue is full, compilation is tried again after
+ * another compileThreshold hits. If compilation fails (non-public fields without allowReflection for instance) that is
+ * remembered and it is not tried again, mapping stays on reflection, the cause is logged once at FINE so a codegen
+ * bug doesn't only show up as slower mapping.
+ * <p>
+ * The reflection mappings, hit counts, and failures are each kept in a SegmentedLruCache of maxEntries, so dynamic SQL
+ * can't grow them forever, a hit count is dropped as soon as its query/dto is compiled or fails.
+ * <p>
+ * The Cache is read and written from multiple threads, so if you send in your own it must be backed by a ConcurrentMap,
+ * by default a ConcurrentHashMap is used.
+ *
+ * @see CompilingResultSetMapper
+ * @see CompilingRowToObjectMapper
+ */
+public class TieredCompilingResultSetMapper extends CompilingResultSetMapper {
+
+	public static final int DEFAULT_COMPILE_THRESHOLD = 1, DEFAULT_QUEUE_SIZE = 64;
+	public static final int DEFAULT_MAX_ENTRIES = Integer.parseInt(System.getProperty("QueryMapper.TieredCompilingResultSetMapper.maxEntries", "512"));
+
+	protected final Map<CachingRowToObjectMapper.ResultSetKey, CachingRowToObjectMapper.FieldMapping<?>> reflectionCache;
+	protected final ConcurrentMap<CompilingRowToObjectMapper.ResultSetKey, AtomicInteger> hits;
+	protected final Map<CompilingRowToObjectMapper.ResultSetKey, Boolean> failed;
+	protected final int compileThreshold;
+	protected final ExecutorService executor;
+
+	protected static final Logger log = Logger.getLogger(TieredCompilingResultSetMapper.class.getName());
+
+	/**
+	 * @param cal              optional calendar for date/time values
+	 * @param arrayMaxLength   max array/list/map length, a value of less than 1 indicates that all rows from the ResultSet should be included
+	 * @param cache            cache backed by a ConcurrentMap, null means a new ConcurrentHashMap without allowReflection
+	 * @param compileThreshold number of times a query/dto is mapped with reflection before it is queued for compilation
+	 * @param executor         executor to compile on, null means a single daemon thread with a queue of DEFAULT_QUEUE_SIZE
+	 * @param maxEntries       max entries kept in each of the reflection mapping, hit count, and failure caches, must be > 0
+	 */
+	public TieredCompilingResultSetMapper(final Calendar cal, final int arrayMaxLength, final CompilingRowToObjectMapper.Cache cache, final int compileThreshold, final ExecutorService executor, final int maxEntries) {
+		super(cal, arrayMaxLength, cache == null ? newCache() : cache);
+		if (!this.cache.isThreadSafe())
+			throw new IllegalArgumentException("cache must be backed by a ConcurrentMap");
+		this.compileThreshold = compileThreshold < 1 ? 1 : compileThreshold;
+		this.executor = executor == null ? newExecutor(DEFAULT_QUEUE_SIZE) : executor;
+		this.reflectionCache = new SegmentedLruCache<CachingRowToObjectMapper.ResultSetKey, CachingRowToObjectMapper.FieldMapping<?>>(maxEntries);
+		this.hits = new SegmentedLruCache<CompilingRowToObjectMapper.ResultSetKey, AtomicInteger>(maxEntries);
+		this.failed = new SegmentedLruCache<CompilingRowToObjectMapper.ResultSetKey, Boolean>(maxEntries);
+	}
+
+	public TieredCompilingResultSetMapper(final Calendar cal, final int arrayMaxLength, final CompilingRowToObjectMapper.Cache cache, final int compileThreshold, final ExecutorService executor) {
+		this(cal, arrayMaxLength, cache, compileThreshold, executor, DEFAULT_MAX_ENTRIES);
+	}
+
+	public TieredCompilingResultSetMapper(final CompilingRowToObjectMapper.Cache cache, final int compileThreshold) {
+		this(null, -1, cache, compileThreshold, null);
+	}
+
+	public TieredCompilingResultSetMapper(final CompilingRowToObjectMapper.Cache cache) {
+		this(cache, DEFAULT_COMPILE_THRESHOLD);
+	}
+
+	public TieredCompilingResultSetMapper() {
+		this(null);
+	}
+
+	public static CompilingRowToObjectMapper.Cache newCache() {
+		return new CompilingRowToObjectMapper.Cache(CacheUtil.<CompilingRowToObjectMapper.ResultSetKey, CompilingRowToObjectMapper.ResultSetToObject<?, ?>>getCache(true));
+	}
+
+	/**
+	 * @return an executor with a single daemon thread, which goes away when idle, and a queue of queueSize tasks
+	 */
+	public static ExecutorService newExecutor(final int queueSize) {
+		final ThreadPoolExecutor ret = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread ret = new Thread(r, "TieredCompilingResultSetMapper");
+				ret.setDaemon(true);
+				return ret;
+			}
+		});
+		ret.allowCoreThreadTimeOut(true);
+		return ret;
+	}
+
+	@Override
+	public <K, T> RowMapper<K, T> getRowMapper(final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+		final CompilingRowToObjectMapper.ResultSetKey key;
+		try {
+			key = new CompilingRowToObjectMapper.ResultSetKey(AbstractRowMapper.getKeysFromResultSet(resultSet), RowToObjectMapper.getMappedReturnType(returnTypeClass, false), mapKeyType, cal != null);
+		} catch (SQLException e) {
+			throw new MapperException("TieredCompilingResultSetMapper: SQLException: " + e.getMessage(), e);
+		}
+		return getTieredRowMapper(key, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+	}
+
+	@Override
+	protected <K, T> RowMapper<K, T> getRowMapper(final String sql, final String schema, final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+		return getTieredRowMapper(cache.getResultSetKey(sql, schema, resultSet, returnTypeClass, cal, mapKeyType), resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+	}
+
+	protected <K, T> RowMapper<K, T> getTieredRowMapper(final CompilingRowToObjectMapper.ResultSetKey key, final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+		if (cache.get(key) != null)
+			return new CompilingRowToObjectMapper<K, T>(compiler, cache, key, resultSet, returnTypeClass, cal, mapValType, mapKeyType, false);
+		final CachingRowToObjectMapper<K, T> reflective = new CachingRowToObjectMapper<K, T>(reflectionCache, key, resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+		if (failed.get(key) != null)
+			return reflective;
+
+		AtomicInteger count = hits.get(key);
+		if (count == null) {
+			final AtomicInteger newCount = new AtomicInteger();
+			count = hits.putIfAbsent(key, newCount);
+			if (count == null)
+				count = newCount;
+		}
+		if (count.incrementAndGet() == compileThreshold)
+			queueCompile(key, count, returnTypeClass, cal, mapValType, mapKeyType);
+		return reflective;
+	}
+
+	protected <K, T> void queueCompile(final CompilingRowToObjectMapper.ResultSetKey key, final AtomicInteger count, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						// the cache is single-flight and compiler is a CompilerPool, so this is safe from any number of threads
+						new CompilingRowToObjectMapper<K, T>(compiler, cache, key, null, returnTypeClass, cal, mapValType, mapKeyType, false);
+					} catch (Throwable e) {
+						// never try again, reflection keeps working
+						if (failed.put(key, Boolean.TRUE) == null && log.isLoggable(Level.FINE))
+							log.log(Level.FINE, "compiling " + key + " failed, mapping it with reflection instead", e);
+					} finally {
+						hits.remove(key);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// queue full or shut down, start counting again
+			count.set(0);
+		}
+	}
+}
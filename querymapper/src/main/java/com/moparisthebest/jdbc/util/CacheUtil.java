@@ -32,4 +32,12 @@ public abstract class CacheUtil {
 				new HashMap<K, V>();
 	}
 
+	/**
+	 * @param maxEntries max entries to keep, < 1 means an unbounded ConcurrentHashMap
+	 * @return a thread-safe SegmentedLruCache if maxEntries > 0, otherwise a ConcurrentHashMap
+	 */
+	public static <K, V> Map<K, V> getSegmentedCache(final int maxEntries) {
+		return maxEntries > 0 ? new SegmentedLruCache<K, V>(maxEntries) : new ConcurrentHashMap<K, V>();
+	}
+
 }
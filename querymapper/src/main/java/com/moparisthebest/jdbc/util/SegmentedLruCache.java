@@ -0,0 +1,260 @@
+package com.moparisthebest.jdbc.util;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, thread-safe, segmented LRU cache.
+ * <p>
+ * New entries go into a probation segment, and are only promoted to the protected segment when they are hit again, so
+ * a burst of one-off keys (dynamic SQL with many column shapes for instance) only ever evicts other one-off keys, and
+ * not the entries that are actually used over and over. When the protected segment is full its least recently used
+ * entry is demoted back to probation, when the whole cache is full the least recently used probation entry is evicted.
+ * <p>
+ * Once evicted nothing here references the key or value anymore, so for the compiling mappers the generated class and
+ * the ClassLoader that defined it can be garbage collected and unloaded.
+ * <p>
+ * Values live in a ConcurrentHashMap, so get() never blocks. The recency order is kept beside it under a lock that
+ * get() only tries to take, if another thread holds it the hit is still counted but the key isn't moved, so the order
+ * is approximate under contention. Everything that changes the contents takes the lock. Hits, misses, and evictions
+ * are counted, get() is the only method that counts a hit or miss. entrySet() returns a snapshot. Null keys and values
+ * are not allowed.
+ *
+ * @see CacheUtil#getSegmentedCache(int)
+ */
+public class SegmentedLruCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+	public static final float DEFAULT_PROTECTED_RATIO = 0.8f;
+
+	private final int maxEntries, maxProtected;
+	private final ConcurrentHashMap<K, V> map;
+	/**
+	 * keys only, in recency order, guarded by lock
+	 */
+	private final LinkedHashMap<K, Boolean> probation, protectedSegment;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+
+	/**
+	 * @param maxEntries     max entries to keep in the cache, must be > 0
+	 * @param protectedRatio fraction of maxEntries reserved for entries that have been hit more than once
+	 */
+	public SegmentedLruCache(final int maxEntries, final float protectedRatio) {
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("maxEntries must be > 0");
+		if (protectedRatio < 0 || protectedRatio > 1)
+			throw new IllegalArgumentException("protectedRatio must be between 0 and 1");
+		this.maxEntries = maxEntries;
+		this.maxProtected = (int) (maxEntries * protectedRatio);
+		this.map = new ConcurrentHashMap<K, V>();
+		this.probation = new LinkedHashMap<K, Boolean>();
+		this.protectedSegment = new LinkedHashMap<K, Boolean>(16, 0.75f, true);
+	}
+
+	public SegmentedLruCache(final int maxEntries) {
+		this(maxEntries, DEFAULT_PROTECTED_RATIO);
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return hits / (hits + misses), or 0 if get() has never been called
+	 */
+	public double getHitRate() {
+		final long hits = this.hits.get(), total = hits + misses.get();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	public void resetStats() {
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+	}
+
+	@Override
+	public V get(final Object key) {
+		final V ret = map.get(key);
+		if (ret == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		if (lock.tryLock()) {
+			try {
+				@SuppressWarnings("unchecked") final K k = (K) key;
+				touch(k);
+			} finally {
+				lock.unlock();
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public V put(final K key, final V value) {
+		if (key == null || value == null)
+			throw new NullPointerException("SegmentedLruCache does not allow null keys or values");
+		lock.lock();
+		try {
+			final V ret = map.put(key, value);
+			if (ret != null) {
+				touch(key);
+			} else {
+				probation.put(key, Boolean.TRUE);
+				evict();
+			}
+			return ret;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public V putIfAbsent(final K key, final V value) {
+		final V ret = map.get(key);
+		if (ret != null)
+			return ret;
+		lock.lock();
+		try {
+			final V current = map.get(key);
+			return current == null ? put(key, value) : current;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public V remove(final Object key) {
+		lock.lock();
+		try {
+			final V ret = map.remove(key);
+			if (ret != null && protectedSegment.remove(key) == null)
+				probation.remove(key);
+			return ret;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(final Object key, final Object value) {
+		lock.lock();
+		try {
+			final V current = map.get(key);
+			if (current == null || !current.equals(value))
+				return false;
+			remove(key);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean replace(final K key, final V oldValue, final V newValue) {
+		lock.lock();
+		try {
+			final V current = map.get(key);
+			if (current == null || !current.equals(oldValue))
+				return false;
+			put(key, newValue);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public V replace(final K key, final V value) {
+		lock.lock();
+		try {
+			return map.containsKey(key) ? put(key, value) : null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return map.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public void clear() {
+		lock.lock();
+		try {
+			map.clear();
+			protectedSegment.clear();
+			probation.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		final Map<K, V> ret = new HashMap<K, V>(map);
+		return Collections.unmodifiableMap(ret).entrySet();
+	}
+
+	@Override
+	public String toString() {
+		return "SegmentedLruCache{maxEntries=" + maxEntries + ", size=" + size() + ", hits=" + hits + ", misses=" + misses +
+				", hitRate=" + getHitRate() + ", evictions=" + evictions + '}';
+	}
+
+	/**
+	 * moves key to the most recently used end of its segment, promoting it out of probation, must hold lock
+	 */
+	private void touch(final K key) {
+		if (protectedSegment.get(key) == null && probation.remove(key) != null)
+			promote(key);
+	}
+
+	private void promote(final K key) {
+		protectedSegment.put(key, Boolean.TRUE);
+		if (protectedSegment.size() > maxProtected) {
+			final Iterator<K> it = protectedSegment.keySet().iterator();
+			final K eldest = it.next();
+			it.remove();
+			probation.put(eldest, Boolean.TRUE);
+		}
+	}
+
+	private void evict() {
+		while (map.size() > maxEntries) {
+			final Iterator<K> it = (probation.isEmpty() ? protectedSegment : probation).keySet().iterator();
+			map.remove(it.next());
+			it.remove();
+			evictions.incrementAndGet();
+		}
+	}
+}
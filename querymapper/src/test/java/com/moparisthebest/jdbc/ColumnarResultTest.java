@@ -0,0 +1,94 @@
+package com.moparisthebest.jdbc;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ColumnarResultTest {
+
+	/**
+	 * @return a ResultSet with a single VARCHAR column named STR holding values
+	 */
+	private static ResultSet stubResultSet(final String... values) {
+		final ResultSetMetaData md = (ResultSetMetaData) Proxy.newProxyInstance(ColumnarResultTest.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) {
+				final String name = method.getName();
+				if (name.equals("getColumnCount"))
+					return 1;
+				if (name.equals("getColumnLabel"))
+					return "str";
+				if (name.equals("getColumnType"))
+					return Types.VARCHAR;
+				throw new UnsupportedOperationException(name);
+			}
+		});
+		return (ResultSet) Proxy.newProxyInstance(ColumnarResultTest.class.getClassLoader(), new Class<?>[]{ResultSet.class}, new InvocationHandler() {
+			private int row = -1;
+
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) {
+				final String name = method.getName();
+				if (name.equals("getMetaData"))
+					return md;
+				if (name.equals("next"))
+					return ++row < values.length;
+				if (name.equals("getString"))
+					return values[row];
+				throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+
+	@Test
+	public void testDictionary() throws SQLException {
+		final ColumnarResult result = ColumnarResult.from(stubResultSet("a", "b", null, "a"));
+		assertEquals(4, result.size());
+		assertArrayEquals(new String[]{"a", "b"}, result.getDictionary(1));
+		final int[] codes = result.getStringCodes(1);
+		assertEquals(0, codes[0]);
+		assertEquals(1, codes[1]);
+		assertEquals(-1, codes[2]);
+		assertEquals(0, codes[3]);
+		assertEquals(4, codes.length);
+		assertNull(result.getString(2, 1));
+		// only needed while reading
+		assertNull(((ColumnarResult.StringColumn) result.columns[1]).dictionaryCodes);
+		try {
+			result.getStringColumn(1);
+			fail("dictionary-encoded column returned as String[]");
+		} catch (MapperException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTooManyDistinctValues() throws SQLException {
+		final String[] values = {"a", "b", "a", null, "c", "b", "d"};
+		final ResultSet rs = stubResultSet(values);
+		final ColumnarResult.StringColumn column = new ColumnarResult.StringColumn(2);
+		for (int row = 0; rs.next(); ++row)
+			column.read(rs, 1, row);
+		column.finish(values.length);
+		assertNull(column.codes);
+		assertNull(column.dictionary);
+		assertNull(column.dictionaryCodes);
+		// trimmed to the rows read
+		assertEquals(values.length, column.values.length);
+		for (int row = 0; row < values.length; ++row) {
+			assertEquals(values[row], column.getString(row));
+			assertEquals(values[row] == null, column.isNull(row));
+		}
+	}
+}
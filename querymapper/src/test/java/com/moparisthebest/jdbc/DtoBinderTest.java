@@ -0,0 +1,87 @@
+package com.moparisthebest.jdbc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DtoBinderTest {
+
+	public static class PublicDto {
+		public long personNo = 5;
+		public char initial = 'b';
+		private String firstName = "Bob";
+		private String lastName = "Smith";
+		private boolean active = true;
+
+		public String getFirstName() {
+			return firstName;
+		}
+
+		public String getLastName() {
+			return lastName;
+		}
+
+		public boolean isActive() {
+			return active;
+		}
+	}
+
+	public static class PrivateFieldDto extends PublicDto {
+		private String nickname = "Bobby";
+	}
+
+	static class PackageDto {
+		public int personNo = 7;
+
+		public String getName() {
+			return "Tom";
+		}
+	}
+
+	private static final String sql = "INSERT INTO person (person_no, initial, first_name, last_name, active) VALUES ({personNo}, {initial}, {FIRST_NAME}, {last_name}, {active})";
+
+	@Test
+	public void testPublic() {
+		final DtoBinder binder = new DtoBinder(sql, PublicDto.class);
+		// private fields are reached through their public getters, so nothing is read with reflection
+		assertEquals(0, binder.reader.getClass().getDeclaredFields().length);
+		assertEquals("INSERT INTO person (person_no, initial, first_name, last_name, active) VALUES (?, ?, ?, ?, ?)", binder.getSql());
+		final PublicDto dto = new PublicDto();
+		assertArrayEquals(new Object[]{5L, 'b', "Bob", "Smith", true}, binder.getBindObjects(dto));
+		dto.personNo = 6;
+		dto.lastName = null;
+		assertArrayEquals(new Object[]{6L, 'b', "Bob", null, true}, binder.getBindObjects(dto));
+	}
+
+	@Test
+	public void testPrivateField() {
+		final DtoBinder binder = new DtoBinder("SELECT {personNo} FROM person WHERE nickname = {nickname}", PrivateFieldDto.class);
+		assertArrayEquals(new Object[]{5L, "Bobby"}, binder.getBindObjects(new PrivateFieldDto()));
+	}
+
+	@Test
+	public void testNonPublicClass() {
+		final DtoBinder binder = new DtoBinder("SELECT {name} FROM person WHERE person_no = {person_no}", PackageDto.class);
+		assertArrayEquals(new Object[]{"Tom", 7}, binder.getBindObjects(new PackageDto()));
+	}
+
+	@Test
+	public void testEscapesAndLiterals() {
+		final DtoBinder binder = new DtoBinder("SELECT {fn UCASE({name})}, '{name}', 'it''s {name}', \"{name}\" FROM person WHERE person_no = {person_no} AND birth_date > {d '2000-01-01'}", PackageDto.class);
+		assertEquals("SELECT {fn UCASE(?)}, '{name}', 'it''s {name}', \"{name}\" FROM person WHERE person_no = ? AND birth_date > {d '2000-01-01'}", binder.getSql());
+		assertArrayEquals(new Object[]{"Tom", 7}, binder.getBindObjects(new PackageDto()));
+	}
+
+	@Test
+	public void testWrongClass() {
+		final DtoBinder binder = new DtoBinder(sql, PublicDto.class);
+		try {
+			binder.getBindObjects(new PackageDto());
+			fail("expected MapperException binding the wrong class");
+		} catch (MapperException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.moparisthebest.jdbc;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.moparisthebest.jdbc.ListQueryMapper.inListReplace;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class InListSqlTemplateTest {
+
+	private static final InList.InListObject a = new InList.InListObject("(a IN (?,?))"), b = new InList.InListObject("(b NOT IN (?))");
+
+	@Test
+	public void testNoSlots() {
+		final String sql = "SELECT * FROM person WHERE person_no = ?";
+		final InListSqlTemplate template = InListSqlTemplate.getTemplate(sql);
+		assertEquals(0, template.getSlotCount());
+		assertSame(sql, template.toSql(a));
+		// not cached, it would only push out sql that has {inList}s
+		assertNotSame(template, InListSqlTemplate.getTemplate(sql));
+		final String slotSql = "SELECT * FROM person WHERE " + inListReplace;
+		assertSame(InListSqlTemplate.getTemplate(slotSql), InListSqlTemplate.getTemplate(slotSql));
+	}
+
+	@Test
+	public void testSlots() {
+		final InListSqlTemplate template = new InListSqlTemplate(inListReplace + " AND x = ? OR " + inListReplace);
+		assertEquals(2, template.getSlotCount());
+		assertEquals("(a IN (?,?)) AND x = ? OR (b NOT IN (?))", template.toSql(a, 5, b));
+		// nested in arrays and collections like QueryMapper binds them
+		assertEquals("(a IN (?,?)) AND x = ? OR (b NOT IN (?))", template.toSql(new Object[]{a, 5}, Arrays.asList(null, b)));
+		// extras are ignored, missing are left as-is
+		assertEquals("(b NOT IN (?)) AND x = ? OR (a IN (?,?))", template.toSql(b, a, a));
+		assertEquals("(a IN (?,?)) AND x = ? OR " + inListReplace, template.toSql(a, QueryMapper.noBind));
+		assertEquals(template.getSql(), template.toSql());
+	}
+}
@@ -0,0 +1,119 @@
+package com.moparisthebest.jdbc.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedLruCacheTest {
+
+	@Test
+	public void testBounded() {
+		final SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<Integer, String>(10);
+		for (int x = 0; x < 100; ++x)
+			cache.put(x, "" + x);
+		assertEquals(10, cache.size());
+		assertEquals(90, cache.getEvictionCount());
+		for (int x = 90; x < 100; ++x)
+			assertEquals("" + x, cache.get(x));
+	}
+
+	@Test
+	public void testScanResistant() {
+		final SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<Integer, String>(10);
+		// hot keys are hit twice, which promotes them to the protected segment
+		for (int x = 0; x < 5; ++x) {
+			cache.put(x, "" + x);
+			cache.get(x);
+		}
+		// a burst of one-off keys should only evict each other
+		for (int x = 100; x < 200; ++x)
+			cache.put(x, "" + x);
+		for (int x = 0; x < 5; ++x)
+			assertEquals("" + x, cache.get(x));
+		assertNull(cache.get(100));
+	}
+
+	@Test
+	public void testStats() {
+		final SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<Integer, String>(2);
+		assertEquals(0, cache.getHitRate(), 0);
+		assertNull(cache.get(1));
+		cache.put(1, "1");
+		assertEquals("1", cache.get(1));
+		assertEquals("1", cache.get(1));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2.0 / 3, cache.getHitRate(), 0.0001);
+		cache.resetStats();
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	public void testConcurrentMap() {
+		final SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<Integer, String>(2);
+		assertNull(cache.putIfAbsent(1, "1"));
+		assertEquals("1", cache.putIfAbsent(1, "2"));
+		assertFalse(cache.replace(1, "2", "3"));
+		assertTrue(cache.replace(1, "1", "3"));
+		assertEquals("3", cache.replace(1, "4"));
+		assertNull(cache.replace(2, "2"));
+		assertFalse(cache.remove(1, "3"));
+		assertTrue(cache.remove(1, "4"));
+		assertTrue(cache.isEmpty());
+	}
+
+	@Test
+	public void testConcurrent() throws Throwable {
+		final SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<Integer, String>(16);
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; ++t) {
+			final int seed = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int x = 0; x < 20000; ++x) {
+							final int key = (x * 31 + seed) % 64;
+							final String value = cache.get(key);
+							if (value == null)
+								cache.putIfAbsent(key, "" + key);
+							else if (!value.equals("" + key))
+								throw new AssertionError("wrong value " + value + " for " + key);
+							if (x % 97 == 0)
+								cache.remove(key);
+						}
+					} catch (Throwable e) {
+						error.compareAndSet(null, e);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for (final Thread thread : threads)
+			thread.join();
+		if (error.get() != null)
+			throw error.get();
+		assertTrue(cache.size() <= 16);
+		assertEquals(8 * 20000, cache.getHitCount() + cache.getMissCount());
+		// the segments still match the values, so once emptied each new key past the max evicts exactly one
+		for (int x = 0; x < 64; ++x)
+			cache.remove(x);
+		assertTrue(cache.isEmpty());
+		final long evictions = cache.getEvictionCount();
+		for (int x = 100; x < 117; ++x)
+			cache.put(x, "" + x);
+		assertEquals(16, cache.size());
+		assertEquals(evictions + 1, cache.getEvictionCount());
+		assertFalse(cache.containsKey(100));
+	}
+}
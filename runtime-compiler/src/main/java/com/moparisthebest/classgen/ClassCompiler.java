@@ -0,0 +1,24 @@
+package com.moparisthebest.classgen;
+
+/**
+ * What it takes to turn the source of a single class into an instance of it, implemented by Compiler, and by
+ * CompilerPool for use from many threads at once.
+ *
+ * @author moparisthebest
+ */
+public interface ClassCompiler {
+
+	<T> T compile(final String className, final CharSequence code);
+
+	/**
+	 * Compile a single class and return it's class file bytes instead of loading it, for storing elsewhere
+	 *
+	 * @see #instantiate(String, byte[]) to load them again
+	 */
+	byte[] compileToBytes(final String className, final CharSequence code);
+
+	/**
+	 * Load and instantiate a class from bytes returned by compileToBytes
+	 */
+	<T> T instantiate(final String className, final byte[] bytes);
+}
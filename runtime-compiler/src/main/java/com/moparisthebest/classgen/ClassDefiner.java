@@ -0,0 +1,114 @@
+package com.moparisthebest.classgen;
+
+//IFJAVA8_START
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+//IFJAVA8_END
+
+/**
+ * Turns class bytes, like those from a ClassFile, into a Class.
+ * <p>
+ * On java 15+ the class is defined as a hidden class in the package and ClassLoader of the host class, which means it
+ * can see everything the host can, needs no ClassLoader of it's own, and can be unloaded as soon as it is unreachable.
+ * If that isn't available or isn't allowed (named modules that aren't open to us for instance), the class is defined in
+ * a new ClassLoader that is a child of the host's ClassLoader instead.
+ *
+ * @author moparisthebest
+ */
+public class ClassDefiner {
+
+	//IFJAVA8_START
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+	private static final MethodHandle privateLookupIn, defineHiddenClass;
+	private static final Object noClassOptions;
+
+	static {
+		MethodHandle pli = null, dhc = null;
+		Object options = null;
+		try {
+			pli = lookup.findStatic(MethodHandles.class, "privateLookupIn", MethodType.methodType(MethodHandles.Lookup.class, Class.class, MethodHandles.Lookup.class));
+			options = Array.newInstance(Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption"), 0);
+			dhc = lookup.findVirtual(MethodHandles.Lookup.class, "defineHiddenClass", MethodType.methodType(MethodHandles.Lookup.class, byte[].class, boolean.class, options.getClass())).asFixedArity();
+		} catch (Throwable e) {
+			// java < 15, we will fall back to a ClassLoader
+			pli = null;
+		}
+		privateLookupIn = pli;
+		defineHiddenClass = dhc;
+		noClassOptions = options;
+	}
+	//IFJAVA8_END
+
+	/**
+	 * @return the internal name to give a class named simpleName so it can be defined with host, like com/example/simpleName
+	 */
+	public static String className(final Class<?> host, final String simpleName) {
+		final String hostName = host.getName();
+		final int lastDot = hostName.lastIndexOf('.');
+		return lastDot == -1 ? simpleName : hostName.substring(0, lastDot + 1).replace('.', '/') + simpleName;
+	}
+
+	/**
+	 * @return true if this JVM can define hidden classes at all
+	 */
+	public static boolean hiddenClassesSupported() {
+		//IFJAVA8_START
+		if (defineHiddenClass != null)
+			return true;
+		//IFJAVA8_END
+		return false;
+	}
+
+	/**
+	 * Define bytes as a class next to host
+	 *
+	 * @param host      class to define next to, must not be loaded by the bootstrap ClassLoader
+	 * @param className internal name of the class in bytes, must be in the same package as host, see className()
+	 * @param bytes     class file bytes
+	 * @return the new initialized class
+	 */
+	public static Class<?> define(final Class<?> host, final String className, final byte[] bytes) {
+		//IFJAVA8_START
+		if (defineHiddenClass != null)
+			try {
+				final MethodHandles.Lookup hostLookup = (MethodHandles.Lookup) privateLookupIn.invoke(host, lookup);
+				return ((MethodHandles.Lookup) defineHiddenClass.invoke(hostLookup, bytes, true, noClassOptions)).lookupClass();
+			} catch (IllegalAccessException e) {
+				// not allowed to define in host's package, fall through to ClassLoader
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new RuntimeException("Error defining hidden class " + className, e);
+			}
+		//IFJAVA8_END
+		return define(host.getClassLoader(), className, bytes);
+	}
+
+	/**
+	 * Define bytes as a class in a new ClassLoader
+	 *
+	 * @param parent    parent of the new ClassLoader
+	 * @param className internal or binary name of the class in bytes
+	 * @param bytes     class file bytes
+	 * @return the new class
+	 */
+	public static Class<?> define(final ClassLoader parent, final String className, final byte[] bytes) {
+		return new ByteClassLoader(parent).define(className.replace('/', '.'), bytes);
+	}
+
+	private static class ByteClassLoader extends ClassLoader {
+		ByteClassLoader(final ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(final String name, final byte[] bytes) {
+			final Class<?> ret = defineClass(name, bytes, 0, bytes.length);
+			resolveClass(ret);
+			return ret;
+		}
+	}
+}
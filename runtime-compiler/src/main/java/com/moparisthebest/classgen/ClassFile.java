@@ -0,0 +1,726 @@
+package com.moparisthebest.classgen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This lets you write a class directly as bytecode at runtime, with no javac/tools.jar required, only what is needed
+ * to generate simple classes like row mappers is supported.
+ * <p>
+ * Class files are written as major version 49 (java 5) so no StackMapTable frames are required, the JVM verifies
+ * them with the type inferencing verifier instead.
+ * <p>
+ * This is not thread safe, create one per class you want to generate.
+ *
+ * @author moparisthebest
+ * @see ClassDefiner to turn the bytes into a Class
+ */
+public class ClassFile {
+
+	public static final int ACC_PUBLIC = 0x0001, ACC_PRIVATE = 0x0002, ACC_STATIC = 0x0008, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+	private static final int MAJOR_VERSION = 49;
+
+	private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+	private final DataOutputStream constants = new DataOutputStream(constantBytes);
+	private final Map<String, Integer> constantIndexes = new HashMap<String, Integer>();
+	private int constantCount = 1;
+
+	private final int access, thisClass, superClass;
+	private final int[] interfaces;
+	private final List<byte[]> fields = new ArrayList<byte[]>();
+	private final List<Code> methods = new ArrayList<Code>();
+
+	/**
+	 * @param access     class access flags, ACC_SUPER is always added
+	 * @param name       internal name of the class, like com/example/Foo
+	 * @param superName  internal name of the super class
+	 * @param interfaces internal names of implemented interfaces
+	 */
+	public ClassFile(final int access, final String name, final String superName, final String... interfaces) {
+		this.access = access | ACC_SUPER;
+		this.thisClass = classRef(name);
+		this.superClass = classRef(superName);
+		this.interfaces = new int[interfaces.length];
+		for (int x = 0; x < interfaces.length; ++x)
+			this.interfaces[x] = classRef(interfaces[x]);
+	}
+
+	public ClassFile(final String name, final Class<?>... interfaces) {
+		this(ACC_PUBLIC | ACC_FINAL, name, "java/lang/Object", internalNames(interfaces));
+	}
+
+	// constant pool
+
+	private int constant(final String key, final int tag, final Object... values) {
+		final Integer index = constantIndexes.get(key);
+		if (index != null)
+			return index;
+		try {
+			constants.writeByte(tag);
+			for (final Object value : values)
+				if (value instanceof String)
+					constants.writeUTF((String) value);
+				else if (value instanceof Short)
+					constants.writeShort((Short) value);
+				else
+					constants.writeInt((Integer) value);
+		} catch (IOException e) {
+			throw new RuntimeException("should never happen writing to a ByteArrayOutputStream", e);
+		}
+		constantIndexes.put(key, constantCount);
+		return constantCount++;
+	}
+
+	public int utf8(final String s) {
+		return constant("U" + s, 1, s);
+	}
+
+	public int integer(final int i) {
+		return constant("I" + i, 3, i);
+	}
+
+	public int classRef(final String internalName) {
+		return constant("C" + internalName, 7, (short) utf8(internalName));
+	}
+
+	public int string(final String s) {
+		return constant("S" + s, 8, (short) utf8(s));
+	}
+
+	private int nameAndType(final String name, final String descriptor) {
+		return constant("N" + name + ' ' + descriptor, 12, (short) utf8(name), (short) utf8(descriptor));
+	}
+
+	public int fieldRef(final String owner, final String name, final String descriptor) {
+		return constant("F" + owner + '.' + name + ' ' + descriptor, 9, (short) classRef(owner), (short) nameAndType(name, descriptor));
+	}
+
+	public int methodRef(final String owner, final String name, final String descriptor, final boolean isInterface) {
+		return constant((isInterface ? "J" : "M") + owner + '.' + name + descriptor, isInterface ? 11 : 10, (short) classRef(owner), (short) nameAndType(name, descriptor));
+	}
+
+	// members
+
+	public void field(final int access, final String name, final String descriptor) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+		final DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeShort(access);
+			out.writeShort(utf8(name));
+			out.writeShort(utf8(descriptor));
+			out.writeShort(0); // attributes
+		} catch (IOException e) {
+			throw new RuntimeException("should never happen writing to a ByteArrayOutputStream", e);
+		}
+		fields.add(bytes.toByteArray());
+	}
+
+	/**
+	 * Start a new method, write the instructions to the returned Code, the method is complete when toByteArray() is called
+	 */
+	public Code method(final int access, final String name, final String descriptor) {
+		final Code code = new Code(access, name, descriptor);
+		methods.add(code);
+		return code;
+	}
+
+	public byte[] toByteArray() {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+		final DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			// do the methods first, they can still add constants
+			final List<byte[]> methodBytes = new ArrayList<byte[]>(methods.size());
+			for (final Code code : methods)
+				methodBytes.add(code.toByteArray());
+
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0); // minor
+			out.writeShort(MAJOR_VERSION);
+			out.writeShort(constantCount);
+			constantBytes.writeTo(out);
+			out.writeShort(access);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(interfaces.length);
+			for (final int i : interfaces)
+				out.writeShort(i);
+			out.writeShort(fields.size());
+			for (final byte[] field : fields)
+				out.write(field);
+			out.writeShort(methodBytes.size());
+			for (final byte[] method : methodBytes)
+				out.write(method);
+			out.writeShort(0); // attributes
+		} catch (IOException e) {
+			throw new RuntimeException("should never happen writing to a ByteArrayOutputStream", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	// descriptors
+
+	public static String internalName(final Class<?> clazz) {
+		return clazz.isArray() ? descriptor(clazz) : clazz.getName().replace('.', '/');
+	}
+
+	public static String[] internalNames(final Class<?>... classes) {
+		final String[] ret = new String[classes.length];
+		for (int x = 0; x < classes.length; ++x)
+			ret[x] = internalName(classes[x]);
+		return ret;
+	}
+
+	public static String descriptor(final Class<?> clazz) {
+		if (clazz.isPrimitive()) {
+			if (clazz == int.class) return "I";
+			if (clazz == long.class) return "J";
+			if (clazz == boolean.class) return "Z";
+			if (clazz == double.class) return "D";
+			if (clazz == float.class) return "F";
+			if (clazz == byte.class) return "B";
+			if (clazz == short.class) return "S";
+			if (clazz == char.class) return "C";
+			return "V";
+		}
+		if (clazz.isArray())
+			return clazz.getName().replace('.', '/');
+		return "L" + clazz.getName().replace('.', '/') + ';';
+	}
+
+	public static String methodDescriptor(final Class<?> returnType, final Class<?>... parameterTypes) {
+		final StringBuilder sb = new StringBuilder("(");
+		for (final Class<?> param : parameterTypes)
+			sb.append(descriptor(param));
+		return sb.append(')').append(descriptor(returnType)).toString();
+	}
+
+	public static String descriptor(final Method method) {
+		return methodDescriptor(method.getReturnType(), method.getParameterTypes());
+	}
+
+	public static String descriptor(final Constructor<?> constructor) {
+		return methodDescriptor(void.class, constructor.getParameterTypes());
+	}
+
+	private static int size(final Class<?> type) {
+		return type == void.class ? 0 : type == long.class || type == double.class ? 2 : 1;
+	}
+
+	private static int size(final Class<?>... types) {
+		int ret = 0;
+		for (final Class<?> type : types)
+			ret += size(type);
+		return ret;
+	}
+
+	/**
+	 * A jump target, create with Code.label(), mark() it once, jump to it as often as you want.
+	 */
+	public static class Label {
+		private int position = -1, stack = -1;
+		private final List<int[]> jumps = new ArrayList<int[]>(); // {opcode position, offset position}
+	}
+
+	/**
+	 * Instructions of a single method, max stack is tracked as instructions are added, locals must be declared with
+	 * locals() if you use more than the parameters.
+	 */
+	public class Code {
+
+		private final int access, name, descriptor;
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		private final List<Label> labels = new ArrayList<Label>();
+		private int stack = 0, maxStack = 0, maxLocals;
+
+		private Code(final int access, final String name, final String descriptor) {
+			this.access = access;
+			this.name = utf8(name);
+			this.descriptor = utf8(descriptor);
+			// count parameter slots
+			int locals = (access & ACC_STATIC) == 0 ? 1 : 0;
+			for (int x = 1; descriptor.charAt(x) != ')'; ++x) {
+				final char c = descriptor.charAt(x);
+				if (c == 'J' || c == 'D') {
+					++locals;
+				} else if (c == 'L') {
+					x = descriptor.indexOf(';', x);
+				} else if (c == '[') {
+					while (descriptor.charAt(++x) == '[') ;
+					if (descriptor.charAt(x) == 'L')
+						x = descriptor.indexOf(';', x);
+				}
+				++locals;
+			}
+			this.maxLocals = locals;
+		}
+
+		private Code op(final int opcode, final int stackDelta) {
+			bytes.write(opcode);
+			return stack(stackDelta);
+		}
+
+		private Code stack(final int stackDelta) {
+			stack += stackDelta;
+			if (stack > maxStack)
+				maxStack = stack;
+			return this;
+		}
+
+		private Code u1(final int b) {
+			bytes.write(b);
+			return this;
+		}
+
+		private Code u2(final int s) {
+			bytes.write(s >>> 8);
+			bytes.write(s);
+			return this;
+		}
+
+		public ClassFile getClassFile() {
+			return ClassFile.this;
+		}
+
+		/**
+		 * Declare how many local variable slots this method uses in total (including parameters)
+		 */
+		public Code locals(final int maxLocals) {
+			if (maxLocals > this.maxLocals)
+				this.maxLocals = maxLocals;
+			return this;
+		}
+
+		// locals
+
+		private Code local(final int shortOpcode, final int opcode, final int index, final int stackDelta) {
+			locals(index + 1);
+			return index < 4 ? op(shortOpcode + index, stackDelta) : op(opcode, stackDelta).u1(index);
+		}
+
+		public Code aload(final int index) {
+			return local(0x2a, 0x19, index, 1);
+		}
+
+		public Code astore(final int index) {
+			return local(0x4b, 0x3a, index, -1);
+		}
+
+		public Code iload(final int index) {
+			return local(0x1a, 0x15, index, 1);
+		}
+
+		public Code istore(final int index) {
+			return local(0x3b, 0x36, index, -1);
+		}
+
+		/**
+		 * Load a local of any type, long and double take up 2 slots
+		 */
+		public Code load(final int index, final Class<?> type) {
+			if (!type.isPrimitive())
+				return aload(index);
+			if (type == long.class)
+				return local(0x1e, 0x16, index, 2).locals(index + 2);
+			if (type == float.class)
+				return local(0x22, 0x17, index, 1);
+			if (type == double.class)
+				return local(0x26, 0x18, index, 2).locals(index + 2);
+			return iload(index);
+		}
+
+		public Code iinc(final int index, final int increment) {
+			locals(index + 1);
+			return op(0x84, 0).u1(index).u1(increment);
+		}
+
+		// constants
+
+		public Code aconstNull() {
+			return op(0x01, 1);
+		}
+
+		public Code push(final int i) {
+			if (i >= -1 && i <= 5)
+				return op(0x03 + i, 1);
+			if (i >= Byte.MIN_VALUE && i <= Byte.MAX_VALUE)
+				return op(0x10, 1).u1(i);
+			if (i >= Short.MIN_VALUE && i <= Short.MAX_VALUE)
+				return op(0x11, 1).u2(i);
+			return ldc(integer(i));
+		}
+
+		public Code push(final String s) {
+			return s == null ? aconstNull() : ldc(string(s));
+		}
+
+		public Code push(final Class<?> clazz) {
+			return ldc(classRef(internalName(clazz)));
+		}
+
+		private Code ldc(final int index) {
+			return index < 256 ? op(0x12, 1).u1(index) : op(0x13, 1).u2(index);
+		}
+
+		// stack
+
+		public Code dup() {
+			return op(0x59, 1);
+		}
+
+		public Code pop() {
+			return op(0x57, -1);
+		}
+
+		public Code pop(final Class<?> type) {
+			final int size = size(type);
+			return size == 0 ? this : size == 2 ? op(0x58, -2) : pop();
+		}
+
+		public Code swap() {
+			return op(0x5f, 0);
+		}
+
+		// objects and arrays
+
+		public Code newInstance(final Class<?> clazz) {
+			return op(0xbb, 1).u2(classRef(internalName(clazz)));
+		}
+
+		public Code checkcast(final Class<?> clazz) {
+			return op(0xc0, 0).u2(classRef(internalName(clazz)));
+		}
+
+		public Code instanceOf(final Class<?> clazz) {
+			return op(0xc1, 0).u2(classRef(internalName(clazz)));
+		}
+
+		public Code newArray(final Class<?> componentType) {
+			if (!componentType.isPrimitive())
+				return op(0xbd, 0).u2(classRef(internalName(componentType)));
+			final int type;
+			if (componentType == boolean.class) type = 4;
+			else if (componentType == char.class) type = 5;
+			else if (componentType == float.class) type = 6;
+			else if (componentType == double.class) type = 7;
+			else if (componentType == byte.class) type = 8;
+			else if (componentType == short.class) type = 9;
+			else if (componentType == int.class) type = 10;
+			else type = 11; // long
+			return op(0xbc, 0).u1(type);
+		}
+
+		/**
+		 * arrayref, index, value -> nothing
+		 */
+		public Code arrayStore(final Class<?> componentType) {
+			if (!componentType.isPrimitive()) return op(0x53, -3);
+			if (componentType == int.class) return op(0x4f, -3);
+			if (componentType == long.class) return op(0x50, -4);
+			if (componentType == float.class) return op(0x51, -3);
+			if (componentType == double.class) return op(0x52, -4);
+			if (componentType == boolean.class || componentType == byte.class) return op(0x54, -3);
+			if (componentType == char.class) return op(0x55, -3);
+			return op(0x56, -3); // short
+		}
+
+		/**
+		 * arrayref, index -> value, for references only
+		 */
+		public Code arrayLoad() {
+			return op(0x32, -1);
+		}
+
+		// fields
+
+		public Code getField(final String owner, final String name, final Class<?> type) {
+			return op(0xb4, size(type) - 1).u2(fieldRef(owner, name, descriptor(type)));
+		}
+
+		public Code putField(final String owner, final String name, final Class<?> type) {
+			return op(0xb5, -1 - size(type)).u2(fieldRef(owner, name, descriptor(type)));
+		}
+
+		/**
+		 * @param owner the class to reference the field through, should be the class of the object on the stack
+		 */
+		public Code putField(final Class<?> owner, final Field field) {
+			return putField(internalName(owner), field.getName(), field.getType());
+		}
+
+		public Code getStatic(final Class<?> owner, final String name, final Class<?> type) {
+			return op(0xb2, size(type)).u2(fieldRef(internalName(owner), name, descriptor(type)));
+		}
+
+		// methods
+
+		public Code invoke(final Method method) {
+			return invoke(method.getDeclaringClass(), method);
+		}
+
+		/**
+		 * @param owner the class to reference the method through, should be the class of the object on the stack
+		 */
+		public Code invoke(final Class<?> owner, final Method method) {
+			final Class<?>[] params = method.getParameterTypes();
+			final int argSize = size(params);
+			final int returnSize = size(method.getReturnType());
+			final String descriptor = descriptor(method);
+			if (Modifier.isStatic(method.getModifiers()))
+				return op(0xb8, returnSize - argSize).u2(methodRef(internalName(owner), method.getName(), descriptor, owner.isInterface()));
+			if (owner.isInterface())
+				return op(0xb9, returnSize - argSize - 1).u2(methodRef(internalName(owner), method.getName(), descriptor, true)).u1(argSize + 1).u1(0);
+			return op(0xb6, returnSize - argSize - 1).u2(methodRef(internalName(owner), method.getName(), descriptor, false));
+		}
+
+		/**
+		 * Call a constructor, expects the new uninitialized object (usually newInstance() then dup()) and all arguments on the stack
+		 */
+		public Code invoke(final Constructor<?> constructor) {
+			return invokeSpecial(internalName(constructor.getDeclaringClass()), "<init>", constructor.getParameterTypes());
+		}
+
+		public Code invokeSpecial(final String owner, final String name, final Class<?>... parameterTypes) {
+			return op(0xb7, -size(parameterTypes) - 1).u2(methodRef(owner, name, methodDescriptor(void.class, parameterTypes), false));
+		}
+
+		/**
+		 * Box a primitive on the top of the stack with the valueOf method of it's wrapper, which uses cached instances
+		 * where available.
+		 *
+		 * @return the wrapper class now on the stack
+		 */
+		public Class<?> box(final Class<?> primitive) {
+			final Class<?> wrapper = wrapper(primitive);
+			try {
+				invoke(wrapper.getMethod("valueOf", primitive));
+			} catch (NoSuchMethodException e) {
+				throw new RuntimeException("should never happen, no valueOf on " + wrapper, e);
+			}
+			return wrapper;
+		}
+
+		/**
+		 * Unbox the wrapper on the top of the stack to primitive, casting it to the wrapper type first
+		 */
+		public Code unbox(final Class<?> primitive) {
+			final Class<?> wrapper = wrapper(primitive);
+			checkcast(wrapper);
+			try {
+				return invoke(wrapper.getMethod(primitive.getName() + "Value"));
+			} catch (NoSuchMethodException e) {
+				throw new RuntimeException("should never happen, no " + primitive.getName() + "Value on " + wrapper, e);
+			}
+		}
+
+		/**
+		 * Convert the value on the stack from type from to type to, boxing, un-boxing, or casting as needed, primitives
+		 * are converted like a java cast would
+		 */
+		public Code convert(final Class<?> from, final Class<?> to) {
+			if (from == to)
+				return this;
+			if (to.isPrimitive()) {
+				if (from.isPrimitive())
+					return convertPrimitive(from, to);
+				final Class<?> unwrapped = primitive(from);
+				if (unwrapped == null)
+					return unbox(to);
+				return unbox(unwrapped).convertPrimitive(unwrapped, to);
+			}
+			final Class<?> ref = from.isPrimitive() ? box(from) : from;
+			if (!to.isAssignableFrom(ref))
+				checkcast(to);
+			return this;
+		}
+
+		private Code convertPrimitive(final Class<?> from, final Class<?> to) {
+			if (from == to)
+				return this;
+			if (from == boolean.class || to == boolean.class || from == void.class || to == void.class)
+				throw new IllegalArgumentException("cannot convert " + from + " to " + to);
+			final int fromStack = stackType(from), toStack = stackType(to);
+			if (fromStack != toStack)
+				op(CONVERSIONS[fromStack][toStack], size(to) - size(from));
+			if (to == byte.class)
+				return op(0x91, 0); // i2b
+			if (to == char.class)
+				return from == char.class ? this : op(0x92, 0); // i2c
+			if (to == short.class)
+				return from == byte.class ? this : op(0x93, 0); // i2s
+			return this;
+		}
+
+		// control flow
+
+		public Label label() {
+			final Label label = new Label();
+			labels.add(label);
+			return label;
+		}
+
+		/**
+		 * Mark the current position as the target of label
+		 */
+		public Code mark(final Label label) {
+			if (label.position != -1)
+				throw new IllegalStateException("label already marked");
+			label.position = bytes.size();
+			if (label.stack != -1)
+				stack = label.stack;
+			else
+				label.stack = stack;
+			return this;
+		}
+
+		private Code jump(final int opcode, final int stackDelta, final Label label) {
+			final int position = bytes.size();
+			op(opcode, stackDelta);
+			label.jumps.add(new int[]{position, bytes.size()});
+			if (label.stack == -1)
+				label.stack = stack;
+			return u2(0); // patched in toByteArray
+		}
+
+		public Code goTo(final Label label) {
+			return jump(0xa7, 0, label);
+		}
+
+		public Code ifEq(final Label label) {
+			return jump(0x99, -1, label);
+		}
+
+		public Code ifNe(final Label label) {
+			return jump(0x9a, -1, label);
+		}
+
+		public Code ifNull(final Label label) {
+			return jump(0xc6, -1, label);
+		}
+
+		public Code ifNonNull(final Label label) {
+			return jump(0xc7, -1, label);
+		}
+
+		public Code ifICmpEq(final Label label) {
+			return jump(0x9f, -2, label);
+		}
+
+		public Code ifICmpNe(final Label label) {
+			return jump(0xa0, -2, label);
+		}
+
+		// returns
+
+		public Code returnValue(final Class<?> type) {
+			if (type == void.class) return op(0xb1, 0);
+			if (!type.isPrimitive()) return op(0xb0, -1);
+			if (type == long.class) return op(0xad, -2);
+			if (type == float.class) return op(0xae, -1);
+			if (type == double.class) return op(0xaf, -2);
+			return op(0xac, -1); // int, short, byte, char, boolean
+		}
+
+		public Code athrow() {
+			return op(0xbf, -1);
+		}
+
+		/**
+		 * Throw a new instance of exceptionClass with message as the single String argument to the constructor
+		 */
+		public Code throwNew(final Class<? extends Throwable> exceptionClass, final String message) {
+			newInstance(exceptionClass).dup().push(message);
+			return invokeSpecial(internalName(exceptionClass), "<init>", String.class).athrow();
+		}
+
+		private byte[] toByteArray() throws IOException {
+			final byte[] code = bytes.toByteArray();
+			if (code.length > 65535)
+				throw new IllegalStateException("method code length " + code.length + " is over the 65535 byte limit");
+			for (final Label label : labels) {
+				if (label.position == -1 && !label.jumps.isEmpty())
+					throw new IllegalStateException("label jumped to but never marked");
+				for (final int[] jump : label.jumps) {
+					final int offset = label.position - jump[0];
+					// goto_w is not supported, this only generates small methods
+					if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+						throw new IllegalStateException("branch offset " + offset + " does not fit in 16 bits");
+					code[jump[1]] = (byte) (offset >>> 8);
+					code[jump[1] + 1] = (byte) offset;
+				}
+			}
+			final ByteArrayOutputStream ret = new ByteArrayOutputStream(code.length + 32);
+			final DataOutputStream out = new DataOutputStream(ret);
+			out.writeShort(access);
+			out.writeShort(name);
+			out.writeShort(descriptor);
+			out.writeShort(1); // attributes
+			out.writeShort(utf8("Code"));
+			out.writeInt(12 + code.length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(code.length);
+			out.write(code);
+			out.writeShort(0); // exception table
+			out.writeShort(0); // attributes
+			return ret.toByteArray();
+		}
+	}
+
+	/**
+	 * i2l etc, indexed by stackType() of from then to
+	 */
+	private static final int[][] CONVERSIONS = {
+			{0, 0x85, 0x86, 0x87},
+			{0x88, 0, 0x89, 0x8a},
+			{0x8b, 0x8c, 0, 0x8d},
+			{0x8e, 0x8f, 0x90, 0},
+	};
+
+	/**
+	 * @return 0 for int (and everything smaller), 1 for long, 2 for float, 3 for double
+	 */
+	private static int stackType(final Class<?> primitive) {
+		if (primitive == long.class) return 1;
+		if (primitive == float.class) return 2;
+		if (primitive == double.class) return 3;
+		return 0;
+	}
+
+	/**
+	 * @return the primitive wrapper wraps, or null if it isn't a wrapper
+	 */
+	public static Class<?> primitive(final Class<?> wrapper) {
+		if (wrapper == Integer.class) return int.class;
+		if (wrapper == Long.class) return long.class;
+		if (wrapper == Boolean.class) return boolean.class;
+		if (wrapper == Double.class) return double.class;
+		if (wrapper == Float.class) return float.class;
+		if (wrapper == Byte.class) return byte.class;
+		if (wrapper == Short.class) return short.class;
+		if (wrapper == Character.class) return char.class;
+		return null;
+	}
+
+	public static Class<?> wrapper(final Class<?> primitive) {
+		if (primitive == int.class) return Integer.class;
+		if (primitive == long.class) return Long.class;
+		if (primitive == boolean.class) return Boolean.class;
+		if (primitive == double.class) return Double.class;
+		if (primitive == float.class) return Float.class;
+		if (primitive == byte.class) return Byte.class;
+		if (primitive == short.class) return Short.class;
+		if (primitive == char.class) return Character.class;
+		if (primitive == void.class) return Void.class;
+		return primitive;
+	}
+}
@@ -18,11 +18,12 @@ import java.util.Map;
  *
  * @author moparisthebest
  * @see MultiCompiler for compiling multiple classes at once
+ * @see CompilerPool for a thread safe ClassCompiler
  * <p>
  * The original idea was taken from:
  * http://mindprod.com/jgloss/javacompiler.html#SAMPLECODE
  */
-public class Compiler {
+public class Compiler implements ClassCompiler {
 
 	private final JavaCompiler compiler;
 	private final MemoryJavaFileManager mjfm;
@@ -77,10 +78,39 @@ public class Compiler {
 		return compile(className, singleton);
 	}
 
+	@Override
 	public <T> T compile(final String className, final CharSequence code) {
 		return compile(className, new StringJavaFileObject(className, code));
 	}
 
+	/**
+	 * Compile a single class and return it's class file bytes instead of loading it, for storing elsewhere
+	 *
+	 * @see #instantiate(String, byte[]) to load them again
+	 */
+	@Override
+	public byte[] compileToBytes(final String className, final CharSequence code) {
+		singleton.set(0, new StringJavaFileObject(className, code));
+		final JavaCompiler.CompilationTask task = compiler.getTask(null, mjfm, null, null, null, singleton);
+		final MemoryJavaFileObject jfo = task.call() ? mjfm.getMemoryJavaFileObject(className) : null;
+		if (jfo == null)
+			throw new RuntimeException("Error compiling class, aborting...");
+		return jfo.baos.toByteArray();
+	}
+
+	/**
+	 * Load and instantiate a class from bytes returned by compileToBytes, with the same parent ClassLoader compile uses
+	 */
+	@Override
+	public <T> T instantiate(final String className, final byte[] bytes) {
+		try {
+			@SuppressWarnings("unchecked") final T ret = (T) ClassDefiner.define(ClassLoader.getSystemClassLoader(), className, bytes).newInstance();
+			return ret;
+		} catch (Exception e) {
+			throw new RuntimeException("Error instantiating class " + className, e);
+		}
+	}
+
 	public <T> T instantiate(final ClassLoader cl, final String className) {
 		try {
 			// Load class and create an instance.
@@ -0,0 +1,86 @@
+package com.moparisthebest.classgen;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A thread safe ClassCompiler, which keeps a pool of up to maxSize Compilers so different threads can compile in
+ * parallel, threads wait for a free Compiler when all are busy. Compilers are created as they are first needed.
+ * <p>
+ * For anything else a Compiler can do, borrow() one, and release() it when done.
+ *
+ * @author moparisthebest
+ */
+public class CompilerPool implements ClassCompiler {
+
+	private final BlockingQueue<Compiler> idle = new LinkedBlockingQueue<Compiler>();
+	private final int maxSize;
+	private int size = 0;
+
+	/**
+	 * @param maxSize max number of Compilers to create, less than 1 means number of available processors
+	 */
+	public CompilerPool(final int maxSize) {
+		this.maxSize = maxSize < 1 ? Runtime.getRuntime().availableProcessors() : maxSize;
+	}
+
+	public CompilerPool() {
+		this(0);
+	}
+
+	public Compiler borrow() {
+		Compiler ret = idle.poll();
+		if (ret != null)
+			return ret;
+		synchronized (this) {
+			if (size < maxSize) {
+				ret = new Compiler();
+				++size; // only after new Compiler() succeeds
+				return ret;
+			}
+		}
+		try {
+			return idle.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted waiting for a Compiler", e);
+		}
+	}
+
+	public void release(final Compiler compiler) {
+		idle.offer(compiler);
+	}
+
+	@Override
+	public <T> T compile(final String className, final CharSequence code) {
+		final Compiler compiler = borrow();
+		try {
+			return compiler.compile(className, code);
+		} finally {
+			release(compiler);
+		}
+	}
+
+	@Override
+	public byte[] compileToBytes(final String className, final CharSequence code) {
+		final Compiler compiler = borrow();
+		try {
+			return compiler.compileToBytes(className, code);
+		} finally {
+			release(compiler);
+		}
+	}
+
+	/**
+	 * Doesn't need a Compiler at all, so this doesn't wait for one
+	 */
+	@Override
+	public <T> T instantiate(final String className, final byte[] bytes) {
+		try {
+			@SuppressWarnings("unchecked") final T ret = (T) ClassDefiner.define(ClassLoader.getSystemClassLoader(), className, bytes).newInstance();
+			return ret;
+		} catch (Exception e) {
+			throw new RuntimeException("Error instantiating class " + className, e);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.moparisthebest.classgentest;
+
+import com.moparisthebest.classgen.ClassDefiner;
+import com.moparisthebest.classgen.ClassFile;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Same idea as CompilerTest, but writes the Calculator directly as bytecode, so no tools.jar is needed.
+ *
+ * @author moparisthebest
+ */
+public class ClassFileTest {
+
+	@Test
+	public void testCalculator() throws Exception {
+		final Calculator hyp = genCalc("Hypotenuse", Math.class.getMethod("hypot", double.class, double.class));
+		final Calculator max = genCalc("Max", Math.class.getMethod("max", double.class, double.class));
+		// same name can be defined more than once
+		final Calculator max2 = genCalc("Max", Math.class.getMethod("max", double.class, double.class));
+		assertEquals(5.0, hyp.calc(3.0, 4.0), 0.01);
+		assertEquals(4.0, max.calc(3.0, 4.0), 0.01);
+		assertEquals(4.0, max2.calc(3.0, 4.0), 0.01);
+		assertNotSame(max.getClass(), max2.getClass());
+		assertNotNull(hyp.whenGenerated());
+	}
+
+	@Test
+	public void testClassName() {
+		assertEquals("com/moparisthebest/classgentest/Max", ClassDefiner.className(Calculator.class, "Max"));
+	}
+
+	private static final Class<?>[] numericTypes = {byte.class, short.class, char.class, int.class, long.class, float.class, double.class};
+
+	@Test
+	public void testConvert() throws Exception {
+		final String internalName = ClassDefiner.className(ClassFileTest.class, "Convert");
+		final ClassFile cf = new ClassFile(internalName);
+		for (final Class<?> from : numericTypes)
+			for (final Class<?> to : numericTypes)
+				cf.method(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, from.getName() + "To" + to.getName(), ClassFile.methodDescriptor(to, from))
+						.load(0, from).convert(from, to).returnValue(to);
+		cf.method(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, "integerToLong", ClassFile.methodDescriptor(long.class, Integer.class))
+				.aload(0).convert(Integer.class, long.class).returnValue(long.class);
+		cf.method(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, "longToObject", ClassFile.methodDescriptor(Object.class, long.class))
+				.load(0, long.class).convert(long.class, Object.class).returnValue(Object.class);
+		final Class<?> convert = ClassDefiner.define(ClassFileTest.class, internalName, cf.toByteArray());
+		for (final double value : new double[]{70000.75, -129.5, 3.0})
+			for (final Class<?> from : numericTypes) {
+				final Object fromValue = cast(value, from);
+				for (final Class<?> to : numericTypes) {
+					final Method method = convert.getMethod(from.getName() + "To" + to.getName(), from);
+					assertEquals(from + " -> " + to, cast(fromValue, to), method.invoke(null, fromValue));
+				}
+			}
+		assertEquals(5L, convert.getMethod("integerToLong", Integer.class).invoke(null, 5));
+		assertEquals(5L, convert.getMethod("longToObject", long.class).invoke(null, 5L));
+		try {
+			new ClassFile(internalName).method(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, "bad", ClassFile.methodDescriptor(boolean.class, int.class))
+					.load(0, int.class).convert(int.class, boolean.class);
+			fail("should have thrown");
+		} catch (IllegalArgumentException e) {
+			// expected, java can't cast int to boolean either
+		}
+	}
+
+	/**
+	 * @return value cast to type exactly like java would
+	 */
+	private static Object cast(final Object value, final Class<?> type) {
+		if (value instanceof Float || value instanceof Double) {
+			final double d = ((Number) value).doubleValue();
+			if (type == byte.class) return (byte) d;
+			if (type == short.class) return (short) d;
+			if (type == char.class) return (char) d;
+			if (type == int.class) return (int) d;
+			if (type == long.class) return (long) d;
+			if (type == float.class) return (float) d;
+			return d;
+		}
+		final long l = value instanceof Character ? (long) (Character) value : ((Number) value).longValue();
+		if (type == byte.class) return (byte) l;
+		if (type == short.class) return (short) l;
+		if (type == char.class) return (char) l;
+		if (type == int.class) return (int) l;
+		if (type == long.class) return l;
+		if (type == float.class) return (float) l;
+		return (double) l;
+	}
+
+	public static Calculator genCalc(final String className, final java.lang.reflect.Method op) throws Exception {
+		final String internalName = ClassDefiner.className(Calculator.class, className);
+		final ClassFile cf = new ClassFile(internalName, Calculator.class);
+		cf.method(ClassFile.ACC_PUBLIC, "<init>", "()V")
+				.aload(0).invokeSpecial("java/lang/Object", "<init>").returnValue(void.class);
+		cf.method(ClassFile.ACC_PUBLIC, "calc", ClassFile.methodDescriptor(double.class, double.class, double.class))
+				.load(1, double.class).load(3, double.class).invoke(op).returnValue(double.class);
+		cf.method(ClassFile.ACC_PUBLIC, "whenGenerated", ClassFile.methodDescriptor(Date.class))
+				.newInstance(Date.class).dup().invokeSpecial("java/util/Date", "<init>").returnValue(Date.class);
+		return (Calculator) ClassDefiner.define(Calculator.class, internalName, cf.toByteArray()).newInstance();
+	}
+}
@@ -1,6 +1,8 @@
 package com.moparisthebest.classgentest;
 
+import com.moparisthebest.classgen.ClassCompiler;
 import com.moparisthebest.classgen.Compiler;
+import com.moparisthebest.classgen.CompilerPool;
 import com.moparisthebest.classgen.MultiCompiler;
 import com.moparisthebest.classgen.StringJavaFileObject;
 import org.junit.Test;
@@ -40,6 +42,27 @@ public class CompilerTest {
 		assertEquals(48.0, mult4.calc(3.0, 4.0), 0.01);
 	}
 
+	@Test
+	public void testPool() throws InterruptedException {
+		final CompilerPool compiler = new CompilerPool(2);
+		final Calculator[] calcs = new Calculator[4];
+		final Thread[] threads = new Thread[calcs.length];
+		for (int x = 0; x < threads.length; ++x) {
+			final int i = x;
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					calcs[i] = genCalc(compiler, "Multiply", "a * b * " + (i + 1));
+				}
+			});
+			threads[i].start();
+		}
+		for (final Thread thread : threads)
+			thread.join();
+		for (int x = 0; x < calcs.length; ++x)
+			assertEquals(12.0 * (x + 1), calcs[x].calc(3.0, 4.0), 0.01);
+	}
+
 	@Test
 	public void testMulti() throws InterruptedException {
 		final MultiCompiler compiler = new MultiCompiler();
@@ -93,7 +116,7 @@ public class CompilerTest {
 				"}\n");
 	}
 
-	public static Calculator genCalc(final Compiler compiler, final String className, final String expression) {
+	public static Calculator genCalc(final ClassCompiler compiler, final String className, final String expression) {
 		// compose text of Java program on the fly.
 		final String calc = writeCalculator(className, expression);
 		/*
@@ -0,0 +1,24 @@
+package com.moparisthebest.jdbc.codegen;
+
+import com.moparisthebest.jdbc.dto.FieldPerson;
+
+import java.sql.SQLException;
+import java.util.List;
+
+@JdbcMapper.Mapper(
+		bindInListBuckets = {4, 16, 64}
+)
+public interface BucketedBindInListDao extends JdbcMapper {
+
+	@JdbcMapper.SQL(value = "SELECT person_no, first_name, last_name, birth_date from person WHERE {person_no IN personNos} ORDER BY person_no", cachePreparedStatement = JdbcMapper.OptionalBool.TRUE)
+	List<FieldPerson> getFieldPeople(List<Long> personNos) throws SQLException;
+
+	@JdbcMapper.SQL(value = "SELECT person_no, first_name, last_name, birth_date from person WHERE {person_no IN personNos} AND ({first_name IN names} OR {last_name IN names}) ORDER BY person_no", cachePreparedStatement = JdbcMapper.OptionalBool.TRUE)
+	List<FieldPerson> getFieldPeopleByName(List<Long> personNos, List<String> names) throws SQLException;
+
+	@JdbcMapper.SQL("SELECT person_no, first_name, last_name, birth_date from person WHERE {person_no NOT IN personNos} ORDER BY person_no")
+	List<FieldPerson> getFieldPeopleNotIn(List<Long> personNos) throws SQLException;
+
+	@JdbcMapper.SQL("SELECT person_no, first_name, last_name, birth_date from person WHERE {person_no IN personNos} ORDER BY person_no")
+	List<FieldPerson> getFieldPeoplePrimitive(long[] personNos) throws SQLException;
+}
@@ -50,6 +50,18 @@ public interface PrestoPersonDAO extends PersonDAO {
 	@JdbcMapper.SQL("UPDATE person SET first_name = {blob:firstName} WHERE person_no = {personNo}")
 	void setFirstNameBlob(String firstName, long personNo) throws SQLException;
 
+	@JdbcMapper.Batch(size = 2)
+	@JdbcMapper.SQL("INSERT INTO person_batch (person_no, first_name, last_name) VALUES ({personNo}, {firstName}, {lastName})")
+	int[] insertPeopleBatch(List<Person> people) throws SQLException;
+
+	@JdbcMapper.Batch
+	@JdbcMapper.SQL("INSERT INTO person_batch (person_no, first_name, last_name) VALUES ({personNos}, {firstNames}, {lastName})")
+	long insertPeopleBatch(long[] personNos, String[] firstNames, String lastName) throws SQLException;
+
+	@JdbcMapper.Batch
+	@JdbcMapper.SQL(value = "INSERT INTO person_batch (person_no, first_name, last_name) VALUES ({personNos}, {firstNames}, {lastName})", cachePreparedStatement = JdbcMapper.OptionalBool.TRUE)
+	int insertPeopleBatchCached(long[] personNos, Iterable<String> firstNames, String lastName) throws SQLException;
+
 	@JdbcMapper.SQL("SELECT person_no FROM person WHERE last_name = {lastName}")
 	long getPersonNo(String lastName) throws SQLException;
 
@@ -70,6 +82,9 @@ public interface PrestoPersonDAO extends PersonDAO {
 	@JdbcMapper.SQL("SELECT first_name FROM person WHERE person_no = {personNo}")
 	String getFirstName(long personNo) throws SQLException;
 
+	@JdbcMapper.SQL("SELECT first_name FROM person WHERE person_no = {person.personNo} AND last_name = {person.lastName}")
+	String getFirstNameDto(Person person) throws SQLException;
+
 	@JdbcMapper.SQL(value = "SELECT first_name FROM person WHERE person_no = {personNo}", isSelect = false)
 	int getFirstNameUpdate(long personNo) throws SQLException;
 
@@ -185,6 +200,9 @@ public interface PrestoPersonDAO extends PersonDAO {
 	@JdbcMapper.SQL("SELECT person_no, birth_date, last_name, first_name from person WHERE person_no IN ({personNo1},{personNo2},{personNo3}) ORDER BY person_no")
 	ResultSetIterable<FieldPerson> getPeopleResultSetIterable(long personNo1, long personNo2, long personNo3) throws SQLException;
 
+	@JdbcMapper.SQL(value = "SELECT person_no, birth_date, last_name, first_name from person WHERE person_no IN ({personNo1},{personNo2},{personNo3}) ORDER BY person_no", fetchSize = 2)
+	ResultSetIterable<FieldPerson> getPeopleResultSetIterableFetchSize(long personNo1, long personNo2, long personNo3) throws SQLException;
+
 	@JdbcMapper.SQL(value = "SELECT person_no, birth_date, last_name, first_name from person WHERE person_no IN ({personNo1},{personNo2},{personNo3}) ORDER BY person_no", cachePreparedStatement = JdbcMapper.OptionalBool.TRUE)
 	ResultSetIterable<FieldPerson> getPeopleResultSetIterableCachedPreparedStatement(long personNo1, long personNo2, long personNo3) throws SQLException;
 
@@ -193,6 +211,9 @@ public interface PrestoPersonDAO extends PersonDAO {
 	@JdbcMapper.SQL("SELECT person_no, birth_date, last_name, first_name from person WHERE person_no IN ({personNo1},{personNo2},{personNo3}) ORDER BY person_no")
 	Stream<FieldPerson> getPeopleStream(long personNo1, long personNo2, long personNo3) throws SQLException;
 
+	@JdbcMapper.SQL(value = "SELECT person_no, birth_date, last_name, first_name from person WHERE person_no IN ({personNo1},{personNo2},{personNo3}) ORDER BY person_no", fetchSize = 2)
+	Stream<FieldPerson> getPeopleStreamFetchSize(long personNo1, long personNo2, long personNo3) throws SQLException;
+
 	@JdbcMapper.SQL(value = "SELECT person_no, birth_date, last_name, first_name from person WHERE person_no IN ({personNo1},{personNo2},{personNo3}) ORDER BY person_no", cachePreparedStatement = JdbcMapper.OptionalBool.TRUE)
 	Stream<FieldPerson> getPeopleStreamCachedPreparedStatement(long personNo1, long personNo2, long personNo3) throws SQLException;
 
@@ -237,6 +258,12 @@ public interface PrestoPersonDAO extends PersonDAO {
 	@SQL("SELECT first_name, last_name FROM person WHERE {person_no IN personNos}")
 	List<FieldPerson> getPeopleInListCollection(Collection<Long> personNos);
 
+	@SQL("SELECT first_name, last_name FROM person WHERE {person_no IN personNos}")
+	List<FieldPerson> getPeopleInListPrimitive(long[] personNos);
+
+	@SQL("SELECT first_name, last_name FROM person WHERE {person_no IN personNos}")
+	List<FieldPerson> getPeopleInListPrimitiveInt(int[] personNos);
+
 	//IFJAVA8_START
 
 	@SQL("SELECT first_name, last_name FROM person WHERE {person_no IN personNos} OR {first_name IN names} OR {last_name IN names}")
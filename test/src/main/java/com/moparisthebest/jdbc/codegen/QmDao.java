@@ -1,5 +1,6 @@
 package com.moparisthebest.jdbc.codegen;
 
+import com.moparisthebest.jdbc.ColumnarResult;
 import com.moparisthebest.jdbc.dto.*;
 import com.moparisthebest.jdbc.util.CaseInsensitiveHashMap;
 import com.moparisthebest.jdbc.util.ResultSetIterable;
@@ -182,6 +183,12 @@ public interface QmDao extends JdbcMapper {
 	@SQL(selectThreePeople)
 	ResultSetIterable<FieldPerson> getThreePeopleResultSetIterable(long personNo1, long personNo2, long personNo3) throws SQLException;
 
+	@SQL(selectThreePeople)
+	Map<Long, List<FieldPerson>> getThreePeopleMapList(long personNo1, long personNo2, long personNo3) throws SQLException;
+
+	@SQL(selectThreePeople)
+	ColumnarResult getThreePeopleColumnar(long personNo1, long personNo2, long personNo3) throws SQLException;
+
 	//IFJAVA8_START
 
 	@SQL(selectThreePeople)
@@ -258,4 +265,10 @@ public interface QmDao extends JdbcMapper {
 
 	@SQL("SELECT person_no, first_name, last_name, birth_date from person WHERE {person_no NOT IN personNos} ORDER BY person_no")
 	List<FieldPerson> getFieldPeopleNotIn(List<Long> personNos) throws SQLException;
+
+	@SQL("SELECT person_no, first_name, last_name, birth_date from person WHERE {person_no IN personNos} ORDER BY person_no")
+	List<FieldPerson> getFieldPeoplePrimitive(long[] personNos) throws SQLException;
+
+	@SQL("SELECT person_no, first_name, last_name, birth_date from person WHERE {person_no IN personNos} ORDER BY person_no")
+	List<FieldPerson> getFieldPeoplePrimitiveInt(int[] personNos) throws SQLException;
 }
@@ -282,6 +282,17 @@ public class QueryMapperQmDao implements QmDao {
 				FieldPerson.class, personNo1, personNo2, personNo3);
 	}
 
+	@Override
+	public Map<Long, List<FieldPerson>> getThreePeopleMapList(final long personNo1, final long personNo2, final long personNo3) throws SQLException {
+		return  qm.toMapList(selectThreePeople,
+				Long.class, FieldPerson.class, personNo1, personNo2, personNo3);
+	}
+
+	@Override
+	public ColumnarResult getThreePeopleColumnar(final long personNo1, final long personNo2, final long personNo3) throws SQLException {
+		return  qm.toColumns(selectThreePeople, personNo1, personNo2, personNo3);
+	}
+
 	//IFJAVA8_START
 
 	@Override
@@ -410,4 +421,14 @@ public class QueryMapperQmDao implements QmDao {
 	public List<FieldPerson> getFieldPeopleNotIn(final List<Long> personNos) throws SQLException {
 		return lqm.toList("SELECT * from person WHERE " + inListReplace + " ORDER BY person_no", FieldPerson.class, lqm.notInList("person_no", personNos));
 	}
+
+	@Override
+	public List<FieldPerson> getFieldPeoplePrimitive(final long[] personNos) throws SQLException {
+		return lqm.toList("SELECT * from person WHERE " + inListReplace + " ORDER BY person_no", FieldPerson.class, lqm.inList("person_no", personNos));
+	}
+
+	@Override
+	public List<FieldPerson> getFieldPeoplePrimitiveInt(final int[] personNos) throws SQLException {
+		return lqm.toList("SELECT * from person WHERE " + inListReplace + " ORDER BY person_no", FieldPerson.class, lqm.inList("person_no", personNos));
+	}
 }
@@ -1,5 +1,6 @@
 package com.moparisthebest.jdbc.codegen;
 
+import com.moparisthebest.jdbc.ColumnarResult;
 import com.moparisthebest.jdbc.ListQueryMapper;
 import com.moparisthebest.jdbc.ResultSetMapper;
 import com.moparisthebest.jdbc.TypeReference;
@@ -231,6 +232,18 @@ public class QueryMapperTypeQmDao extends QueryMapperQmDao {
 				new TypeReference<ResultSetIterable<FieldPerson>>() {}, personNo1, personNo2, personNo3);
 	}
 
+	@Override
+	public Map<Long, List<FieldPerson>> getThreePeopleMapList(final long personNo1, final long personNo2, final long personNo3) throws SQLException {
+		return  qm.toType(selectThreePeople,
+				new TypeReference<Map<Long, List<FieldPerson>>>() {}, personNo1, personNo2, personNo3);
+	}
+
+	@Override
+	public ColumnarResult getThreePeopleColumnar(final long personNo1, final long personNo2, final long personNo3) throws SQLException {
+		return  qm.toType(selectThreePeople,
+				new TypeReference<ColumnarResult>() {}, personNo1, personNo2, personNo3);
+	}
+
 	//IFJAVA8_START
 
 	@Override
@@ -359,4 +372,14 @@ public class QueryMapperTypeQmDao extends QueryMapperQmDao {
 	public List<FieldPerson> getFieldPeopleNotIn(final List<Long> personNos) throws SQLException {
 		return lqm.toType("SELECT * from person WHERE " + ListQueryMapper.inListReplace + " ORDER BY person_no", new TypeReference<List<FieldPerson>>() {}, lqm.notInList("person_no", personNos));
 	}
+
+	@Override
+	public List<FieldPerson> getFieldPeoplePrimitive(final long[] personNos) throws SQLException {
+		return lqm.toType("SELECT * from person WHERE " + inListReplace + " ORDER BY person_no", new TypeReference<List<FieldPerson>>() {}, lqm.inList("person_no", personNos));
+	}
+
+	@Override
+	public List<FieldPerson> getFieldPeoplePrimitiveInt(final int[] personNos) throws SQLException {
+		return lqm.toType("SELECT * from person WHERE " + inListReplace + " ORDER BY person_no", new TypeReference<List<FieldPerson>>() {}, lqm.inList("person_no", personNos));
+	}
 }
@@ -0,0 +1,16 @@
+package com.moparisthebest.jdbc.codegen;
+
+import java.sql.SQLException;
+
+@JdbcMapper.Mapper(
+		cachePreparedStatements = JdbcMapper.OptionalBool.TRUE
+		, sharedStatementCache = JdbcMapper.OptionalBool.TRUE
+)
+public interface SharedStatementCacheDao extends JdbcMapper {
+
+	@JdbcMapper.SQL("SELECT first_name FROM person WHERE person_no = {personNo}")
+	String getFirstName(long personNo) throws SQLException;
+
+	@JdbcMapper.SQL("SELECT last_name FROM person WHERE person_no = {personNo}")
+	String getLastName(long personNo) throws SQLException;
+}
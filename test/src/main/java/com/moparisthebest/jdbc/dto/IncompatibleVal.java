@@ -0,0 +1,11 @@
+package com.moparisthebest.jdbc.dto;
+
+import java.util.List;
+
+/**
+ * strVal can't hold the String the val table returns
+ */
+public class IncompatibleVal {
+	public long valNo;
+	public List<String> strVal;
+}
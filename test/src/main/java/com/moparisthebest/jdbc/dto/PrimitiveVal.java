@@ -0,0 +1,18 @@
+package com.moparisthebest.jdbc.dto;
+
+/**
+ * every primitive and boxed numeric type, mapped from the val table
+ */
+public class PrimitiveVal {
+	public long valNo;
+	public int numInt;
+	public long numLong;
+	public float numFloat;
+	public double numDouble;
+	public byte numByte;
+	public short numShort;
+	public Integer numInteger;
+	public Long numLongObj;
+	public Double numDoubleObj;
+	public String strVal;
+}
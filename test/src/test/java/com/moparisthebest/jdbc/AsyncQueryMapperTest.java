@@ -0,0 +1,77 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.dto.FieldPerson;
+import com.moparisthebest.jdbc.dto.Person;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.moparisthebest.jdbc.QueryMapperTest.*;
+
+public class AsyncQueryMapperTest {
+	public static final AsyncQueryMapper aqm = new AsyncQueryMapper(QueryMapperTest::getConnection, 2);
+
+	@BeforeClass
+	public static void createTables() throws SQLException {
+		// the first connection creates the tables, don't let concurrent calls race to do it
+		QueryMapperTest.getConnection().close();
+	}
+
+	@Test
+	public void testToObjectAsync() {
+		final List<CompletableFuture<FieldPerson>> futures = new ArrayList<>();
+		// more than maxConcurrency at once
+		for (final Person person : people)
+			futures.add(aqm.toObjectAsync("SELECT * FROM person WHERE person_no = ?", FieldPerson.class, person.getPersonNo()));
+		final List<FieldPerson> actual = new ArrayList<>();
+		for (final CompletableFuture<FieldPerson> future : futures)
+			actual.add(future.join());
+		Assert.assertEquals(Arrays.asList(people), actual);
+		Assert.assertEquals(aqm.getMaxConcurrency(), aqm.getAvailablePermits());
+	}
+
+	@Test
+	public void testDefaultExecutorBounded() {
+		// virtual threads are cheap to block, anything else must not get more threads than connections
+		if (aqm.executorService instanceof ThreadPoolExecutor) {
+			Assert.assertEquals(aqm.getMaxConcurrency(), ((ThreadPoolExecutor) aqm.executorService).getMaximumPoolSize());
+			final List<CompletableFuture<FieldPerson>> futures = new ArrayList<>();
+			for (int x = 0; x < 20; ++x)
+				futures.add(aqm.toObjectAsync("SELECT * FROM person WHERE person_no = ?", FieldPerson.class, people[x % people.length].getPersonNo()));
+			Assert.assertTrue(((ThreadPoolExecutor) aqm.executorService).getLargestPoolSize() <= aqm.getMaxConcurrency());
+			for (int x = 0; x < futures.size(); ++x)
+				Assert.assertEquals(people[x % people.length], futures.get(x).join());
+		}
+		Assert.assertEquals(aqm.getMaxConcurrency(), aqm.getAvailablePermits());
+	}
+
+	@Test
+	public void testToListAsync() {
+		Assert.assertEquals(Arrays.asList(people), aqm.toListAsync("SELECT * FROM person WHERE person_no IN (?,?,?) ORDER BY person_no", FieldPerson.class,
+				people[0].getPersonNo(), people[1].getPersonNo(), people[2].getPersonNo()).join());
+	}
+
+	@Test
+	public void testExecuteUpdateAsync() {
+		Assert.assertEquals(Integer.valueOf(0), aqm.executeUpdateAsync("UPDATE person SET first_name = ? WHERE person_no = ?", "Nobody", -1).join());
+	}
+
+	@Test
+	public void testFailedAsync() {
+		try {
+			aqm.toObjectAsync("SELECT * FROM no_such_table", FieldPerson.class).join();
+			Assert.fail("should have thrown");
+		} catch (CompletionException e) {
+			Assert.assertTrue(e.getCause() instanceof SQLException);
+		}
+		Assert.assertEquals(aqm.getMaxConcurrency(), aqm.getAvailablePermits());
+	}
+}
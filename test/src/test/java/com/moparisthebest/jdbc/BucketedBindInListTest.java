@@ -0,0 +1,80 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.codegen.BucketedBindInListDao;
+import com.moparisthebest.jdbc.codegen.JdbcMapperFactory;
+import com.moparisthebest.jdbc.dto.FieldPerson;
+import com.moparisthebest.jdbc.dto.Person;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.moparisthebest.jdbc.QueryMapperTest.bosses;
+import static com.moparisthebest.jdbc.QueryMapperTest.getConnection;
+import static com.moparisthebest.jdbc.QueryMapperTest.people;
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+import static org.junit.Assert.assertArrayEquals;
+
+public class BucketedBindInListTest {
+
+	private static BucketedBindInListDao dao;
+
+	@BeforeClass
+	public static void open() throws SQLException {
+		dao = JdbcMapperFactory.create(BucketedBindInListDao.class, getConnection());
+	}
+
+	@AfterClass
+	public static void close() {
+		tryClose(dao);
+	}
+
+	/**
+	 * @return personNos of people, then person_nos that don't exist up to size
+	 */
+	private static List<Long> personNos(final int size) {
+		final List<Long> ret = new ArrayList<Long>(size);
+		for (final Person person : people)
+			ret.add(person.getPersonNo());
+		for (long x = 1000; ret.size() < size; ++x)
+			ret.add(x);
+		return ret;
+	}
+
+	@Test
+	public void testBucketSizes() throws SQLException {
+		// within each bucket, at the top of the ladder, and doubled past it
+		for (final int size : new int[]{3, 4, 5, 16, 17, 64, 65, 129, 200})
+			assertArrayEquals("size " + size, people, dao.getFieldPeople(personNos(size)).toArray());
+		// and back down again to a bucket already prepared
+		assertArrayEquals(people, dao.getFieldPeople(personNos(3)).toArray());
+	}
+
+	@Test
+	public void testMultiple() throws SQLException {
+		final List<FieldPerson> fromDb = dao.getFieldPeopleByName(personNos(5),
+				Arrays.asList(people[0].getFirstName(), people[1].getFirstName(), people[2].getFirstName()));
+		assertArrayEquals(people, fromDb.toArray());
+	}
+
+	@Test
+	public void testNotIn() throws SQLException {
+		final List<Long> personNos = new ArrayList<Long>();
+		for (final Person boss : bosses)
+			personNos.add(boss.getPersonNo());
+		// padding repeats the last value, which keeps NOT IN the same
+		assertArrayEquals(people, dao.getFieldPeopleNotIn(personNos).toArray());
+	}
+
+	@Test
+	public void testPrimitive() throws SQLException {
+		final long[] personNos = new long[5];
+		for (int x = 0; x < personNos.length; ++x)
+			personNos[x] = x < people.length ? people[x].getPersonNo() : 1000 + x;
+		assertArrayEquals(people, dao.getFieldPeoplePrimitive(personNos).toArray());
+	}
+}
@@ -0,0 +1,123 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.dto.FieldPerson;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+import static com.moparisthebest.jdbc.QueryMapperTest.fieldPerson1;
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+import static com.moparisthebest.jdbc.codegen.QueryMapperQmDao.personRegular;
+
+public class CompilingMapperStoreTest {
+
+	private final File directory = new File("target/compiled-mappers-store-test");
+
+	/**
+	 * Counts reads that found something and writes, and can pretend to be another library version
+	 */
+	private static class CountingCache extends CompilingRowToObjectMapper.Cache {
+		private final String libraryVersion;
+		int reads = 0, writes = 0;
+
+		CountingCache(final File directory, final String libraryVersion) {
+			super(new HashMap<CompilingRowToObjectMapper.ResultSetKey, CompilingRowToObjectMapper.ResultSetToObject<?, ?>>(), true, directory);
+			this.libraryVersion = libraryVersion;
+		}
+
+		@Override
+		protected String getLibraryVersion() {
+			return libraryVersion == null ? super.getLibraryVersion() : libraryVersion;
+		}
+
+		@Override
+		protected byte[] read(final String fileName) {
+			final byte[] ret = super.read(fileName);
+			if (ret != null)
+				++reads;
+			return ret;
+		}
+
+		@Override
+		protected void write(final String fileName, final byte[] bytes) {
+			++writes;
+			super.write(fileName, bytes);
+		}
+	}
+
+	@Before
+	public void clean() {
+		final File[] files = directory.listFiles();
+		if (files != null)
+			for (final File file : files)
+				file.delete();
+	}
+
+	private static void map(final CompilingRowToObjectMapper.Cache cache) throws SQLException {
+		final QueryMapper qm = new QueryMapper(QueryMapperTest.getConnection(), new CompilingResultSetMapper(cache));
+		try {
+			Assert.assertEquals(fieldPerson1, qm.toObject(personRegular, FieldPerson.class, fieldPerson1.getPersonNo()));
+		} finally {
+			tryClose(qm);
+		}
+	}
+
+	private File[] storedFiles() {
+		return directory.listFiles();
+	}
+
+	@Test
+	public void testLoadFromDisk() throws Exception {
+		final CountingCache first = new CountingCache(directory, null);
+		map(first);
+		Assert.assertEquals(0, first.reads);
+		Assert.assertEquals(1, first.writes);
+		Assert.assertEquals(1, storedFiles().length);
+		// a new in-memory cache, like after a restart, loads it without compiling
+		final CountingCache second = new CountingCache(directory, null);
+		map(second);
+		Assert.assertEquals(1, second.reads);
+		Assert.assertEquals(0, second.writes);
+	}
+
+	@Test
+	public void testRejectOtherLibraryVersion() throws Exception {
+		final CountingCache old = new CountingCache(directory, "old version");
+		map(old);
+		Assert.assertEquals(1, old.writes);
+		final CountingCache current = new CountingCache(directory, null);
+		map(current);
+		Assert.assertEquals(0, current.reads);
+		Assert.assertEquals(1, current.writes);
+		Assert.assertEquals(2, storedFiles().length);
+	}
+
+	@Test
+	public void testRejectCorruptEntry() throws Exception {
+		map(new CountingCache(directory, null));
+		final File[] files = storedFiles();
+		Assert.assertEquals(1, files.length);
+		write(files[0], new byte[]{(byte) 0xCA, (byte) 0xFE, 0, 1, 2});
+		final CountingCache cache = new CountingCache(directory, null);
+		map(cache);
+		Assert.assertEquals(1, cache.reads);
+		// thrown away and stored again
+		Assert.assertEquals(1, cache.writes);
+		Assert.assertTrue(storedFiles()[0].length() > 5);
+	}
+
+	private static void write(final File file, final byte[] bytes) throws IOException {
+		final FileOutputStream os = new FileOutputStream(file);
+		try {
+			os.write(bytes);
+		} finally {
+			os.close();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.codegen.JdbcMapperFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+
+public class GroupCommitRunnerTest {
+
+	@Test
+	public void testGroupCommit() throws Throwable {
+		final QueryMapper qm = new QueryMapper(QueryMapperTest.getConnection());
+		final GroupCommitRunner<QueryMapper> gcr = new GroupCommitRunner<>(JdbcMapperFactory.of(QueryMapper.class, QueryMapperTest::getConnection), 100, 100000);
+		try {
+			qm.executeUpdate("CREATE TABLE group_commit (id NUMERIC)");
+			// hold the worker so the rest queue up behind it as one group, and some can be cancelled first
+			final CountDownLatch running = new CountDownLatch(1), finish = new CountDownLatch(1);
+			final CompletableFuture<Integer> blocker = gcr.runInTransaction(dao -> {
+				running.countDown();
+				try {
+					finish.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				return 0;
+			});
+			running.await();
+			final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+			for (int x = 0; x < 50; ++x) {
+				final int id = x;
+				futures.add(gcr.runInTransaction(dao -> {
+					final int ret = dao.executeUpdate("INSERT INTO group_commit (id) VALUES (?)", id);
+					// a failing member only rolls back itself, including what it already wrote
+					if (id == 25)
+						dao.executeUpdate("INSERT INTO group_commit_no_such_table (id) VALUES (?)", id);
+					return ret;
+				}));
+			}
+			Assert.assertTrue(futures.get(10).cancel(false));
+			Assert.assertTrue(futures.get(40).cancel(false));
+			finish.countDown();
+			Assert.assertEquals(Integer.valueOf(0), blocker.join());
+			for (int x = 0; x < futures.size(); ++x) {
+				if (x == 10 || x == 40) {
+					Assert.assertTrue(futures.get(x).isCancelled());
+				} else if (x == 25) {
+					try {
+						futures.get(x).join();
+						Assert.fail("should have thrown");
+					} catch (CompletionException e) {
+						Assert.assertTrue(e.getCause() instanceof SQLException);
+					}
+				} else {
+					Assert.assertEquals(Integer.valueOf(1), futures.get(x).join());
+				}
+			}
+			// every id once, but the cancelled ones and the failed one
+			Assert.assertEquals(47L, qm.toObject("SELECT COUNT(*) FROM group_commit", Long.class).longValue());
+			Assert.assertEquals(47L, qm.toObject("SELECT COUNT(DISTINCT id) FROM group_commit", Long.class).longValue());
+			Assert.assertNull(qm.toObject("SELECT id FROM group_commit WHERE id = ?", Long.class, 25));
+			Assert.assertNull(qm.toObject("SELECT id FROM group_commit WHERE id = ?", Long.class, 10));
+			Assert.assertNull(qm.toObject("SELECT id FROM group_commit WHERE id = ?", Long.class, 40));
+			Assert.assertEquals(24L, qm.toObject("SELECT id FROM group_commit WHERE id = ?", Long.class, 24).longValue());
+			Assert.assertEquals(26L, qm.toObject("SELECT id FROM group_commit WHERE id = ?", Long.class, 26).longValue());
+			// the blocker and the rest, not the cancelled ones
+			Assert.assertEquals(49, gcr.getQueryCount());
+			// they were all queued well within 100ms of each other
+			Assert.assertTrue(gcr.getCommitCount() < 50);
+		} finally {
+			gcr.close();
+			try {
+				qm.executeUpdate("DROP TABLE group_commit");
+			} finally {
+				tryClose(qm);
+			}
+		}
+		try {
+			gcr.runInTransaction(dao -> 1);
+			Assert.fail("should have thrown");
+		} catch (IllegalStateException e) {
+			// expected, closed
+		}
+	}
+}
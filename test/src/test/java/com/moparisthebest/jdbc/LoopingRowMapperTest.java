@@ -0,0 +1,145 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.dto.FieldPerson;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.ref.SoftReference;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.moparisthebest.jdbc.QueryMapperTest.people;
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+import static com.moparisthebest.jdbc.codegen.QueryMapperQmDao.selectThreePeople;
+
+public class LoopingRowMapperTest {
+
+	/**
+	 * Pretends to be cleared by the garbage collector after clearAfter calls to get()
+	 */
+	private static class ClearingReference<T> extends SoftReference<T> {
+		private int clearAfter;
+
+		ClearingReference(final T referent, final int clearAfter) {
+			super(referent);
+			this.clearAfter = clearAfter;
+		}
+
+		@Override
+		public T get() {
+			return clearAfter-- > 0 ? super.get() : null;
+		}
+	}
+
+	private interface Loop {
+		int run(LoopingRowMapper<Long, FieldPerson> rowMapper) throws SQLException;
+	}
+
+	private static int loop(final ResultSetMapper rsm, final Loop loop) throws SQLException {
+		final Connection conn = QueryMapperTest.getConnection();
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = conn.prepareStatement(selectThreePeople);
+			for (int x = 0; x < people.length; ++x)
+				ps.setLong(x + 1, people[x].getPersonNo());
+			rs = ps.executeQuery();
+			@SuppressWarnings("unchecked")
+			final LoopingRowMapper<Long, FieldPerson> rowMapper = (LoopingRowMapper<Long, FieldPerson>) rsm.getRowMapper(rs, FieldPerson.class, null, null, Long.class);
+			return loop.run(rowMapper);
+		} finally {
+			tryClose(rs);
+			tryClose(ps);
+		}
+	}
+
+	private static void testLoops(final ResultSetMapper rsm) throws SQLException {
+		final List<FieldPerson> list = new ArrayList<FieldPerson>();
+		Assert.assertEquals(people.length, loop(rsm, new Loop() {
+			@Override
+			public int run(final LoopingRowMapper<Long, FieldPerson> rowMapper) throws SQLException {
+				return rowMapper.toCollection(new SoftReference<List<FieldPerson>>(list), -1);
+			}
+		}));
+		Assert.assertArrayEquals(people, list.toArray());
+
+		final Map<Long, FieldPerson> map = new HashMap<Long, FieldPerson>();
+		Assert.assertEquals(2, loop(rsm, new Loop() {
+			@Override
+			public int run(final LoopingRowMapper<Long, FieldPerson> rowMapper) throws SQLException {
+				return rowMapper.toMap(new SoftReference<Map<Long, FieldPerson>>(map), 2);
+			}
+		}));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals(people[1], map.get(people[1].getPersonNo()));
+
+		final Map<Long, List<FieldPerson>> mapList = new HashMap<Long, List<FieldPerson>>();
+		@SuppressWarnings("unchecked")
+		final Class<List<FieldPerson>> listType = (Class<List<FieldPerson>>) (Object) List.class;
+		Assert.assertEquals(people.length, loop(rsm, new Loop() {
+			@Override
+			public int run(final LoopingRowMapper<Long, FieldPerson> rowMapper) throws SQLException {
+				return rowMapper.toMapCollection(new SoftReference<Map<Long, List<FieldPerson>>>(mapList), listType, -1);
+			}
+		}));
+		Assert.assertEquals(people.length, mapList.size());
+		Assert.assertEquals(people[2], mapList.get(people[2].getPersonNo()).get(0));
+
+		// the container is dereferenced again for every row, so it can be cleared part way through
+		final List<FieldPerson> cleared = new ArrayList<FieldPerson>();
+		try {
+			loop(rsm, new Loop() {
+				@Override
+				public int run(final LoopingRowMapper<Long, FieldPerson> rowMapper) throws SQLException {
+					return rowMapper.toCollection(new ClearingReference<List<FieldPerson>>(cleared, 2), -1);
+				}
+			});
+			Assert.fail("expected OutOfMemoryError once the reference was cleared");
+		} catch (OutOfMemoryError e) {
+			// expected
+		}
+		Assert.assertEquals(2, cleared.size());
+	}
+
+	@Test
+	public void testCompiling() throws SQLException {
+		testLoops(new CompilingResultSetMapper(new CompilingRowToObjectMapper.Cache(true)));
+	}
+
+	@Test
+	public void testBytecode() throws SQLException {
+		testLoops(new BytecodeResultSetMapper(new CompilingRowToObjectMapper.Cache(true)));
+	}
+
+	@Test
+	public void testResultSetToObjectWithoutLoops() throws SQLException {
+		final Map<CompilingRowToObjectMapper.ResultSetKey, CompilingRowToObjectMapper.ResultSetToObject<?, ?>> map =
+				new HashMap<CompilingRowToObjectMapper.ResultSetKey, CompilingRowToObjectMapper.ResultSetToObject<?, ?>>();
+		final ResultSetMapper rsm = new CompilingResultSetMapper(new CompilingRowToObjectMapper.Cache(map, true));
+		testLoops(rsm);
+		// replace the generated class with one only implementing ResultSetToObject, like code written before the loops
+		for (final Map.Entry<CompilingRowToObjectMapper.ResultSetKey, CompilingRowToObjectMapper.ResultSetToObject<?, ?>> entry : map.entrySet()) {
+			@SuppressWarnings("unchecked")
+			final CompilingRowToObjectMapper.ResultSetToObject<Object, Object> generated = (CompilingRowToObjectMapper.ResultSetToObject<Object, Object>) entry.getValue();
+			entry.setValue(new CompilingRowToObjectMapper.ResultSetToObject<Object, Object>() {
+				@Override
+				public Object getFirstColumn(final ResultSet rs, final Calendar cal) throws SQLException {
+					return generated.getFirstColumn(rs, cal);
+				}
+
+				@Override
+				public Object toObject(final ResultSet rs, final Calendar cal) throws SQLException {
+					return generated.toObject(rs, cal);
+				}
+			});
+		}
+		testLoops(rsm);
+	}
+}
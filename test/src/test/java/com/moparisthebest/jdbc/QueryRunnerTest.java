@@ -7,6 +7,12 @@ import org.junit.Test;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.moparisthebest.jdbc.QueryMapperTest.*;
 import static com.moparisthebest.jdbc.codegen.QueryMapperQmDao.*;
@@ -35,7 +41,7 @@ public class QueryRunnerTest {
 			public Person run(final QueryMapper qm) throws SQLException {
 				if(++failCount[0] < 5) {
 					//System.out.println("fake fail");
-					throw new SQLException("fake 50% failure rate");
+					throw new SQLException("fake 50% failure rate", "40001");
 				}
 				return qm.toObject(query, expected.getClass(), expected.getPersonNo());
 			}
@@ -51,6 +57,255 @@ public class QueryRunnerTest {
 		Assert.assertEquals(expected, actual);
 	}
 
+	private static int countAttempts(final QueryRunner<QueryMapper> qr, final SQLException toThrow) throws Throwable {
+		final int[] attempts = new int[]{0};
+		try {
+			qr.runRetryFuture(new QueryRunner.Runner<QueryMapper, Person>() {
+				@Override
+				public Person run(final QueryMapper qm) throws SQLException {
+					++attempts[0];
+					throw toThrow;
+				}
+			}).get();
+			Assert.fail("should have thrown");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof SQLException);
+		}
+		return attempts[0];
+	}
+
+	@Test
+	public void testRetryClassifier() throws Throwable {
+		// syntax errors and such are not retried
+		Assert.assertEquals(1, countAttempts(qr, new SQLException("fake syntax error", "42000")));
+		Assert.assertEquals(1, countAttempts(qr, new SQLException("fake no SQLState")));
+		// connection errors are
+		Assert.assertEquals(3, countAttempts(qr.withRetryCount(2), new SQLException("fake connection error", "08006")));
+		Assert.assertEquals(3, countAttempts(qr.withRetryCount(2).withRetryClassifier(QueryRunner.retryAll()), new SQLException("fake no SQLState")));
+	}
+
+	@Test
+	public void testCircuitBreaker() throws Throwable {
+		final QueryRunner<QueryMapper> breakerQr = qr.withRetryCount(5).withCircuitBreaker(new QueryRunner.CircuitBreaker(3, 60000));
+		// opens after 3 in a row, then the rest fail fast
+		Assert.assertEquals(3, countAttempts(breakerQr, new SQLException("fake connection error", "08006")));
+		Assert.assertTrue(breakerQr.getCircuitBreaker().isOpen());
+		Assert.assertEquals(0, countAttempts(breakerQr, new SQLException("fake connection error", "08006")));
+		// and once openMillis is up a single success closes it
+		final QueryRunner<QueryMapper> shortBreakerQr = qr.withRetryCount(0).withCircuitBreaker(new QueryRunner.CircuitBreaker(1, 0));
+		Assert.assertEquals(1, countAttempts(shortBreakerQr, new SQLException("fake connection error", "08006")));
+		Assert.assertTrue(shortBreakerQr.getCircuitBreaker().isOpen());
+		Assert.assertEquals(fieldPerson1, shortBreakerQr.runRetryFuture(new QueryRunner.Runner<QueryMapper, Person>() {
+			@Override
+			public Person run(final QueryMapper qm) throws SQLException {
+				return qm.toObject(personRegular, fieldPerson1.getClass(), fieldPerson1.getPersonNo());
+			}
+		}).get());
+		Assert.assertFalse(shortBreakerQr.getCircuitBreaker().isOpen());
+	}
+
+	@Test
+	public void testCircuitBreakerInconclusive() throws Throwable {
+		final QueryRunner.ConcurrencyLimiter limiter = new QueryRunner.ConcurrencyLimiter(1, 1, 1, 0, 0);
+		final QueryRunner<QueryMapper> breakerQr = qr.withRetryCount(0).withCircuitBreaker(new QueryRunner.CircuitBreaker(2, 60000))
+				.withConcurrencyLimiter(limiter);
+		Assert.assertEquals(1, countAttempts(breakerQr, new SQLException("fake connection error", "08006")));
+		// a RuntimeException from our own code does not count as the database answering
+		try {
+			breakerQr.runRetry(new QueryRunner.Runner<QueryMapper, Person>() {
+				@Override
+				public Person run(final QueryMapper qm) throws SQLException {
+					throw new IllegalStateException("fake bug");
+				}
+			});
+			Assert.fail("should have thrown");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		// neither does being shed by the limiter
+		limiter.acquire();
+		try {
+			Assert.assertEquals(0, countAttempts(breakerQr, new SQLException("fake connection error", "08006")));
+		} finally {
+			limiter.release(0, false);
+		}
+		Assert.assertFalse(breakerQr.getCircuitBreaker().isOpen());
+		// so this is the second failure in a row
+		Assert.assertEquals(1, countAttempts(breakerQr, new SQLException("fake connection error", "08006")));
+		Assert.assertTrue(breakerQr.getCircuitBreaker().isOpen());
+
+		// an inconclusive trial neither closes the breaker nor keeps it from letting the next trial through
+		final QueryRunner<QueryMapper> shortBreakerQr = qr.withRetryCount(0).withCircuitBreaker(new QueryRunner.CircuitBreaker(1, 0));
+		Assert.assertEquals(1, countAttempts(shortBreakerQr, new SQLException("fake connection error", "08006")));
+		try {
+			shortBreakerQr.runRetry(new QueryRunner.Runner<QueryMapper, Person>() {
+				@Override
+				public Person run(final QueryMapper qm) throws SQLException {
+					throw new IllegalStateException("fake bug");
+				}
+			});
+			Assert.fail("should have thrown");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		Assert.assertTrue(shortBreakerQr.getCircuitBreaker().isOpen());
+		// a non-retryable error means the database answered
+		Assert.assertEquals(1, countAttempts(shortBreakerQr, new SQLException("fake syntax error", "42000")));
+		Assert.assertFalse(shortBreakerQr.getCircuitBreaker().isOpen());
+	}
+
+	@Test
+	public void testConcurrencyLimiter() throws Throwable {
+		final QueryRunner.ConcurrencyLimiter limiter = new QueryRunner.ConcurrencyLimiter(2, 1, 4, 0, 0);
+		limiter.acquire();
+		limiter.acquire();
+		try {
+			limiter.acquire();
+			Assert.fail("should have thrown");
+		} catch (QueryRunner.ConcurrencyLimitExceededException e) {
+			// expected, no queue
+		}
+		// multiplicative decrease on failure
+		limiter.release(1000, true);
+		Assert.assertEquals(1, limiter.getLimit());
+		Assert.assertEquals(1, limiter.getInFlight());
+		// additive increase while saturated
+		limiter.release(1000, false);
+		for (int x = 0; x < 20; ++x) {
+			final int limit = limiter.getLimit();
+			for (int y = 0; y < limit; ++y)
+				limiter.acquire();
+			for (int y = 0; y < limit; ++y)
+				limiter.release(1000, false);
+		}
+		Assert.assertEquals(4, limiter.getLimit());
+		Assert.assertEquals(0, limiter.getInFlight());
+		Assert.assertEquals(0, limiter.getQueueDepth());
+	}
+
+	@Test
+	public void testConcurrencyLimiterLatency() throws Throwable {
+		final QueryRunner.ConcurrencyLimiter limiter = new QueryRunner.ConcurrencyLimiter(8, 1, 8, 0, 0);
+		// settle the long term average at 1ms
+		for (int x = 0; x < 50; ++x) {
+			limiter.acquire();
+			limiter.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+		}
+		Assert.assertEquals(8, limiter.getLimit());
+		// then well over latencyTolerance times it, without a single failure
+		for (int x = 0; x < 5; ++x) {
+			limiter.acquire();
+			limiter.release(TimeUnit.MILLISECONDS.toNanos(50), false);
+		}
+		final int limit = limiter.getLimit();
+		Assert.assertTrue("limit should have dropped below 8 but is " + limit, limit < 8);
+		Assert.assertTrue(limit >= 1);
+		Assert.assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testConcurrencyLimiterDoesNotHoldThreads() throws Throwable {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final QueryRunner<QueryMapper> limitedQr = qr.withExecutorService(executor)
+					.withConcurrencyLimiter(new QueryRunner.ConcurrencyLimiter(1, 1, 1, 1, 60000));
+			final CountDownLatch running = new CountDownLatch(1), finish = new CountDownLatch(1);
+			final QueryRunner.Runner<QueryMapper, Person> blocked = new QueryRunner.Runner<QueryMapper, Person>() {
+				@Override
+				public Person run(final QueryMapper qm) throws SQLException {
+					running.countDown();
+					try {
+						finish.await();
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+					return qm.toObject(personRegular, fieldPerson1.getClass(), fieldPerson1.getPersonNo());
+				}
+			};
+			final Future<Person> first = limitedQr.runRetryFuture(blocked);
+			running.await();
+			final Future<Person> queued = limitedQr.runRetryFuture(new QueryRunner.Runner<QueryMapper, Person>() {
+				@Override
+				public Person run(final QueryMapper qm) throws SQLException {
+					return qm.toObject(personRegular, fieldPerson1.getClass(), fieldPerson1.getPersonNo());
+				}
+			});
+			try {
+				// the queued run must have given its thread back, so the pool's other thread is free
+				final CountDownLatch ran = new CountDownLatch(1);
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						ran.countDown();
+					}
+				});
+				Assert.assertTrue("queued run is holding an executor thread", ran.await(10, TimeUnit.SECONDS));
+				Assert.assertEquals(1, limitedQr.getConcurrencyLimiter().getQueueDepth());
+			} finally {
+				finish.countDown();
+			}
+			Assert.assertEquals(fieldPerson1, first.get());
+			Assert.assertEquals(fieldPerson1, queued.get());
+			Assert.assertEquals(0, limitedQr.getConcurrencyLimiter().getInFlight());
+			Assert.assertEquals(0, limitedQr.getConcurrencyLimiter().getQueueDepth());
+
+			// and a queued run that waits too long is rejected
+			final QueryRunner<QueryMapper> shortQr = limitedQr.withConcurrencyLimiter(new QueryRunner.ConcurrencyLimiter(1, 1, 1, 1, 50));
+			shortQr.getConcurrencyLimiter().acquire();
+			try {
+				shortQr.runRetryFuture(blocked).get();
+				Assert.fail("should have thrown");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof QueryRunner.ConcurrencyLimitExceededException);
+			} finally {
+				shortQr.getConcurrencyLimiter().cancel();
+			}
+			Assert.assertEquals(0, shortQr.getConcurrencyLimiter().getInFlight());
+			Assert.assertEquals(0, shortQr.getConcurrencyLimiter().getQueueDepth());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testConcurrencyLimiterRejects() throws Throwable {
+		final QueryRunner<QueryMapper> limitedQr = qr.withConcurrencyLimiter(new QueryRunner.ConcurrencyLimiter(1, 1, 1, 0, 0));
+		final CountDownLatch running = new CountDownLatch(1), finish = new CountDownLatch(1);
+		final Future<Person> future = limitedQr.runRetryFuture(new QueryRunner.Runner<QueryMapper, Person>() {
+			@Override
+			public Person run(final QueryMapper qm) throws SQLException {
+				running.countDown();
+				try {
+					finish.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				return qm.toObject(personRegular, fieldPerson1.getClass(), fieldPerson1.getPersonNo());
+			}
+		});
+		running.await();
+		try {
+			Assert.assertEquals(1, limitedQr.getConcurrencyLimiter().getInFlight());
+			// over the limit with no queue is shed right away, and not retried
+			Assert.assertEquals(0, countAttempts(limitedQr, new SQLException("fake connection error", "08006")));
+			try {
+				limitedQr.run(new QueryRunner.Runner<QueryMapper, Person>() {
+					@Override
+					public Person run(final QueryMapper qm) throws SQLException {
+						throw new SQLException("should not run");
+					}
+				});
+				Assert.fail("should have thrown");
+			} catch (QueryRunner.ConcurrencyLimitExceededException e) {
+				// expected
+			}
+		} finally {
+			finish.countDown();
+		}
+		Assert.assertEquals(fieldPerson1, future.get());
+		Assert.assertEquals(0, limitedQr.getConcurrencyLimiter().getInFlight());
+	}
+
 	@Test
 	public void testFieldRegularPerson() throws Throwable {
 		testPerson(fieldPerson1, personRegular);
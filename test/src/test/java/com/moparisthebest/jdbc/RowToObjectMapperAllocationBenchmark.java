@@ -0,0 +1,105 @@
+package com.moparisthebest.jdbc;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+
+/**
+ * Measures bytes allocated per row when RowToObjectMapper maps a 40 column numeric DTO, run main() with the test
+ * classpath, optionally passing the number of rows:
+ * <p>
+ * java -cp target/test-classes:target/classes:../querymapper/target/classes:../common/target/classes com.moparisthebest.jdbc.RowToObjectMapperAllocationBenchmark 2000000
+ * <p>
+ * The ResultSet is a stub that returns the same pre-boxed values, its own allocation (the Proxy argument arrays) is
+ * measured by reading the same columns without mapping and subtracted. What's left is the DTO itself plus whatever the
+ * mapper allocates per column.
+ */
+public class RowToObjectMapperAllocationBenchmark {
+
+	public static class NumericDto {
+		public int i0, i1, i2, i3, i4, i5, i6, i7, i8, i9;
+		public long l0, l1, l2, l3, l4, l5, l6, l7, l8, l9;
+		public double d0, d1, d2, d3, d4, d5, d6, d7, d8, d9;
+		public Integer o0, o1, o2, o3, o4, o5, o6, o7, o8, o9;
+	}
+
+	private static final String[] prefixes = {"I", "L", "D", "O"};
+	private static final int columns = prefixes.length * 10;
+
+	public static void main(final String[] args) throws Exception {
+		final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long thread = Thread.currentThread().getId();
+
+		final String[] keys = new String[columns + 1];
+		for (int p = 0, i = 1; p < prefixes.length; ++p)
+			for (int x = 0; x < 10; ++x, ++i)
+				keys[i] = prefixes[p] + x;
+		final ResultSet rs = stubResultSet();
+		final RowToObjectMapper<Object, NumericDto> mapper = new RowToObjectMapper<Object, NumericDto>(keys, rs, NumericDto.class, null, null, null, false);
+
+		// warm up both so the JIT has settled before measuring
+		long sink = 0;
+		for (int x = 0; x < 200000; ++x) {
+			sink += readOnly(rs);
+			sink += mapper.mapRowToReturnType().i0;
+		}
+
+		long start = threads.getThreadAllocatedBytes(thread);
+		for (int x = 0; x < rows; ++x)
+			sink += readOnly(rs);
+		final long stubBytes = threads.getThreadAllocatedBytes(thread) - start;
+
+		start = threads.getThreadAllocatedBytes(thread);
+		for (int x = 0; x < rows; ++x)
+			sink += mapper.mapRowToReturnType().i0;
+		final long mapBytes = threads.getThreadAllocatedBytes(thread) - start;
+
+		System.out.printf("rows: %d, stub bytes/row: %d, mapper bytes/row: %d (sink %d)%n",
+				rows, stubBytes / rows, (mapBytes - stubBytes) / rows, sink);
+	}
+
+	/**
+	 * reads each column the way RowToObjectMapper does, without mapping anything
+	 */
+	private static long readOnly(final ResultSet rs) throws Exception {
+		long ret = 0;
+		int i = 1;
+		for (int x = 0; x < 10; ++x, ++i)
+			ret += rs.getInt(i);
+		for (int x = 0; x < 10; ++x, ++i)
+			ret += rs.getLong(i);
+		for (int x = 0; x < 10; ++x, ++i)
+			ret += (long) rs.getDouble(i);
+		for (int x = 0; x < 10; ++x, ++i) {
+			ret += rs.getInt(i);
+			if (rs.wasNull())
+				++ret;
+		}
+		return ret;
+	}
+
+	private static ResultSet stubResultSet() {
+		// outside the Integer cache, like most real ids and amounts
+		final Integer intVal = 123456;
+		final Long longVal = 1234567890123L;
+		final Double doubleVal = 1234.5;
+		return (ResultSet) Proxy.newProxyInstance(RowToObjectMapperAllocationBenchmark.class.getClassLoader(), new Class<?>[]{ResultSet.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) {
+				final String name = method.getName();
+				if (name.equals("getInt"))
+					return intVal;
+				if (name.equals("getLong"))
+					return longVal;
+				if (name.equals("getDouble"))
+					return doubleVal;
+				if (name.equals("wasNull"))
+					return Boolean.FALSE;
+				throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+}
@@ -0,0 +1,174 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.dto.FieldPerson;
+import com.moparisthebest.jdbc.util.SegmentedLruCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Calendar;
+import java.util.Map;
+
+import static com.moparisthebest.jdbc.QueryMapperTest.fieldPerson1;
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+import static com.moparisthebest.jdbc.codegen.QueryMapperQmDao.personRegular;
+
+public class SqlCacheTest {
+
+	/**
+	 * Wraps a Connection, its PreparedStatements and their ResultSets, counting ResultSet.getMetaData calls
+	 */
+	private static class MetaDataCounter implements InvocationHandler {
+		private final Object delegate;
+		private final int[] reads;
+
+		private MetaDataCounter(final Object delegate, final int[] reads) {
+			this.delegate = delegate;
+			this.reads = reads;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			if (method.getName().equals("getMetaData") && delegate instanceof ResultSet)
+				++reads[0];
+			final Object ret;
+			try {
+				ret = method.invoke(delegate, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (ret instanceof PreparedStatement)
+				return wrap(ret, PreparedStatement.class, reads);
+			if (ret instanceof ResultSet)
+				return wrap(ret, ResultSet.class, reads);
+			return ret;
+		}
+
+		private static <T> T wrap(final Object delegate, final Class<T> iface, final int[] reads) {
+			return iface.cast(Proxy.newProxyInstance(SqlCacheTest.class.getClassLoader(), new Class<?>[]{iface}, new MetaDataCounter(delegate, reads)));
+		}
+	}
+
+	private final int[] reads = new int[1];
+
+	private Connection getConnection() throws SQLException {
+		return MetaDataCounter.wrap(QueryMapperTest.getConnection(), Connection.class, reads);
+	}
+
+	private void testMetaDataReadOnce(final QueryMapper qm) throws SQLException {
+		try {
+			Assert.assertEquals(fieldPerson1, qm.toObject(personRegular, FieldPerson.class, fieldPerson1.getPersonNo()));
+			final int first = reads[0];
+			Assert.assertTrue(first > 0);
+			Assert.assertEquals(fieldPerson1, qm.toObject(personRegular, FieldPerson.class, fieldPerson1.getPersonNo()));
+			Assert.assertEquals(first, reads[0]);
+			// different return type, read again
+			Assert.assertNotNull(qm.toObject(personRegular, Map.class, fieldPerson1.getPersonNo()));
+			Assert.assertTrue(reads[0] > first);
+		} finally {
+			tryClose(qm);
+		}
+	}
+
+	/**
+	 * @param rsm        used with a QueryMapper
+	 * @param cachingRsm a new one of the same, used with a CachingQueryMapper
+	 */
+	private void testMetaDataReadOnce(final ResultSetMapper rsm, final ResultSetMapper cachingRsm) throws SQLException {
+		Assert.assertTrue(rsm.cachesBySql());
+		testMetaDataReadOnce(new QueryMapper(getConnection(), rsm));
+		reads[0] = 0;
+		testMetaDataReadOnce(new CachingQueryMapper(getConnection(), cachingRsm));
+	}
+
+	@Test
+	public void testCaching() throws SQLException {
+		testMetaDataReadOnce(new CachingResultSetMapper(), new CachingResultSetMapper());
+	}
+
+	@Test
+	public void testCompiling() throws SQLException {
+		testMetaDataReadOnce(new CompilingResultSetMapper(new CompilingRowToObjectMapper.Cache(true)), new CompilingResultSetMapper(new CompilingRowToObjectMapper.Cache(true)));
+	}
+
+	@Test
+	public void testBytecode() throws SQLException {
+		testMetaDataReadOnce(new BytecodeResultSetMapper(new CompilingRowToObjectMapper.Cache(true)), new BytecodeResultSetMapper(new CompilingRowToObjectMapper.Cache(true)));
+	}
+
+	@Test
+	public void testTiered() throws SQLException {
+		testMetaDataReadOnce(new TieredCompilingResultSetMapper(), new TieredCompilingResultSetMapper());
+	}
+
+	@Test
+	public void testMaxEntries() throws SQLException {
+		final CachingResultSetMapper rsm = new CachingResultSetMapper(null, -1, 4);
+		Assert.assertTrue(rsm.cache instanceof SegmentedLruCache);
+		testMetaDataReadOnce(new QueryMapper(getConnection(), rsm));
+		Assert.assertTrue(((SegmentedLruCache<?, ?>) rsm.cache).getHitCount() > 0);
+		// unlimited stays a plain map
+		Assert.assertFalse(new CachingResultSetMapper(null, -1, 0).cache instanceof SegmentedLruCache);
+	}
+
+	@Test
+	public void testSchema() throws SQLException {
+		final ResultSetMapper rsm = new CachingResultSetMapper();
+		final Connection conn = getConnection();
+		Assert.assertEquals(fieldPerson1, map(conn, rsm.forSql(personRegular, "one")));
+		final int first = reads[0];
+		Assert.assertEquals(fieldPerson1, map(conn, rsm.forSql(personRegular, "one")));
+		Assert.assertEquals(first, reads[0]);
+		// same SQL against another schema can mean different columns
+		Assert.assertEquals(fieldPerson1, map(conn, rsm.forSql(personRegular, "two")));
+		Assert.assertTrue(reads[0] > first);
+	}
+
+	private static FieldPerson map(final Connection conn, final ResultSetMapper rsm) throws SQLException {
+		PreparedStatement ps = null;
+		try {
+			ps = conn.prepareStatement(personRegular);
+			ps.setLong(1, fieldPerson1.getPersonNo());
+			return rsm.toObject(ps.executeQuery(), FieldPerson.class);
+		} finally {
+			tryClose(ps);
+		}
+	}
+
+	@Test
+	public void testSubclasses() throws SQLException {
+		Assert.assertFalse(new ResultSetMapper().cachesBySql());
+		// only overrides the ResultSet version, which must keep being called
+		Assert.assertFalse(new CachingResultSetMapper() {
+			@Override
+			public <K, T> RowMapper<K, T> getRowMapper(final ResultSet resultSet, final Class<T> returnTypeClass, final Calendar cal, final Class<?> mapValType, final Class<K> mapKeyType) {
+				return super.getRowMapper(resultSet, returnTypeClass, cal, mapValType, mapKeyType);
+			}
+		}.cachesBySql());
+
+		final int[] cleaned = new int[1];
+		final ResultSetMapper rsm = new CleaningCachingResultSetMapper<FieldPerson>(new Cleaner<FieldPerson>() {
+			@Override
+			public <E extends FieldPerson> E clean(final E dto) {
+				++cleaned[0];
+				return dto;
+			}
+		});
+		Assert.assertTrue(rsm.cachesBySql());
+		final QueryMapper qm = new QueryMapper(getConnection(), rsm);
+		try {
+			Assert.assertEquals(fieldPerson1, qm.toObject(personRegular, FieldPerson.class, fieldPerson1.getPersonNo()));
+			Assert.assertEquals(fieldPerson1, qm.toObject(personRegular, FieldPerson.class, fieldPerson1.getPersonNo()));
+			Assert.assertEquals(2, cleaned[0]);
+		} finally {
+			tryClose(qm);
+		}
+	}
+}
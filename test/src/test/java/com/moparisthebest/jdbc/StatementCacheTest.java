@@ -0,0 +1,133 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.codegen.JdbcMapperFactory;
+import com.moparisthebest.jdbc.codegen.SharedStatementCacheDao;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static com.moparisthebest.jdbc.QueryMapperTest.fieldPerson1;
+import static com.moparisthebest.jdbc.QueryMapperTest.getConnection;
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StatementCacheTest {
+
+	private static final String sql = "SELECT first_name FROM person WHERE person_no = ?";
+
+	@Test
+	public void testSharedStatementCacheDao() throws Throwable {
+		final Connection conn = getConnection();
+		try {
+			final SharedStatementCacheDao first = JdbcMapperFactory.create(SharedStatementCacheDao.class, conn);
+			try {
+				assertEquals(fieldPerson1.getFirstName(), first.getFirstName(fieldPerson1.getPersonNo()));
+				assertEquals(fieldPerson1.getLastName(), first.getLastName(fieldPerson1.getPersonNo()));
+			} finally {
+				first.close();
+			}
+			// given back instead of closed
+			assertEquals(2, StatementCache.shared.size(conn));
+
+			final SharedStatementCacheDao second = JdbcMapperFactory.create(SharedStatementCacheDao.class, conn);
+			try {
+				assertEquals(fieldPerson1.getFirstName(), second.getFirstName(fieldPerson1.getPersonNo()));
+				// leased to second
+				assertEquals(1, StatementCache.shared.size(conn));
+			} finally {
+				second.close();
+			}
+			assertEquals(2, StatementCache.shared.size(conn));
+		} finally {
+			StatementCache.shared.close(conn);
+			tryClose(conn);
+		}
+	}
+
+	@Test
+	public void testReleaseResets() throws SQLException {
+		final StatementCache statementCache = new StatementCache(2);
+		final Connection conn = getConnection();
+		try {
+			PreparedStatement ps = statementCache.prepareStatement(conn, sql);
+			final int fetchSize = ps.getFetchSize(), maxRows = ps.getMaxRows();
+			ps.setFetchSize(fetchSize + 7);
+			ps.setMaxRows(maxRows + 1);
+			statementCache.release(conn, ps);
+
+			final PreparedStatement cached = statementCache.prepareStatement(conn, sql);
+			assertTrue(ps == cached);
+			assertEquals(fetchSize, cached.getFetchSize());
+			assertEquals(maxRows, cached.getMaxRows());
+			statementCache.release(conn, cached);
+		} finally {
+			statementCache.close(conn);
+			tryClose(conn);
+		}
+	}
+
+	@Test
+	public void testCloseWhileLeased() throws SQLException {
+		final StatementCache statementCache = new StatementCache(2);
+		final Connection conn = getConnection();
+		try {
+			final PreparedStatement ps = statementCache.prepareStatement(conn, sql);
+			statementCache.close(conn);
+			// given back after its connection's statements were closed, so closed instead of cached
+			statementCache.release(conn, ps);
+			assertTrue(ps.isClosed());
+			assertEquals(0, statementCache.size(conn));
+			// and a new one is leased from a fresh set
+			final PreparedStatement next = statementCache.prepareStatement(conn, sql);
+			assertFalse(next.isClosed());
+			statementCache.release(conn, next);
+			assertEquals(1, statementCache.size(conn));
+		} finally {
+			statementCache.close(conn);
+			tryClose(conn);
+		}
+	}
+
+	@Test
+	public void testPurgeOnRelease() throws SQLException {
+		final StatementCache statementCache = new StatementCache(2);
+		final Connection conn = getConnection();
+		final PreparedStatement ps;
+		try {
+			statementCache.release(conn, statementCache.prepareStatement(conn, sql));
+			ps = statementCache.prepareStatement(conn, sql + " AND 1 = 1");
+			assertEquals(1, statementCache.connections());
+		} finally {
+			tryClose(conn);
+		}
+		// the pool closed the connection, then the mapper holding ps was closed
+		statementCache.release(conn, ps);
+		assertEquals(0, statementCache.connections());
+		assertTrue(ps.isClosed());
+	}
+
+	@Test
+	public void testPurgeOnClose() throws SQLException {
+		final StatementCache statementCache = new StatementCache(2, 1);
+		final Connection closed = getConnection(), open = getConnection();
+		try {
+			final PreparedStatement ps = statementCache.prepareStatement(closed, sql);
+			statementCache.release(closed, ps);
+			statementCache.release(open, statementCache.prepareStatement(open, sql));
+			assertEquals(2, statementCache.connections());
+			tryClose(closed);
+			// one stripe, so closing any connection purges every closed one
+			statementCache.close(open);
+			assertEquals(0, statementCache.connections());
+			assertTrue(ps.isClosed());
+			assertFalse(open.isClosed());
+		} finally {
+			tryClose(closed);
+			tryClose(open);
+		}
+	}
+}
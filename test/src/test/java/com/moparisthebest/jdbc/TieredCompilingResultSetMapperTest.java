@@ -0,0 +1,75 @@
+package com.moparisthebest.jdbc;
+
+import com.moparisthebest.jdbc.dto.FieldPerson;
+import com.moparisthebest.jdbc.dto.SetPerson;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static com.moparisthebest.jdbc.QueryMapperTest.fieldPerson1;
+import static com.moparisthebest.jdbc.QueryMapperTest.setPerson1;
+import static com.moparisthebest.jdbc.TryClose.tryClose;
+import static com.moparisthebest.jdbc.codegen.QueryMapperQmDao.personRegular;
+
+public class TieredCompilingResultSetMapperTest {
+
+	@Test
+	public void testHitsDroppedOnCompileAndFailure() throws Throwable {
+		final ConcurrentHashMap<CompilingRowToObjectMapper.ResultSetKey, CompilingRowToObjectMapper.ResultSetToObject<?, ?>> compiled =
+				new ConcurrentHashMap<CompilingRowToObjectMapper.ResultSetKey, CompilingRowToObjectMapper.ResultSetToObject<?, ?>>();
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		// no allowReflection, so FieldPerson's protected fields can't be compiled
+		final TieredCompilingResultSetMapper rsm = new TieredCompilingResultSetMapper(null, -1, new CompilingRowToObjectMapper.Cache(compiled), 1, executor, 16);
+		final QueryMapper qm = new QueryMapper(QueryMapperTest.getConnection(), rsm);
+		final List<LogRecord> logged = new ArrayList<LogRecord>();
+		final Handler handler = new Handler() {
+			@Override
+			public void publish(final LogRecord record) {
+				synchronized (logged) {
+					logged.add(record);
+				}
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		final Level level = TieredCompilingResultSetMapper.log.getLevel();
+		TieredCompilingResultSetMapper.log.setLevel(Level.FINE);
+		TieredCompilingResultSetMapper.log.addHandler(handler);
+		try {
+			Assert.assertEquals(setPerson1, qm.toObject(personRegular, SetPerson.class, setPerson1.getPersonNo()));
+			Assert.assertEquals(fieldPerson1, qm.toObject(personRegular, FieldPerson.class, fieldPerson1.getPersonNo()));
+			executor.shutdown();
+			Assert.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+			Assert.assertEquals(1, compiled.size());
+			Assert.assertEquals(1, rsm.failed.size());
+			Assert.assertTrue(rsm.hits.isEmpty());
+			// the failure's cause is logged, once
+			Assert.assertEquals(1, logged.size());
+			Assert.assertEquals(Level.FINE, logged.get(0).getLevel());
+			Assert.assertNotNull(logged.get(0).getThrown());
+			// failures stay on reflection without being counted again
+			Assert.assertEquals(fieldPerson1, qm.toObject(personRegular, FieldPerson.class, fieldPerson1.getPersonNo()));
+			Assert.assertEquals(setPerson1, qm.toObject(personRegular, SetPerson.class, setPerson1.getPersonNo()));
+			Assert.assertTrue(rsm.hits.isEmpty());
+		} finally {
+			TieredCompilingResultSetMapper.log.removeHandler(handler);
+			TieredCompilingResultSetMapper.log.setLevel(level);
+			tryClose(qm);
+		}
+	}
+}
@@ -1,14 +1,20 @@
 package com.moparisthebest.jdbc.codegen;
 
+import com.moparisthebest.jdbc.QueryMapper;
 import com.moparisthebest.jdbc.dto.*;
 import com.moparisthebest.jdbc.util.ResultSetIterable;
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 //IFJAVA8_START
@@ -21,6 +27,8 @@ import static com.moparisthebest.jdbc.QueryMapperTest.*;
 import static com.moparisthebest.jdbc.TryClose.tryClose;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by mopar on 5/24/17.
@@ -45,6 +53,11 @@ public class JdbcMapperTest {
 		assertEquals(fieldPerson1.getFirstName(), dao.getFirstName(fieldPerson1.getPersonNo()));
 	}
 
+	@Test
+	public void testNameDto() throws Throwable {
+		assertEquals(fieldPerson1.getFirstName(), dao.getFirstNameDto(fieldPerson1));
+	}
+
 	@Test
 	public void testList() throws SQLException {
 		final List<FieldPerson> fromDb = dao.getPeopleList(people[0].getPersonNo(), people[1].getPersonNo(), people[2].getPersonNo());
@@ -61,6 +74,24 @@ public class JdbcMapperTest {
 		assertArrayEquals(people, fromDb.toArray());
 	}
 
+	@Test
+	public void testResultSetIterableFetchSize() throws SQLException {
+		final Connection conn = dao.getConnection();
+		final boolean autoCommit = conn.getAutoCommit();
+		final ResultSetIterable<FieldPerson> rsi = dao.getPeopleResultSetIterableFetchSize(people[0].getPersonNo(), people[1].getPersonNo(), people[2].getPersonNo());
+		final List<FieldPerson> fromDb = new ArrayList<FieldPerson>();
+		try {
+			// a cursor needs auto-commit off until it is closed
+			assertFalse(conn.getAutoCommit());
+			for(final FieldPerson fieldPerson : rsi)
+				fromDb.add(fieldPerson);
+		} finally {
+			rsi.close();
+		}
+		assertEquals(autoCommit, conn.getAutoCommit());
+		assertArrayEquals(people, fromDb.toArray());
+	}
+
 	@Test
 	public void testResultSetIterableCachedPreparedStatement() throws SQLException {
 		final ResultSetIterable<FieldPerson> rsi = dao.getPeopleResultSetIterableCachedPreparedStatement(people[0].getPersonNo(), people[1].getPersonNo(), people[2].getPersonNo());
@@ -82,6 +113,31 @@ public class JdbcMapperTest {
 		assertArrayEquals(people, fromDb.toArray());
 	}
 
+	@Test
+	public void testStreamFetchSize() throws SQLException {
+		final Connection conn = dao.getConnection();
+		if(!conn.getAutoCommit())
+			return;
+		final List<FieldPerson> fromDb, fromRsi = new ArrayList<FieldPerson>();
+		// both have a fetchSize, so both turn auto-commit off until they are closed
+		final ResultSetIterable<FieldPerson> rsi = dao.getPeopleResultSetIterableFetchSize(people[0].getPersonNo(), people[1].getPersonNo(), people[2].getPersonNo());
+		try {
+			try(Stream<FieldPerson> stream = dao.getPeopleStreamFetchSize(people[0].getPersonNo(), people[1].getPersonNo(), people[2].getPersonNo());) {
+				assertFalse(conn.getAutoCommit());
+				fromDb = stream.collect(Collectors.toList());
+			}
+			// still off for the ResultSetIterable opened first
+			assertFalse(conn.getAutoCommit());
+			for(final FieldPerson fieldPerson : rsi)
+				fromRsi.add(fieldPerson);
+		} finally {
+			rsi.close();
+		}
+		assertTrue(conn.getAutoCommit());
+		assertArrayEquals(people, fromDb.toArray());
+		assertArrayEquals(people, fromRsi.toArray());
+	}
+
 	@Test
 	public void testStreamCachedPreparedStatement() throws SQLException {
 		final List<FieldPerson> fromDb;
@@ -233,4 +289,109 @@ public class JdbcMapperTest {
 		expected.put("last_name", fieldPerson1.getLastName());
 		assertEquals(expected, dao.getSinglePersonNameMap(fieldPerson1.getPersonNo()));
 	}
+
+	@Test
+	public void testBatch() throws SQLException {
+		final QueryMapper qm = new QueryMapper(dao.getConnection());
+		try {
+			qm.executeUpdate("CREATE TABLE person_batch (person_no NUMERIC, first_name VARCHAR(40), last_name VARCHAR(40))");
+			// 3 rows in batches of 2
+			final int[] counts = dao.insertPeopleBatch(Arrays.asList(people));
+			assertEquals(people.length, counts.length);
+			for (final int count : counts)
+				assertTrue(count == 1 || count == Statement.SUCCESS_NO_INFO);
+			final long[] personNos = new long[people.length];
+			final String[] firstNames = new String[people.length];
+			for (int x = 0; x < people.length; ++x) {
+				personNos[x] = people[x].getPersonNo() + 100;
+				firstNames[x] = people[x].getFirstName();
+			}
+			final long total = dao.insertPeopleBatch(personNos, firstNames, "Batch");
+			assertTrue(total == people.length || total == 0);
+			assertEquals(0, dao.insertPeopleBatch(new long[0], new String[0], "Batch"));
+			for (int x = 0; x < people.length; ++x) {
+				assertEquals(people[x].getLastName(), qm.toObject("SELECT last_name FROM person_batch WHERE person_no = ?", String.class, people[x].getPersonNo()));
+				assertEquals(people[x].getFirstName(), qm.toObject("SELECT first_name FROM person_batch WHERE person_no = ?", String.class, personNos[x]));
+				assertEquals("Batch", qm.toObject("SELECT last_name FROM person_batch WHERE person_no = ?", String.class, personNos[x]));
+			}
+		} finally {
+			try {
+				qm.executeUpdate("DROP TABLE person_batch");
+			} catch(Exception e) {
+				// ignore
+			}
+		}
+	}
+
+	@Test
+	public void testBatchCachedPreparedStatement() throws SQLException {
+		final QueryMapper qm = new QueryMapper(dao.getConnection());
+		try {
+			qm.executeUpdate("CREATE TABLE person_batch (person_no NUMERIC, first_name VARCHAR(40), last_name VARCHAR(40))");
+			final long[] personNos = new long[people.length];
+			final List<String> firstNames = new ArrayList<String>();
+			for (int x = 0; x < people.length; ++x) {
+				personNos[x] = people[x].getPersonNo();
+				firstNames.add(people[x].getFirstName());
+			}
+			try {
+				dao.insertPeopleBatchCached(personNos, firstNames.subList(1, people.length), "Batch");
+				Assert.fail("expected IllegalArgumentException with fewer firstNames than personNos");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			try {
+				dao.insertPeopleBatchCached(Arrays.copyOf(personNos, 1), firstNames, "Batch");
+				Assert.fail("expected IllegalArgumentException with more firstNames than personNos");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			// one row is added to the batch before this fails
+			final Iterable<String> failing = new Iterable<String>() {
+				@Override
+				public Iterator<String> iterator() {
+					return new Iterator<String>() {
+						private boolean first = true;
+
+						@Override
+						public boolean hasNext() {
+							return true;
+						}
+
+						@Override
+						public String next() {
+							if (!first)
+								throw new IllegalStateException("fail after the first row");
+							first = false;
+							return "Failing";
+						}
+
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+			};
+			try {
+				dao.insertPeopleBatchCached(personNos, failing, "Batch");
+				Assert.fail("expected IllegalStateException from the Iterator");
+			} catch (IllegalStateException e) {
+				// expected
+			}
+			assertEquals(0L, qm.toObject("SELECT COUNT(*) FROM person_batch", Long.class).longValue());
+			// nothing left over from the failures in the cached PreparedStatement's batch
+			final int total = dao.insertPeopleBatchCached(personNos, firstNames, "Batch");
+			assertTrue(total == people.length || total == 0);
+			assertEquals((long) people.length, qm.toObject("SELECT COUNT(*) FROM person_batch", Long.class).longValue());
+			for (int x = 0; x < people.length; ++x)
+				assertEquals(people[x].getFirstName(), qm.toObject("SELECT first_name FROM person_batch WHERE person_no = ?", String.class, personNos[x]));
+		} finally {
+			try {
+				qm.executeUpdate("DROP TABLE person_batch");
+			} catch(Exception e) {
+				// ignore
+			}
+		}
+	}
 }
@@ -31,7 +31,7 @@ public class PersonDAOQueryRunnerTest {
 			public Person run(final PersonDAO dao) throws SQLException {
 				if(++failCount[0] < 5) {
 					System.out.println("fake fail");
-					throw new SQLException("fake 50% failure rate");
+					throw new SQLException("fake 50% failure rate", "40001");
 				}
 				return dao.getPerson(fieldPerson1.getPersonNo());
 			}